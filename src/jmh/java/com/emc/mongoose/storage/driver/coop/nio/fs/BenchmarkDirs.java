@@ -0,0 +1,92 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataInput;
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.DataItemImpl;
+import com.emc.mongoose.base.item.op.OpType;
+import com.emc.mongoose.base.item.op.Operation;
+import com.emc.mongoose.base.item.op.data.DataOperation;
+import com.emc.mongoose.base.item.op.data.DataOperationImpl;
+
+import com.github.akurilov.commons.collection.Range;
+import com.github.akurilov.commons.system.SizeInBytes;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+The benchmarks' environment: the target directories and the test data. The "tmpfs" target is "/dev/shm" by default
+("jmh.fs.tmpfs.dir" system property), the "disk" target is the JVM temp dir by default ("jmh.fs.disk.dir" system
+property), any other target value is used as the directory path.
+*/
+final class BenchmarkDirs {
+
+	static final String TMPFS = "tmpfs";
+	static final String DISK = "disk";
+	static final String DATA_SEED = "7a42d9c483244167";
+	static final String LAYER_SIZE = "4MB";
+	static final int LAYER_CACHE_LIMIT = 16;
+
+	private BenchmarkDirs() {
+	}
+
+	static Path create(final String target)
+					throws IOException {
+		final Path parentDirPath;
+		switch (target) {
+		case TMPFS:
+			parentDirPath = Paths.get(System.getProperty("jmh.fs.tmpfs.dir", "/dev/shm"));
+			break;
+		case DISK:
+			parentDirPath = Paths.get(System.getProperty("jmh.fs.disk.dir", System.getProperty("java.io.tmpdir")));
+			break;
+		default:
+			parentDirPath = Paths.get(target);
+		}
+		return Files.createTempDirectory(parentDirPath, "mongoose-jmh-");
+	}
+
+	static void delete(final Path dirPath)
+					throws IOException {
+		if (dirPath != null) {
+			FileDeleter.deleteTree(dirPath, ForkJoinPool.commonPool());
+		}
+	}
+
+	static DataInput dataInput()
+					throws IOException {
+		return DataInput.instance(null, DATA_SEED, new SizeInBytes(LAYER_SIZE), LAYER_CACHE_LIMIT);
+	}
+
+	static DataItem item(final DataInput dataInput, final String name, final long size) {
+		final var item = new DataItemImpl(name, 0, size);
+		item.dataInput(dataInput);
+		return item;
+	}
+
+	static DataOperation<DataItem> op(
+					final OpType opType, final DataItem item, final String srcPath, final String dstPath,
+					final List<Range> fixedRanges, final int randomRangesCount) {
+		final var op = new DataOperationImpl<>(
+						0, opType, item, srcPath, dstPath, null, fixedRanges, randomRangesCount);
+		op.status(Operation.Status.ACTIVE);
+		return op;
+	}
+
+	/**
+	 Creates the file with the item's content.
+	 */
+	static void createFile(final Path filePath, final DataItem item, final int buffSize)
+					throws IOException {
+		try (final FileChannel channel = FileChannel.open(filePath, FsConstants.CREATE_OPEN_OPT)) {
+			final var op = op(OpType.CREATE, item, null, null, null, 0);
+			while (!FileIoHelper.invokeCreate(item, op, channel, buffSize)) ;
+		}
+		item.reset();
+	}
+}
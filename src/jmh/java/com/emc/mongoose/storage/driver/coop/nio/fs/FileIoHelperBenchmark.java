@@ -0,0 +1,119 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataInput;
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.op.OpType;
+
+import com.github.akurilov.commons.system.SizeInBytes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+The full file create, read, read with verification and copy throughput (operations per second).
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-XX:MaxDirectMemorySize=2g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class FileIoHelperBenchmark {
+
+	@Param({ BenchmarkDirs.TMPFS, BenchmarkDirs.DISK })
+	public String target;
+
+	@Param({ "4KB", "1MB", "32MB" })
+	public String size;
+
+	@Param({ "1MB" })
+	public String buffSize;
+
+	private Path dirPath;
+	private Path srcFilePath;
+	private Path dstFilePath;
+	private DataInput dataInput;
+	private DataItem item;
+	private int buffSizeValue;
+
+	@Setup(Level.Trial)
+	public void setUp()
+					throws Exception {
+		dirPath = BenchmarkDirs.create(target);
+		srcFilePath = dirPath.resolve("src");
+		dstFilePath = dirPath.resolve("dst");
+		dataInput = BenchmarkDirs.dataInput();
+		buffSizeValue = (int) SizeInBytes.toFixedSize(buffSize);
+		item = BenchmarkDirs.item(dataInput, srcFilePath.toString(), SizeInBytes.toFixedSize(size));
+		BenchmarkDirs.createFile(srcFilePath, item, buffSizeValue);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+					throws Exception {
+		dataInput.close();
+		BenchmarkDirs.delete(dirPath);
+	}
+
+	@Setup(Level.Invocation)
+	public void resetItem() {
+		item.reset();
+	}
+
+	@Benchmark
+	public long create()
+					throws Exception {
+		final var op = BenchmarkDirs.op(OpType.CREATE, item, null, dirPath.toString(), null, 0);
+		try (final FileChannel dstChannel = FileChannel.open(dstFilePath, FsConstants.CREATE_OPEN_OPT)) {
+			while (!FileIoHelper.invokeCreate(item, op, dstChannel, buffSizeValue)) ;
+		}
+		return op.countBytesDone();
+	}
+
+	@Benchmark
+	public long read()
+					throws Exception {
+		final var op = BenchmarkDirs.op(OpType.READ, item, dirPath.toString(), null, null, 0);
+		try (final FileChannel srcChannel = FileChannel.open(srcFilePath, FsConstants.READ_OPEN_OPT)) {
+			while (!FileIoHelper.invokeRead(item, op, srcChannel, buffSizeValue)) ;
+		}
+		return op.countBytesDone();
+	}
+
+	@Benchmark
+	public long readAndVerify()
+					throws Exception {
+		final var op = BenchmarkDirs.op(OpType.READ, item, dirPath.toString(), null, null, 0);
+		try (final FileChannel srcChannel = FileChannel.open(srcFilePath, FsConstants.READ_OPEN_OPT)) {
+			while (!FileIoHelper.invokeReadAndVerify(item, op, srcChannel, buffSizeValue)) ;
+		}
+		return op.countBytesDone();
+	}
+
+	@Benchmark
+	public long copy()
+					throws Exception {
+		final var op = BenchmarkDirs.op(OpType.CREATE, item, dirPath.toString(), dirPath.toString(), null, 0);
+		try (
+						final FileChannel srcChannel = FileChannel.open(srcFilePath, FsConstants.READ_OPEN_OPT);
+						final FileChannel dstChannel = FileChannel.open(dstFilePath, FsConstants.CREATE_OPEN_OPT)) {
+			while (!FileIoHelper.invokeCopy(item, op, srcChannel, dstChannel, buffSizeValue)) ;
+		}
+		return op.countBytesDone();
+	}
+}
@@ -0,0 +1,112 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.ItemFactory;
+import com.emc.mongoose.base.item.ItemFactoryImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+The time to list the directory with millions of the entries page by page using the cursor: w/o and with the cursor
+loss in the middle of the listing (the new cursor skips to the last listed item then). The stateless rescan is not
+measured here as it takes minutes per listing on such directories, see {@link ListingBenchmark} for the comparison.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class HugeDirListingBenchmark {
+
+	private static final String PREFIX = "item";
+
+	@Param({ BenchmarkDirs.TMPFS, BenchmarkDirs.DISK })
+	public String target;
+
+	@Param({ "1000000" })
+	public int dirSize;
+
+	@Param({ "1000" })
+	public int pageSize;
+
+	@Param({ "attrs" })
+	public String listingMode;
+
+	private final ItemFactory<DataItem> itemFactory = new ItemFactoryImpl<>();
+	private Path dirPath;
+
+	@Setup(Level.Trial)
+	public void setUp()
+					throws Exception {
+		dirPath = BenchmarkDirs.create(target);
+		for (int i = 0; i < dirSize; i++) {
+			Files.createFile(dirPath.resolve(PREFIX + Integer.toString(i, Character.MAX_RADIX)));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+					throws Exception {
+		BenchmarkDirs.delete(dirPath);
+	}
+
+	@Benchmark
+	public int listCursor()
+					throws Exception {
+		int count = 0;
+		try (
+						final ListingCursor cursor = new DirListingCursor(
+										dirPath.toString(), PREFIX, ListingMode.of(listingMode))) {
+			while (!cursor.exhausted()) {
+				count += cursor.next(itemFactory, Character.MAX_RADIX, pageSize).size();
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int listCursorLost()
+					throws Exception {
+		int count = 0;
+		DataItem lastItem = null;
+		try (
+						final ListingCursor cursor = new DirListingCursor(
+										dirPath.toString(), PREFIX, ListingMode.of(listingMode))) {
+			while (!cursor.exhausted() && count < dirSize / 2) {
+				final List<DataItem> page = cursor.next(itemFactory, Character.MAX_RADIX, pageSize);
+				if (!page.isEmpty()) {
+					lastItem = page.get(page.size() - 1);
+					count += page.size();
+				}
+			}
+		}
+		try (
+						final ListingCursor cursor = new DirListingCursor(
+										dirPath.toString(), PREFIX, ListingMode.of(listingMode))) {
+			if (cursor.skipTo(lastItem)) {
+				while (!cursor.exhausted()) {
+					count += cursor.next(itemFactory, Character.MAX_RADIX, pageSize).size();
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,100 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.ItemFactory;
+import com.emc.mongoose.base.item.ItemFactoryImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+The time to list the whole directory page by page: the stateless rescan ({@link ListingHelper#list}) vs the cursor
+kept between the pages.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class ListingBenchmark {
+
+	private static final String PREFIX = "item";
+
+	@Param({ BenchmarkDirs.TMPFS, BenchmarkDirs.DISK })
+	public String target;
+
+	@Param({ "1000", "100000" })
+	public int dirSize;
+
+	@Param({ "1000" })
+	public int pageSize;
+
+	@Param({ "attrs" })
+	public String listingMode;
+
+	private final ItemFactory<DataItem> itemFactory = new ItemFactoryImpl<>();
+	private Path dirPath;
+
+	@Setup(Level.Trial)
+	public void setUp()
+					throws Exception {
+		dirPath = BenchmarkDirs.create(target);
+		for (int i = 0; i < dirSize; i++) {
+			Files.createFile(dirPath.resolve(PREFIX + Integer.toString(i, Character.MAX_RADIX)));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+					throws Exception {
+		BenchmarkDirs.delete(dirPath);
+	}
+
+	@Benchmark
+	public int listRescan()
+					throws Exception {
+		int count = 0;
+		DataItem lastItem = null;
+		List<DataItem> page;
+		do {
+			page = ListingHelper.list(
+							itemFactory, dirPath.toString(), PREFIX, Character.MAX_RADIX, lastItem, pageSize);
+			if (!page.isEmpty()) {
+				lastItem = page.get(page.size() - 1);
+				count += page.size();
+			}
+		} while (page.size() == pageSize);
+		return count;
+	}
+
+	@Benchmark
+	public int listCursor()
+					throws Exception {
+		int count = 0;
+		try (
+						final ListingCursor cursor = new DirListingCursor(
+										dirPath.toString(), PREFIX, ListingMode.of(listingMode))) {
+			while (!cursor.exhausted()) {
+				count += cursor.next(itemFactory, Character.MAX_RADIX, pageSize).size();
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,132 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataInput;
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.op.OpType;
+
+import com.github.akurilov.commons.collection.Range;
+import com.github.akurilov.commons.system.SizeInBytes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+The random and fixed byte ranges read and update throughput (operations per second). The fixed ranges are spread
+evenly over the file, each range is the first half of its file part.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-XX:MaxDirectMemorySize=2g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RangeIoBenchmark {
+
+	@Param({ BenchmarkDirs.TMPFS, BenchmarkDirs.DISK })
+	public String target;
+
+	@Param({ "1MB", "32MB" })
+	public String size;
+
+	@Param({ "1", "4", "16" })
+	public int rangeCount;
+
+	@Param({ "1MB" })
+	public String buffSize;
+
+	private Path dirPath;
+	private Path filePath;
+	private DataInput dataInput;
+	private DataItem item;
+	private int buffSizeValue;
+	private List<Range> fixedRanges;
+	private long[] coalescedRanges;
+	private FileChannel readChannel;
+	private FileChannel writeChannel;
+
+	@Setup(Level.Trial)
+	public void setUp()
+					throws Exception {
+		dirPath = BenchmarkDirs.create(target);
+		filePath = dirPath.resolve("file");
+		dataInput = BenchmarkDirs.dataInput();
+		buffSizeValue = (int) SizeInBytes.toFixedSize(buffSize);
+		final long sizeValue = SizeInBytes.toFixedSize(size);
+		item = BenchmarkDirs.item(dataInput, filePath.toString(), sizeValue);
+		BenchmarkDirs.createFile(filePath, item, buffSizeValue);
+		fixedRanges = new ArrayList<>(rangeCount);
+		final long partSize = sizeValue / rangeCount;
+		for (int i = 0; i < rangeCount; i++) {
+			fixedRanges.add(new Range(i * partSize, i * partSize + partSize / 2 - 1, -1));
+		}
+		// the driver coalesces the operation's fixed ranges once
+		coalescedRanges = FileIoHelper.coalesceFixedRanges(fixedRanges, sizeValue);
+		readChannel = FileChannel.open(filePath, FsConstants.READ_OPEN_OPT);
+		writeChannel = FileChannel.open(filePath, FsConstants.WRITE_OPEN_OPT);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+					throws Exception {
+		readChannel.close();
+		writeChannel.close();
+		dataInput.close();
+		BenchmarkDirs.delete(dirPath);
+	}
+
+	@Setup(Level.Invocation)
+	public void resetItem() {
+		item.reset();
+	}
+
+	@Benchmark
+	public long readRandomRanges()
+					throws Exception {
+		final var op = BenchmarkDirs.op(OpType.READ, item, dirPath.toString(), null, null, rangeCount);
+		while (!FileIoHelper.invokeReadRandomRanges(
+						item, op, readChannel, op.markedRangesMaskPair(), buffSizeValue)) ;
+		return op.countBytesDone();
+	}
+
+	@Benchmark
+	public long readFixedRanges()
+					throws Exception {
+		final var op = BenchmarkDirs.op(OpType.READ, item, dirPath.toString(), null, fixedRanges, 0);
+		while (!FileIoHelper.invokeReadFixedRanges(item, op, readChannel, coalescedRanges, buffSizeValue)) ;
+		return op.countBytesDone();
+	}
+
+	@Benchmark
+	public long updateRandomRanges()
+					throws Exception {
+		final var op = BenchmarkDirs.op(OpType.UPDATE, item, null, dirPath.toString(), null, rangeCount);
+		while (!FileIoHelper.invokeRandomRangesUpdate(item, op, writeChannel, buffSizeValue)) ;
+		item.commitUpdatedRanges(op.markedRangesMaskPair());
+		return op.countBytesDone();
+	}
+
+	@Benchmark
+	public long updateFixedRanges()
+					throws Exception {
+		final var op = BenchmarkDirs.op(OpType.UPDATE, item, null, dirPath.toString(), fixedRanges, 0);
+		while (!FileIoHelper.invokeFixedRangesUpdate(item, op, writeChannel, coalescedRanges, buffSizeValue)) ;
+		return op.countBytesDone();
+	}
+}
@@ -0,0 +1,52 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+The pool of the direct buffers which addresses and capacities are aligned to the given block size, as required by the
+direct I/O. The buffers are pooled per alignment, so the count of the pooled buffers is limited by the count of the
+threads using them concurrently.
+*/
+public final class AlignedBufferPool {
+
+	private final int buffSize;
+	private final Map<Integer, Queue<ByteBuffer>> buffsByAlignment = new ConcurrentHashMap<>();
+
+	/**
+	 @param buffSize the buffer capacity, rounded up to the alignment
+	 */
+	public AlignedBufferPool(final int buffSize) {
+		this.buffSize = buffSize;
+	}
+
+	public final ByteBuffer borrow(final int alignment) {
+		final var buff = buffsByAlignment
+						.computeIfAbsent(alignment, a -> new ConcurrentLinkedQueue<>())
+						.poll();
+		if (buff == null) {
+			final var capacity = alignUp(buffSize, alignment);
+			return ByteBuffer.allocateDirect(capacity + alignment).alignedSlice(alignment);
+		}
+		return buff.clear();
+	}
+
+	public final void release(final ByteBuffer buff, final int alignment) {
+		buffsByAlignment.get(alignment).offer(buff);
+	}
+
+	public static int alignUp(final int size, final int alignment) {
+		return (size + alignment - 1) / alignment * alignment;
+	}
+
+	public static long alignUp(final long size, final int alignment) {
+		return (size + alignment - 1) / alignment * alignment;
+	}
+
+	public static long alignDown(final long offset, final int alignment) {
+		return offset - offset % alignment;
+	}
+}
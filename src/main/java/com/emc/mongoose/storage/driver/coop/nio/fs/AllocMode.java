@@ -0,0 +1,84 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+
+/**
+The space allocation mode for the files being created. The JDK doesn't expose the fallocate call, so the space is
+preallocated by writing the zeros over the file size, then the content is written over the allocated extents. The
+zeros are written by the bounded parts, so the large file may be allocated across several invocations of its
+operation instead of blocking the I/O worker thread for the whole file size.
+The sparse mode only sets the file length leaving the content as a hole ({@link RandomAccessFile#setLength(long)}).
+The other file system providers have no such call, so the last byte is written there.
+*/
+public enum AllocMode {
+
+	NONE, PREALLOC, SPARSE;
+
+	private static final int ZERO_BUFF_SIZE = 0x10_00_00;
+	private static final ByteBuffer ZERO_BUFF = ByteBuffer.allocateDirect(ZERO_BUFF_SIZE).asReadOnlyBuffer();
+
+	public static AllocMode of(final String name) {
+		for (final var mode : values()) {
+			if (mode.name().equalsIgnoreCase(name)) {
+				return mode;
+			}
+		}
+		throw new IllegalArgumentException("Unknown allocation mode: \"" + name + "\"");
+	}
+
+	/**
+	 Allocates the space for the newly created file at once. Doesn't change the channel position.
+	 @param path the path of the file just created
+	 @param channel the channel of the file just created (empty)
+	 @param size the expected file size
+	 */
+	public final void allocate(final Path path, final FileChannel channel, final long size)
+					throws IOException {
+		while (!allocateNext(path, channel, size)) {
+			// allocate the next part
+		}
+	}
+
+	/**
+	 Allocates the next part of the space for the newly created file, at most 1MB of the zeros is written per call.
+	 The allocated size is the file size, so the method may be invoked again until the content is written.
+	 Doesn't change the channel position.
+	 @param path the path of the file being created
+	 @param channel the channel of the file being created
+	 @param size the expected file size
+	 @return true if the space is allocated for the whole size, false if the method should be invoked again
+	 */
+	public final boolean allocateNext(final Path path, final FileChannel channel, final long size)
+					throws IOException {
+		switch (this) {
+		case PREALLOC:
+			final long pos = channel.size();
+			if (pos >= size) {
+				return true;
+			}
+			final var zeros = ZERO_BUFF.duplicate();
+			if (size - pos < ZERO_BUFF_SIZE) {
+				zeros.limit((int) (size - pos));
+			}
+			return pos + channel.write(zeros, pos) >= size;
+		case SPARSE:
+			if (channel.size() < size) {
+				if (FileSystems.getDefault().equals(path.getFileSystem())) {
+					try (final var file = new RandomAccessFile(path.toFile(), "rw")) {
+						file.setLength(size);
+					}
+				} else {
+					channel.write(ByteBuffer.allocate(1), size - 1);
+				}
+			}
+			return true;
+		default:
+			return true;
+		}
+	}
+}
@@ -0,0 +1,713 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataCorruptionException;
+import com.emc.mongoose.base.data.DataSizeException;
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.op.OpType;
+import com.emc.mongoose.base.item.op.Operation;
+import com.emc.mongoose.base.item.op.data.DataOperation;
+import com.emc.mongoose.base.logging.LogUtil;
+import com.emc.mongoose.base.logging.Loggers;
+
+import com.github.akurilov.commons.collection.Range;
+
+import org.apache.logging.log4j.Level;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.emc.mongoose.base.item.DataItem.rangeCount;
+import static com.emc.mongoose.base.item.DataItem.rangeOffset;
+
+/**
+The alternative I/O engine which performs the data operations using {@link AsynchronousFileChannel}. Each operation
+has at most one I/O in flight, the count of the I/Os in flight per driver is limited. The operation invocation only
+submits the next I/O and returns immediately, the operation is finished from the I/O completion handler.
+Mirrors the {@link FileIoHelper} logic for the create (w/o copy), read (incl. verification) and update paths.
+*/
+public final class AsyncFileIoEngine
+				implements Closeable {
+
+	private enum Mode {
+		CREATE, OVERWRITE, UPDATE_RANDOM_RANGES, UPDATE_FIXED_RANGES, READ, READ_RANDOM_RANGES, READ_FIXED_RANGES,
+		READ_VERIFY, READ_VERIFY_RANDOM_RANGES, READ_VERIFY_FIXED_RANGES,
+	}
+
+	private static final class OpState {
+
+		private final Path path;
+		private final AsynchronousFileChannel channel;
+		private final Mode mode;
+		private volatile boolean pending = false;
+		// the operation's I/O is done, waiting for the group sync
+		private volatile boolean syncing = false;
+		// the in-flight I/O context
+		private ByteBuffer buff;
+		private long pos;
+		private DataItem range;
+		private long rangeSize;
+		private int rangeIdx;
+
+		private OpState(final Path path, final AsynchronousFileChannel channel, final Mode mode) {
+			this.path = path;
+			this.channel = channel;
+			this.mode = mode;
+		}
+	}
+
+	private final boolean verifyFlag;
+	private final int buffSize;
+	private final Function<DataOperation, Path> itemPathFunc;
+	private final Consumer<DataOperation> finishFunc;
+	private final FileSyncer fileSyncer;
+	private final ExecutorService ioExecutor;
+	private final Semaphore ioPermits;
+	private final AtomicInteger pendingCount = new AtomicInteger(0);
+	private final Queue<ByteBuffer> buffPool = new ConcurrentLinkedQueue<>();
+	private final Map<DataOperation, OpState> opStates = new ConcurrentHashMap<>();
+	private final CompletionHandler<Integer, DataOperation> ioCompletionHandler = new CompletionHandler<>() {
+
+		@Override
+		public final void completed(final Integer n, final DataOperation op) {
+			handleCompleted(op, n);
+		}
+
+		@Override
+		public final void failed(final Throwable cause, final DataOperation op) {
+			handleFailed(op, cause);
+		}
+	};
+
+	/**
+	 @param outstandingIoLimit the max count of the I/Os in flight
+	 @param ioThreadCount the count of the threads executing the I/Os and the completion handlers, the I/Os in flight
+	 don't occupy the threads so it's not bound to the outstanding I/Os limit
+	 @param buffSize the max size of the single I/O
+	 @param verifyFlag verify the content being read if true
+	 @param itemPathFunc the function resolving the operation's target file path
+	 @param finishFunc the function invoked when the operation is done successfully
+	 @param fileSyncer the durability policy for the written files
+	 */
+	public AsyncFileIoEngine(
+					final int outstandingIoLimit, final int ioThreadCount, final int buffSize, final boolean verifyFlag,
+					final Function<DataOperation, Path> itemPathFunc, final Consumer<DataOperation> finishFunc,
+					final FileSyncer fileSyncer) {
+		this.verifyFlag = verifyFlag;
+		this.buffSize = buffSize;
+		this.itemPathFunc = itemPathFunc;
+		this.finishFunc = finishFunc;
+		this.fileSyncer = fileSyncer;
+		this.ioPermits = new Semaphore(outstandingIoLimit);
+		final var threadNum = new AtomicInteger(0);
+		this.ioExecutor = Executors.newFixedThreadPool(
+						ioThreadCount,
+						task -> {
+							final var t = new Thread(task, "fsAsyncIo" + threadNum.incrementAndGet());
+							t.setDaemon(true);
+							return t;
+						});
+	}
+
+	/**
+	 @return true if the operation may be executed by this engine
+	 */
+	public final boolean supports(final DataOperation<? extends DataItem> op) {
+		final var opType = op.type();
+		switch (opType) {
+		case CREATE:
+			final var srcPath = op.srcPath();
+			return srcPath == null || srcPath.isEmpty(); // copy is done by the sync engine
+		case READ:
+		case UPDATE:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	public final int pendingCount() {
+		return pendingCount.get();
+	}
+
+	/**
+	 Submits the next I/O for the given operation if there's no I/O in flight for it yet. Doesn't block.
+	 */
+	public final <I extends DataItem, O extends DataOperation<I>> void invoke(final O op) {
+		var state = opStates.get(op);
+		if (state == null) {
+			if (!Operation.Status.ACTIVE.equals(op.status())) {
+				return; // already finished from the completion handler
+			}
+			state = open(op);
+			if (state == null) {
+				return;
+			}
+			opStates.put(op, state);
+		}
+		if (state.pending || state.syncing || !ioPermits.tryAcquire()) {
+			return;
+		}
+		var buff = buffPool.poll();
+		if (buff == null) {
+			buff = ByteBuffer.allocateDirect(buffSize);
+		}
+		buff.clear();
+		state.buff = buff;
+		try {
+			if (prepare(op, state)) {
+				state.pending = true;
+				pendingCount.incrementAndGet();
+				switch (state.mode) {
+				case CREATE:
+				case OVERWRITE:
+				case UPDATE_RANDOM_RANGES:
+				case UPDATE_FIXED_RANGES:
+					state.channel.write(buff, state.pos, op, ioCompletionHandler);
+					break;
+				default:
+					state.channel.read(buff, state.pos, op, ioCompletionHandler);
+				}
+			} else {
+				releaseIo(state);
+				complete(op, state);
+			}
+		} catch (final Throwable cause) {
+			if (state.pending) {
+				state.pending = false;
+				pendingCount.decrementAndGet();
+			}
+			releaseIo(state);
+			fail(op, state, cause);
+		}
+	}
+
+	private OpState open(final DataOperation<? extends DataItem> op) {
+		final Mode mode;
+		final Set<OpenOption> openOpts;
+		final var opType = op.type();
+		if (OpType.CREATE.equals(opType)) {
+			mode = Mode.CREATE;
+			openOpts = fileSyncer.openOpts(FsConstants.CREATE_OPEN_OPT);
+		} else if (OpType.UPDATE.equals(opType)) {
+			final List<Range> fixedRanges = op.fixedRanges();
+			if (fixedRanges == null || fixedRanges.isEmpty()) {
+				mode = op.hasMarkedRanges() ? Mode.UPDATE_RANDOM_RANGES : Mode.OVERWRITE;
+			} else {
+				mode = Mode.UPDATE_FIXED_RANGES;
+			}
+			openOpts = fileSyncer.openOpts(FsConstants.WRITE_OPEN_OPT);
+		} else {
+			final List<Range> fixedRanges = op.fixedRanges();
+			if (fixedRanges == null || fixedRanges.isEmpty()) {
+				if (op.hasMarkedRanges()) {
+					mode = verifyFlag ? Mode.READ_VERIFY_RANDOM_RANGES : Mode.READ_RANDOM_RANGES;
+				} else {
+					mode = verifyFlag ? Mode.READ_VERIFY : Mode.READ;
+				}
+			} else {
+				mode = verifyFlag ? Mode.READ_VERIFY_FIXED_RANGES : Mode.READ_FIXED_RANGES;
+			}
+			openOpts = FsConstants.READ_OPEN_OPT;
+		}
+		final var itemPath = itemPathFunc.apply(op);
+		if (itemPath == null) {
+			return null; // the status should be already set
+		}
+		try {
+			return new OpState(
+							itemPath, FsConstants.FS_PROVIDER.newAsynchronousFileChannel(itemPath, openOpts, ioExecutor), mode);
+		} catch (final AccessDeniedException e) {
+			op.status(Operation.Status.RESP_FAIL_AUTH);
+			LogUtil.exception(Level.DEBUG, e, "Access denied to open the channel for the path \"{}\"", itemPath);
+		} catch (final IOException e) {
+			// incl. the missing file, the same status as the sync engine reports
+			op.status(Operation.Status.FAIL_IO);
+			LogUtil.exception(Level.DEBUG, e, "Failed to open the channel for the path \"{}\"", itemPath);
+		}
+		return null;
+	}
+
+	/**
+	 Prepares the next I/O context in the operation state.
+	 @return false if there's nothing to transfer anymore so the operation is done
+	 */
+	private boolean prepare(final DataOperation<? extends DataItem> op, final OpState state)
+					throws IOException {
+		final DataItem item = op.item();
+		final var buff = state.buff;
+		final long countBytesDone = op.countBytesDone();
+		switch (state.mode) {
+
+		case CREATE:
+		case OVERWRITE:
+			final long contentSize = item.size();
+			if (countBytesDone >= contentSize) {
+				return false;
+			}
+			state.pos = countBytesDone;
+			state.range = item;
+			fill(item, buff, contentSize - countBytesDone);
+			return true;
+
+		case READ:
+		case READ_VERIFY:
+			if (countBytesDone >= item.size()) {
+				return false;
+			}
+			state.pos = countBytesDone;
+			if (Mode.READ_VERIFY.equals(state.mode) && item.isUpdated()) {
+				state.range = op.currRange();
+				if (state.range == null) {
+					throw new AssertionError("Null data range");
+				}
+				state.rangeIdx = op.currRangeIdx() + 1;
+				limit(buff, rangeOffset(state.rangeIdx) - countBytesDone);
+			} else {
+				state.range = item;
+				state.rangeIdx = -1;
+				limit(buff, item.size() - countBytesDone);
+			}
+			return true;
+
+		case READ_RANDOM_RANGES:
+		case READ_VERIFY_RANDOM_RANGES:
+			final long rangesSizeSum = op.markedRangesSize();
+			if (rangesSizeSum <= 0 || rangesSizeSum <= countBytesDone) {
+				return false;
+			}
+			final var maskRangesPair = op.markedRangesMaskPair();
+			int currRangeIdx;
+			while (true) {
+				currRangeIdx = op.currRangeIdx();
+				if (currRangeIdx < rangeCount(item.size())) {
+					if (maskRangesPair[0].get(currRangeIdx) || maskRangesPair[1].get(currRangeIdx)) {
+						break;
+					} else {
+						op.currRangeIdx(currRangeIdx + 1);
+					}
+				} else {
+					op.countBytesDone(rangesSizeSum);
+					return false;
+				}
+			}
+			state.range = op.currRange();
+			state.rangeSize = state.range.size();
+			state.rangeIdx = currRangeIdx;
+			state.pos = rangeOffset(currRangeIdx) + countBytesDone;
+			limit(buff, state.rangeSize - countBytesDone);
+			return true;
+
+		case READ_FIXED_RANGES:
+		case READ_VERIFY_FIXED_RANGES:
+			final long fixedRangesSizeSum = op.markedRangesSize();
+			if (fixedRangesSizeSum <= 0 || fixedRangesSizeSum <= countBytesDone) {
+				return false;
+			}
+			final List<Range> fixedRanges = op.fixedRanges();
+			final int currFixedRangeIdx = op.currRangeIdx();
+			if (currFixedRangeIdx >= fixedRanges.size()) {
+				op.countBytesDone(fixedRangesSizeSum);
+				return false;
+			}
+			final long baseItemSize = item.size();
+			final var fixedRange = fixedRanges.get(currFixedRangeIdx);
+			long rangeBeg = fixedRange.getBeg();
+			final long rangeEnd = fixedRange.getEnd();
+			if (rangeBeg == -1) {
+				// last "rangeEnd" bytes
+				rangeBeg = baseItemSize - rangeEnd;
+				state.rangeSize = rangeEnd;
+			} else if (rangeEnd == -1) {
+				// start @ offset equal to "rangeBeg"
+				state.rangeSize = baseItemSize - rangeBeg;
+			} else {
+				state.rangeSize = rangeEnd - rangeBeg + 1;
+			}
+			state.rangeIdx = currFixedRangeIdx;
+			state.pos = rangeBeg + countBytesDone;
+			if (Mode.READ_VERIFY_FIXED_RANGES.equals(state.mode)) {
+				// find the internal data item's cell which contains the current offset
+				final int cellIdx = rangeCount(state.pos + 1) - 1;
+				final long cellOffset = rangeOffset(cellIdx);
+				final long cellEnd = Math.min(baseItemSize, rangeOffset(cellIdx + 1));
+				state.range = item.slice(cellOffset, cellEnd - cellOffset);
+				if (item.isRangeUpdated(cellIdx)) {
+					state.range.layer(item.layer() + 1);
+				}
+				state.range.position(state.pos - cellOffset);
+				limit(
+								buff,
+								Math.min(
+												state.rangeSize - countBytesDone,
+												state.range.size() - state.range.position()));
+			} else {
+				limit(buff, state.rangeSize - countBytesDone);
+			}
+			return true;
+
+		case UPDATE_RANDOM_RANGES:
+			final long updatingRangesSize = op.markedRangesSize();
+			if (updatingRangesSize <= 0 || updatingRangesSize <= countBytesDone) {
+				return false;
+			}
+			DataItem updatingRange;
+			while (true) {
+				currRangeIdx = op.currRangeIdx();
+				if (currRangeIdx < rangeCount(item.size())) {
+					updatingRange = op.currRangeUpdate();
+					if (updatingRange == null) {
+						op.currRangeIdx(currRangeIdx + 1);
+					} else {
+						break;
+					}
+				} else {
+					op.countBytesDone(updatingRangesSize);
+					return false;
+				}
+			}
+			state.range = updatingRange;
+			state.rangeSize = updatingRange.size();
+			state.rangeIdx = currRangeIdx;
+			state.pos = rangeOffset(currRangeIdx) + countBytesDone;
+			fill(updatingRange, buff, state.rangeSize - countBytesDone);
+			return true;
+
+		case UPDATE_FIXED_RANGES:
+			final long fixedUpdatingRangesSize = op.markedRangesSize();
+			if (fixedUpdatingRangesSize <= 0 || fixedUpdatingRangesSize <= countBytesDone) {
+				return false;
+			}
+			final List<Range> byteRanges = op.fixedRanges();
+			final int currByteRangeIdx = op.currRangeIdx();
+			if (currByteRangeIdx >= byteRanges.size()) {
+				op.countBytesDone(fixedUpdatingRangesSize);
+				return false;
+			}
+			final long baseSize = item.size();
+			final var byteRange = byteRanges.get(currByteRangeIdx);
+			long byteRangeBeg = byteRange.getBeg();
+			final long byteRangeEnd = byteRange.getEnd();
+			long byteRangeSize = byteRange.getSize();
+			if (byteRangeSize == -1) {
+				if (byteRangeBeg == -1) {
+					// last "rangeEnd" bytes
+					byteRangeBeg = baseSize - byteRangeEnd;
+					byteRangeSize = byteRangeEnd;
+				} else if (byteRangeEnd == -1) {
+					// start @ offset equal to "rangeBeg"
+					byteRangeSize = baseSize - byteRangeBeg;
+				} else {
+					byteRangeSize = byteRangeEnd - byteRangeBeg + 1;
+				}
+			} else {
+				// append
+				byteRangeBeg = baseSize;
+				// note down the new size
+				item.size(baseSize + fixedUpdatingRangesSize);
+			}
+			state.range = item.slice(byteRangeBeg, byteRangeSize);
+			state.range.position(countBytesDone);
+			state.rangeSize = byteRangeSize;
+			state.rangeIdx = currByteRangeIdx;
+			state.pos = byteRangeBeg + countBytesDone;
+			fill(state.range, buff, byteRangeSize - countBytesDone);
+			return true;
+
+		default:
+			throw new AssertionError("Unexpected mode: " + state.mode);
+		}
+	}
+
+	private void handleCompleted(final DataOperation<? extends DataItem> op, final int n) {
+		final var state = opStates.get(op);
+		if (state == null) {
+			return; // closed meanwhile
+		}
+		final boolean done;
+		try {
+			done = handleTransferred(op, state, n);
+		} catch (final Throwable cause) {
+			releaseIo(state);
+			fail(op, state, cause);
+			state.pending = false;
+			pendingCount.decrementAndGet();
+			return;
+		}
+		releaseIo(state);
+		if (done) {
+			complete(op, state);
+		}
+		state.pending = false; // volatile write publishes the operation's state to the next invocation
+		pendingCount.decrementAndGet();
+	}
+
+	/**
+	 @return true if the operation is done
+	 */
+	private boolean handleTransferred(final DataOperation<? extends DataItem> op, final OpState state, final int n)
+					throws IOException {
+		final DataItem item = op.item();
+		final var buff = state.buff;
+		long countBytesDone = op.countBytesDone();
+		switch (state.mode) {
+
+		case CREATE:
+		case OVERWRITE:
+			rewindUnwritten(state.range, buff);
+			countBytesDone += n;
+			op.countBytesDone(countBytesDone);
+			return countBytesDone >= item.size();
+
+		case READ:
+			if (n < 0) {
+				item.size(countBytesDone);
+				return true;
+			}
+			countBytesDone += n;
+			op.countBytesDone(countBytesDone);
+			return countBytesDone == item.size();
+
+		case READ_VERIFY:
+			if (n < 0) {
+				throw new DataSizeException(item.size(), countBytesDone);
+			}
+			buff.flip();
+			state.range.verify(buff);
+			state.range.position(state.range.position() + n);
+			countBytesDone += n;
+			if (state.rangeIdx > 0 && countBytesDone == rangeOffset(state.rangeIdx)) {
+				op.currRangeIdx(state.rangeIdx);
+			}
+			op.countBytesDone(countBytesDone);
+			return countBytesDone >= item.size();
+
+		case READ_RANDOM_RANGES:
+		case READ_VERIFY_RANDOM_RANGES:
+			final long rangesSizeSum = op.markedRangesSize();
+			if (n < 0) {
+				if (Mode.READ_VERIFY_RANDOM_RANGES.equals(state.mode)) {
+					throw new DataSizeException(rangesSizeSum, countBytesDone);
+				}
+				return true;
+			}
+			if (Mode.READ_VERIFY_RANDOM_RANGES.equals(state.mode)) {
+				buff.flip();
+				try {
+					state.range.verify(buff);
+				} catch (final DataCorruptionException e) {
+					throw new DataCorruptionException(state.pos + e.getOffset() - countBytesDone, e.expected, e.actual);
+				}
+				state.range.position(state.range.position() + n);
+			}
+			countBytesDone += n;
+			if (countBytesDone == state.rangeSize && countBytesDone < rangesSizeSum) {
+				op.currRangeIdx(state.rangeIdx + 1);
+				op.countBytesDone(0);
+			} else {
+				op.countBytesDone(countBytesDone);
+			}
+			return rangesSizeSum <= countBytesDone;
+
+		case READ_FIXED_RANGES:
+			if (n < 0) {
+				return true;
+			}
+			countBytesDone += n;
+			if (countBytesDone == state.rangeSize) {
+				op.currRangeIdx(state.rangeIdx + 1);
+				op.countBytesDone(0);
+			} else {
+				op.countBytesDone(countBytesDone);
+			}
+			return false;
+
+		case READ_VERIFY_FIXED_RANGES:
+			if (n > 0) {
+				buff.flip();
+				try {
+					state.range.verify(buff);
+				} catch (final DataCorruptionException e) {
+					throw new DataCorruptionException(state.pos + e.getOffset() - countBytesDone, e.expected, e.actual);
+				}
+				countBytesDone += n;
+			}
+			if (countBytesDone == state.rangeSize) {
+				if (state.rangeIdx == op.fixedRanges().size() - 1) {
+					op.countBytesDone(op.markedRangesSize());
+					return true;
+				}
+				op.currRangeIdx(state.rangeIdx + 1);
+				countBytesDone = 0;
+			}
+			op.countBytesDone(countBytesDone);
+			return false;
+
+		case UPDATE_RANDOM_RANGES:
+		case UPDATE_FIXED_RANGES:
+			rewindUnwritten(state.range, buff);
+			countBytesDone += n;
+			if (countBytesDone == state.rangeSize) {
+				op.currRangeIdx(state.rangeIdx + 1);
+				op.countBytesDone(0);
+			} else {
+				op.countBytesDone(countBytesDone);
+			}
+			return false;
+
+		default:
+			throw new AssertionError("Unexpected mode: " + state.mode);
+		}
+	}
+
+	private void handleFailed(final DataOperation<? extends DataItem> op, final Throwable cause) {
+		final var state = opStates.get(op);
+		if (state == null) {
+			return;
+		}
+		releaseIo(state);
+		fail(op, state, cause);
+		state.pending = false;
+		pendingCount.decrementAndGet();
+	}
+
+	private void complete(final DataOperation<? extends DataItem> op, final OpState state) {
+		switch (state.mode) {
+		case UPDATE_RANDOM_RANGES:
+			op.item().commitUpdatedRanges(op.markedRangesMaskPair());
+			// the written data should be synced too
+		case CREATE:
+		case OVERWRITE:
+		case UPDATE_FIXED_RANGES:
+			if (fileSyncer.deferred()) {
+				state.syncing = true;
+				fileSyncer.submit(state.path, state.channel, e -> completeSynced(op, state, e));
+				return;
+			}
+			try {
+				fileSyncer.sync(state.channel);
+			} catch (final IOException e) {
+				fail(op, state, e);
+				return;
+			}
+		}
+		closeChannel(state.channel);
+		finishFunc.accept(op);
+		opStates.remove(op);
+	}
+
+	private void completeSynced(final DataOperation<? extends DataItem> op, final OpState state, final IOException e) {
+		if (e == null) {
+			closeChannel(state.channel);
+			finishFunc.accept(op);
+			opStates.remove(op);
+		} else {
+			fail(op, state, e);
+		}
+	}
+
+	/**
+	 The status is set after the transferred byte count and before the state removal as the operation may be polled
+	 by the worker concurrently
+	 */
+	private void fail(final DataOperation<? extends DataItem> op, final OpState state, final Throwable cause) {
+		final DataItem item = op.item();
+		final Operation.Status status;
+		if (cause instanceof DataSizeException) {
+			final long countBytesDone = op.countBytesDone() + ((DataSizeException) cause).getOffset();
+			op.countBytesDone(countBytesDone);
+			Loggers.MSG.debug(
+							"{}: content size mismatch, expected: {}, actual: {}", item.name(), item.size(), countBytesDone);
+			status = Operation.Status.RESP_FAIL_CORRUPT;
+		} else if (cause instanceof DataCorruptionException) {
+			final var e = (DataCorruptionException) cause;
+			final long countBytesDone = op.countBytesDone() + e.getOffset();
+			op.countBytesDone(countBytesDone);
+			Loggers.MSG.debug(
+							"{}: content mismatch @ offset {}, expected: {}, actual: {} ", item.name(), countBytesDone,
+							String.format("\"0x%X\"", (int) (e.expected & 0xFF)), String.format("\"0x%X\"", (int) (e.actual & 0xFF)));
+			status = Operation.Status.RESP_FAIL_CORRUPT;
+		} else if (cause instanceof AccessDeniedException) {
+			LogUtil.exception(Level.WARN, cause, op.toString());
+			status = Operation.Status.RESP_FAIL_AUTH;
+		} else if (cause instanceof IOException) {
+			LogUtil.exception(Level.WARN, cause, op.toString());
+			status = Operation.Status.FAIL_IO;
+		} else {
+			LogUtil.trace(Loggers.ERR, Level.ERROR, cause, "Async file I/O failure");
+			status = Operation.Status.FAIL_UNKNOWN;
+		}
+		op.status(status);
+		closeChannel(state.channel);
+		opStates.remove(op);
+	}
+
+	private void releaseIo(final OpState state) {
+		final var buff = state.buff;
+		if (buff != null) {
+			state.buff = null;
+			buffPool.offer(buff);
+			ioPermits.release();
+		}
+	}
+
+	private static void limit(final ByteBuffer buff, final long remaining) {
+		if (remaining < buff.capacity()) {
+			buff.limit((int) remaining);
+		}
+	}
+
+	private static void fill(final DataItem src, final ByteBuffer buff, final long remaining)
+					throws IOException {
+		limit(buff, remaining);
+		while (buff.hasRemaining()) {
+			if (src.read(buff) <= 0) {
+				break;
+			}
+		}
+		buff.flip();
+	}
+
+	// move the source data item position back if the buffer was written partially
+	private static void rewindUnwritten(final DataItem src, final ByteBuffer buff) {
+		final int unwritten = buff.remaining();
+		if (unwritten > 0) {
+			src.position(src.position() - unwritten);
+		}
+	}
+
+	private static void closeChannel(final AsynchronousFileChannel channel) {
+		if (channel.isOpen()) {
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				Loggers.ERR.warn("Failed to close the async file channel");
+			}
+		}
+	}
+
+	@Override
+	public final void close() {
+		opStates.values().forEach(state -> closeChannel(state.channel));
+		opStates.clear();
+		ioExecutor.shutdownNow();
+		buffPool.clear();
+	}
+}
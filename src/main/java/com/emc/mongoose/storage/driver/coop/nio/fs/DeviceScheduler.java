@@ -0,0 +1,296 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.op.OpType;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+Admits the file operations to the devices (the file stores) they target. Each device has its own in-flight operations
+limit, the operation targeting the saturated device is not admitted and waits for its turn while the worker threads
+invoke the operations targeting the other devices, so the slow device doesn't starve the fast ones.
+The operation types (e.g. read vs update) share the device fairly: while the operations of several types are waiting
+or in flight, the type can't take more than its equal share of the limit. The share check is done w/o locking, so the
+fairness is approximate.
+The file store of the directory is resolved once, the nearest existing parent directory is used if the directory is not
+created yet. The operations targeting the path which file store can not be determined are not limited.
+*/
+public final class DeviceScheduler {
+
+	private static final int TYPE_COUNT = OpType.values().length;
+
+	public static final class Device {
+
+		private final FileStore store;
+		private final int inFlightLimit;
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final AtomicIntegerArray typeInFlight = new AtomicIntegerArray(TYPE_COUNT);
+		private final AtomicIntegerArray typeWaiting = new AtomicIntegerArray(TYPE_COUNT);
+		private volatile int lastTypeIdx = -1;
+		private final AtomicInteger queueDepth = new AtomicInteger();
+		private final AtomicInteger queueDepthMax = new AtomicInteger();
+		private final LongAdder admitCount = new LongAdder();
+		private final LongAdder waitCount = new LongAdder();
+		private final LongAdder waitSum = new LongAdder();
+		private final AtomicLong waitMax = new AtomicLong();
+
+		private Device(final FileStore store, final int inFlightLimit) {
+			this.store = store;
+			this.inFlightLimit = inFlightLimit;
+		}
+
+		public final FileStore store() {
+			return store;
+		}
+
+		public final int inFlight() {
+			return inFlight.get();
+		}
+
+		/**
+		 @return the count of the operations waiting for the admission
+		 */
+		public final int queueDepth() {
+			return queueDepth.get();
+		}
+
+		public final int queueDepthMax() {
+			return queueDepthMax.get();
+		}
+
+		public final long admitCount() {
+			return admitCount.sum();
+		}
+
+		/**
+		 @return the count of the operations admitted after waiting
+		 */
+		public final long waitCount() {
+			return waitCount.sum();
+		}
+
+		/**
+		 @return the max wait time in nanoseconds
+		 */
+		public final long waitMax() {
+			return waitMax.get();
+		}
+
+		/**
+		 @return false if the type exceeds its fair share while the other types are waiting. The type taking the last slot
+		 of its share yields the turn to the waiting types if it was admitted last, so the small limits alternate too.
+		 */
+		private boolean fair(final int typeIdx) {
+			var activeTypes = 0;
+			var otherTypesWaiting = false;
+			for (var i = 0; i < TYPE_COUNT; i++) {
+				if (i == typeIdx) {
+					activeTypes++;
+				} else if (typeWaiting.get(i) > 0) {
+					activeTypes++;
+					otherTypesWaiting = true;
+				} else if (typeInFlight.get(i) > 0) {
+					activeTypes++;
+				}
+			}
+			if (!otherTypesWaiting) {
+				return true;
+			}
+			final int share = (inFlightLimit + activeTypes - 1) / activeTypes;
+			final int n = typeInFlight.get(typeIdx);
+			return n < share - 1 || (n < share && lastTypeIdx != typeIdx);
+		}
+
+		/**
+		 @return false if the in-flight operations limit is reached or the type exceeds its fair share
+		 */
+		private boolean tryAcquire(final int typeIdx) {
+			if (!fair(typeIdx)) {
+				return false;
+			}
+			int n;
+			do {
+				n = inFlight.get();
+				if (n >= inFlightLimit) {
+					return false;
+				}
+			} while (!inFlight.compareAndSet(n, n + 1));
+			typeInFlight.incrementAndGet(typeIdx);
+			lastTypeIdx = typeIdx;
+			admitCount.increment();
+			return true;
+		}
+
+		private void enqueue(final int typeIdx) {
+			typeWaiting.incrementAndGet(typeIdx);
+			final int depth = queueDepth.incrementAndGet();
+			int max;
+			do {
+				max = queueDepthMax.get();
+			} while (depth > max && !queueDepthMax.compareAndSet(max, depth));
+		}
+
+		private void dequeue(final int typeIdx) {
+			typeWaiting.decrementAndGet(typeIdx);
+			queueDepth.decrementAndGet();
+		}
+
+		private void recordWait(final long waitNanos) {
+			waitCount.increment();
+			waitSum.add(waitNanos);
+			long max;
+			do {
+				max = waitMax.get();
+			} while (waitNanos > max && !waitMax.compareAndSet(max, waitNanos));
+		}
+
+		private void release(final int typeIdx) {
+			typeInFlight.decrementAndGet(typeIdx);
+			inFlight.decrementAndGet();
+		}
+
+		@Override
+		public final String toString() {
+			final long waits = waitCount();
+			return String.format(
+							"%s: in-flight: %d, admitted: %d, queue depth: %d, max: %d, waited: %d, wait mean: %dus, max: %dus",
+							store, inFlight(), admitCount(), queueDepth(), queueDepthMax(), waits,
+							waits > 0 ? waitSum.sum() / waits / 1000 : 0, waitMax() / 1000);
+		}
+	}
+
+	/**
+	 The operation's place on the device: waiting for the admission or admitted. The ticket is held until the
+	 operation is done.
+	 */
+	public static final class Ticket {
+
+		private final Device device;
+		private final int typeIdx;
+		private long enqueueNanos = 0;
+		private boolean queued = false;
+		private boolean admitted = false;
+
+		private Ticket(final Device device, final OpType opType) {
+			this.device = device;
+			this.typeIdx = opType.ordinal();
+		}
+
+		public final Device device() {
+			return device;
+		}
+
+		public final boolean admitted() {
+			return admitted;
+		}
+	}
+
+	private final int inFlightLimit;
+	private final Map<Path, Device> dirDevices = new ConcurrentHashMap<>();
+	private final Map<FileStore, Device> devices = new ConcurrentHashMap<>();
+
+	/**
+	 @param inFlightLimit the max count of the in-flight operations per device, should be > 0
+	 */
+	public DeviceScheduler(final int inFlightLimit) {
+		if (inFlightLimit < 1) {
+			throw new IllegalArgumentException("In-flight limit should be > 0: " + inFlightLimit);
+		}
+		this.inFlightLimit = inFlightLimit;
+	}
+
+	/**
+	 @return the device containing the given directory, null if the file store can not be determined
+	 */
+	public final Device device(final Path dirPath) {
+		var device = dirDevices.get(dirPath);
+		if (device == null) {
+			final var store = fileStore(dirPath);
+			if (store == null) {
+				return null;
+			}
+			device = devices.computeIfAbsent(store, s -> new Device(s, inFlightLimit));
+			dirDevices.putIfAbsent(dirPath, device);
+		}
+		return device;
+	}
+
+	private static FileStore fileStore(final Path dirPath) {
+		var path = dirPath;
+		while (path != null) {
+			try {
+				return Files.getFileStore(path);
+			} catch (final IOException e) {
+				path = path.getParent(); // not created yet, try the parent
+			}
+		}
+		return null;
+	}
+
+	/**
+	 @return the new ticket for the operation of the given type targeting the given directory, null if the operation is
+	 not limited
+	 */
+	public final Ticket ticket(final Path dirPath, final OpType opType) {
+		final var device = device(dirPath);
+		return device == null ? null : new Ticket(device, opType);
+	}
+
+	/**
+	 Tries to admit the operation holding the ticket. The operation not admitted is put to the device's queue until the
+	 next attempt succeeds.
+	 @return true if the operation is admitted (or was admitted before)
+	 */
+	public final boolean tryAdmit(final Ticket ticket) {
+		if (ticket.admitted) {
+			return true;
+		}
+		final var device = ticket.device;
+		if (device.tryAcquire(ticket.typeIdx)) {
+			ticket.admitted = true;
+			if (ticket.queued) {
+				ticket.queued = false;
+				device.dequeue(ticket.typeIdx);
+				device.recordWait(System.nanoTime() - ticket.enqueueNanos);
+			}
+			return true;
+		}
+		if (!ticket.queued) {
+			ticket.queued = true;
+			ticket.enqueueNanos = System.nanoTime();
+			device.enqueue(ticket.typeIdx);
+		}
+		return false;
+	}
+
+	/**
+	 Releases the device's in-flight slot taken by the admitted operation or removes the waiting operation from the
+	 device's queue.
+	 */
+	public final void release(final Ticket ticket) {
+		if (ticket.admitted) {
+			ticket.admitted = false;
+			ticket.device.release(ticket.typeIdx);
+		} else if (ticket.queued) {
+			ticket.queued = false;
+			ticket.device.dequeue(ticket.typeIdx);
+		}
+	}
+
+	public final Iterable<Device> devices() {
+		return devices.values();
+	}
+
+	@Override
+	public final String toString() {
+		return devices.size() + " devices, in-flight limit: " + inFlightLimit;
+	}
+}
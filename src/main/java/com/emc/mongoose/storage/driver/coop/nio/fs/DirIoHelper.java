@@ -1,18 +1,65 @@
 package com.emc.mongoose.storage.driver.coop.nio.fs;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ForkJoinPool;
 
 public interface DirIoHelper {
 
-	static File createParentDir(final String parentPath) {
+	/**
+	 @return the created (or existing) directory path, null if failed to create
+	 */
+	static Path createParentDir(final Path parentDirPath) {
 		try {
-			final var parentDir = FsConstants.FS.getPath(parentPath).toFile();
-			if (!parentDir.exists()) {
-				parentDir.mkdirs();
-			}
-			return parentDir;
+			return Files.createDirectories(parentDirPath);
 		} catch (final Exception e) {
 			return null;
 		}
 	}
+
+	static void invokeCreate(final Path dirPath)
+					throws IOException {
+		dirPath.getFileSystem().provider().createDirectory(dirPath);
+	}
+
+	/**
+	 Reads the attributes of the given path, lists the entries if the path is a directory.
+	 @return the count of the bytes "transferred": the total length of the listed entry names
+	 */
+	static long invokeRead(final Path path)
+					throws IOException {
+		final var attrs = path.getFileSystem().provider().readAttributes(
+						path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		long countBytesDone = 0;
+		if (attrs.isDirectory()) {
+			try (final DirectoryStream<Path> dirStream = path.getFileSystem().provider().newDirectoryStream(
+							path, ListingHelper.ACCEPT_ALL_PATHS_FILTER)) {
+				for (final Path entryPath : dirStream) {
+					countBytesDone += entryPath.getFileName().toString().getBytes(StandardCharsets.UTF_8).length;
+				}
+			} catch (final DirectoryIteratorException e) {
+				throw e.getCause(); // according the JDK documentation
+			}
+		}
+		return countBytesDone;
+	}
+
+	/**
+	 @param recursive delete the directory content too if true (the subdirectories are deleted in parallel on the common
+	 fork-join pool), fail on the non-empty directory otherwise
+	 */
+	static void invokeDelete(final Path dirPath, final boolean recursive)
+					throws IOException {
+		if (recursive) {
+			FileDeleter.deleteTree(dirPath, ForkJoinPool.commonPool());
+		} else {
+			dirPath.getFileSystem().provider().delete(dirPath);
+		}
+	}
 }
@@ -0,0 +1,162 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.Item;
+import com.emc.mongoose.base.item.ItemFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SecureDirectoryStream;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+The listing cursor over the single directory, keeps the directory stream open between the listing calls. The stream is
+opened for the absolute directory path so the entries' paths are absolute already. If the directory stream is secure
+the attributes are read relative to the open directory handle (fstatat) instead of resolving the whole path again.
+*/
+public final class DirListingCursor
+				implements ListingCursor {
+
+	private final DirectoryStream<Path> dirStream;
+	private final SecureDirectoryStream<Path> secureDirStream;
+	private final Iterator<Path> dirStreamIter;
+	private final int prefixLength;
+	private final ListingMode listingMode;
+	private String lastItemName = null;
+	private boolean exhausted = false;
+
+	public DirListingCursor(final String path, final String prefix, final ListingMode listingMode)
+					throws IOException {
+		this(path, prefix, listingMode, null);
+	}
+
+	/**
+	 @param excludedFileName the file name which should not be listed, may be null
+	 */
+	public DirListingCursor(
+					final String path, final String prefix, final ListingMode listingMode, final String excludedFileName)
+					throws IOException {
+		this(Paths.get(path), prefix, listingMode, excludedFileName);
+	}
+
+	/**
+	 @param dirPath the directory path on any file system
+	 @param excludedFileName the file name which should not be listed, may be null
+	 */
+	public DirListingCursor(
+					final Path dirPath, final String prefix, final ListingMode listingMode, final String excludedFileName)
+					throws IOException {
+		dirStream = dirPath.getFileSystem().provider().newDirectoryStream(
+						dirPath.toAbsolutePath(), ListingHelper.filter(prefix, excludedFileName));
+		if (dirStream instanceof SecureDirectoryStream) {
+			secureDirStream = (SecureDirectoryStream<Path>) dirStream;
+		} else {
+			secureDirStream = null;
+		}
+		dirStreamIter = dirStream.iterator();
+		prefixLength = (prefix == null || prefix.isEmpty()) ? 0 : prefix.length();
+		this.listingMode = listingMode;
+	}
+
+	@Override
+	public final boolean resumesAfter(final Item lastPrevItem) {
+		if (lastPrevItem == null) {
+			return lastItemName == null;
+		} else {
+			return lastPrevItem.name().equals(lastItemName);
+		}
+	}
+
+	@Override
+	public final boolean skipTo(final Item lastPrevItem)
+					throws IOException {
+		if (lastPrevItem != null) {
+			final var lastPrevItemName = lastPrevItem.name();
+			try {
+				while (dirStreamIter.hasNext()) {
+					if (dirStreamIter.next().toString().equals(lastPrevItemName)) {
+						lastItemName = lastPrevItemName;
+						return true;
+					}
+				}
+			} catch (final DirectoryIteratorException e) {
+				throw e.getCause(); // according the JDK documentation
+			}
+			exhausted = true;
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public final <I extends Item> List<I> next(final ItemFactory<I> itemFactory, final int idRadix, final int count)
+					throws IOException {
+		final List<I> buff = new ArrayList<>(count);
+		try {
+			Path nextPath;
+			I nextItem;
+			while (buff.size() < count) {
+				if (!dirStreamIter.hasNext()) {
+					exhausted = true;
+					break;
+				}
+				nextPath = dirStreamIter.next();
+				switch (listingMode) {
+				case FILE:
+					nextItem = ListingHelper.item(itemFactory, new File(nextPath.toString()), prefixLength, idRadix);
+					break;
+				case ATTRS:
+					nextItem = ListingHelper.item(itemFactory, nextPath.toString(), size(nextPath), prefixLength, idRadix);
+					break;
+				default:
+					nextItem = ListingHelper.item(itemFactory, nextPath.toString(), 0, prefixLength, idRadix);
+				}
+				buff.add(nextItem);
+				lastItemName = nextItem.name();
+			}
+		} catch (final DirectoryIteratorException e) {
+			throw e.getCause(); // according the JDK documentation
+		}
+		return buff;
+	}
+
+	private long size(final Path entryPath)
+					throws IOException {
+		try {
+			if (secureDirStream == null) {
+				return entryPath
+								.getFileSystem()
+								.provider()
+								.readAttributes(entryPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)
+								.size();
+			} else {
+				return secureDirStream
+								.getFileAttributeView(entryPath.getFileName(), BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS)
+								.readAttributes()
+								.size();
+			}
+		} catch (final NoSuchFileException e) {
+			return 0; // deleted meanwhile, the same as File.length() does
+		}
+	}
+
+	@Override
+	public final boolean exhausted() {
+		return exhausted;
+	}
+
+	@Override
+	public final void close()
+					throws IOException {
+		dirStream.close();
+	}
+}
@@ -0,0 +1,319 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.DataItem;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.emc.mongoose.storage.driver.coop.nio.fs.AlignedBufferPool.alignDown;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.AlignedBufferPool.alignUp;
+
+/**
+The file channel opened with the direct I/O option which accepts the I/O of any position, size and buffer. The aligned
+I/O using the aligned buffers is passed through as is. Otherwise the data is bounced through the aligned buffer from
+the pool: the partially covered blocks are read before being written (read-modify-write) and the file is truncated
+back to the logical size after the ragged last block is written.
+Not thread safe: the channel should be used by a single operation at a time.
+*/
+public final class DirectIoFileChannel
+				extends FileChannel {
+
+	private final FileChannel channel;
+	private final int blockSize;
+	private final AlignedBufferPool buffPool;
+	private long position = 0;
+
+	private DirectIoFileChannel(final FileChannel channel, final int blockSize, final AlignedBufferPool buffPool) {
+		this.channel = channel;
+		this.blockSize = blockSize;
+		this.buffPool = buffPool;
+	}
+
+	public static FileChannel open(
+					final Path path, final Set<OpenOption> openOpts, final int blockSize, final AlignedBufferPool buffPool)
+					throws IOException {
+		final Set<OpenOption> directOpenOpts = new HashSet<>(openOpts);
+		directOpenOpts.add(ExtendedOpenOption.DIRECT);
+		return new DirectIoFileChannel(
+						FsConstants.FS_PROVIDER.newFileChannel(path, directOpenOpts), blockSize, buffPool);
+	}
+
+	public final int blockSize() {
+		return blockSize;
+	}
+
+	private boolean isAligned(final ByteBuffer buff, final long pos) {
+		return buff.isDirect() && buff.alignmentOffset(buff.position(), blockSize) == 0 && pos % blockSize == 0
+						&& buff.remaining() % blockSize == 0;
+	}
+
+	@Override
+	public final int read(final ByteBuffer dst, final long pos)
+					throws IOException {
+		if (!dst.hasRemaining()) {
+			return 0;
+		}
+		if (isAligned(dst, pos)) {
+			return channel.read(dst, pos);
+		}
+		final var buff = buffPool.borrow(blockSize);
+		try {
+			final long alignedPos = alignDown(pos, blockSize);
+			final int head = (int) (pos - alignedPos);
+			final int n = Math.min(dst.remaining(), buff.capacity() - head);
+			buff.limit((int) (alignUp(pos + n, blockSize) - alignedPos));
+			// the direct read may be short only at the end of the file
+			channel.read(buff, alignedPos);
+			final int available = Math.min(buff.position() - head, n);
+			if (available <= 0) {
+				return -1;
+			}
+			buff.position(head).limit(head + available);
+			dst.put(buff);
+			return available;
+		} finally {
+			buffPool.release(buff, blockSize);
+		}
+	}
+
+	@Override
+	public final int write(final ByteBuffer src, final long pos)
+					throws IOException {
+		if (!src.hasRemaining()) {
+			return 0;
+		}
+		if (isAligned(src, pos)) {
+			return channel.write(src, pos);
+		}
+		final var buff = buffPool.borrow(blockSize);
+		try {
+			final long size = channel.size();
+			final long alignedPos = alignDown(pos, blockSize);
+			final int head = (int) (pos - alignedPos);
+			final int n = Math.min(src.remaining(), buff.capacity() - head);
+			final long end = pos + n;
+			final long alignedEnd = alignUp(end, blockSize);
+			final int len = (int) (alignedEnd - alignedPos);
+			// zero the buffer so the gaps and the tail beyond the current file size contain nothing
+			buff.clear().limit(len);
+			while (buff.hasRemaining()) {
+				buff.put((byte) 0);
+			}
+			// read the partially overwritten blocks
+			if (head > 0 && alignedPos < size) {
+				readBlock(buff, 0, alignedPos);
+			}
+			final long tailBlockPos = alignedEnd - blockSize;
+			if (end < alignedEnd && tailBlockPos < size && (head == 0 || tailBlockPos > alignedPos)) {
+				readBlock(buff, (int) (tailBlockPos - alignedPos), tailBlockPos);
+			}
+			// put the new data
+			final var srcLimit = src.limit();
+			src.limit(src.position() + n);
+			buff.position(head);
+			buff.put(src);
+			src.limit(srcLimit);
+			// write the aligned blocks
+			buff.position(0).limit(len);
+			while (buff.hasRemaining()) {
+				channel.write(buff, alignedPos + buff.position());
+			}
+			// truncate the ragged tail padding
+			final long newSize = Math.max(size, end);
+			if (alignedEnd > newSize) {
+				channel.truncate(newSize);
+			}
+			return n;
+		} finally {
+			buffPool.release(buff, blockSize);
+		}
+	}
+
+	private void readBlock(final ByteBuffer buff, final int buffOffset, final long pos)
+					throws IOException {
+		final var block = buff.duplicate();
+		block.clear().position(buffOffset).limit(buffOffset + blockSize);
+		channel.read(block, pos);
+	}
+
+	/**
+	 Writes the data item content at the current position using the aligned buffer from the pool, so only the ragged
+	 last block requires the padding.
+	 @return the count of the bytes written
+	 */
+	public final long write(final DataItem src, final long maxCount)
+					throws IOException {
+		final var buff = buffPool.borrow(blockSize);
+		try {
+			if (maxCount < buff.capacity()) {
+				buff.limit((int) maxCount);
+			}
+			while (buff.hasRemaining()) {
+				if (src.read(buff) <= 0) {
+					break;
+				}
+			}
+			buff.flip();
+			final int filled = buff.remaining();
+			final int n = write(buff);
+			if (n < filled) {
+				src.position(src.position() - (filled - n));
+			}
+			return n;
+		} finally {
+			buffPool.release(buff, blockSize);
+		}
+	}
+
+	@Override
+	public final int read(final ByteBuffer dst)
+					throws IOException {
+		final int n = read(dst, position);
+		if (n > 0) {
+			position += n;
+		}
+		return n;
+	}
+
+	@Override
+	public final long read(final ByteBuffer[] dsts, final int offset, final int length)
+					throws IOException {
+		long total = 0;
+		int n;
+		for (var i = offset; i < offset + length; i++) {
+			while (dsts[i].hasRemaining()) {
+				n = read(dsts[i]);
+				if (n < 0) {
+					return total == 0 ? -1 : total;
+				}
+				total += n;
+			}
+		}
+		return total;
+	}
+
+	@Override
+	public final int write(final ByteBuffer src)
+					throws IOException {
+		final int n = write(src, position);
+		position += n;
+		return n;
+	}
+
+	@Override
+	public final long write(final ByteBuffer[] srcs, final int offset, final int length)
+					throws IOException {
+		long total = 0;
+		for (var i = offset; i < offset + length; i++) {
+			while (srcs[i].hasRemaining()) {
+				total += write(srcs[i]);
+			}
+		}
+		return total;
+	}
+
+	@Override
+	public final long position() {
+		return position;
+	}
+
+	@Override
+	public final FileChannel position(final long newPosition) {
+		position = newPosition;
+		return this;
+	}
+
+	@Override
+	public final long size()
+					throws IOException {
+		return channel.size();
+	}
+
+	@Override
+	public final FileChannel truncate(final long size)
+					throws IOException {
+		channel.truncate(size);
+		if (position > size) {
+			position = size;
+		}
+		return this;
+	}
+
+	@Override
+	public final void force(final boolean metaData)
+					throws IOException {
+		channel.force(metaData);
+	}
+
+	@Override
+	public final long transferTo(final long pos, final long count, final WritableByteChannel target)
+					throws IOException {
+		final var buff = buffPool.borrow(blockSize);
+		try {
+			if (count < buff.capacity()) {
+				buff.limit((int) count);
+			}
+			final int n = read(buff, pos);
+			if (n <= 0) {
+				return 0;
+			}
+			buff.flip();
+			return target.write(buff);
+		} finally {
+			buffPool.release(buff, blockSize);
+		}
+	}
+
+	@Override
+	public final long transferFrom(final ReadableByteChannel src, final long pos, final long count)
+					throws IOException {
+		final var buff = buffPool.borrow(blockSize);
+		try {
+			if (count < buff.capacity()) {
+				buff.limit((int) count);
+			}
+			final int n = src.read(buff);
+			if (n <= 0) {
+				return 0;
+			}
+			buff.flip();
+			return write(buff, pos);
+		} finally {
+			buffPool.release(buff, blockSize);
+		}
+	}
+
+	@Override
+	public final MappedByteBuffer map(final MapMode mode, final long pos, final long size) {
+		throw new UnsupportedOperationException("Memory mapping is not supported for the direct I/O");
+	}
+
+	@Override
+	public final FileLock lock(final long pos, final long size, final boolean shared)
+					throws IOException {
+		return channel.lock(pos, size, shared);
+	}
+
+	@Override
+	public final FileLock tryLock(final long pos, final long size, final boolean shared)
+					throws IOException {
+		return channel.tryLock(pos, size, shared);
+	}
+
+	@Override
+	protected final void implCloseChannel()
+					throws IOException {
+		channel.close();
+	}
+}
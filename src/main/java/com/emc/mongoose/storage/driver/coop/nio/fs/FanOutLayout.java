@@ -0,0 +1,198 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+The directory layout spreading the files over the shard subdirectories to keep the directories small. The shard is
+chosen by the hash of the file name, each level of the shard path is the directory named with the given count of the
+hex digits, e.g. "3f/a2/" for 2 levels of 2 digits. The flat layout (0 levels) puts the files directly into the
+parent directory. The item names having the parent path already (listed items) are not mapped again. The paths are
+resolved on the layout's file system.
+The parent directory paths and their shard directory paths are parsed once and cached, so the item path resolution
+parses the file name only.
+*/
+public final class FanOutLayout {
+
+	public static final FanOutLayout FLAT = new FanOutLayout(0, 1);
+
+	public static final int MAX_TOTAL_DIGITS = 4;
+
+	// the count of the parent directories cached, the parent paths above the limit are parsed each time
+	private static final int PARENT_DIRS_CACHE_LIMIT = 0x1000;
+	// the shard directories table takes up to 64K references per parent directory
+	private static final int PARENT_SHARD_DIRS_CACHE_LIMIT = 0x40;
+
+	private final FileSystem fs;
+	private final int levels;
+	private final int digits;
+	private final int shardCount;
+	private final String shardDirNameFormat;
+	private final Map<String, Path> parentDirs = new ConcurrentHashMap<>();
+	private final Map<String, Path[]> parentShardDirs = new ConcurrentHashMap<>();
+
+	/**
+	 @param levels the count of the shard directory levels, 0 for the flat layout
+	 @param digits the count of the hex digits in the shard directory name
+	 */
+	public FanOutLayout(final int levels, final int digits) {
+		this(FsConstants.FS, levels, digits);
+	}
+
+	/**
+	 @param fs the file system the paths are resolved on
+	 @param levels the count of the shard directory levels, 0 for the flat layout
+	 @param digits the count of the hex digits in the shard directory name
+	 */
+	public FanOutLayout(final FileSystem fs, final int levels, final int digits) {
+		if (levels < 0 || digits < 1 || levels * digits > MAX_TOTAL_DIGITS) {
+			throw new IllegalArgumentException(
+							"Invalid fan-out layout: " + levels + " levels of " + digits + " digits, the total digits count "
+											+ "should be in the range [0, " + MAX_TOTAL_DIGITS + "]");
+		}
+		this.fs = fs;
+		this.levels = levels;
+		this.digits = digits;
+		this.shardCount = 1 << (4 * levels * digits);
+		this.shardDirNameFormat = "%0" + digits + "x";
+	}
+
+	public final FileSystem fileSystem() {
+		return fs;
+	}
+
+	public final boolean flat() {
+		return levels == 0;
+	}
+
+	public final int shardCount() {
+		return shardCount;
+	}
+
+	/**
+	 @return the shard index for the given file name (w/o the parent path)
+	 */
+	public final int shardIndex(final String fileName) {
+		// murmur3 finalizer to spread the sequential names' hashes
+		int h = fileName.hashCode();
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h & (shardCount - 1);
+	}
+
+	/**
+	 @return the relative shard directory path, e.g. "3f/a2"
+	 */
+	public final String shardPath(final int shardIndex) {
+		final var shardPath = new StringBuilder(levels * (digits + 1));
+		final int levelBits = 4 * digits;
+		for (var i = levels - 1; i >= 0; i--) {
+			if (shardPath.length() > 0) {
+				shardPath.append(fs.getSeparator());
+			}
+			shardPath.append(String.format(shardDirNameFormat, (shardIndex >>> (i * levelBits)) & ((1 << levelBits) - 1)));
+		}
+		return shardPath.toString();
+	}
+
+	/**
+	 The fan-out aware counterpart of {@link FileIoHelper#itemPath(FileSystem, String, String)}.
+	 */
+	public final Path itemPath(final String parentPath, final String fileItemName) {
+		if (parentPath == null || parentPath.isEmpty() || fileItemName.startsWith(parentPath)) {
+			return FileIoHelper.itemPath(fs, parentPath, fileItemName);
+		} else if (fileItemName.startsWith(fs.getSeparator())) {
+			// joined w/ the parent instead of being resolved as the absolute path
+			if (levels == 0) {
+				return FileIoHelper.itemPath(fs, parentPath, fileItemName);
+			} else {
+				return fs.getPath(parentPath, shardPath(shardIndex(fileItemName)), fileItemName);
+			}
+		} else if (levels == 0) {
+			return parentDir(parentPath).resolve(fileItemName);
+		} else {
+			return shardDir(parentPath, shardIndex(fileItemName)).resolve(fileItemName);
+		}
+	}
+
+	private Path parentDir(final String parentPath) {
+		var parentDir = parentDirs.get(parentPath);
+		if (parentDir == null) {
+			parentDir = fs.getPath(parentPath);
+			if (parentDirs.size() < PARENT_DIRS_CACHE_LIMIT) {
+				parentDirs.putIfAbsent(parentPath, parentDir);
+			}
+		}
+		return parentDir;
+	}
+
+	private Path shardDir(final String parentPath, final int shardIndex) {
+		var shardDirs = parentShardDirs.get(parentPath);
+		if (shardDirs == null) {
+			shardDirs = new Path[shardCount];
+			if (parentShardDirs.size() < PARENT_SHARD_DIRS_CACHE_LIMIT) {
+				final var prevShardDirs = parentShardDirs.putIfAbsent(parentPath, shardDirs);
+				if (prevShardDirs != null) {
+					shardDirs = prevShardDirs;
+				}
+			}
+		}
+		var shardDir = shardDirs[shardIndex];
+		if (shardDir == null) {
+			// the concurrent resolution yields the equal path, no need to synchronize
+			shardDir = parentDir(parentPath).resolve(shardPath(shardIndex));
+			shardDirs[shardIndex] = shardDir;
+		}
+		return shardDir;
+	}
+
+	/**
+	 @return the directory containing the shard directories for the given file path
+	 */
+	public final Path rootDir(final Path itemPath) {
+		var dirPath = itemPath.getParent();
+		for (var i = 0; i < levels && dirPath != null; i++) {
+			dirPath = dirPath.getParent();
+		}
+		return dirPath;
+	}
+
+	/**
+	 Creates all the shard directories under the given parent directory in parallel.
+	 */
+	public final void createShardDirs(final String parentPath)
+					throws IOException {
+		if (levels > 0) {
+			final var parentDirPath = fs.getPath(parentPath);
+			try {
+				IntStream
+								.range(0, shardCount)
+								.parallel()
+								.forEach(
+												i -> {
+													try {
+														Files.createDirectories(parentDirPath.resolve(shardPath(i)));
+													} catch (final IOException e) {
+														throw new UncheckedIOException(e);
+													}
+												});
+			} catch (final UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	@Override
+	public final String toString() {
+		return levels + "x" + digits;
+	}
+}
@@ -0,0 +1,125 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.Item;
+import com.emc.mongoose.base.item.ItemFactory;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+The listing cursor over the shard directories of the {@link FanOutLayout}. The shard directories are listed one by one
+in the shard index order. The rescan doesn't need to walk the preceding shards: the shard of the last previous item is
+determined by its file name directly.
+*/
+public final class FanOutListingCursor
+				implements ListingCursor {
+
+	private final Path rootPath;
+	private final String prefix;
+	private final ListingMode listingMode;
+	private final FanOutLayout layout;
+	private final String excludedFileName;
+	private int nextShardIndex = 0;
+	private DirListingCursor shardCursor = null;
+	private String lastItemName = null;
+	private boolean exhausted = false;
+
+	public FanOutListingCursor(
+					final String path, final String prefix, final ListingMode listingMode, final FanOutLayout layout,
+					final String excludedFileName) {
+		this.rootPath = layout.fileSystem().getPath(path).toAbsolutePath();
+		this.prefix = prefix;
+		this.listingMode = listingMode;
+		this.layout = layout;
+		this.excludedFileName = excludedFileName;
+	}
+
+	/**
+	 @return false if there are no more shards
+	 */
+	private boolean openNextShard()
+					throws IOException {
+		while (nextShardIndex < layout.shardCount()) {
+			final var shardDirPath = rootPath.resolve(layout.shardPath(nextShardIndex++));
+			try {
+				shardCursor = new DirListingCursor(shardDirPath, prefix, listingMode, excludedFileName);
+				return true;
+			} catch (final NoSuchFileException e) {
+				// the shard directory is not created yet, continue
+			}
+		}
+		return false;
+	}
+
+	private void closeShard()
+					throws IOException {
+		if (shardCursor != null) {
+			try {
+				shardCursor.close();
+			} finally {
+				shardCursor = null;
+			}
+		}
+	}
+
+	@Override
+	public final boolean resumesAfter(final Item lastPrevItem) {
+		if (lastPrevItem == null) {
+			return lastItemName == null;
+		} else {
+			return lastPrevItem.name().equals(lastItemName);
+		}
+	}
+
+	@Override
+	public final boolean skipTo(final Item lastPrevItem)
+					throws IOException {
+		if (lastPrevItem != null) {
+			final var fileName = layout.fileSystem().getPath(lastPrevItem.name()).getFileName().toString();
+			closeShard();
+			nextShardIndex = layout.shardIndex(fileName);
+			if (openNextShard() && shardCursor.skipTo(lastPrevItem)) {
+				lastItemName = lastPrevItem.name();
+				return true;
+			}
+			closeShard();
+			exhausted = true;
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public final <I extends Item> List<I> next(final ItemFactory<I> itemFactory, final int idRadix, final int count)
+					throws IOException {
+		final List<I> buff = new ArrayList<>(count);
+		while (buff.size() < count) {
+			if (shardCursor == null && !openNextShard()) {
+				exhausted = true;
+				break;
+			}
+			buff.addAll(shardCursor.next(itemFactory, idRadix, count - buff.size()));
+			if (shardCursor.exhausted()) {
+				closeShard();
+			}
+		}
+		if (!buff.isEmpty()) {
+			lastItemName = buff.get(buff.size() - 1).name();
+		}
+		return buff;
+	}
+
+	@Override
+	public final boolean exhausted() {
+		return exhausted;
+	}
+
+	@Override
+	public final void close()
+					throws IOException {
+		closeShard();
+	}
+}
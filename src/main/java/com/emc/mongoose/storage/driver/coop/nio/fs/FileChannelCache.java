@@ -0,0 +1,266 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.logging.LogUtil;
+
+import org.apache.logging.log4j.Level;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+The size-bounded cache of the file channels opened with the same options, keyed by the resolved file path.
+The least recently used idle channels are evicted (closed) when the size limit is exceeded. A channel is never closed
+while it's leased by an operation, the eviction/invalidation of such channel is deferred until its release.
+A cached channel is leased exclusively to one operation at a time if the operation relies on the channel position, the
+concurrent operations on the same file get the private (not cached) channels then. The operations using the positional
+I/O only may lease the same channel concurrently (shared lease), the channel is closed when the last lease is released
+and the channel is not cached anymore.
+*/
+public final class FileChannelCache
+				implements Closeable, FileChannelOpener {
+
+	private static final class Entry {
+
+		private final Path path;
+		private final FileChannel channel;
+		private int refCount = 0;
+		private boolean shared = false;
+		private boolean detached = false;
+
+		private Entry(final Path path, final FileChannel channel) {
+			this.path = path;
+			this.channel = channel;
+		}
+	}
+
+	private final int capacity;
+	private final FileChannelOpener channelOpener;
+	// both maps are guarded by the cache instance monitor, the entries map is ordered by the access (LRU first)
+	private final Map<Path, Entry> entries;
+	private final Map<FileChannel, Entry> leasedEntries = new IdentityHashMap<>();
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	private final LongAdder shareCount = new LongAdder();
+
+	/**
+	 @param capacity the max count of the cached idle channels, 0 means the idle channel is closed at once so only the
+	 channels leased for the shared access are reused
+	 @param channelOpener the function opening a new channel for the given path
+	 */
+	public FileChannelCache(final int capacity, final FileChannelOpener channelOpener) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Channel cache capacity should not be negative: " + capacity);
+		}
+		this.capacity = capacity;
+		this.channelOpener = channelOpener;
+		this.entries = new LinkedHashMap<>(capacity, 0.75f, true);
+	}
+
+	/**
+	 Acquires the channel for the exclusive use.
+	 @see #acquire(Path, boolean)
+	 */
+	public final FileChannel acquire(final Path path)
+					throws IOException {
+		return acquire(path, false);
+	}
+
+	/**
+	 @param path the resolved file path
+	 @param shared true if the caller uses the positional I/O only, so the channel may be leased to the concurrent
+	 callers also requesting the shared access
+	 @return the cached channel if it's available, a newly opened one otherwise. The returned channel should be given
+	 back using {@link #release(FileChannel)} method
+	 @throws IOException if failed to open a new channel
+	 */
+	public final FileChannel acquire(final Path path, final boolean shared)
+					throws IOException {
+		final List<FileChannel> channelsToClose = new ArrayList<>(0);
+		try {
+			synchronized (this) {
+				final var entry = entries.get(path);
+				if (entry != null) {
+					if (!entry.channel.isOpen()) {
+						detach(entry);
+					} else if (entry.refCount == 0) {
+						if (!shared) {
+							entry.channel.position(0);
+						}
+						entry.shared = shared;
+						entry.refCount++;
+						leasedEntries.put(entry.channel, entry);
+						hitCount.increment();
+						return entry.channel;
+					} else if (shared && entry.shared) {
+						entry.refCount++;
+						hitCount.increment();
+						shareCount.increment();
+						return entry.channel;
+					}
+				}
+			}
+			missCount.increment();
+			final var channel = channelOpener.open(path);
+			synchronized (this) {
+				if (!entries.containsKey(path)) {
+					final var entry = new Entry(path, channel);
+					entry.shared = shared;
+					entry.refCount++;
+					entries.put(path, entry);
+					leasedEntries.put(channel, entry);
+					evictIdle(channelsToClose);
+				}
+			}
+			return channel;
+		} finally {
+			closeAll(channelsToClose);
+		}
+	}
+
+	@Override
+	public final FileChannel open(final Path path)
+					throws IOException {
+		return acquire(path);
+	}
+
+	/**
+	 @param channel the channel to give back
+	 @return true if the channel belongs to the cache, false otherwise (the caller is responsible to close it then)
+	 */
+	public final boolean release(final FileChannel channel) {
+		final List<FileChannel> channelsToClose = new ArrayList<>(0);
+		try {
+			synchronized (this) {
+				final var entry = leasedEntries.get(channel);
+				if (entry == null) {
+					return false;
+				}
+				entry.refCount--;
+				if (entry.refCount == 0) {
+					leasedEntries.remove(channel);
+					if (entry.detached) {
+						channelsToClose.add(channel);
+					} else if (!channel.isOpen()) {
+						detach(entry);
+					}
+				}
+				evictIdle(channelsToClose);
+			}
+			return true;
+		} finally {
+			closeAll(channelsToClose);
+		}
+	}
+
+	/**
+	 Drops the cached channel for the given path, should be invoked when the file is deleted or recreated.
+	 */
+	public final void invalidate(final Path path) {
+		FileChannel channelToClose = null;
+		synchronized (this) {
+			final var entry = entries.get(path);
+			if (entry != null) {
+				detach(entry);
+				if (entry.refCount == 0) {
+					channelToClose = entry.channel;
+				}
+			}
+		}
+		if (channelToClose != null) {
+			closeChannel(channelToClose);
+		}
+	}
+
+	public final long hitCount() {
+		return hitCount.sum();
+	}
+
+	public final long missCount() {
+		return missCount.sum();
+	}
+
+	public final long evictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 @return the count of the channel leases given while the channel was already leased by another caller
+	 */
+	public final long shareCount() {
+		return shareCount.sum();
+	}
+
+	public final synchronized int size() {
+		return entries.size();
+	}
+
+	// should be invoked holding the monitor
+	private void detach(final Entry entry) {
+		entry.detached = true;
+		entries.remove(entry.path);
+	}
+
+	// should be invoked holding the monitor
+	private void evictIdle(final List<FileChannel> channelsToClose) {
+		if (entries.size() > capacity) {
+			final Iterator<Entry> entriesIter = entries.values().iterator();
+			Entry entry;
+			while (entries.size() > capacity && entriesIter.hasNext()) {
+				entry = entriesIter.next();
+				if (entry.refCount == 0) {
+					entriesIter.remove();
+					entry.detached = true;
+					channelsToClose.add(entry.channel);
+					evictionCount.increment();
+				}
+			}
+		}
+	}
+
+	private static void closeAll(final List<FileChannel> channels) {
+		for (var i = 0; i < channels.size(); i++) {
+			closeChannel(channels.get(i));
+		}
+	}
+
+	private static void closeChannel(final FileChannel channel) {
+		if (channel.isOpen()) {
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				LogUtil.exception(Level.WARN, e, "Failed to close the cached file channel {}", channel);
+			}
+		}
+	}
+
+	@Override
+	public final void close() {
+		final List<FileChannel> channelsToClose;
+		synchronized (this) {
+			channelsToClose = new ArrayList<>(entries.size());
+			for (final var entry : entries.values()) {
+				entry.detached = true;
+				channelsToClose.add(entry.channel);
+			}
+			entries.clear();
+			leasedEntries.clear();
+		}
+		closeAll(channelsToClose);
+	}
+
+	@Override
+	public final String toString() {
+		return "hits: " + hitCount() + ", misses: " + missCount() + ", evictions: " + evictionCount() + ", shares: "
+						+ shareCount();
+	}
+}
@@ -0,0 +1,12 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+@FunctionalInterface
+public interface FileChannelOpener {
+
+	FileChannel open(final Path path)
+					throws IOException;
+}
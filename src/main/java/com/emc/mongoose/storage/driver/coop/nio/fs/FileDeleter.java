@@ -0,0 +1,327 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.logging.LogUtil;
+import com.emc.mongoose.base.logging.Loggers;
+
+import org.apache.logging.log4j.Level;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SecureDirectoryStream;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+Deletes the files in the background so the unlink latency doesn't block the I/O worker threads. The submitted files are
+taken by the deleter threads in batches, the batch is grouped by the parent directory and the files of the group are
+unlinked relative to the directory handle opened once (unlinkat) if the filesystem supports the secure directory
+streams. The directory trees are deleted on the fork-join pool, the subdirectories are deleted in parallel.
+The count of the pending deletions is limited, the submission is rejected when the limit is reached.
+*/
+public final class FileDeleter
+				implements Closeable {
+
+	private static final long CLOSE_TIMEOUT_MILLIS = 60_000;
+
+	private static final class Entry {
+
+		private final Path path;
+		private final Consumer<IOException> callback;
+
+		private Entry(final Path path, final Consumer<IOException> callback) {
+			this.path = path;
+			this.callback = callback;
+		}
+	}
+
+	private final int batchSize;
+	private final Semaphore pendingPermits;
+	private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+	private final List<Thread> deleters;
+	private final ForkJoinPool treeDeletePool;
+	private volatile boolean closed = false;
+	private final LongAdder fileCount = new LongAdder();
+	private final LongAdder batchCount = new LongAdder();
+	private final LongAdder treeCount = new LongAdder();
+
+	/**
+	 @param threads the count of the deleter threads, also the tree deletion parallelism
+	 @param batchSize the max count of the files taken by the deleter thread at once
+	 @param queueSize the max count of the pending deletions
+	 */
+	public FileDeleter(final int threads, final int batchSize, final int queueSize) {
+		this.batchSize = batchSize;
+		pendingPermits = new Semaphore(queueSize);
+		deleters = new ArrayList<>(threads);
+		for (var i = 0; i < threads; i++) {
+			final var deleter = new Thread(this::deleteLoop, "fsDeleter" + i);
+			deleter.setDaemon(true);
+			deleter.start();
+			deleters.add(deleter);
+		}
+		treeDeletePool = new ForkJoinPool(threads);
+	}
+
+	/**
+	 Enqueues the file for the deletion. Doesn't block.
+	 @param callback invoked by the deleter with null argument if the file is deleted, with the failure otherwise
+	 @return false if the pending deletions limit is reached, the callback is not invoked then
+	 */
+	public final boolean submit(final Path path, final Consumer<IOException> callback) {
+		if (closed) {
+			callback.accept(new IOException("The file deleter is closed"));
+			return true;
+		}
+		if (pendingPermits.tryAcquire()) {
+			queue.add(new Entry(path, callback));
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 Deletes the directory with all its content in the background. Doesn't block.
+	 @param callback invoked with null argument if the directory is deleted, with the failure otherwise
+	 @return false if the pending deletions limit is reached, the callback is not invoked then
+	 */
+	public final boolean submitTree(final Path dirPath, final Consumer<IOException> callback) {
+		if (closed) {
+			callback.accept(new IOException("The file deleter is closed"));
+			return true;
+		}
+		if (pendingPermits.tryAcquire()) {
+			treeDeletePool.execute(
+							() -> {
+								IOException err = null;
+								try {
+									deleteTree(dirPath, treeDeletePool);
+									treeCount.increment();
+								} catch (final IOException e) {
+									err = e;
+								} finally {
+									pendingPermits.release();
+								}
+								complete(callback, err);
+							});
+			return true;
+		}
+		return false;
+	}
+
+	private void deleteLoop() {
+		final List<Entry> batch = new ArrayList<>(batchSize);
+		try {
+			while (!closed) {
+				batch.add(queue.take());
+				queue.drainTo(batch, batchSize - 1);
+				delete(batch);
+				batch.clear();
+			}
+		} catch (final InterruptedException ignored) {
+		} finally {
+			delete(batch);
+		}
+	}
+
+	private void delete(final List<Entry> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		final Map<Path, List<Entry>> groups = new HashMap<>();
+		for (final var entry : batch) {
+			groups.computeIfAbsent(entry.path.toAbsolutePath().getParent(), p -> new ArrayList<>()).add(entry);
+		}
+		for (final var group : groups.entrySet()) {
+			deleteGroup(group.getKey(), group.getValue());
+		}
+		batchCount.increment();
+		fileCount.add(batch.size());
+		pendingPermits.release(batch.size());
+		batch.clear();
+	}
+
+	private void deleteGroup(final Path dirPath, final List<Entry> group) {
+		SecureDirectoryStream<Path> secureDirStream = null;
+		if (group.size() > 1) {
+			try {
+				final var dirStream = dirPath.getFileSystem().provider().newDirectoryStream(
+								dirPath, ListingHelper.ACCEPT_ALL_PATHS_FILTER);
+				if (dirStream instanceof SecureDirectoryStream) {
+					secureDirStream = (SecureDirectoryStream<Path>) dirStream;
+				} else {
+					dirStream.close();
+				}
+			} catch (final IOException e) {
+				// fall back to the deletion by the full path which reports the error per file
+			}
+		}
+		try {
+			for (final var entry : group) {
+				IOException err = null;
+				try {
+					if (secureDirStream == null) {
+						entry.path.getFileSystem().provider().delete(entry.path);
+					} else {
+						secureDirStream.deleteFile(entry.path.getFileName());
+					}
+				} catch (final IOException e) {
+					err = e;
+				}
+				complete(entry.callback, err);
+			}
+		} finally {
+			if (secureDirStream != null) {
+				try {
+					secureDirStream.close();
+				} catch (final IOException e) {
+					LogUtil.exception(Level.DEBUG, e, "Failed to close the directory stream for \"{}\"", dirPath);
+				}
+			}
+		}
+	}
+
+	private static void complete(final Consumer<IOException> callback, final IOException e) {
+		try {
+			callback.accept(e);
+		} catch (final Throwable cause) {
+			LogUtil.exception(Level.WARN, cause, "File delete callback failure");
+		}
+	}
+
+	/**
+	 Deletes the directory with all its content, the subdirectories are deleted in parallel on the given pool. Blocks
+	 until done.
+	 */
+	public static void deleteTree(final Path dirPath, final ForkJoinPool pool)
+					throws IOException {
+		try {
+			pool.invoke(new TreeDeleteTask(dirPath));
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static final class TreeDeleteTask
+					extends RecursiveAction {
+
+		private final Path dirPath;
+
+		private TreeDeleteTask(final Path dirPath) {
+			this.dirPath = dirPath;
+		}
+
+		@Override
+		protected final void compute() {
+			final List<TreeDeleteTask> subTasks = new ArrayList<>();
+			RuntimeException err = null;
+			try (final DirectoryStream<Path> dirStream = dirPath.getFileSystem().provider().newDirectoryStream(
+							dirPath, ListingHelper.ACCEPT_ALL_PATHS_FILTER)) {
+				final SecureDirectoryStream<Path> secureDirStream;
+				if (dirStream instanceof SecureDirectoryStream) {
+					secureDirStream = (SecureDirectoryStream<Path>) dirStream;
+				} else {
+					secureDirStream = null;
+				}
+				BasicFileAttributes attrs;
+				for (final Path entryPath : dirStream) {
+					if (secureDirStream == null) {
+						attrs = entryPath.getFileSystem().provider().readAttributes(
+										entryPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					} else {
+						attrs = secureDirStream
+										.getFileAttributeView(
+														entryPath.getFileName(), BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS)
+										.readAttributes();
+					}
+					if (attrs.isDirectory()) {
+						final var subTask = new TreeDeleteTask(entryPath);
+						subTask.fork();
+						subTasks.add(subTask);
+					} else if (secureDirStream == null) {
+						entryPath.getFileSystem().provider().delete(entryPath);
+					} else {
+						secureDirStream.deleteFile(entryPath.getFileName());
+					}
+				}
+			} catch (final IOException e) {
+				err = new UncheckedIOException(e);
+			} catch (final DirectoryIteratorException e) {
+				err = new UncheckedIOException(e.getCause());
+			}
+			// the subdirectories should be deleted before the directory itself
+			for (final var subTask : subTasks) {
+				try {
+					subTask.join();
+				} catch (final RuntimeException e) {
+					if (err == null) {
+						err = e;
+					}
+				}
+			}
+			if (err == null) {
+				try {
+					dirPath.getFileSystem().provider().delete(dirPath);
+				} catch (final IOException e) {
+					err = new UncheckedIOException(e);
+				}
+			}
+			if (err != null) {
+				throw err;
+			}
+		}
+	}
+
+	@Override
+	public final void close() {
+		closed = true;
+		for (final var deleter : deleters) {
+			deleter.interrupt();
+		}
+		for (final var deleter : deleters) {
+			try {
+				deleter.join();
+			} catch (final InterruptedException e) {
+				Loggers.ERR.debug("Interrupted while waiting for the file deleter to stop");
+			}
+		}
+		// the entries submitted concurrently with the deleters stop
+		final List<Entry> batch = new ArrayList<>();
+		queue.drainTo(batch);
+		delete(batch);
+		treeDeletePool.shutdown();
+		try {
+			if (!treeDeletePool.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				Loggers.ERR.warn("Timeout while waiting for the directory tree deletions to finish");
+			}
+		} catch (final InterruptedException e) {
+			Loggers.ERR.debug("Interrupted while waiting for the directory tree deletions to finish");
+		}
+	}
+
+	@Override
+	public final String toString() {
+		final long batches = batchCount.sum();
+		final var s = new StringBuilder("files: ").append(fileCount.sum());
+		if (batches > 0) {
+			s.append(", mean batch size: ").append(fileCount.sum() / batches);
+		}
+		return s.append(", trees: ").append(treeCount.sum()).toString();
+	}
+}
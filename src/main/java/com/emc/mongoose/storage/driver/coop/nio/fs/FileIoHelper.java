@@ -14,9 +14,9 @@ import org.apache.logging.log4j.Level;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystem;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
 
@@ -28,31 +28,67 @@ import static com.emc.mongoose.storage.driver.coop.nio.fs.FsConstants.READ_OPEN_
 
 public interface FileIoHelper {
 
+	/**
+	 Writes the data item content at the channel's current position, the direct I/O channel is fed with the aligned
+	 buffers to avoid the read-modify-write for each chunk.
+	 */
+	static long writeToFileChannel(final DataItem src, final FileChannel dstChannel, final long maxCount)
+					throws IOException {
+		if (dstChannel instanceof DirectIoFileChannel) {
+			return ((DirectIoFileChannel) dstChannel).write(src, maxCount);
+		} else {
+			return src.writeToFileChannel(dstChannel, maxCount);
+		}
+	}
+
+	/**
+	 Writes the data item content at the given position without using the channel's position, so the channel may be
+	 shared by the concurrent operations on the same file. The content is copied into the thread local buffer first.
+	 */
+	static long writeToFileChannel(
+					final DataItem src, final FileChannel dstChannel, final long pos, final long maxCount)
+					throws IOException {
+		final ByteBuffer outBuff = DirectMemUtil.getThreadLocalReusableBuff(maxCount);
+		while (outBuff.hasRemaining()) {
+			if (src.read(outBuff) <= 0) {
+				break;
+			}
+		}
+		outBuff.flip();
+		final int filled = outBuff.remaining();
+		final int n = dstChannel.write(outBuff, pos);
+		if (n < filled) {
+			src.position(src.position() - (filled - n));
+		}
+		return n;
+	}
+
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeCreate(
-					final I fileItem, final O op, final FileChannel dstChannel) throws IOException {
+					final I fileItem, final O op, final FileChannel dstChannel, final int buffSize) throws IOException {
 		long countBytesDone = op.countBytesDone();
 		final long contentSize = fileItem.size();
 		if (countBytesDone < contentSize && Operation.Status.ACTIVE.equals(op.status())) {
-			countBytesDone += fileItem.writeToFileChannel(dstChannel, contentSize - countBytesDone);
+			countBytesDone += writeToFileChannel(
+							fileItem, dstChannel, Math.min(contentSize - countBytesDone, buffSize));
 			op.countBytesDone(countBytesDone);
 		}
 		return countBytesDone >= contentSize;
 	}
 
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeCopy(
-					final I fileItem, final O op, final FileChannel srcChannel, final FileChannel dstChannel) throws IOException {
+					final I fileItem, final O op, final FileChannel srcChannel, final FileChannel dstChannel, final int buffSize) throws IOException {
 		long countBytesDone = op.countBytesDone();
 		final long contentSize = fileItem.size();
 		if (countBytesDone < contentSize && Operation.Status.ACTIVE.equals(op.status())) {
 			countBytesDone += srcChannel.transferTo(
-							countBytesDone, contentSize - countBytesDone, dstChannel);
+							countBytesDone, Math.min(contentSize - countBytesDone, buffSize), dstChannel);
 			op.countBytesDone(countBytesDone);
 		}
 		return countBytesDone >= contentSize;
 	}
 
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadAndVerify(
-					final I fileItem, final O op, final ReadableByteChannel srcChannel) throws DataSizeException, DataCorruptionException, IOException {
+					final I fileItem, final O op, final FileChannel srcChannel, final int buffSize) throws DataSizeException, DataCorruptionException, IOException {
 		long countBytesDone = op.countBytesDone();
 		final long contentSize = fileItem.size();
 		if (countBytesDone < contentSize) {
@@ -62,8 +98,8 @@ public interface FileIoHelper {
 				final long nextRangeOffset = rangeOffset(nextRangeIdx);
 				if (currRange != null) {
 					final ByteBuffer inBuff = DirectMemUtil.getThreadLocalReusableBuff(
-									nextRangeOffset - countBytesDone);
-					final int n = srcChannel.read(inBuff);
+									Math.min(nextRangeOffset - countBytesDone, buffSize));
+					final int n = srcChannel.read(inBuff, countBytesDone);
 					if (n < 0) {
 						throw new DataSizeException(contentSize, countBytesDone);
 					} else {
@@ -79,8 +115,9 @@ public interface FileIoHelper {
 					throw new AssertionError("Null data range");
 				}
 			} else {
-				final ByteBuffer inBuff = DirectMemUtil.getThreadLocalReusableBuff(contentSize - countBytesDone);
-				final int n = srcChannel.read(inBuff);
+				final ByteBuffer inBuff = DirectMemUtil.getThreadLocalReusableBuff(
+								Math.min(contentSize - countBytesDone, buffSize));
+				final int n = srcChannel.read(inBuff, countBytesDone);
 				if (n < 0) {
 					throw new DataSizeException(contentSize, countBytesDone);
 				} else {
@@ -96,150 +133,98 @@ public interface FileIoHelper {
 	}
 
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadAndVerifyRandomRanges(
-					final I fileItem, final O op, final SeekableByteChannel srcChannel, final BitSet maskRangesPair[]) throws DataSizeException, DataCorruptionException, IOException {
-		long countBytesDone = op.countBytesDone();
+					final I fileItem, final O op, final FileChannel srcChannel, final BitSet maskRangesPair[], final int buffSize) throws DataSizeException, DataCorruptionException, IOException {
+		final long countBytesDone = op.countBytesDone();
 		final long rangesSizeSum = op.markedRangesSize();
 		if (rangesSizeSum > 0 && rangesSizeSum > countBytesDone) {
-			DataItem range2read;
-			int currRangeIdx;
-			while (true) {
-				currRangeIdx = op.currRangeIdx();
-				if (currRangeIdx < rangeCount(fileItem.size())) {
-					if (maskRangesPair[0].get(currRangeIdx) || maskRangesPair[1].get(currRangeIdx)) {
-						range2read = op.currRange();
-						if (Loggers.MSG.isTraceEnabled()) {
-							Loggers.MSG.trace(
-											"Load operation: {}, Range index: {}, size: {}, internal position: {}, " +
-															"Done byte count: {}",
-											op.toString(), currRangeIdx, range2read.size(), range2read.position(), countBytesDone);
-						}
-						break;
-					} else {
-						op.currRangeIdx(++currRangeIdx);
-					}
-				} else {
-					op.countBytesDone(rangesSizeSum);
-					return true;
-				}
+			final long itemSize = fileItem.size();
+			final int rangeCount = rangeCount(itemSize);
+			final int currRangeIdx = seekMarkedRange(op, maskRangesPair, rangeCount);
+			if (currRangeIdx < 0) {
+				op.countBytesDone(rangesSizeSum);
+				return true;
 			}
-			final long currRangeSize = range2read.size();
+			// read the adjacent marked ranges at once
+			final int runEndIdx = markedRangesRunEnd(maskRangesPair, currRangeIdx, rangeCount);
+			final long runEnd = Math.min(itemSize, rangeOffset(runEndIdx));
 			final long currPos = rangeOffset(currRangeIdx) + countBytesDone;
-			srcChannel.position(currPos);
-			final ByteBuffer inBuff = DirectMemUtil.getThreadLocalReusableBuff(currRangeSize - countBytesDone);
-			final int n = srcChannel.read(inBuff);
+			final ByteBuffer inBuff = DirectMemUtil.getThreadLocalReusableBuff(Math.min(runEnd - currPos, buffSize));
+			final int n = srcChannel.read(inBuff, currPos);
 			if (n < 0) {
 				throw new DataSizeException(rangesSizeSum, countBytesDone);
-			} else {
-				inBuff.flip();
+			}
+			inBuff.flip();
+			// verify range by range, the adjacent ranges may belong to the different layers
+			int rangeIdx = currRangeIdx;
+			long rangePos = countBytesDone;
+			int buffPos = 0;
+			while (buffPos < n) {
+				if (rangeIdx != currRangeIdx) {
+					op.currRangeIdx(rangeIdx);
+				}
+				final DataItem range2read = op.currRange();
+				final int m = (int) Math.min(n - buffPos, range2read.size() - rangePos);
+				if (Loggers.MSG.isTraceEnabled()) {
+					Loggers.MSG.trace(
+									"Load operation: {}, Range index: {}, size: {}, internal position: {}, verify byte count: {}",
+									op.toString(), rangeIdx, range2read.size(), rangePos, m);
+				}
+				range2read.position(rangePos);
 				try {
-					range2read.verify(inBuff);
-					range2read.position(range2read.position() + n);
-					countBytesDone += n;
+					range2read.verify(slice(inBuff, buffPos, m));
 				} catch (final DataCorruptionException e) {
-					throw new DataCorruptionException(currPos + e.getOffset() - countBytesDone, e.expected, e.actual);
+					throw new DataCorruptionException(currPos + buffPos + e.getOffset() - countBytesDone, e.expected, e.actual);
+				}
+				range2read.position(rangePos + m);
+				buffPos += m;
+				rangePos += m;
+				if (rangePos == range2read.size()) {
+					rangeIdx ++;
+					rangePos = 0;
 				}
 			}
-			if (Loggers.MSG.isTraceEnabled()) {
-				Loggers.MSG.trace(
-								"Load operation: {}, Done bytes count: {}, Curr range size: {}", op.toString(), countBytesDone,
-								range2read.size());
-			}
-			if (countBytesDone == currRangeSize && countBytesDone < rangesSizeSum) {
-				op.currRangeIdx(currRangeIdx + 1);
-				op.countBytesDone(0);
-			} else {
-				op.countBytesDone(countBytesDone);
-			}
+			return advanceMarkedRanges(
+							op, maskRangesPair, currRangeIdx, runEndIdx, runEnd, currPos + n, rangeCount, rangesSizeSum);
 		}
-		return rangesSizeSum <= 0 || rangesSizeSum <= countBytesDone;
+		return true;
 	}
 
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadAndVerifyFixedRanges(
-					final I fileItem, final O op, final SeekableByteChannel srcChannel, final List<Range> fixedRanges) throws DataSizeException, DataCorruptionException, IOException {
-		final long baseItemSize = fileItem.size();
-		final long fixedRangesSizeSum = op.markedRangesSize();
-		long countBytesDone = op.countBytesDone();
-		// "countBytesDone" is the current range done bytes counter here
-		long rangeBytesDone = countBytesDone;
-		long currOffset;
-		long cellOffset;
-		long cellEnd;
-		int n;
-		if (fixedRangesSizeSum > 0 && fixedRangesSizeSum > countBytesDone) {
-			Range fixedRange;
-			DataItem currRange;
-			int currFixedRangeIdx = op.currRangeIdx();
-			long fixedRangeEnd;
-			long fixedRangeSize;
-			if (currFixedRangeIdx < fixedRanges.size()) {
-				fixedRange = fixedRanges.get(currFixedRangeIdx);
-				currOffset = fixedRange.getBeg();
-				fixedRangeEnd = fixedRange.getEnd();
-				if (currOffset == -1) {
-					// last "rangeEnd" bytes
-					currOffset = baseItemSize - fixedRangeEnd;
-					fixedRangeSize = fixedRangeEnd;
-				} else if (fixedRangeEnd == -1) {
-					// start @ offset equal to "rangeBeg"
-					fixedRangeSize = baseItemSize - currOffset;
-				} else {
-					fixedRangeSize = fixedRangeEnd - currOffset + 1;
-				}
-				// let (current offset = rangeBeg + rangeBytesDone)
-				currOffset += rangeBytesDone;
-				// find the internal data item's cell index which has:
-				// (cell's offset <= current offset) && (cell's end > current offset)
-				n = rangeCount(currOffset + 1) - 1;
-				cellOffset = rangeOffset(n);
-				cellEnd = Math.min(baseItemSize, rangeOffset(n + 1));
-				// get the found cell data item (updated or not)
-				currRange = fileItem.slice(cellOffset, cellEnd - cellOffset);
-				if (fileItem.isRangeUpdated(n)) {
-					currRange.layer(fileItem.layer() + 1);
-				}
-				// set the cell data item internal position to (current offset - cell's offset)
-				currRange.position(currOffset - cellOffset);
-				srcChannel.position(currOffset);
+					final I fileItem, final O op, final FileChannel srcChannel, final long[] ranges, final int buffSize) throws DataSizeException, DataCorruptionException, IOException {
+		final long fixedRangesSizeSum = rangesSize(ranges);
+		// "countBytesDone" is the current (coalesced) range done bytes counter here
+		final long rangeBytesDone = op.countBytesDone();
+		if (fixedRangesSizeSum > 0 && fixedRangesSizeSum > rangeBytesDone) {
+			final int currRangeIdx = op.currRangeIdx();
+			if (2 * currRangeIdx < ranges.length) {
+				final long rangeBeg = ranges[2 * currRangeIdx];
+				final long rangeSize = ranges[2 * currRangeIdx + 1] - rangeBeg;
+				final long currOffset = rangeBeg + rangeBytesDone;
 				final ByteBuffer inBuff = DirectMemUtil.getThreadLocalReusableBuff(
-								Math.min(fixedRangeSize - countBytesDone, currRange.size() - currRange.position()));
-				final int m = srcChannel.read(inBuff);
-				if (m < 0) {} else {
-					inBuff.flip();
-					try {
-						currRange.verify(inBuff);
-						currRange.position(currRange.position() + m);
-						rangeBytesDone += m;
-					} catch (final DataCorruptionException e) {
-						throw new DataCorruptionException(
-										currOffset + e.getOffset() - countBytesDone, e.expected, e.actual);
-					}
-				}
-				if (rangeBytesDone == fixedRangeSize) {
-					// current byte range verification is finished
-					if (currFixedRangeIdx == fixedRanges.size() - 1) {
-						// current byte range was last in the list
-						op.countBytesDone(fixedRangesSizeSum);
-						return true;
-					} else {
-						op.currRangeIdx(currFixedRangeIdx + 1);
-						rangeBytesDone = 0;
-					}
+								Math.min(rangeSize - rangeBytesDone, buffSize));
+				final int n = srcChannel.read(inBuff, currOffset);
+				if (n < 0) {
+					throw new DataSizeException(fixedRangesSizeSum, rangeBytesDone);
 				}
-				op.countBytesDone(rangeBytesDone);
+				inBuff.flip();
+				verifyCells(fileItem, inBuff, currOffset, rangeBytesDone);
+				return advanceFixedRanges(op, ranges, currRangeIdx, rangeBytesDone + n, rangeSize, fixedRangesSizeSum);
 			} else {
 				op.countBytesDone(fixedRangesSizeSum);
 			}
 		}
-		return fixedRangesSizeSum <= 0 || fixedRangesSizeSum <= countBytesDone;
+		return true;
 	}
 
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeRead(
-					final I fileItem, final O op, final ReadableByteChannel srcChannel) throws IOException {
+					final I fileItem, final O op, final FileChannel srcChannel, final int buffSize) throws IOException {
 		long countBytesDone = op.countBytesDone();
 		final long contentSize = fileItem.size();
 		int n;
 		if (countBytesDone < contentSize) {
-			n = srcChannel.read(DirectMemUtil.getThreadLocalReusableBuff(contentSize - countBytesDone));
+			n = srcChannel.read(
+							DirectMemUtil.getThreadLocalReusableBuff(Math.min(contentSize - countBytesDone, buffSize)),
+							countBytesDone);
 			if (n < 0) {
 				op.countBytesDone(countBytesDone);
 				fileItem.size(countBytesDone);
@@ -254,146 +239,145 @@ public interface FileIoHelper {
 
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadRandomRanges(
 					final I fileItem, final O op, final FileChannel srcChannel,
-					final BitSet maskRangesPair[]) throws IOException {
-		int n;
-		long countBytesDone = op.countBytesDone();
+					final BitSet maskRangesPair[], final int buffSize) throws IOException {
+		final long countBytesDone = op.countBytesDone();
 		final long rangesSizeSum = op.markedRangesSize();
 		if (rangesSizeSum > 0 && rangesSizeSum > countBytesDone) {
-			DataItem range2read;
-			int currRangeIdx;
-			while (true) {
-				currRangeIdx = op.currRangeIdx();
-				if (currRangeIdx < rangeCount(fileItem.size())) {
-					if (maskRangesPair[0].get(currRangeIdx) || maskRangesPair[1].get(currRangeIdx)) {
-						range2read = op.currRange();
-						break;
-					} else {
-						op.currRangeIdx(++currRangeIdx);
-					}
-				} else {
-					op.countBytesDone(rangesSizeSum);
-					return true;
-				}
+			final long itemSize = fileItem.size();
+			final int rangeCount = rangeCount(itemSize);
+			final int currRangeIdx = seekMarkedRange(op, maskRangesPair, rangeCount);
+			if (currRangeIdx < 0) {
+				op.countBytesDone(rangesSizeSum);
+				return true;
 			}
-			final long currRangeSize = range2read.size();
-			n = srcChannel.read(
-							DirectMemUtil.getThreadLocalReusableBuff(currRangeSize - countBytesDone),
-							rangeOffset(currRangeIdx) + countBytesDone);
+			// read the adjacent marked ranges at once
+			final int runEndIdx = markedRangesRunEnd(maskRangesPair, currRangeIdx, rangeCount);
+			final long runEnd = Math.min(itemSize, rangeOffset(runEndIdx));
+			final long currPos = rangeOffset(currRangeIdx) + countBytesDone;
+			final int n = srcChannel.read(
+							DirectMemUtil.getThreadLocalReusableBuff(Math.min(runEnd - currPos, buffSize)), currPos);
 			if (n < 0) {
 				op.countBytesDone(countBytesDone);
 				return true;
 			}
-			countBytesDone += n;
-			if (countBytesDone == currRangeSize && countBytesDone < rangesSizeSum) {
-				op.currRangeIdx(currRangeIdx + 1);
-				op.countBytesDone(0);
-			} else {
-				op.countBytesDone(countBytesDone);
-			}
+			return advanceMarkedRanges(
+							op, maskRangesPair, currRangeIdx, runEndIdx, runEnd, currPos + n, rangeCount, rangesSizeSum);
 		}
-		return rangesSizeSum <= 0 || rangesSizeSum <= countBytesDone;
+		return true;
 	}
 
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadFixedRanges(
-					final I fileItem, final O op, final FileChannel srcChannel, final List<Range> byteRanges) throws IOException {
-		int n;
-		long countBytesDone = op.countBytesDone();
-		final long baseItemSize = fileItem.size();
-		final long rangesSizeSum = op.markedRangesSize();
+					final I fileItem, final O op, final FileChannel srcChannel, final long[] ranges, final int buffSize) throws IOException {
+		final long countBytesDone = op.countBytesDone();
+		final long rangesSizeSum = rangesSize(ranges);
 		if (rangesSizeSum > 0 && rangesSizeSum > countBytesDone) {
-			Range byteRange;
-			int currRangeIdx = op.currRangeIdx();
-			long rangeBeg;
-			long rangeEnd;
-			long rangeSize;
-			if (currRangeIdx < byteRanges.size()) {
-				byteRange = byteRanges.get(currRangeIdx);
-				rangeBeg = byteRange.getBeg();
-				rangeEnd = byteRange.getEnd();
-				if (rangeBeg == -1) {
-					// last "rangeEnd" bytes
-					rangeBeg = baseItemSize - rangeEnd;
-					rangeSize = rangeEnd;
-				} else if (rangeEnd == -1) {
-					// start @ offset equal to "rangeBeg"
-					rangeSize = baseItemSize - rangeBeg;
-				} else {
-					rangeSize = rangeEnd - rangeBeg + 1;
-				}
-				n = srcChannel.read(
-								DirectMemUtil.getThreadLocalReusableBuff(rangeSize - countBytesDone), rangeBeg + countBytesDone);
+			final int currRangeIdx = op.currRangeIdx();
+			if (2 * currRangeIdx < ranges.length) {
+				final long rangeBeg = ranges[2 * currRangeIdx];
+				final long rangeSize = ranges[2 * currRangeIdx + 1] - rangeBeg;
+				final int n = srcChannel.read(
+								DirectMemUtil.getThreadLocalReusableBuff(Math.min(rangeSize - countBytesDone, buffSize)),
+								rangeBeg + countBytesDone);
 				if (n < 0) {
 					op.countBytesDone(countBytesDone);
 					return true;
 				}
-				countBytesDone += n;
-				if (countBytesDone == rangeSize) {
-					op.currRangeIdx(currRangeIdx + 1);
-					op.countBytesDone(0);
-				} else {
-					op.countBytesDone(countBytesDone);
-				}
+				return advanceFixedRanges(op, ranges, currRangeIdx, countBytesDone + n, rangeSize, rangesSizeSum);
 			} else {
 				op.countBytesDone(rangesSizeSum);
 			}
 		}
-		return rangesSizeSum <= 0 || rangesSizeSum <= countBytesDone;
+		return true;
 	}
 
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeRandomRangesUpdate(
-					final I fileItem, final O op, final FileChannel dstChannel) throws IOException {
-		long countBytesDone = op.countBytesDone();
+					final I fileItem, final O op, final FileChannel dstChannel, final int buffSize) throws IOException {
+		final long countBytesDone = op.countBytesDone();
 		final long updatingRangesSize = op.markedRangesSize();
-
-		if (updatingRangesSize > 0) {
-			if (updatingRangesSize > countBytesDone) {
-				DataItem updatingRange;
-				int currRangeIdx;
-				while (true) {
-					currRangeIdx = op.currRangeIdx();
-					if (currRangeIdx < rangeCount(fileItem.size())) {
-						updatingRange = op.currRangeUpdate();
-						if (updatingRange == null) {
-							op.currRangeIdx(++currRangeIdx);
-						} else {
-							break;
-						}
-					} else {
-						op.countBytesDone(updatingRangesSize);
-						return true;
+		if (updatingRangesSize > 0 && updatingRangesSize > countBytesDone) {
+			final BitSet[] maskRangesPair = op.markedRangesMaskPair();
+			final long itemSize = fileItem.size();
+			final int rangeCount = rangeCount(itemSize);
+			final int currRangeIdx = seekMarkedRange(op, maskRangesPair, rangeCount);
+			if (currRangeIdx < 0) {
+				op.countBytesDone(updatingRangesSize);
+				return true;
+			}
+			final int runEndIdx = markedRangesRunEnd(maskRangesPair, currRangeIdx, rangeCount);
+			final long runEnd = Math.min(itemSize, rangeOffset(runEndIdx));
+			final long currPos = rangeOffset(currRangeIdx) + countBytesDone;
+			final long n;
+			if (runEndIdx - currRangeIdx == 1) {
+				// single range, no need to split the buffer
+				final DataItem updatingRange = op.currRangeUpdate();
+				updatingRange.position(countBytesDone);
+				n = writeToFileChannel(updatingRange, dstChannel, currPos, Math.min(runEnd - currPos, buffSize));
+			} else {
+				// gather the content of the adjacent ranges into the single buffer, the ranges may belong to the
+				// different layers
+				final ByteBuffer outBuff = DirectMemUtil.getThreadLocalReusableBuff(Math.min(runEnd - currPos, buffSize));
+				int rangeIdx = currRangeIdx;
+				long rangePos = countBytesDone;
+				while (outBuff.hasRemaining()) {
+					if (rangeIdx != currRangeIdx) {
+						op.currRangeIdx(rangeIdx);
 					}
+					final DataItem updatingRange = op.currRangeUpdate();
+					updatingRange.position(rangePos);
+					final int buffLimit = outBuff.limit();
+					outBuff.limit(outBuff.position() + (int) Math.min(outBuff.remaining(), updatingRange.size() - rangePos));
+					while (outBuff.hasRemaining() && updatingRange.read(outBuff) > 0);
+					if (outBuff.hasRemaining()) {
+						break; // unexpected end of the range content, write what is gathered
+					}
+					outBuff.limit(buffLimit);
+					rangeIdx ++;
+					rangePos = 0;
 				}
-				final long updatingRangeSize = updatingRange.size();
-				if (Loggers.MSG.isTraceEnabled()) {
-					Loggers.MSG.trace(
-									"{}: set the file position = {} + {}", fileItem.name(), rangeOffset(currRangeIdx),
-									countBytesDone);
-				}
-				dstChannel.position(rangeOffset(currRangeIdx) + countBytesDone);
-				countBytesDone += updatingRange.writeToFileChannel(dstChannel, updatingRangeSize - countBytesDone);
-				if (Loggers.MSG.isTraceEnabled()) {
-					Loggers.MSG.trace("{}: {} bytes written totally", fileItem.name(), countBytesDone);
-				}
-				if (countBytesDone == updatingRangeSize) {
-					op.currRangeIdx(currRangeIdx + 1);
-					op.countBytesDone(0);
-				} else {
-					op.countBytesDone(countBytesDone);
-				}
-			} else {
-				fileItem.commitUpdatedRanges(op.markedRangesMaskPair());
-				return true;
+				outBuff.flip();
+				n = dstChannel.write(outBuff, currPos);
+			}
+			if (Loggers.MSG.isTraceEnabled()) {
+				Loggers.MSG.trace(
+								"{}: {} bytes written @ position {}, ranges [{}, {})", fileItem.name(), n, currPos,
+								currRangeIdx, runEndIdx);
 			}
+			return advanceMarkedRanges(
+							op, maskRangesPair, currRangeIdx, runEndIdx, runEnd, currPos + n, rangeCount, updatingRangesSize);
 		} else {
 			fileItem.commitUpdatedRanges(op.markedRangesMaskPair());
 			return true;
 		}
-		return false;
-		//return updatingRangesSize <= 0 || updatingRangesSize <= countBytesDone;
 	}
 
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeFixedRangesUpdate(
-					final I fileItem, final O op, final FileChannel dstChannel, final List<Range> byteRanges) throws IOException {
+					final I fileItem, final O op, final FileChannel dstChannel, final long[] ranges, final int buffSize) throws IOException {
+		final long countBytesDone = op.countBytesDone();
+		final long updatingRangesSize = rangesSize(ranges);
+		if (updatingRangesSize > 0 && updatingRangesSize > countBytesDone) {
+			final int currRangeIdx = op.currRangeIdx();
+			if (2 * currRangeIdx < ranges.length) {
+				final long rangeBeg = ranges[2 * currRangeIdx];
+				final long rangeSize = ranges[2 * currRangeIdx + 1] - rangeBeg;
+				final DataItem updatingRange = fileItem.slice(rangeBeg, rangeSize);
+				updatingRange.position(countBytesDone);
+				final long n = writeToFileChannel(
+								updatingRange, dstChannel, rangeBeg + countBytesDone,
+								Math.min(rangeSize - countBytesDone, buffSize));
+				return advanceFixedRanges(op, ranges, currRangeIdx, countBytesDone + n, rangeSize, updatingRangesSize);
+			} else {
+				op.countBytesDone(updatingRangesSize);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 Updates the fixed byte ranges one by one in the configured order. Used if the append is requested, the appended
+	 range offset depends on the item size which is changed by the append.
+	 */
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeFixedRangesUpdateInOrder(
+					final I fileItem, final O op, final FileChannel dstChannel, final List<Range> byteRanges, final int buffSize) throws IOException {
 
 		long countBytesDone = op.countBytesDone();
 		final long baseItemSize = fileItem.size();
@@ -432,7 +416,8 @@ public interface FileIoHelper {
 					updatingRange = fileItem.slice(rangeBeg, rangeSize);
 					updatingRange.position(countBytesDone);
 					dstChannel.position(rangeBeg + countBytesDone);
-					countBytesDone += updatingRange.writeToFileChannel(dstChannel, rangeSize - countBytesDone);
+					countBytesDone += writeToFileChannel(
+									updatingRange, dstChannel, Math.min(rangeSize - countBytesDone, buffSize));
 					if (countBytesDone == rangeSize) {
 						op.currRangeIdx(currRangeIdx + 1);
 						op.countBytesDone(0);
@@ -454,28 +439,258 @@ public interface FileIoHelper {
 	}
 
 	static <I extends DataItem, O extends DataOperation<I>> boolean invokeOverwrite(
-					final I fileItem, final O op, final FileChannel dstChannel) throws IOException {
+					final I fileItem, final O op, final FileChannel dstChannel, final int buffSize) throws IOException {
 		long countBytesDone = op.countBytesDone();
 		if (countBytesDone == 0) {
 			dstChannel.position(countBytesDone);
 		}
 		final long fileSize = fileItem.size();
 		if (countBytesDone < fileSize && Operation.Status.ACTIVE.equals(op.status())) {
-			countBytesDone += fileItem.writeToFileChannel(dstChannel, fileSize - countBytesDone);
+			countBytesDone += writeToFileChannel(fileItem, dstChannel, Math.min(fileSize - countBytesDone, buffSize));
 			op.countBytesDone(countBytesDone);
 		}
 		return countBytesDone >= fileSize;
 	}
 
+	/**
+	 @return the index of the first range marked for the read or the update starting from the given one, -1 if none
+	 */
+	private static int nextMarkedRangeIdx(final BitSet maskRangesPair[], final int fromIdx, final int rangeCount) {
+		final int i0 = maskRangesPair[0].nextSetBit(fromIdx);
+		final int i1 = maskRangesPair[1].nextSetBit(fromIdx);
+		final int i;
+		if (i0 < 0) {
+			i = i1;
+		} else if (i1 < 0) {
+			i = i0;
+		} else {
+			i = Math.min(i0, i1);
+		}
+		return i < rangeCount ? i : -1;
+	}
+
+	/**
+	 Moves the operation to the first marked range starting from the current one.
+	 @return the index of the current marked range, -1 if there are no more marked ranges
+	 */
+	static <I extends DataItem, O extends DataOperation<I>> int seekMarkedRange(
+					final O op, final BitSet maskRangesPair[], final int rangeCount) {
+		final int currRangeIdx = nextMarkedRangeIdx(maskRangesPair, op.currRangeIdx(), rangeCount);
+		if (currRangeIdx >= 0 && currRangeIdx != op.currRangeIdx()) {
+			op.currRangeIdx(currRangeIdx);
+		}
+		return currRangeIdx;
+	}
+
+	/**
+	 @return the index following the last range in the run of the adjacent marked ranges starting from the given one
+	 */
+	static int markedRangesRunEnd(final BitSet maskRangesPair[], final int fromIdx, final int rangeCount) {
+		int i = fromIdx;
+		int j;
+		do {
+			j = i;
+			if (maskRangesPair[0].get(j)) {
+				i = Math.max(i, maskRangesPair[0].nextClearBit(j));
+			}
+			if (maskRangesPair[1].get(j)) {
+				i = Math.max(i, maskRangesPair[1].nextClearBit(j));
+			}
+		} while (i > j);
+		return Math.min(i, rangeCount);
+	}
+
+	/**
+	 Moves the operation to the range containing the given offset if the offset is inside the current run of the
+	 adjacent marked ranges, to the next marked range otherwise. The range index is set unconditionally: the run
+	 transfer may have moved the operation to the ranges past the transferred bytes while gathering or verifying.
+	 @return true if all the marked ranges are done
+	 */
+	static <I extends DataItem, O extends DataOperation<I>> boolean advanceMarkedRanges(
+					final O op, final BitSet maskRangesPair[], final int currRangeIdx, final int runEndIdx, final long runEnd,
+					final long offset, final int rangeCount, final long rangesSizeSum) {
+		if (offset < runEnd) {
+			int rangeIdx = currRangeIdx;
+			while (rangeOffset(rangeIdx + 1) <= offset) {
+				rangeIdx ++;
+			}
+			op.currRangeIdx(rangeIdx);
+			op.countBytesDone(offset - rangeOffset(rangeIdx));
+			return false;
+		}
+		final int nextRangeIdx = nextMarkedRangeIdx(maskRangesPair, runEndIdx, rangeCount);
+		if (nextRangeIdx < 0) {
+			op.countBytesDone(rangesSizeSum);
+			return true;
+		}
+		op.currRangeIdx(nextRangeIdx);
+		op.countBytesDone(0);
+		return false;
+	}
+
+	/**
+	 Resolves the fixed byte ranges against the item size, orders them by the offset and merges the overlapping and
+	 adjacent ones, so each merged range is transferred by the larger I/Os and the bytes are transferred only once.
+	 The append ranges are not expected. The fixed ranges methods take the merged ranges, so these are resolved once per
+	 operation.
+	 @return the merged ranges boundaries: [beg0, end0, beg1, end1, ...], the end offsets are exclusive
+	 */
+	static long[] coalesceFixedRanges(final List<Range> fixedRanges, final long itemSize) {
+		final int rangeCount = fixedRanges.size();
+		final var bounds = new long[2 * rangeCount];
+		for (var i = 0; i < rangeCount; i++) {
+			final var fixedRange = fixedRanges.get(i);
+			long rangeBeg = fixedRange.getBeg();
+			long rangeEnd = fixedRange.getEnd();
+			if (rangeBeg == -1) {
+				// last "rangeEnd" bytes
+				rangeBeg = itemSize - rangeEnd;
+				rangeEnd = itemSize;
+			} else if (rangeEnd == -1) {
+				// start @ offset equal to "rangeBeg"
+				rangeEnd = itemSize;
+			} else {
+				rangeEnd ++;
+			}
+			// insertion sort by the begin offset, the count of the ranges is small
+			var j = i;
+			for (; j > 0 && bounds[2 * j - 2] > rangeBeg; j--) {
+				bounds[2 * j] = bounds[2 * j - 2];
+				bounds[2 * j + 1] = bounds[2 * j - 1];
+			}
+			bounds[2 * j] = rangeBeg;
+			bounds[2 * j + 1] = rangeEnd;
+		}
+		var mergedCount = 0;
+		for (var i = 0; i < rangeCount; i++) {
+			if (mergedCount > 0 && bounds[2 * i] <= bounds[2 * mergedCount - 1]) {
+				bounds[2 * mergedCount - 1] = Math.max(bounds[2 * mergedCount - 1], bounds[2 * i + 1]);
+			} else {
+				bounds[2 * mergedCount] = bounds[2 * i];
+				bounds[2 * mergedCount + 1] = bounds[2 * i + 1];
+				mergedCount ++;
+			}
+		}
+		return mergedCount == rangeCount ? bounds : Arrays.copyOf(bounds, 2 * mergedCount);
+	}
+
+	/**
+	 @param ranges the merged ranges boundaries as returned by {@link #coalesceFixedRanges(List, long)}
+	 @return the total size of the merged ranges, the overlapping bytes are counted once as these are transferred once
+	 */
+	static long rangesSize(final long[] ranges) {
+		long size = 0;
+		for (var i = 0; i < ranges.length; i += 2) {
+			size += ranges[i + 1] - ranges[i];
+		}
+		return size;
+	}
+
+	static boolean hasAppendRange(final List<Range> fixedRanges) {
+		for (final var fixedRange : fixedRanges) {
+			if (fixedRange.getSize() != -1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 Moves the operation to the next merged fixed range if the current one is done.
+	 @return true if all the merged fixed ranges are done
+	 */
+	static <I extends DataItem, O extends DataOperation<I>> boolean advanceFixedRanges(
+					final O op, final long[] ranges, final int currRangeIdx, final long rangeBytesDone, final long rangeSize,
+					final long rangesSizeSum) {
+		if (rangeBytesDone < rangeSize) {
+			op.countBytesDone(rangeBytesDone);
+			return false;
+		} else if (2 * (currRangeIdx + 1) < ranges.length) {
+			op.currRangeIdx(currRangeIdx + 1);
+			op.countBytesDone(0);
+			return false;
+		} else {
+			op.countBytesDone(rangesSizeSum);
+			return true;
+		}
+	}
+
+	/**
+	 Verifies the buffer content cell by cell, the cell is the item's internal range which may be updated (belong to the
+	 next layer) independently.
+	 @param buffOffset the offset of the buffer content in the item
+	 @param countBytesDone the operation's done bytes counter, the corruption offset is reported relative to it
+	 */
+	static void verifyCells(
+					final DataItem fileItem, final ByteBuffer buff, final long buffOffset, final long countBytesDone)
+					throws DataCorruptionException {
+		final long itemSize = fileItem.size();
+		final long buffEnd = buffOffset + buff.remaining();
+		long currOffset = buffOffset;
+		while (currOffset < buffEnd) {
+			// find the internal data item's cell index which has:
+			// (cell's offset <= current offset) && (cell's end > current offset)
+			final int cellIdx = rangeCount(currOffset + 1) - 1;
+			final long cellOffset = rangeOffset(cellIdx);
+			final long cellEnd = Math.min(itemSize, rangeOffset(cellIdx + 1));
+			final DataItem currRange = fileItem.slice(cellOffset, cellEnd - cellOffset);
+			if (fileItem.isRangeUpdated(cellIdx)) {
+				currRange.layer(fileItem.layer() + 1);
+			}
+			currRange.position(currOffset - cellOffset);
+			final int n = (int) (Math.min(buffEnd, cellEnd) - currOffset);
+			try {
+				currRange.verify(slice(buff, currOffset - buffOffset, n));
+			} catch (final DataCorruptionException e) {
+				throw new DataCorruptionException(currOffset + e.getOffset() - countBytesDone, e.expected, e.actual);
+			}
+			currOffset += n;
+		}
+	}
+
+	static ByteBuffer slice(final ByteBuffer buff, final long offset, final int size) {
+		final var dup = buff.duplicate();
+		dup.position((int) offset).limit((int) offset + size);
+		return dup.slice();
+	}
+
+	static Path itemPath(final String parentPath, final String fileItemName) {
+		return itemPath(FS, parentPath, fileItemName);
+	}
+
+	static Path itemPath(final FileSystem fs, final String parentPath, final String fileItemName) {
+		if (parentPath == null || parentPath.isEmpty() || fileItemName.startsWith(parentPath)) {
+			return fs.getPath(fileItemName);
+		} else {
+			return fs.getPath(parentPath, fileItemName);
+		}
+	}
+
 	static <I extends DataItem, O extends DataOperation<I>> FileChannel openSrcFile(final O op) {
+		return openSrcFile(op, srcFilePath -> FS_PROVIDER.newFileChannel(srcFilePath, READ_OPEN_OPT));
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> FileChannel openSrcFile(
+					final O op, final FileChannelOpener channelOpener) {
+		return openSrcFile(op, channelOpener, FanOutLayout.FLAT);
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> FileChannel openSrcFile(
+					final O op, final FileChannelOpener channelOpener, final FanOutLayout layout) {
 		final String srcPath = op.srcPath();
 		if (srcPath == null || srcPath.isEmpty()) {
 			return null;
 		}
-		final String fileItemName = op.item().name();
-		final Path srcFilePath = fileItemName.startsWith(srcPath) ? FS.getPath(fileItemName) : FS.getPath(srcPath, fileItemName);
+		return openSrcFile(op, channelOpener, layout.itemPath(srcPath, op.item().name()));
+	}
+
+	/**
+	 Opens the source file by the path resolved by the caller.
+	 */
+	static <I extends DataItem, O extends DataOperation<I>> FileChannel openSrcFile(
+					final O op, final FileChannelOpener channelOpener, final Path srcFilePath) {
 		try {
-			return FS_PROVIDER.newFileChannel(srcFilePath, READ_OPEN_OPT);
+			return channelOpener.open(srcFilePath);
 		} catch (final IOException e) {
 			LogUtil.exception(Level.WARN, e, "Failed to open the source channel for the path @ \"{}\"", srcFilePath);
 			op.status(Operation.Status.FAIL_IO);
@@ -7,6 +7,7 @@ import com.emc.mongoose.base.config.IllegalConfigurationException;
 import com.emc.mongoose.base.item.DataItem;
 import com.emc.mongoose.base.item.Item;
 import com.emc.mongoose.base.item.ItemFactory;
+import com.emc.mongoose.base.item.PathItem;
 import com.emc.mongoose.base.item.op.OpType;
 import com.emc.mongoose.base.item.op.Operation;
 import com.emc.mongoose.base.item.op.data.DataOperation;
@@ -18,24 +19,35 @@ import com.emc.mongoose.storage.driver.coop.nio.NioStorageDriver;
 import com.emc.mongoose.storage.driver.coop.nio.NioStorageDriverBase;
 
 import com.github.akurilov.commons.collection.Range;
+import com.github.akurilov.commons.system.SizeInBytes;
 import com.github.akurilov.confuse.Config;
 
 import org.apache.logging.log4j.Level;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ClosedChannelException;
-import java.nio.channels.spi.AbstractInterruptibleChannel;
 import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystem;
 import java.nio.file.FileSystemException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.emc.mongoose.base.Exceptions.throwUncheckedIfInterrupted;
 
@@ -46,34 +58,607 @@ public final class FileStorageDriver<I extends Item, O extends Operation<I>>
 				extends NioStorageDriverBase<I, O>
 				implements NioStorageDriver<I, O> {
 
-	private final Map<DataOperation, FileChannel> srcOpenFiles = new ConcurrentHashMap<>();
-	private final Map<String, File> dstParentDirs = new ConcurrentHashMap<>();
-	private final Map<DataOperation, FileChannel> dstOpenFiles = new ConcurrentHashMap<>();
+	private static final long MANIFEST_WINDOW_SIZE = 0x4_00_00_00;
+	private static final long NO_PHASE_START = Long.MIN_VALUE;
+
+	// the per-operation state columns
+	private static final int SRC_CHANNEL = 0;
+	private static final int DST_CHANNEL = 1;
+	private static final int STRIPE_LEASE = 2;
+	private static final int DEVICE_TICKET = 3;
+	private static final int PENDING = 4; // set while the operation is being finished in the background
+	private static final int FIXED_RANGES = 5; // the coalesced fixed byte ranges
+	private static final int ITEM_PATH = 6; // the physical path of the target file
+	private static final int OP_SLOT_COLUMN_COUNT = 7;
+	private static final int OP_SLOTS_INIT_CAPACITY = 0x400;
+
+	private final OpSlotTable opSlots = new OpSlotTable(OP_SLOTS_INIT_CAPACITY, OP_SLOT_COLUMN_COUNT);
+	private final Map<String, Path> dstParentDirs = new ConcurrentHashMap<>();
+	private final Map<Path, Integer> blockSizes = new ConcurrentHashMap<>();
+	private final Map<String, ListingCursor> listingCursors = new ConcurrentHashMap<>();
+	private final Map<Path, ManifestWriter> manifestWriters = new ConcurrentHashMap<>();
+	private final Map<Path, PackStore> packStores = new ConcurrentHashMap<>();
+	private final FileSystem fs;
+	private final AlignedBufferPool directIoBuffPool;
+	private final FileChannelCache srcChannelCache;
+	private final FileChannelCache dstChannelCache;
+	private final FileChannelOpener srcChannelOpener;
+	private final FileChannelOpener dstChannelOpener;
+	private final boolean channelShared;
+	private final FileSyncer fileSyncer;
+	private final Set<OpenOption> createOpenOpts;
+	private final Set<OpenOption> writeOpenOpts;
+	private final AllocMode createAllocMode;
+	private final IoBufferSizer ioBuffSizer;
+	private final AsyncFileIoEngine asyncIoEngine;
+	private final long mmapWindowSize;
+	private final int ioVectorCount;
+	private final long ioVectorSize;
+	private final ListingMode listingMode;
+	private final boolean listRecursive;
+	private final int listThreads;
+	private final FanOutLayout fanOutLayout;
+	private final boolean pathDeleteRecursive;
+	private final FileDeleter fileDeleter;
+	private final PhaseTimer phaseTimer;
+	private final ScheduledExecutorService statsReportExecutor;
+	private final FreeSpaceMonitor spaceMonitor;
+	private final StripeSet stripes;
+	private final DeviceScheduler deviceScheduler;
+	private final String manifestName;
+	private final String packName;
+	private final long packContainerSize;
+	private final AllocMode packContainerAllocMode;
 
 	public FileStorageDriver(
 					final String stepId, final DataInput dataInput, final Config storageConfig, final boolean verifyFlag,
 					final int batchSize) throws IllegalConfigurationException {
 		super(stepId, dataInput, storageConfig, verifyFlag, batchSize);
 		requestAuthTokenFunc = null; // do not use
+		final var fsConfig = storageConfig.configVal("fs");
+		fs = fileSystem(fsConfig.stringVal("uri"));
+		final var defaultFs = FsConstants.FS.equals(fs);
+		final FileSyncer.Mode syncMode;
+		try {
+			syncMode = FileSyncer.Mode.of(fsConfig.stringVal("sync-mode"));
+		} catch (final IllegalArgumentException e) {
+			throw new IllegalConfigurationException(e.getMessage());
+		}
+		final var syncGroupSize = fsConfig.intVal("sync-group-size");
+		if (syncGroupSize < 1) {
+			throw new IllegalConfigurationException("Sync group size should be > 0: " + syncGroupSize);
+		}
+		final var syncGroupInterval = fsConfig.intVal("sync-group-interval");
+		if (syncGroupInterval < 0) {
+			throw new IllegalConfigurationException("Sync group interval should not be negative: " + syncGroupInterval);
+		}
+		fileSyncer = new FileSyncer(syncMode, syncGroupSize, syncGroupInterval);
+		createOpenOpts = fileSyncer.openOpts(FsConstants.CREATE_OPEN_OPT);
+		writeOpenOpts = fileSyncer.openOpts(FsConstants.WRITE_OPEN_OPT);
+		try {
+			createAllocMode = AllocMode.of(fsConfig.stringVal("create-alloc"));
+		} catch (final IllegalArgumentException e) {
+			throw new IllegalConfigurationException(e.getMessage());
+		}
+		if (fsConfig.boolVal("io-direct-enabled")) {
+			if (!defaultFs) {
+				throw new IllegalConfigurationException("Direct I/O is supported by the default file system only");
+			}
+			final var directBuffSize = sizeVal(fsConfig, "io-direct-buffer-size");
+			if (directBuffSize < 1 || directBuffSize > Integer.MAX_VALUE / 2) {
+				throw new IllegalConfigurationException("Invalid direct I/O buffer size: " + directBuffSize);
+			}
+			directIoBuffPool = new AlignedBufferPool((int) directBuffSize);
+		} else {
+			directIoBuffPool = null;
+		}
+		final var ioBuffSizeMin = sizeVal(fsConfig, "io-buffer-size-min");
+		final var ioBuffSizeMax = sizeVal(fsConfig, "io-buffer-size-max");
+		if (ioBuffSizeMin < 1 || ioBuffSizeMin > ioBuffSizeMax || ioBuffSizeMax > Integer.MAX_VALUE) {
+			throw new IllegalConfigurationException(
+							"Invalid I/O buffer size range: " + ioBuffSizeMin + " - " + ioBuffSizeMax);
+		}
+		ioBuffSizer = new IoBufferSizer((int) ioBuffSizeMin, (int) ioBuffSizeMax);
+		if (fsConfig.boolVal("pack-enabled")) {
+			if (directIoBuffPool != null) {
+				throw new IllegalConfigurationException("Packed mode can not be used together with the direct I/O");
+			}
+			packName = fsConfig.stringVal("pack-name");
+			if (packName == null || packName.isEmpty() || packName.contains(fs.getSeparator())) {
+				throw new IllegalConfigurationException("Invalid pack file name: \"" + packName + "\"");
+			}
+			packContainerSize = sizeVal(fsConfig, "pack-container-size");
+			if (packContainerSize < 1) {
+				throw new IllegalConfigurationException("Invalid pack container size: " + packContainerSize);
+			}
+			try {
+				packContainerAllocMode = AllocMode.of(fsConfig.stringVal("pack-container-alloc"));
+			} catch (final IllegalArgumentException e) {
+				throw new IllegalConfigurationException(e.getMessage());
+			}
+		} else {
+			packName = null;
+			packContainerSize = 0;
+			packContainerAllocMode = AllocMode.NONE;
+		}
+		final var channelCacheSize = fsConfig.intVal("channel-cache-size");
+		channelShared = packName == null && fsConfig.boolVal("channel-shared");
+		if (channelShared && directIoBuffPool != null) {
+			// the direct I/O channel keeps the position and the block buffer state, not thread safe
+			throw new IllegalConfigurationException("Shared channels can not be used together with the direct I/O");
+		}
+		if (channelCacheSize < 0) {
+			throw new IllegalConfigurationException("Channel cache size should not be negative: " + channelCacheSize);
+		} else if (packName != null) {
+			// the packed item channels are not cached, they are the cheap views of the always open containers
+			srcChannelCache = null;
+			dstChannelCache = null;
+			srcChannelOpener = this::openPackedItem;
+			dstChannelOpener = this::openPackedItem;
+		} else if (channelCacheSize > 0 || channelShared) {
+			srcChannelCache = new FileChannelCache(
+							channelCacheSize, path -> openChannel(path, FsConstants.READ_OPEN_OPT));
+			dstChannelCache = new FileChannelCache(
+							channelCacheSize, path -> openChannel(path, writeOpenOpts));
+			if (channelShared) {
+				// all the source channel reads are positional
+				srcChannelOpener = path -> srcChannelCache.acquire(path, true);
+			} else {
+				srcChannelOpener = srcChannelCache;
+			}
+			dstChannelOpener = dstChannelCache;
+		} else {
+			srcChannelCache = null;
+			dstChannelCache = null;
+			srcChannelOpener = path -> openChannel(path, FsConstants.READ_OPEN_OPT);
+			dstChannelOpener = path -> openChannel(path, writeOpenOpts);
+		}
+		final var ioEngine = fsConfig.stringVal("io-engine");
+		if ("async".equals(ioEngine)) {
+			if (!defaultFs) {
+				throw new IllegalConfigurationException("Async I/O engine is supported by the default file system only");
+			}
+			final var asyncOutstanding = fsConfig.intVal("io-async-outstanding");
+			if (asyncOutstanding < 1) {
+				throw new IllegalConfigurationException("Async I/O outstanding limit should be > 0: " + asyncOutstanding);
+			}
+			final var asyncBuffSize = sizeVal(fsConfig, "io-async-buffer-size");
+			if (asyncBuffSize < 1 || asyncBuffSize > Integer.MAX_VALUE) {
+				throw new IllegalConfigurationException("Invalid async I/O buffer size: " + asyncBuffSize);
+			}
+			final var asyncThreadsConfigured = fsConfig.intVal("io-async-threads");
+			if (asyncThreadsConfigured < 0) {
+				throw new IllegalConfigurationException(
+								"Async I/O threads count should not be negative: " + asyncThreadsConfigured);
+			}
+			final var asyncThreads = asyncThreadsConfigured > 0 ?
+							asyncThreadsConfigured : Runtime.getRuntime().availableProcessors();
+			asyncIoEngine = new AsyncFileIoEngine(
+							asyncOutstanding, asyncThreads, (int) asyncBuffSize, verifyFlag, this::asyncItemPath,
+							this::finishAsync, fileSyncer);
+			if (!AllocMode.NONE.equals(createAllocMode)) {
+				Loggers.ERR.warn("{}: the create allocation mode is not supported by the async I/O engine", stepId);
+			}
+		} else if ("sync".equals(ioEngine)) {
+			asyncIoEngine = null;
+		} else {
+			throw new IllegalConfigurationException("Unknown I/O engine: \"" + ioEngine + "\"");
+		}
+		if (packName != null && asyncIoEngine != null) {
+			throw new IllegalConfigurationException("Packed mode is supported by the sync I/O engine only");
+		}
+		final List<String> stripeRoots = fsConfig.listVal("stripe-roots");
+		if (stripeRoots == null || stripeRoots.isEmpty()) {
+			stripes = null;
+		} else if (asyncIoEngine != null) {
+			throw new IllegalConfigurationException("Striping is supported by the sync I/O engine only");
+		} else {
+			final StripeSet.Mode stripeMode;
+			try {
+				stripeMode = StripeSet.Mode.of(fsConfig.stringVal("stripe-mode"));
+			} catch (final IllegalArgumentException e) {
+				throw new IllegalConfigurationException(e.getMessage());
+			}
+			final var stripeInFlightLimit = fsConfig.intVal("stripe-in-flight-limit");
+			if (stripeInFlightLimit < 0) {
+				throw new IllegalConfigurationException(
+								"Stripe in-flight limit should not be negative: " + stripeInFlightLimit);
+			}
+			final List<Path> stripeRootPaths = new ArrayList<>(stripeRoots.size());
+			for (final var stripeRoot : stripeRoots) {
+				stripeRootPaths.add(fs.getPath(stripeRoot).toAbsolutePath());
+			}
+			stripes = new StripeSet(stripeRootPaths, stripeMode, stripeInFlightLimit);
+		}
+		final var deviceInFlightLimit = fsConfig.intVal("device-in-flight-limit");
+		if (deviceInFlightLimit < 0) {
+			throw new IllegalConfigurationException(
+							"Device in-flight limit should not be negative: " + deviceInFlightLimit);
+		} else if (deviceInFlightLimit == 0) {
+			deviceScheduler = null;
+		} else if (asyncIoEngine != null) {
+			throw new IllegalConfigurationException("Device scheduling is supported by the sync I/O engine only");
+		} else {
+			deviceScheduler = new DeviceScheduler(deviceInFlightLimit);
+		}
+		if (fsConfig.boolVal("io-mmap-enabled")) {
+			if (!defaultFs) {
+				throw new IllegalConfigurationException("Memory mapped I/O is supported by the default file system only");
+			}
+			if (directIoBuffPool != null) {
+				throw new IllegalConfigurationException("Memory mapped I/O can not be used together with the direct I/O");
+			}
+			mmapWindowSize = sizeVal(fsConfig, "io-mmap-window-size");
+			if (mmapWindowSize < 1 || mmapWindowSize > Integer.MAX_VALUE) {
+				throw new IllegalConfigurationException("Invalid memory mapped window size: " + mmapWindowSize);
+			}
+		} else {
+			mmapWindowSize = 0;
+		}
+		ioVectorCount = fsConfig.intVal("io-vector-count");
+		if (ioVectorCount < 1) {
+			throw new IllegalConfigurationException("I/O vector buffers count should be > 0: " + ioVectorCount);
+		}
+		ioVectorSize = sizeVal(fsConfig, "io-vector-size");
+		if (ioVectorSize < 1) {
+			throw new IllegalConfigurationException("Invalid I/O vector size: " + ioVectorSize);
+		}
+		if (asyncIoEngine != null) {
+			if (directIoBuffPool != null) {
+				Loggers.ERR.warn("{}: the direct I/O is not supported by the async I/O engine", stepId);
+			}
+			if (mmapWindowSize > 0) {
+				Loggers.ERR.warn("{}: the memory mapped I/O is not supported by the async I/O engine", stepId);
+			}
+			if (ioVectorCount > 1) {
+				Loggers.ERR.warn("{}: the I/O vectors are not supported by the async I/O engine", stepId);
+			}
+		}
+		final ListingMode listingModeConfigured;
+		try {
+			listingModeConfigured = ListingMode.of(fsConfig.stringVal("list-mode"));
+		} catch (final IllegalArgumentException e) {
+			throw new IllegalConfigurationException(e.getMessage());
+		}
+		// the file listing mode (default) can't access the other file systems, the sizes are read from the attributes
+		listingMode = ListingMode.FILE.equals(listingModeConfigured) && !defaultFs ?
+						ListingMode.ATTRS : listingModeConfigured;
+		listRecursive = fsConfig.boolVal("list-recursive");
+		final var listThreadsConfigured = fsConfig.intVal("list-threads");
+		if (listThreadsConfigured < 0) {
+			throw new IllegalConfigurationException("Listing threads count should not be negative: " + listThreadsConfigured);
+		}
+		listThreads = listThreadsConfigured > 0 ? listThreadsConfigured : Runtime.getRuntime().availableProcessors();
+		try {
+			fanOutLayout = new FanOutLayout(fs, fsConfig.intVal("fanout-levels"), fsConfig.intVal("fanout-digits"));
+		} catch (final IllegalArgumentException e) {
+			throw new IllegalConfigurationException(e.getMessage());
+		}
+		pathDeleteRecursive = fsConfig.boolVal("path-delete-recursive");
+		final var deleteThreads = fsConfig.intVal("delete-threads");
+		if (deleteThreads < 0) {
+			throw new IllegalConfigurationException("Delete threads count should not be negative: " + deleteThreads);
+		} else if (deleteThreads > 0) {
+			final var deleteBatchSize = fsConfig.intVal("delete-batch-size");
+			if (deleteBatchSize < 1) {
+				throw new IllegalConfigurationException("Delete batch size should be > 0: " + deleteBatchSize);
+			}
+			final var deleteQueueSize = fsConfig.intVal("delete-queue-size");
+			if (deleteQueueSize < 1) {
+				throw new IllegalConfigurationException("Delete queue size should be > 0: " + deleteQueueSize);
+			}
+			fileDeleter = new FileDeleter(deleteThreads, deleteBatchSize, deleteQueueSize);
+		} else {
+			fileDeleter = null;
+		}
+		final var timingPeriod = fsConfig.intVal("timing-period");
+		if (timingPeriod < 0) {
+			throw new IllegalConfigurationException("Timing report period should not be negative: " + timingPeriod);
+		}
+		if (fsConfig.boolVal("timing-enabled")) {
+			phaseTimer = new PhaseTimer(stepId, timingPeriod);
+		} else {
+			phaseTimer = null;
+		}
+		if (timingPeriod > 0 && (stripes != null || deviceScheduler != null)) {
+			// the stripe and device counters are reported on the same period as the phase timings
+			statsReportExecutor = Executors.newSingleThreadScheduledExecutor(
+							task -> {
+								final var reporter = new Thread(task, "fsStatsReporter");
+								reporter.setDaemon(true);
+								return reporter;
+							});
+			statsReportExecutor.scheduleAtFixedRate(this::reportStats, timingPeriod, timingPeriod, TimeUnit.SECONDS);
+		} else {
+			statsReportExecutor = null;
+		}
+		final var spaceMonitorInterval = fsConfig.intVal("space-monitor-interval");
+		final var spaceWatermark = sizeVal(fsConfig, "space-watermark");
+		if (spaceMonitorInterval < 0) {
+			throw new IllegalConfigurationException("Space monitor interval should not be negative: " + spaceMonitorInterval);
+		} else if (spaceWatermark < 0) {
+			throw new IllegalConfigurationException("Space watermark should not be negative: " + spaceWatermark);
+		} else if (spaceMonitorInterval > 0) {
+			spaceMonitor = new FreeSpaceMonitor(stepId, spaceMonitorInterval, spaceWatermark);
+		} else if (spaceWatermark > 0) {
+			throw new IllegalConfigurationException("Space watermark requires the space monitor to be enabled");
+		} else {
+			spaceMonitor = null;
+		}
+		if (fsConfig.boolVal("manifest-enabled")) {
+			manifestName = fsConfig.stringVal("manifest-name");
+			if (manifestName == null || manifestName.isEmpty() || manifestName.contains(fs.getSeparator())) {
+				throw new IllegalConfigurationException("Invalid manifest file name: \"" + manifestName + "\"");
+			}
+		} else {
+			manifestName = null;
+		}
 	}
 
-	private <F extends DataItem, D extends DataOperation<F>> FileChannel openDstFile(final D dataOp) {
-		final var fileItemName = dataOp.item().name();
+	/**
+	 @param uri the file system URI, the default file system is used if empty. The file system is created if it
+	 doesn't exist yet and is not closed by the driver, so it's shared with the next steps (e.g. the in-memory one).
+	 */
+	private static FileSystem fileSystem(final String uri)
+					throws IllegalConfigurationException {
+		if (uri == null || uri.isEmpty()) {
+			return FsConstants.FS;
+		}
+		try {
+			final var fsUri = URI.create(uri);
+			try {
+				return FileSystems.getFileSystem(fsUri);
+			} catch (final FileSystemNotFoundException e) {
+				return FileSystems.newFileSystem(fsUri, Map.of(), FileStorageDriver.class.getClassLoader());
+			}
+		} catch (final Exception e) {
+			throw new IllegalConfigurationException("Failed to use the file system \"" + uri + "\": " + e);
+		}
+	}
+
+	private static long sizeVal(final Config config, final String path) {
+		final Object val = config.val(path);
+		if (val instanceof Number) {
+			return ((Number) val).longValue();
+		} else {
+			return SizeInBytes.toFixedSize(val.toString());
+		}
+	}
+
+	private FileChannel openChannel(final Path path, final Set<OpenOption> openOpts)
+					throws IOException {
+		if (directIoBuffPool == null) {
+			return fs.provider().newFileChannel(path, openOpts);
+		} else {
+			return DirectIoFileChannel.open(path, openOpts, blockSize(path), directIoBuffPool);
+		}
+	}
+
+	private int blockSize(final Path path) {
+		final var dirPath = path.getParent();
+		return blockSizes.computeIfAbsent(dirPath == null ? path : dirPath, FileStorageDriver::fileStoreBlockSize);
+	}
+
+	private static int fileStoreBlockSize(final Path dirPath) {
+		try {
+			return (int) dirPath.getFileSystem().provider().getFileStore(dirPath).getBlockSize();
+		} catch (final IOException | UnsupportedOperationException e) {
+			LogUtil.exception(
+							Level.WARN, e, "Failed to get the block size for the path \"{}\", using {}", dirPath,
+							FsConstants.DEFAULT_BLOCK_SIZE);
+			return FsConstants.DEFAULT_BLOCK_SIZE;
+		}
+	}
+
+	private Path dstItemPath(final int slot, final DataOperation dataOp) {
+		createDstParentDirs(dataOp);
+		final Path itemPath = itemPath(slot, dataOp);
+		if (OpType.CREATE.equals(dataOp.type())) {
+			invalidateCachedChannels(itemPath);
+		}
+		return itemPath;
+	}
+
+	/**
+	 @return the path of the operation's target file for the async I/O engine, the operations executed by the async
+	 engine have no slots and the striping is not supported there
+	 */
+	private Path asyncItemPath(final DataOperation dataOp) {
+		if (OpType.READ.equals(dataOp.type())) {
+			return logicalItemPath(dataOp);
+		}
+		createDstParentDirs(dataOp);
+		final Path itemPath = logicalItemPath(dataOp);
+		if (OpType.CREATE.equals(dataOp.type())) {
+			invalidateCachedChannels(itemPath);
+		}
+		return itemPath;
+	}
+
+	private void createDstParentDirs(final DataOperation dataOp) {
+		final var dstPath = dataOp.dstPath();
+		if (dstPath != null && !dstPath.isEmpty() && !dataOp.item().name().startsWith(dstPath)) {
+			if (!dstParentDirs.containsKey(dstPath)) {
+				dstParentDirs.computeIfAbsent(dstPath, this::createDstDirs);
+			}
+		}
+	}
+
+	/**
+	 Creates the destination directory and all its shard directories at once, so the operations don't need to check
+	 the shard directories existence.
+	 */
+	private Path createDstDirs(final String dstPath) {
+		if (stripes == null) {
+			return createDstDirs(fs.getPath(dstPath));
+		}
+		// the same directory under each root
+		Path dstDir = null;
+		for (var i = 0; i < stripes.size(); i++) {
+			dstDir = createDstDirs(StripeSet.path(stripes.get(i), fs.getPath(dstPath)));
+			if (dstDir == null) {
+				break;
+			}
+		}
+		return dstDir;
+	}
+
+	private Path createDstDirs(final Path dstDirPath) {
+		final var dstDir = DirIoHelper.createParentDir(dstDirPath);
+		if (dstDir != null && !fanOutLayout.flat()) {
+			try {
+				fanOutLayout.createShardDirs(dstDirPath.toString());
+				Loggers.MSG.debug(
+								"{}: created {} shard directories in \"{}\"", this, fanOutLayout.shardCount(), dstDirPath);
+			} catch (final IOException e) {
+				LogUtil.exception(Level.WARN, e, "Failed to create the shard directories in \"{}\"", dstDirPath);
+			}
+		}
+		return dstDir;
+	}
+
+	/**
+	 @return the lease on the stripe of the operation's target file (the source one for the read), null if the stripe's
+	 in-flight operations limit is reached. The lease is held until the operation is done.
+	 */
+	private StripeSet.Lease stripeLease(final int slot, final DataOperation<? extends DataItem> op) {
+		var lease = (StripeSet.Lease) opSlots.get(slot, STRIPE_LEASE);
+		if (lease == null) {
+			final var logicalPath = logicalItemPath(op);
+			final StripeSet.Stripe stripe;
+			if (OpType.CREATE.equals(op.type())) {
+				stripe = stripes.select(logicalPath);
+			} else {
+				stripe = stripes.locate(logicalPath);
+			}
+			lease = stripes.tryAcquire(stripe);
+			if (lease != null) {
+				opSlots.set(slot, ITEM_PATH, StripeSet.path(stripe, logicalPath));
+				opSlots.set(slot, STRIPE_LEASE, lease);
+			}
+		}
+		return lease;
+	}
+
+	private void releaseStripe(final int slot, final Operation op) {
+		final var lease = (StripeSet.Lease) opSlots.get(slot, STRIPE_LEASE);
+		if (lease != null) {
+			stripes.release(lease, ((DataOperation) op).countBytesDone());
+		}
+	}
+
+	/**
+	 @return true if the operation is admitted to the device of its target file (the source one for the read). The
+	 ticket is held until the operation is done.
+	 */
+	private boolean deviceAdmitted(final int slot, final DataOperation<? extends DataItem> op) {
+		var ticket = (DeviceScheduler.Ticket) opSlots.get(slot, DEVICE_TICKET);
+		if (ticket == null) {
+			ticket = deviceScheduler.ticket(dirPath(itemPath(slot, op)), op.type());
+			if (ticket == null) {
+				return true; // the device is unknown, not limited
+			}
+			opSlots.set(slot, DEVICE_TICKET, ticket);
+		}
+		return deviceScheduler.tryAdmit(ticket);
+	}
+
+	private void releaseDevice(final int slot) {
+		final var ticket = (DeviceScheduler.Ticket) opSlots.get(slot, DEVICE_TICKET);
+		if (ticket != null) {
+			deviceScheduler.release(ticket);
+		}
+	}
+
+	/**
+	 @return the physical path of the operation's target file on the leased stripe
+	 */
+	private Path stripedPath(final DataOperation op, final Path logicalPath) {
+		if (stripes == null) {
+			return logicalPath;
+		}
+		final var lease = (StripeSet.Lease) opSlots.get(op, STRIPE_LEASE);
+		if (lease == null) {
+			// not admitted (e.g. finished already), resolve w/o the lease
+			return StripeSet.path(stripes.locate(logicalPath), logicalPath);
+		}
+		return StripeSet.path(lease.stripe(), logicalPath);
+	}
+
+	/**
+	 @return the physical path of the copy source file or of the directory
+	 */
+	private Path stripedPath(final Path logicalPath, final boolean create) {
+		if (stripes == null) {
+			return logicalPath;
+		}
+		return StripeSet.path(create ? stripes.select(logicalPath) : stripes.locate(logicalPath), logicalPath);
+	}
+
+	/**
+	 @return the logical path of the operation's target file (the source one for the read)
+	 */
+	private Path logicalItemPath(final DataOperation dataOp) {
+		if (OpType.READ.equals(dataOp.type())) {
+			return fanOutLayout.itemPath(dataOp.srcPath(), dataOp.item().name());
+		} else {
+			return fanOutLayout.itemPath(dataOp.dstPath(), dataOp.item().name());
+		}
+	}
+
+	/**
+	 @return the physical path of the operation's target file (the source one for the read). The path is resolved once
+	 per operation and kept in the operation's slot, so the subsequent invocations don't resolve it again. The striped
+	 path is kept since the stripe is leased only, as the stripe selected for the new file depends on the lease.
+	 */
+	private Path itemPath(final int slot, final DataOperation dataOp) {
+		var itemPath = (Path) opSlots.get(slot, ITEM_PATH);
+		if (itemPath == null) {
+			itemPath = stripedPath(dataOp, logicalItemPath(dataOp));
+			if (stripes == null || opSlots.get(slot, STRIPE_LEASE) != null) {
+				opSlots.set(slot, ITEM_PATH, itemPath);
+			}
+		}
+		return itemPath;
+	}
+
+	/**
+	 @return the physical path of the operation's target file for the caller not holding the operation's slot
+	 */
+	private Path itemPath(final DataOperation dataOp) {
+		final var itemPath = (Path) opSlots.get(dataOp, ITEM_PATH);
+		return itemPath == null ? stripedPath(dataOp, logicalItemPath(dataOp)) : itemPath;
+	}
+
+	private <F extends DataItem, D extends DataOperation<F>> FileChannel openDstFile(final int slot, final D dataOp) {
 		final var opType = dataOp.type();
 		final var dstPath = dataOp.dstPath();
-		final Path itemPath;
 		try {
-			if (dstPath == null || dstPath.isEmpty() || fileItemName.startsWith(dstPath)) {
-				itemPath = FsConstants.FS.getPath(fileItemName);
-			} else {
-				dstParentDirs.computeIfAbsent(dstPath, DirIoHelper::createParentDir);
-				itemPath = FsConstants.FS.getPath(dstPath, fileItemName);
+			long t = phaseStart();
+			final Path itemPath = dstItemPath(slot, dataOp);
+			if (phaseTimer != null) {
+				t = phaseTimer.record(opType, PhaseTimer.Phase.RESOLVE, t);
 			}
-			if (OpType.CREATE.equals(opType)) {
-				return FsConstants.FS_PROVIDER.newFileChannel(itemPath, FsConstants.CREATE_OPEN_OPT);
+			if (spaceMonitor != null && OpType.CREATE.equals(opType) && spaceMonitor.low(dirPath(itemPath))) {
+				// reject early instead of filling the file store up to the failure
+				dataOp.status(Operation.Status.RESP_FAIL_SPACE);
+				Loggers.MSG.debug("{}: low space for the path \"{}\"", this, dstPath);
+				return null;
+			}
+			final FileChannel channel;
+			if (packName != null && OpType.CREATE.equals(opType)) {
+				channel = packStore(itemPath).allocate(itemPath.getFileName().toString(), dataOp.item().size());
+			} else if (OpType.CREATE.equals(opType)) {
+				channel = openChannel(itemPath, createOpenOpts);
+			} else if (channelShared && isPositionalUpdate(dataOp)) {
+				channel = dstChannelCache.acquire(itemPath, true);
 			} else {
-				return FsConstants.FS_PROVIDER.newFileChannel(itemPath, FsConstants.WRITE_OPEN_OPT);
+				channel = dstChannelOpener.open(itemPath);
+			}
+			if (phaseTimer != null) {
+				phaseTimer.record(opType, PhaseTimer.Phase.OPEN, t);
 			}
+			return channel;
 		} catch (final AccessDeniedException e) {
 			dataOp.status(Operation.Status.RESP_FAIL_AUTH);
 			LogUtil.exception(Level.DEBUG, e, "Access denied to open the output channel for the path \"{}\"", dstPath);
@@ -81,7 +666,7 @@ public final class FileStorageDriver<I extends Item, O extends Operation<I>>
 			dataOp.status(Operation.Status.FAIL_IO);
 			LogUtil.exception(Level.DEBUG, e, "Failed to open the output channel for the path \"{}\"", dstPath);
 		} catch (final FileSystemException e) {
-			final var freeSpace = (new File(e.getFile())).getFreeSpace();
+			final var freeSpace = freeSpace(e.getFile());
 			if (freeSpace > 0) {
 				dataOp.status(Operation.Status.FAIL_IO);
 				LogUtil.exception(Level.DEBUG, e, "Failed to open the output channel for the path \"{}\"", dstPath);
@@ -100,11 +685,216 @@ public final class FileStorageDriver<I extends Item, O extends Operation<I>>
 		return null;
 	}
 
+	private static Path dirPath(final Path itemPath) {
+		final var dirPath = itemPath.getParent();
+		return dirPath == null ? itemPath.toAbsolutePath().getParent() : dirPath;
+	}
+
+	/**
+	 @return the usable space of the file store containing the given file (cached if the space monitor is enabled), 0 if
+	 unknown
+	 */
+	private long freeSpace(final String file) {
+		try {
+			if (spaceMonitor == null) {
+				return Files.getFileStore(fs.getPath(file)).getUsableSpace();
+			} else {
+				return Math.max(0, spaceMonitor.usableSpace(dirPath(fs.getPath(file))));
+			}
+		} catch (final Exception e) {
+			return 0;
+		}
+	}
+
+	/**
+	 @return the packed items store of the given item's directory (the root one if the fan-out layout is used)
+	 @throws IOException if failed to load the store index
+	 */
+	private PackStore packStore(final Path itemPath)
+					throws IOException {
+		return packStoreOfDir(fanOutLayout.rootDir(itemPath.toAbsolutePath()));
+	}
+
+	private PackStore packStoreOfDir(final Path dirPath)
+					throws IOException {
+		final var store = packStores.computeIfAbsent(dirPath, this::openPackStore);
+		if (store == null) {
+			throw new IOException("Failed to open the packed items store in the directory \"" + dirPath + "\"");
+		}
+		return store;
+	}
+
+	private PackStore openPackStore(final Path dirPath) {
+		try {
+			return new PackStore(
+							dirPath, packName, packContainerSize, packContainerAllocMode,
+							fileSyncer.openOpts(FsConstants.WRITE_OPEN_OPT));
+		} catch (final IOException e) {
+			LogUtil.exception(Level.WARN, e, "Failed to open the packed items store in the directory \"{}\"", dirPath);
+			return null;
+		}
+	}
+
+	private FileChannel openPackedItem(final Path itemPath)
+					throws IOException {
+		return packStore(itemPath).open(itemPath.getFileName().toString());
+	}
+
+	/**
+	 Makes the packed item created by the operation visible for the subsequent operations.
+	 */
+	private static void commitPackedItem(final DataOperation op, final FileChannel dstChannel)
+					throws IOException {
+		if (dstChannel instanceof PackRegionChannel && OpType.CREATE.equals(op.type())) {
+			((PackRegionChannel) dstChannel).commit();
+		}
+	}
+
+	/**
+	 @return true if the update operation writes the ranges using the positional I/O only, so its channel may be shared.
+	 The overwrite and the append use the channel position.
+	 */
+	private static boolean isPositionalUpdate(final DataOperation<? extends DataItem> dataOp) {
+		if (!OpType.UPDATE.equals(dataOp.type())) {
+			return false;
+		}
+		final List<Range> fixedRanges = dataOp.fixedRanges();
+		if (fixedRanges == null || fixedRanges.isEmpty()) {
+			return dataOp.hasMarkedRanges();
+		} else {
+			return !FileIoHelper.hasAppendRange(fixedRanges);
+		}
+	}
+
+	private void invalidateCachedChannels(final Path itemPath) {
+		if (srcChannelCache != null) {
+			srcChannelCache.invalidate(itemPath);
+		}
+		if (dstChannelCache != null) {
+			dstChannelCache.invalidate(itemPath);
+		}
+	}
+
+	private FileChannel srcChannel(final int slot, final DataOperation<? extends DataItem> op) {
+		var channel = (FileChannel) opSlots.get(slot, SRC_CHANNEL);
+		if (channel == null) {
+			channel = openSrcFile(slot, op);
+			opSlots.set(slot, SRC_CHANNEL, channel);
+		}
+		return channel;
+	}
+
+	private FileChannel dstChannel(final int slot, final DataOperation<? extends DataItem> op) {
+		var channel = (FileChannel) opSlots.get(slot, DST_CHANNEL);
+		if (channel == null) {
+			channel = openDstFile(slot, op);
+			opSlots.set(slot, DST_CHANNEL, channel);
+		}
+		return channel;
+	}
+
+	/**
+	 @return the coalesced fixed byte ranges of the operation, resolved once per operation
+	 */
+	private long[] fixedRanges(
+					final int slot, final DataOperation<? extends DataItem> op, final List<Range> fixedRanges) {
+		var ranges = (long[]) opSlots.get(slot, FIXED_RANGES);
+		if (ranges == null) {
+			ranges = FileIoHelper.coalesceFixedRanges(fixedRanges, op.item().size());
+			opSlots.set(slot, FIXED_RANGES, ranges);
+		}
+		return ranges;
+	}
+
+	private void releaseOpChannels(final int slot) {
+		final var srcChannel = (FileChannel) opSlots.get(slot, SRC_CHANNEL);
+		if (srcChannel != null) {
+			releaseChannel(srcChannelCache, srcChannel);
+		}
+		final var dstChannel = (FileChannel) opSlots.get(slot, DST_CHANNEL);
+		if (dstChannel != null) {
+			releaseChannel(dstChannelCache, dstChannel);
+		}
+	}
+
+	/**
+	 Releases the operation's channels, stripe lease and device ticket, and the operation's slot. The operation may be
+	 released by the worker thread and the background one concurrently, only the first of them gets the slot.
+	 */
+	private void releaseOpSlot(final Operation op) {
+		final int slot = opSlots.release(op);
+		if (slot != OpSlotTable.NO_SLOT) {
+			final long t = phaseStart();
+			releaseOpChannels(slot);
+			if (phaseTimer != null) {
+				phaseTimer.record(op.type(), PhaseTimer.Phase.CLOSE, t);
+			}
+			if (stripes != null) {
+				releaseStripe(slot, op);
+			}
+			if (deviceScheduler != null) {
+				releaseDevice(slot);
+			}
+			opSlots.free(slot);
+		}
+	}
+
+	private static void releaseChannel(final FileChannelCache channelCache, final FileChannel channel) {
+		if (channelCache == null || !channelCache.release(channel)) {
+			if (channel.isOpen()) {
+				try {
+					channel.close();
+				} catch (final IOException e) {
+					Loggers.ERR.warn("Failed to close the file channel");
+				}
+			}
+		}
+	}
+
+	private static void closeOpChannel(final FileChannel channel, final String kind) {
+		if (channel.isOpen()) {
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				LogUtil.exception(Level.WARN, e, "Failed to close the {} file channel {}", kind, channel);
+			}
+		}
+	}
+
+	private <F extends DataItem, D extends DataOperation<F>> FileChannel openSrcFile(final int slot, final D dataOp) {
+		final long t = phaseStart();
+		final FileChannel channel;
+		if (OpType.READ.equals(dataOp.type())) {
+			final var srcPath = dataOp.srcPath();
+			if (srcPath == null || srcPath.isEmpty()) {
+				channel = null;
+			} else {
+				channel = FileIoHelper.openSrcFile(dataOp, srcChannelOpener, itemPath(slot, dataOp));
+			}
+		} else if (stripes == null) {
+			channel = FileIoHelper.openSrcFile(dataOp, srcChannelOpener, fanOutLayout);
+		} else {
+			channel = FileIoHelper.openSrcFile(
+							dataOp, path -> srcChannelOpener.open(stripedPath(path, false)), fanOutLayout);
+		}
+		if (phaseTimer != null && channel != null) {
+			phaseTimer.record(dataOp.type(), PhaseTimer.Phase.OPEN, t);
+		}
+		return channel;
+	}
+
+	private long phaseStart() {
+		return phaseTimer == null ? 0 : System.nanoTime();
+	}
+
 	@Override
 	protected final String requestNewPath(final String path) {
-		final File pathFile = FsConstants.FS.getPath(path).toFile();
-		if (!pathFile.exists()) {
-			pathFile.mkdirs();
+		if (stripes == null) {
+			DirIoHelper.createParentDir(fs.getPath(path));
+		} else {
+			for (var i = 0; i < stripes.size(); i++) {
+				DirIoHelper.createParentDir(StripeSet.path(stripes.get(i), fs.getPath(path)));
+			}
 		}
 		return path;
 	}
@@ -118,18 +908,92 @@ public final class FileStorageDriver<I extends Item, O extends Operation<I>>
 	public List<I> list(
 					final ItemFactory<I> itemFactory, final String path, final String prefix, final int idRadix,
 					final I lastPrevItem, final int count) throws IOException {
-		return ListingHelper.list(itemFactory, path, prefix, idRadix, lastPrevItem, count);
+		final var cursorKey = prefix == null ? path : path + '\0' + prefix;
+		var cursor = listingCursors.remove(cursorKey);
+		try {
+			if (cursor != null && !cursor.resumesAfter(lastPrevItem)) {
+				cursor.close();
+				cursor = null;
+			}
+			if (cursor == null) {
+				// no cursor stopped at the last previous item, fall back to the rescan
+				if (stripes == null) {
+					cursor = openListingCursor(path, prefix);
+				} else {
+					cursor = new StripedListingCursor(
+									stripes, fs.getPath(path), stripePath -> openListingCursor(stripePath, prefix));
+				}
+				if (!cursor.skipTo(lastPrevItem)) {
+					return new ArrayList<>(0);
+				}
+			}
+			final List<I> items = cursor.next(itemFactory, idRadix, count);
+			if (!cursor.exhausted()) {
+				final var prevCursor = listingCursors.put(cursorKey, cursor);
+				cursor = null;
+				if (prevCursor != null) {
+					prevCursor.close();
+				}
+			}
+			return items;
+		} finally {
+			if (cursor != null) {
+				cursor.close();
+			}
+		}
+	}
+
+	private ListingCursor openListingCursor(final String path, final String prefix)
+					throws IOException {
+		if (packName != null) {
+			return new PackListingCursor(packStoreOfDir(fs.getPath(path).toAbsolutePath()), prefix, fanOutLayout);
+		} else if (listRecursive) {
+			return new TreeListingCursor(fs.getPath(path), prefix, listThreads, manifestName);
+		} else {
+			final var cursor = openManifestCursor(path, prefix);
+			if (cursor == null) {
+				return ListingHelper.dirCursor(path, prefix, listingMode, fanOutLayout, manifestName);
+			}
+			return cursor;
+		}
+	}
+
+	/**
+	 @return the cursor over the directory's manifest, null if the manifest is disabled, missing or invalid
+	 */
+	private ListingCursor openManifestCursor(final String path, final String prefix) {
+		if (manifestName == null) {
+			return null;
+		}
+		final var dirPath = fs.getPath(path).toAbsolutePath();
+		final var manifestPath = dirPath.resolve(manifestName);
+		if (!Files.exists(manifestPath)) {
+			return null;
+		}
+		try {
+			// make the records appended by this driver visible for the listing
+			final var manifestWriter = manifestWriters.get(dirPath);
+			if (manifestWriter != null) {
+				manifestWriter.flush();
+			}
+			return new ManifestListingCursor(manifestPath, prefix, MANIFEST_WINDOW_SIZE);
+		} catch (final IOException e) {
+			LogUtil.exception(Level.WARN, e, "Failed to use the manifest \"{}\", listing the directory", manifestPath);
+			return null;
+		}
 	}
 
 	@Override
-	public final void adjustIoBuffers(final long avgTransferSize, final OpType opType) {}
+	public final void adjustIoBuffers(final long avgTransferSize, final OpType opType) {
+		ioBuffSizer.adjust(avgTransferSize, opType);
+	}
 
 	@Override
 	protected final void invokeNio(final O op) {
 		if (op instanceof DataOperation) {
 			invokeFileNio((DataOperation<? extends DataItem>) op);
 		} else if (op instanceof PathOperation) {
-			throw new AssertionError("Not implemented");
+			invokePathNio((PathOperation<? extends PathItem>) op);
 		} else {
 			throw new AssertionError("Not implemented");
 		}
@@ -137,13 +1001,34 @@ public final class FileStorageDriver<I extends Item, O extends Operation<I>>
 
 	protected final <F extends DataItem, D extends DataOperation<F>> void invokeFileNio(final D op) {
 
+		if (pending(op)) {
+			return; // the operation is being finished in the background (group sync or deletion)
+		}
+		// checked after the pending state: the background finisher sets the status before removing the pending state
+		if (!Operation.Status.ACTIVE.equals(op.status())) {
+			return; // finished in the background already but still held by the worker's buffer, don't invoke again
+		}
+		if (asyncIoEngine != null && asyncIoEngine.supports(op)) {
+			asyncIoEngine.invoke(op);
+			return;
+		}
+		final int slot = opSlots.acquire(op);
+		if (stripes != null && !OpType.NOOP.equals(op.type()) && stripeLease(slot, op) == null) {
+			return; // the stripe's in-flight operations limit is reached, retry on the next invocation
+		}
+		if (deviceScheduler != null && !OpType.NOOP.equals(op.type()) && !deviceAdmitted(slot, op)) {
+			return; // queued on the busy device, retry on the next invocation
+		}
+
 		FileChannel srcChannel = null;
 		FileChannel dstChannel = null;
+		long transferStart = NO_PHASE_START;
 
 		try {
 
 			final OpType opType = op.type();
 			final F item = op.item();
+			final int buffSize = ioBuffSizer.buffSize(opType);
 
 			switch (opType) {
 
@@ -152,47 +1037,89 @@ public final class FileStorageDriver<I extends Item, O extends Operation<I>>
 				break;
 
 			case CREATE:
-				dstChannel = dstOpenFiles.computeIfAbsent(op, this::openDstFile);
-				srcChannel = srcOpenFiles.computeIfAbsent(op, FileIoHelper::openSrcFile);
+				dstChannel = dstChannel(slot, op);
+				srcChannel = srcChannel(slot, op);
 				if (dstChannel == null) {
 					break;
 				}
+				transferStart = phaseStart();
+				if (packName == null && !AllocMode.NONE.equals(createAllocMode) && op.countBytesDone() == 0
+								&& !createAllocMode.allocateNext(itemPath(slot, op), dstChannel, item.size())) {
+					break; // the space is being allocated, the content is written by the next invocations
+				}
 				if (srcChannel == null) {
 					if (op.status().equals(Operation.Status.FAIL_IO)) {
 						break;
 					} else {
-						if (FileIoHelper.invokeCreate(item, op, dstChannel)) {
-							finishOperation((O) op);
+						if (ioVectorCount > 1) {
+							if (VectorIoHelper.invokeCreate(item, op, dstChannel, buffSize, ioVectorCount, ioVectorSize)) {
+								finishWrite(slot, op, dstChannel);
+							}
+						} else if (FileIoHelper.invokeCreate(item, op, dstChannel, buffSize)) {
+							finishWrite(slot, op, dstChannel);
 						}
 					}
 				} else { // copy the data from the src channel to the dst channel
-					if (FileIoHelper.invokeCopy(item, op, srcChannel, dstChannel)) {
-						finishOperation((O) op);
+					if (FileIoHelper.invokeCopy(item, op, srcChannel, dstChannel, buffSize)) {
+						finishWrite(slot, op, dstChannel);
 					}
 				}
 				break;
 
 			case READ:
-				srcChannel = srcOpenFiles.computeIfAbsent(op, FileIoHelper::openSrcFile);
+				srcChannel = srcChannel(slot, op);
 				if (srcChannel == null) {
 					break;
 				}
+				transferStart = phaseStart();
 				final List<Range> fixedRangesToRead = op.fixedRanges();
 				if (verifyFlag) {
 					try {
 						if (fixedRangesToRead == null || fixedRangesToRead.isEmpty()) {
 							if (op.hasMarkedRanges()) {
-								if (FileIoHelper.invokeReadAndVerifyRandomRanges(
-												item, op, srcChannel, op.markedRangesMaskPair())) {
+								if (mmapWindowSize > 0) {
+									if (MmapIoHelper.invokeReadAndVerifyRandomRanges(
+													item, op, srcChannel, op.markedRangesMaskPair(), mmapWindowSize)) {
+										finishOperation((O) op);
+									}
+								} else if (ioVectorCount > 1) {
+									if (VectorIoHelper.invokeReadAndVerifyRandomRanges(
+													item, op, srcChannel, op.markedRangesMaskPair(), buffSize, ioVectorCount,
+													ioVectorSize)) {
+										finishOperation((O) op);
+									}
+								} else if (FileIoHelper.invokeReadAndVerifyRandomRanges(
+												item, op, srcChannel, op.markedRangesMaskPair(), buffSize)) {
 									finishOperation((O) op);
 								}
 							} else {
-								if (FileIoHelper.invokeReadAndVerify(item, op, srcChannel)) {
+								if (mmapWindowSize > 0) {
+									if (MmapIoHelper.invokeReadAndVerify(item, op, srcChannel, mmapWindowSize)) {
+										finishOperation((O) op);
+									}
+								} else if (ioVectorCount > 1) {
+									if (VectorIoHelper.invokeReadAndVerify(
+													item, op, srcChannel, buffSize, ioVectorCount, ioVectorSize)) {
+										finishOperation((O) op);
+									}
+								} else if (FileIoHelper.invokeReadAndVerify(item, op, srcChannel, buffSize)) {
 									finishOperation((O) op);
 								}
 							}
 						} else {
-							if (FileIoHelper.invokeReadAndVerifyFixedRanges(item, op, srcChannel, fixedRangesToRead)) {
+							final long[] rangesToRead = fixedRanges(slot, op, fixedRangesToRead);
+							if (mmapWindowSize > 0) {
+								if (MmapIoHelper.invokeReadAndVerifyFixedRanges(
+												item, op, srcChannel, rangesToRead, mmapWindowSize)) {
+									finishOperation((O) op);
+								}
+							} else if (ioVectorCount > 1) {
+								if (VectorIoHelper.invokeReadAndVerifyFixedRanges(
+												item, op, srcChannel, rangesToRead, buffSize, ioVectorCount, ioVectorSize)) {
+									finishOperation((O) op);
+								}
+							} else if (FileIoHelper.invokeReadAndVerifyFixedRanges(
+											item, op, srcChannel, rangesToRead, buffSize)) {
 								finishOperation((O) op);
 							}
 						}
@@ -215,16 +1142,46 @@ public final class FileStorageDriver<I extends Item, O extends Operation<I>>
 				} else {
 					if (fixedRangesToRead == null || fixedRangesToRead.isEmpty()) {
 						if (op.hasMarkedRanges()) {
-							if (FileIoHelper.invokeReadRandomRanges(item, op, srcChannel, op.markedRangesMaskPair())) {
+							if (mmapWindowSize > 0) {
+								if (MmapIoHelper.invokeReadRandomRanges(
+												item, op, srcChannel, op.markedRangesMaskPair(), mmapWindowSize)) {
+									finishOperation((O) op);
+								}
+							} else if (ioVectorCount > 1) {
+								if (VectorIoHelper.invokeReadRandomRanges(
+												item, op, srcChannel, op.markedRangesMaskPair(), buffSize, ioVectorCount,
+												ioVectorSize)) {
+									finishOperation((O) op);
+								}
+							} else if (FileIoHelper.invokeReadRandomRanges(
+											item, op, srcChannel, op.markedRangesMaskPair(), buffSize)) {
 								finishOperation((O) op);
 							}
 						} else {
-							if (FileIoHelper.invokeRead(item, op, srcChannel)) {
+							if (mmapWindowSize > 0) {
+								if (MmapIoHelper.invokeRead(item, op, srcChannel, mmapWindowSize)) {
+									finishOperation((O) op);
+								}
+							} else if (ioVectorCount > 1) {
+								if (VectorIoHelper.invokeRead(item, op, srcChannel, buffSize, ioVectorCount, ioVectorSize)) {
+									finishOperation((O) op);
+								}
+							} else if (FileIoHelper.invokeRead(item, op, srcChannel, buffSize)) {
 								finishOperation((O) op);
 							}
 						}
 					} else {
-						if (FileIoHelper.invokeReadFixedRanges(item, op, srcChannel, fixedRangesToRead)) {
+						final long[] rangesToRead = fixedRanges(slot, op, fixedRangesToRead);
+						if (mmapWindowSize > 0) {
+							if (MmapIoHelper.invokeReadFixedRanges(item, op, srcChannel, rangesToRead, mmapWindowSize)) {
+								finishOperation((O) op);
+							}
+						} else if (ioVectorCount > 1) {
+							if (VectorIoHelper.invokeReadFixedRanges(
+											item, op, srcChannel, rangesToRead, buffSize, ioVectorCount, ioVectorSize)) {
+								finishOperation((O) op);
+							}
+						} else if (FileIoHelper.invokeReadFixedRanges(item, op, srcChannel, rangesToRead, buffSize)) {
 							finishOperation((O) op);
 						}
 					}
@@ -232,31 +1189,54 @@ public final class FileStorageDriver<I extends Item, O extends Operation<I>>
 				break;
 
 			case UPDATE:
-				dstChannel = dstOpenFiles.computeIfAbsent(op, this::openDstFile);
+				dstChannel = dstChannel(slot, op);
 				if (dstChannel == null) {
 					break;
 				}
+				transferStart = phaseStart();
 				final List<Range> fixedRangesToUpdate = op.fixedRanges();
 				if (fixedRangesToUpdate == null || fixedRangesToUpdate.isEmpty()) {
 					if (op.hasMarkedRanges()) {
-						if (FileIoHelper.invokeRandomRangesUpdate(item, op, dstChannel)) {
+						if (ioVectorCount > 1) {
+							if (VectorIoHelper.invokeRandomRangesUpdate(
+											item, op, dstChannel, buffSize, ioVectorCount, ioVectorSize)) {
+								item.commitUpdatedRanges(op.markedRangesMaskPair());
+								finishWrite(slot, op, dstChannel);
+							}
+						} else if (FileIoHelper.invokeRandomRangesUpdate(item, op, dstChannel, buffSize)) {
 							item.commitUpdatedRanges(op.markedRangesMaskPair());
-							finishOperation((O) op);
+							finishWrite(slot, op, dstChannel);
 						}
 					} else {
-						if (FileIoHelper.invokeOverwrite(item, op, dstChannel)) {
-							finishOperation((O) op);
+						if (ioVectorCount > 1) {
+							if (VectorIoHelper.invokeOverwrite(item, op, dstChannel, buffSize, ioVectorCount, ioVectorSize)) {
+								finishWrite(slot, op, dstChannel);
+							}
+						} else if (FileIoHelper.invokeOverwrite(item, op, dstChannel, buffSize)) {
+							finishWrite(slot, op, dstChannel);
 						}
 					}
+				} else if (FileIoHelper.hasAppendRange(fixedRangesToUpdate)) {
+					// the appended range offset depends on the item size changed by the append, no coalescing
+					if (FileIoHelper.invokeFixedRangesUpdateInOrder(
+									item, op, dstChannel, fixedRangesToUpdate, buffSize)) {
+						finishWrite(slot, op, dstChannel);
+					}
 				} else {
-					if (FileIoHelper.invokeFixedRangesUpdate(item, op, dstChannel, fixedRangesToUpdate)) {
-						finishOperation((O) op);
+					final long[] rangesToUpdate = fixedRanges(slot, op, fixedRangesToUpdate);
+					if (ioVectorCount > 1) {
+						if (VectorIoHelper.invokeFixedRangesUpdate(
+										item, op, dstChannel, rangesToUpdate, buffSize, ioVectorCount, ioVectorSize)) {
+							finishWrite(slot, op, dstChannel);
+						}
+					} else if (FileIoHelper.invokeFixedRangesUpdate(item, op, dstChannel, rangesToUpdate, buffSize)) {
+						finishWrite(slot, op, dstChannel);
 					}
 				}
 				break;
 
 			case DELETE:
-				if (invokeDelete((O) op)) {
+				if (invokeDelete(slot, (O) op)) {
 					finishOperation((O) op);
 				}
 				break;
@@ -287,72 +1267,311 @@ public final class FileStorageDriver<I extends Item, O extends Operation<I>>
 			}
 		}
 
-		if (!Operation.Status.ACTIVE.equals(op.status())) {
+		if (phaseTimer != null && transferStart != NO_PHASE_START) {
+			if (verifyFlag && OpType.READ.equals(op.type())) {
+				phaseTimer.record(op.type(), PhaseTimer.Phase.VERIFY, transferStart);
+			} else {
+				phaseTimer.record(op.type(), PhaseTimer.Phase.TRANSFER, transferStart);
+			}
+		}
 
-			if (srcChannel != null) {
-				srcOpenFiles.remove(op);
-				if (srcChannel.isOpen()) {
-					try {
-						srcChannel.close();
-					} catch (final IOException e) {
-						Loggers.ERR.warn("Failed to close the source file channel");
+		final var status = op.status();
+		// the operation handed over to the background is finished and released there, even if it is done already
+		if (!Operation.Status.ACTIVE.equals(status) && opSlots.find(op) == slot && opSlots.get(op, PENDING) == null) {
+			if (Operation.Status.SUCC.equals(status)) {
+				ioBuffSizer.record(op.countBytesDone(), op.type());
+			}
+			releaseOpSlot(op);
+		}
+	}
+
+	/**
+	 @return true if the operation is being finished in the background (group sync or deletion)
+	 */
+	private boolean pending(final Operation op) {
+		return opSlots.get(op, PENDING) != null;
+	}
+
+	/**
+	 The directory operations: create (mkdir), read (stat, the directory is listed also), delete (rmdir, optionally
+	 recursive). Each operation is done in a single invocation.
+	 */
+	protected final <P extends PathItem, D extends PathOperation<P>> void invokePathNio(final D op) {
+		if (pending(op)) {
+			return; // the directory tree is being deleted in the background
+		}
+		if (!Operation.Status.ACTIVE.equals(op.status())) {
+			return; // the directory tree is deleted already, don't delete again
+		}
+		final var opType = op.type();
+		try {
+			switch (opType) {
+			case NOOP:
+				finishOperation((O) op);
+				break;
+			case CREATE:
+				DirIoHelper.invokeCreate(dstDirPath(op));
+				finishOperation((O) op);
+				break;
+			case READ:
+				final var srcPath = op.srcPath();
+				final var dirPath = stripedPath(
+								fanOutLayout.itemPath(srcPath == null || srcPath.isEmpty() ? op.dstPath() : srcPath, op.item().name()),
+								false);
+				op.countBytesDone(DirIoHelper.invokeRead(dirPath));
+				finishOperation((O) op);
+				break;
+			case DELETE:
+				final var dirItemPath = stripedPath(fanOutLayout.itemPath(op.dstPath(), op.item().name()), false);
+				if (pathDeleteRecursive && fileDeleter != null) {
+					final int slot = opSlots.acquire(op);
+					opSlots.set(slot, PENDING, Boolean.TRUE);
+					if (!fileDeleter.submitTree(dirItemPath, e -> finishDeleted(op, e))) {
+						// too many pending deletions, retry on the next invocation
+						opSlots.free(opSlots.release(op));
 					}
+				} else {
+					DirIoHelper.invokeDelete(dirItemPath, pathDeleteRecursive);
+					finishOperation((O) op);
 				}
+				break;
+			default:
+				op.status(Operation.Status.FAIL_UNKNOWN);
+				Loggers.ERR.fatal("Unsupported path operation type \"{}\"", opType);
+				break;
 			}
+		} catch (final NoSuchFileException e) {
+			LogUtil.exception(Level.DEBUG, e, op.toString());
+			op.status(Operation.Status.RESP_FAIL_NOT_FOUND);
+		} catch (final AccessDeniedException e) {
+			LogUtil.exception(Level.DEBUG, e, op.toString());
+			op.status(Operation.Status.RESP_FAIL_AUTH);
+		} catch (final FileAlreadyExistsException | DirectoryNotEmptyException e) {
+			LogUtil.exception(Level.DEBUG, e, op.toString());
+			op.status(Operation.Status.RESP_FAIL_CLIENT);
+		} catch (final IOException e) {
+			LogUtil.exception(Level.WARN, e, op.toString());
+			op.status(Operation.Status.FAIL_IO);
+		} catch (final Throwable e) {
+			throwUncheckedIfInterrupted(e);
+			if (!isClosed()) {
+				LogUtil.trace(Loggers.ERR, Level.ERROR, e, "Path operation invocation failure");
+				op.status(Operation.Status.FAIL_UNKNOWN);
+			} else {
+				Loggers.ERR.debug("Load operation caused a failure while being interrupted: {}", op);
+			}
+		}
+	}
 
-			if (dstChannel != null) {
-				dstOpenFiles.remove(op);
-				if (dstChannel.isOpen()) {
-					try {
-						dstChannel.close();
-					} catch (final IOException e) {
-						Loggers.ERR.warn("Failed to close the destination file channel");
-					}
+	private Path dstDirPath(final PathOperation op) {
+		final var dirItemName = op.item().name();
+		final var dstPath = op.dstPath();
+		if (dstPath != null && !dstPath.isEmpty() && !dirItemName.startsWith(dstPath)) {
+			dstParentDirs.computeIfAbsent(dstPath, this::createDstDirs);
+		}
+		return stripedPath(fanOutLayout.itemPath(dstPath, dirItemName), true);
+	}
+
+	/**
+	 Finishes the write operation when its data is durable according to the configured sync mode. In the group sync
+	 mode the operation remains active holding its channels until the flusher syncs the file.
+	 */
+	private <F extends DataItem, D extends DataOperation<F>> void finishWrite(
+					final int slot, final D op, final FileChannel dstChannel)
+					throws IOException {
+		if (fileSyncer.deferred()) {
+			opSlots.set(slot, PENDING, Boolean.TRUE);
+			fileSyncer.submit(itemPath(slot, op), dstChannel, e -> finishSynced(op, dstChannel, e));
+		} else {
+			fileSyncer.sync(dstChannel);
+			commitPackedItem(op, dstChannel);
+			appendToManifest(op);
+			finishOperation((O) op);
+		}
+	}
+
+	/**
+	 Finishes the operation synced by the group sync flusher. The operation's slot (and so the destination channel) is
+	 released here after the operation status is set, so the worker thread doesn't invoke the operation again.
+	 */
+	private void finishSynced(final DataOperation op, final FileChannel dstChannel, final IOException e) {
+		var err = e;
+		if (err == null) {
+			try {
+				commitPackedItem(op, dstChannel);
+			} catch (final IOException commitErr) {
+				err = commitErr;
+			}
+		}
+		if (err == null) {
+			appendToManifest(op);
+			finishOperation((O) op);
+			ioBuffSizer.record(op.countBytesDone(), op.type());
+		} else {
+			LogUtil.exception(Level.WARN, err, op.toString());
+			op.status(Operation.Status.FAIL_IO);
+		}
+		releaseOpSlot(op);
+	}
+
+	private void finishAsync(final DataOperation op) {
+		appendToManifest(op);
+		finishOperation((O) op);
+	}
+
+	/**
+	 Appends the record about the created file to the manifest in the file's directory if the manifest is enabled. The
+	 manifest failure doesn't fail the operation.
+	 */
+	private void appendToManifest(final DataOperation<? extends DataItem> op) {
+		if (manifestName != null && OpType.CREATE.equals(op.type())) {
+			final var item = op.item();
+			final var itemPath = itemPath(op).toAbsolutePath();
+			// single manifest for all the shard directories
+			final var manifestWriter = manifestWriters.computeIfAbsent(
+							fanOutLayout.rootDir(itemPath), this::openManifestWriter);
+			if (manifestWriter != null) {
+				try {
+					manifestWriter.append(itemPath.toString(), item.offset(), item.size(), item.layer());
+				} catch (final IOException e) {
+					LogUtil.exception(Level.WARN, e, "Failed to append the manifest record for \"{}\"", itemPath);
 				}
 			}
 		}
 	}
 
-	private boolean invokeDelete(final O op)
+	private ManifestWriter openManifestWriter(final Path dirPath) {
+		final var manifestPath = dirPath.resolve(manifestName);
+		try {
+			return new ManifestWriter(manifestPath);
+		} catch (final IOException e) {
+			LogUtil.exception(Level.WARN, e, "Failed to open the manifest \"{}\"", manifestPath);
+			return null;
+		}
+	}
+
+	private boolean invokeDelete(final int slot, final O op)
 					throws IOException {
-		final String dstPath = op.dstPath();
-		final I fileItem = op.item();
-		FsConstants.FS_PROVIDER.delete(
-						dstPath == null ? Paths.get(fileItem.name()) : Paths.get(dstPath, fileItem.name()));
-		return true;
+		final Path itemPath = itemPath(slot, (DataOperation) op);
+		if (packName != null) {
+			if (packStore(itemPath).remove(itemPath.getFileName().toString())) {
+				return true;
+			}
+			throw new NoSuchFileException(itemPath.toString());
+		}
+		invalidateCachedChannels(itemPath);
+		if (fileDeleter == null) {
+			fs.provider().delete(itemPath);
+			return true;
+		}
+		opSlots.set(slot, PENDING, Boolean.TRUE);
+		if (!fileDeleter.submit(itemPath, e -> finishDeleted(op, e))) {
+			opSlots.set(slot, PENDING, null); // too many pending deletions, retry on the next invocation
+		}
+		return false;
+	}
+
+	private void finishDeleted(final Operation op, final IOException e) {
+		if (e == null) {
+			finishOperation((O) op);
+		} else if (e instanceof NoSuchFileException) {
+			LogUtil.exception(Level.DEBUG, e, op.toString());
+			op.status(Operation.Status.RESP_FAIL_NOT_FOUND);
+		} else {
+			LogUtil.exception(Level.WARN, e, op.toString());
+			op.status(Operation.Status.FAIL_IO);
+		}
+		// released after the status is set, so the worker thread doesn't invoke the operation again
+		releaseOpSlot(op);
+	}
+
+	/**
+	 Logs the per stripe root and per device counters, periodically and on the driver close. The counters are not reset.
+	 */
+	private void reportStats() {
+		if (stripes != null) {
+			Loggers.MSG.info("{}: striping {}", this, stripes);
+			for (var i = 0; i < stripes.size(); i++) {
+				Loggers.MSG.info("{}: stripe {}", this, stripes.get(i));
+			}
+		}
+		if (deviceScheduler != null) {
+			Loggers.MSG.info("{}: device scheduling {}", this, deviceScheduler);
+			for (final var device : deviceScheduler.devices()) {
+				Loggers.MSG.info("{}: device {}", this, device);
+			}
+		}
 	}
 
 	@Override
 	protected final void doClose()
 					throws IOException {
 
-		srcOpenFiles
-						.values()
-						.stream()
-						.filter(AbstractInterruptibleChannel::isOpen)
-						.forEach(
-										channel -> {
-											try {
-												channel.close();
-											} catch (final IOException e) {
-												LogUtil.exception(Level.WARN, e, "Failed to close the source file channel {}", channel);
-											}
-										});
-		srcOpenFiles.clear();
-
-		dstOpenFiles
-						.values()
-						.stream()
-						.filter(AbstractInterruptibleChannel::isOpen)
-						.forEach(
-										channel -> {
-											try {
-												channel.close();
-											} catch (final IOException e) {
-												LogUtil.exception(Level.WARN, e, "Failed to close the source file channel {}", channel);
-											}
-										});
-		dstOpenFiles.clear();
+		// flush the operations waiting for the group sync while their channels are still open
+		fileSyncer.close();
+		Loggers.MSG.info("{}: file sync {}", this, fileSyncer);
+		Loggers.MSG.info("{}: I/O buffer sizes {}", this, ioBuffSizer);
+		if (fileDeleter != null) {
+			fileDeleter.close();
+			Loggers.MSG.info("{}: file delete {}", this, fileDeleter);
+		}
+		if (phaseTimer != null) {
+			phaseTimer.close();
+		}
+		if (spaceMonitor != null) {
+			Loggers.MSG.info("{}: free space monitor {}", this, spaceMonitor);
+			spaceMonitor.close();
+		}
+		if (statsReportExecutor != null) {
+			statsReportExecutor.shutdownNow();
+		}
+		reportStats();
+
+		Loggers.MSG.info("{}: operation {}", this, opSlots);
+		opSlots.forEach(SRC_CHANNEL, channel -> closeOpChannel((FileChannel) channel, "source"));
+		opSlots.forEach(DST_CHANNEL, channel -> closeOpChannel((FileChannel) channel, "destination"));
+		opSlots.clear();
+
+		if (asyncIoEngine != null) {
+			asyncIoEngine.close();
+		}
+
+		for (final var manifestWriter : manifestWriters.values()) {
+			try {
+				manifestWriter.close();
+			} catch (final IOException e) {
+				LogUtil.exception(Level.WARN, e, "Failed to close the manifest writer");
+			}
+		}
+		manifestWriters.clear();
+
+		for (final var packStore : packStores.values()) {
+			Loggers.MSG.info("{}: packed items store \"{}\" {}", this, packStore.dirPath(), packStore);
+			try {
+				packStore.close();
+			} catch (final IOException e) {
+				LogUtil.exception(Level.WARN, e, "Failed to close the packed items store \"{}\"", packStore.dirPath());
+			}
+		}
+		packStores.clear();
+
+		for (final var cursor : listingCursors.values()) {
+			try {
+				cursor.close();
+			} catch (final IOException e) {
+				LogUtil.exception(Level.WARN, e, "Failed to close the listing cursor");
+			}
+		}
+		listingCursors.clear();
+
+		if (srcChannelCache != null) {
+			Loggers.MSG.info("{}: source channel cache {}", this, srcChannelCache);
+			srcChannelCache.close();
+		}
+		if (dstChannelCache != null) {
+			Loggers.MSG.info("{}: destination channel cache {}", this, dstChannelCache);
+			dstChannelCache.close();
+		}
 
 		super.doClose();
 	}
@@ -9,7 +9,9 @@ import com.emc.mongoose.base.storage.driver.StorageDriverFactory;
 
 import com.github.akurilov.confuse.Config;
 import com.github.akurilov.confuse.SchemaProvider;
+import com.github.akurilov.confuse.io.yaml.YamlSchemaProviderBase;
 
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -19,8 +21,25 @@ public class FileStorageDriverExtension<I extends Item, O extends Operation<I>,
 				implements StorageDriverFactory<I, O, T> {
 
 	private static final String NAME = "fs";
+
+	private static final SchemaProvider SCHEMA_PROVIDER = new YamlSchemaProviderBase() {
+
+		@Override
+		protected final InputStream schemaInputStream() {
+			return getClass().getResourceAsStream("/config-schema-storage-fs.yaml");
+		}
+
+		@Override
+		public final String id() {
+			return NAME;
+		}
+	};
+
+	private static final String DEFAULTS_FILE_NAME = "defaults-storage-fs.yaml";
+
 	private static final List<String> RES_INSTALL_FILES = Collections.unmodifiableList(
-					Arrays.asList());
+					Arrays.asList(
+									"config/" + DEFAULTS_FILE_NAME));
 
 	@Override
 	public String id() {
@@ -37,12 +56,12 @@ public class FileStorageDriverExtension<I extends Item, O extends Operation<I>,
 
 	@Override
 	public final SchemaProvider schemaProvider() {
-		return null;
+		return SCHEMA_PROVIDER;
 	}
 
 	@Override
 	protected final String defaultsFileName() {
-		return null;
+		return DEFAULTS_FILE_NAME;
 	}
 
 	@Override
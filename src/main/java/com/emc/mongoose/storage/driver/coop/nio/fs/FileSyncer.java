@@ -0,0 +1,274 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.logging.LogUtil;
+import com.emc.mongoose.base.logging.Loggers;
+
+import org.apache.logging.log4j.Level;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channel;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+Makes the written file data durable before the write operation is reported as done. Depending on the mode the data is
+either synced by the storage itself (DSYNC/SYNC open options), or forced explicitly when the operation is done
+(fdatasync), or the completed operations are handed over to the background flusher which forces each file once per
+batch (group commit). The explicit sync latency is accounted separately from the write latency.
+*/
+public final class FileSyncer
+				implements Closeable {
+
+	public enum Mode {
+		NONE, FDATASYNC, DSYNC, SYNC, GROUP;
+
+		public static Mode of(final String name) {
+			for (final var mode : values()) {
+				if (mode.name().equalsIgnoreCase(name)) {
+					return mode;
+				}
+			}
+			throw new IllegalArgumentException("Unknown sync mode: \"" + name + "\"");
+		}
+	}
+
+	private static final class Entry {
+
+		private final Path path;
+		private final Channel channel;
+		private final Consumer<IOException> callback;
+
+		private Entry(final Path path, final Channel channel, final Consumer<IOException> callback) {
+			this.path = path;
+			this.channel = channel;
+			this.callback = callback;
+		}
+	}
+
+	// stops the flusher, the flusher is not interrupted as the interrupt closes the channel being forced
+	private static final Entry STOP = new Entry(null, null, null);
+
+	private final Mode mode;
+	private final int groupSize;
+	private final long groupIntervalNanos;
+	private final BlockingQueue<Entry> groupQueue;
+	private final Thread flusher;
+	private volatile boolean closed = false;
+	private final LongAdder syncCount = new LongAdder();
+	private final LongAdder syncNanos = new LongAdder();
+	private final AtomicLong syncNanosMax = new AtomicLong(0);
+	private final LongAdder groupOpCount = new LongAdder();
+
+	/**
+	 @param mode the durability mode
+	 @param groupSize the max count of the operations synced in a single batch (group mode only)
+	 @param groupIntervalMillis the max time to wait for the batch to fill (group mode only)
+	 */
+	public FileSyncer(final Mode mode, final int groupSize, final int groupIntervalMillis) {
+		this.mode = mode;
+		this.groupSize = groupSize;
+		this.groupIntervalNanos = TimeUnit.MILLISECONDS.toNanos(groupIntervalMillis);
+		if (Mode.GROUP.equals(mode)) {
+			groupQueue = new LinkedBlockingQueue<>();
+			flusher = new Thread(this::flushLoop, "fsSyncFlusher");
+			flusher.setDaemon(true);
+			flusher.start();
+		} else {
+			groupQueue = null;
+			flusher = null;
+		}
+	}
+
+	public final Mode mode() {
+		return mode;
+	}
+
+	/**
+	 @return the open options to use for the output files
+	 */
+	public final Set<OpenOption> openOpts(final Set<OpenOption> baseOpenOpts) {
+		switch (mode) {
+		case DSYNC:
+			final Set<OpenOption> dsyncOpenOpts = new HashSet<>(baseOpenOpts);
+			dsyncOpenOpts.add(StandardOpenOption.DSYNC);
+			return dsyncOpenOpts;
+		case SYNC:
+			final Set<OpenOption> syncOpenOpts = new HashSet<>(baseOpenOpts);
+			syncOpenOpts.add(StandardOpenOption.SYNC);
+			return syncOpenOpts;
+		default:
+			return baseOpenOpts;
+		}
+	}
+
+	/**
+	 @return true if the operation should be finished from the callback passed to the {@link #submit} method
+	 */
+	public final boolean deferred() {
+		return Mode.GROUP.equals(mode);
+	}
+
+	/**
+	 Forces the written data to the storage if the mode requires it. Blocks until done.
+	 */
+	public final void sync(final Channel channel)
+					throws IOException {
+		if (Mode.FDATASYNC.equals(mode)) {
+			final long t = System.nanoTime();
+			force(channel);
+			record(System.nanoTime() - t);
+		}
+	}
+
+	/**
+	 Enqueues the completed operation's output file for the group sync. Doesn't block.
+	 @param path the output file path, the file is forced once per batch
+	 @param channel the channel the data was written to, should stay open until the callback is invoked
+	 @param callback invoked by the flusher with null argument if the data is durable, with the failure otherwise
+	 */
+	public final void submit(final Path path, final Channel channel, final Consumer<IOException> callback) {
+		if (closed) {
+			callback.accept(new IOException("The file syncer is closed"));
+		} else {
+			groupQueue.add(new Entry(path, channel, callback));
+		}
+	}
+
+	private void flushLoop() {
+		final List<Entry> batch = new ArrayList<>(groupSize);
+		var stop = false;
+		try {
+			while (!stop) {
+				Entry entry = groupQueue.take();
+				if (entry == STOP) {
+					break;
+				}
+				batch.add(entry);
+				final long deadline = System.nanoTime() + groupIntervalNanos;
+				long remainingNanos;
+				while (batch.size() < groupSize) {
+					remainingNanos = deadline - System.nanoTime();
+					if (remainingNanos > 0) {
+						entry = groupQueue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+					} else {
+						entry = groupQueue.poll();
+					}
+					if (entry == null) {
+						break;
+					}
+					if (entry == STOP) {
+						stop = true;
+						break;
+					}
+					batch.add(entry);
+				}
+				flush(batch);
+				batch.clear();
+			}
+		} catch (final InterruptedException e) {
+			Loggers.ERR.debug("The sync flusher is interrupted");
+		} finally {
+			flush(batch);
+		}
+	}
+
+	private void flush(final List<Entry> batch) {
+		// every write of the batch is done before the flush, so forcing any channel of the file makes all them durable
+		final Map<Path, IOException> results = new HashMap<>();
+		for (final var entry : batch) {
+			if (!results.containsKey(entry.path)) {
+				final long t = System.nanoTime();
+				try {
+					force(entry.channel);
+					record(System.nanoTime() - t);
+					results.put(entry.path, null);
+				} catch (final IOException e) {
+					results.put(entry.path, e);
+				}
+			}
+		}
+		groupOpCount.add(batch.size());
+		for (final var entry : batch) {
+			try {
+				entry.callback.accept(results.get(entry.path));
+			} catch (final Throwable cause) {
+				LogUtil.exception(Level.WARN, cause, "Group sync callback failure");
+			}
+		}
+	}
+
+	private static void force(final Channel channel)
+					throws IOException {
+		if (channel instanceof FileChannel) {
+			((FileChannel) channel).force(false);
+		} else if (channel instanceof AsynchronousFileChannel) {
+			((AsynchronousFileChannel) channel).force(false);
+		} else {
+			throw new AssertionError("Unexpected channel type: " + channel.getClass());
+		}
+	}
+
+	private void record(final long nanos) {
+		syncCount.increment();
+		syncNanos.add(nanos);
+		syncNanosMax.accumulateAndGet(nanos, Math::max);
+	}
+
+	public final long syncCount() {
+		return syncCount.sum();
+	}
+
+	@Override
+	public final void close() {
+		closed = true;
+		if (flusher != null) {
+			groupQueue.add(STOP);
+			try {
+				flusher.join();
+			} catch (final InterruptedException e) {
+				Loggers.ERR.debug("Interrupted while waiting for the sync flusher to stop");
+			}
+			// the entries submitted concurrently with the flusher stop
+			final List<Entry> batch = new ArrayList<>();
+			groupQueue.drainTo(batch);
+			flush(batch);
+		}
+	}
+
+	@Override
+	public final String toString() {
+		final long count = syncCount();
+		final var s = new StringBuilder("mode: ")
+						.append(mode.name().toLowerCase())
+						.append(", syncs: ")
+						.append(count);
+		if (count > 0) {
+			s
+							.append(", mean latency: ")
+							.append(TimeUnit.NANOSECONDS.toMicros(syncNanos.sum() / count))
+							.append("us, max latency: ")
+							.append(TimeUnit.NANOSECONDS.toMicros(syncNanosMax.get()))
+							.append("us");
+		}
+		if (Mode.GROUP.equals(mode)) {
+			s.append(", ops synced: ").append(groupOpCount.sum());
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,158 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.logging.LogUtil;
+import com.emc.mongoose.base.logging.Loggers;
+
+import org.apache.logging.log4j.Level;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+Caches the usable space of the file stores the files are written to. The file store of the directory is resolved once,
+the usable space of each file store seen is refreshed by the background thread periodically, so the failed operations
+and the low space check don't query the file system per operation. The file store is low on space if its cached usable
+space is below the watermark, the new files should not be created there until the refresh sees the space freed.
+The JDK has no portable way to get the free inodes count, so the inodes exhaustion is not detected in advance.
+*/
+public final class FreeSpaceMonitor
+				implements Closeable {
+
+	public static final long UNKNOWN = -1;
+
+	private static final class StoreEntry {
+
+		private final FileStore store;
+		private volatile long usableSpace;
+		private volatile boolean low;
+
+		private StoreEntry(final FileStore store) {
+			this.store = store;
+		}
+	}
+
+	private final String name;
+	private final long watermark;
+	private final Map<Path, StoreEntry> dirEntries = new ConcurrentHashMap<>();
+	private final Map<FileStore, StoreEntry> storeEntries = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService refreshExecutor;
+
+	/**
+	 @param name the name used in the log messages
+	 @param refreshIntervalMillis the usable space refresh interval, should be > 0
+	 @param watermark the usable space below which the file store is low on space, 0 means never low
+	 */
+	public FreeSpaceMonitor(final String name, final long refreshIntervalMillis, final long watermark) {
+		if (refreshIntervalMillis < 1) {
+			throw new IllegalArgumentException("Refresh interval should be > 0: " + refreshIntervalMillis);
+		}
+		if (watermark < 0) {
+			throw new IllegalArgumentException("Watermark should not be negative: " + watermark);
+		}
+		this.name = name;
+		this.watermark = watermark;
+		refreshExecutor = Executors.newSingleThreadScheduledExecutor(
+						task -> {
+							final var refresher = new Thread(task, "fsFreeSpaceMonitor");
+							refresher.setDaemon(true);
+							return refresher;
+						});
+		refreshExecutor.scheduleWithFixedDelay(
+						this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private StoreEntry entry(final Path dirPath) {
+		var entry = dirEntries.get(dirPath);
+		if (entry == null) {
+			final FileStore store;
+			try {
+				store = Files.getFileStore(dirPath);
+			} catch (final IOException e) {
+				return null; // not cached, the directory may be created later
+			}
+			entry = storeEntries.computeIfAbsent(
+							store,
+							s -> {
+								final var newEntry = new StoreEntry(s);
+								refresh(newEntry);
+								return newEntry;
+							});
+			dirEntries.putIfAbsent(dirPath, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 @return the cached usable space of the file store containing the given directory, {@link #UNKNOWN} if the file store
+	 can not be determined
+	 */
+	public final long usableSpace(final Path dirPath) {
+		final var entry = entry(dirPath);
+		return entry == null ? UNKNOWN : entry.usableSpace;
+	}
+
+	/**
+	 @return true if the cached usable space of the file store containing the given directory is below the watermark
+	 */
+	public final boolean low(final Path dirPath) {
+		final var entry = entry(dirPath);
+		return entry != null && entry.low;
+	}
+
+	final void refresh() {
+		for (final var entry : storeEntries.values()) {
+			refresh(entry);
+		}
+	}
+
+	private void refresh(final StoreEntry entry) {
+		final long usableSpace;
+		try {
+			usableSpace = entry.store.getUsableSpace();
+		} catch (final IOException e) {
+			LogUtil.exception(Level.DEBUG, e, "{}: failed to get the usable space of the file store {}", name, entry.store);
+			return;
+		}
+		entry.usableSpace = usableSpace;
+		final boolean low = usableSpace < watermark;
+		if (low != entry.low) {
+			entry.low = low;
+			if (low) {
+				Loggers.ERR.warn(
+								"{}: the usable space of the file store {} ({}) is below the watermark ({}), the files are not "
+												+ "created there", name, entry.store, usableSpace, watermark);
+			} else {
+				Loggers.MSG.info(
+								"{}: the usable space of the file store {} ({}) is above the watermark again", name, entry.store,
+								usableSpace);
+			}
+		}
+	}
+
+	@Override
+	public final void close() {
+		refreshExecutor.shutdownNow();
+		dirEntries.clear();
+		storeEntries.clear();
+	}
+
+	@Override
+	public final String toString() {
+		final var buff = new StringBuilder();
+		for (final var entry : storeEntries.values()) {
+			if (buff.length() > 0) {
+				buff.append(", ");
+			}
+			buff.append(entry.store).append(": ").append(entry.usableSpace);
+		}
+		return "usable space: {" + buff + "}, watermark: " + watermark;
+	}
+}
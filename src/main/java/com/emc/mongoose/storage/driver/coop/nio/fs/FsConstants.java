@@ -12,6 +12,7 @@ public interface FsConstants {
 
 	FileSystem FS = FileSystems.getDefault();
 	FileSystemProvider FS_PROVIDER = FS.provider();
+	int DEFAULT_BLOCK_SIZE = 4096;
 
 	Set<OpenOption> CREATE_OPEN_OPT = new HashSet<OpenOption>() {
 		{
@@ -0,0 +1,107 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.op.OpType;
+import com.emc.mongoose.base.logging.Loggers;
+
+import com.github.akurilov.commons.system.SizeInBytes;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+Chooses the I/O buffer size per operation type from the average transfer size. The average is seeded by the
+{@link FileStorageDriver#adjustIoBuffers(long, OpType)} hint and follows the observed transfer sizes (exponentially
+weighted). The chosen size is the average rounded up to the power of 2 and clamped to the configured range, it's used
+both as the buffer size cap and as the max count of the bytes transferred per operation invocation.
+*/
+public final class IoBufferSizer {
+
+	// the weight of the new sample is 1/8
+	private static final int AVG_WEIGHT_SHIFT = 3;
+
+	private final int minSize;
+	private final int maxSize;
+	private final AtomicLongArray avgTransferSizes = new AtomicLongArray(OpType.values().length);
+	private final AtomicIntegerArray buffSizes = new AtomicIntegerArray(OpType.values().length);
+
+	/**
+	 @param minSize the min buffer size
+	 @param maxSize the max buffer size
+	 */
+	public IoBufferSizer(final int minSize, final int maxSize) {
+		if (minSize < 1 || minSize > maxSize) {
+			throw new IllegalArgumentException("Invalid I/O buffer size range: " + minSize + " - " + maxSize);
+		}
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		for (var i = 0; i < buffSizes.length(); i++) {
+			buffSizes.set(i, maxSize);
+		}
+	}
+
+	/**
+	 Resets the average transfer size for the given operation type.
+	 */
+	public final void adjust(final long avgTransferSize, final OpType opType) {
+		final var i = opType.ordinal();
+		avgTransferSizes.set(i, avgTransferSize);
+		update(i, avgTransferSize, opType);
+	}
+
+	/**
+	 Accounts the transfer size of the finished operation.
+	 */
+	public final void record(final long transferSize, final OpType opType) {
+		if (transferSize > 0) {
+			final var i = opType.ordinal();
+			final long avgTransferSize = avgTransferSizes.accumulateAndGet(
+							i, transferSize, (avg, size) -> avg > 0 ? avg + ((size - avg) >> AVG_WEIGHT_SHIFT) : size);
+			update(i, avgTransferSize, opType);
+		}
+	}
+
+	/**
+	 @return the current buffer size for the given operation type
+	 */
+	public final int buffSize(final OpType opType) {
+		return buffSizes.get(opType.ordinal());
+	}
+
+	private void update(final int i, final long avgTransferSize, final OpType opType) {
+		final int buffSize = buffSize(avgTransferSize);
+		final int prevBuffSize = buffSizes.getAndSet(i, buffSize);
+		if (prevBuffSize != buffSize) {
+			Loggers.MSG.debug(
+							"{} I/O buffer size: {} -> {} (avg transfer size: {})", opType, SizeInBytes.formatFixedSize(prevBuffSize),
+							SizeInBytes.formatFixedSize(buffSize), SizeInBytes.formatFixedSize(avgTransferSize));
+		}
+	}
+
+	private int buffSize(final long avgTransferSize) {
+		if (avgTransferSize <= minSize) {
+			return minSize;
+		} else if (avgTransferSize >= maxSize) {
+			return maxSize;
+		} else {
+			final long pow2 = Long.highestOneBit(avgTransferSize - 1) << 1;
+			return (int) Math.min(maxSize, Math.max(minSize, pow2));
+		}
+	}
+
+	@Override
+	public final String toString() {
+		final var s = new StringBuilder();
+		for (final var opType : OpType.values()) {
+			if (avgTransferSizes.get(opType.ordinal()) > 0) {
+				if (s.length() > 0) {
+					s.append(", ");
+				}
+				s
+								.append(opType.name().toLowerCase())
+								.append(": ")
+								.append(SizeInBytes.formatFixedSize(buffSize(opType)));
+			}
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,119 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+
+/**
+The set of the direct buffers transferred by a single scattering read or gathering write. The vector is reused by the
+I/O worker thread, the buffers are allocated on demand and kept for the subsequent invocations. The count of the
+buffers and their total size are limited.
+*/
+public final class IoVector {
+
+	private static final ThreadLocal<IoVector> THREAD_LOCAL = ThreadLocal.withInitial(IoVector::new);
+
+	private ByteBuffer[] buffs = new ByteBuffer[0];
+	private int count = 0;
+	private long size = 0;
+	private int countLimit = 1;
+	private long sizeLimit = 0;
+
+	/**
+	 @return the empty vector of the current thread
+	 */
+	public static IoVector threadLocal(final int countLimit, final long sizeLimit) {
+		final var vector = THREAD_LOCAL.get();
+		vector.count = 0;
+		vector.size = 0;
+		vector.countLimit = countLimit;
+		vector.sizeLimit = sizeLimit;
+		return vector;
+	}
+
+	/**
+	 @return true if no more buffers may be added
+	 */
+	public final boolean isFull() {
+		return count == countLimit || size == sizeLimit;
+	}
+
+	/**
+	 Appends the buffer of the given size, the size is cut if the vector size limit is reached. Should not be invoked if
+	 the vector is full.
+	 @return the size of the appended buffer
+	 */
+	public final int add(final long buffSize) {
+		final var n = (int) Math.min(buffSize, sizeLimit - size);
+		if (count == buffs.length) {
+			buffs = Arrays.copyOf(buffs, count + 1);
+		}
+		var buff = buffs[count];
+		if (buff == null || buff.capacity() < n) {
+			buff = ByteBuffer.allocateDirect(n);
+			buffs[count] = buff;
+		}
+		buff.clear().limit(n);
+		count ++;
+		size += n;
+		return n;
+	}
+
+	/**
+	 Appends the buffers of the given size until the given byte count is covered or the vector is full.
+	 */
+	public final void addAll(final long byteCount, final int buffSize) {
+		long remaining = byteCount;
+		while (remaining > 0 && !isFull()) {
+			remaining -= add(Math.min(remaining, buffSize));
+		}
+	}
+
+	public final int count() {
+		return count;
+	}
+
+	public final ByteBuffer buff(final int i) {
+		return buffs[i];
+	}
+
+	public final void flip() {
+		for (var i = 0; i < count; i++) {
+			buffs[i].flip();
+		}
+	}
+
+	/**
+	 Writes at the channel's current position.
+	 */
+	public final long write(final GatheringByteChannel channel)
+					throws IOException {
+		return channel.write(buffs, 0, count);
+	}
+
+	/**
+	 Reads from the given position. The channel has no positional scattering read, so the channel's position is set and
+	 used holding the channel's monitor: the channel may be shared by the concurrent operations using the positional
+	 I/O only.
+	 */
+	public final long read(final FileChannel channel, final long pos)
+					throws IOException {
+		synchronized (channel) {
+			channel.position(pos);
+			return channel.read(buffs, 0, count);
+		}
+	}
+
+	/**
+	 Writes at the given position, see {@link #read(FileChannel, long)}.
+	 */
+	public final long write(final FileChannel channel, final long pos)
+					throws IOException {
+		synchronized (channel) {
+			channel.position(pos);
+			return channel.write(buffs, 0, count);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.Item;
+import com.emc.mongoose.base.item.ItemFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+The listing state which is kept between the successive listing calls for the same (path, prefix) pair, so each next
+page resumes where the previous one stopped instead of rescanning from the beginning.
+Not thread safe: the cursor should be used by a single listing call at a time.
+*/
+public interface ListingCursor
+				extends Closeable {
+
+	/**
+	 @param lastPrevItem the last item listed by the previous call, null if the listing starts from the beginning
+	 @return true if the cursor stopped right after the given item so the listing may be continued w/o rescan
+	 */
+	boolean resumesAfter(final Item lastPrevItem);
+
+	/**
+	 Skips the entries until the given item (inclusive), used when the cursor doesn't resume after the item.
+	 @return true if the item is found, false if the cursor is exhausted
+	 */
+	boolean skipTo(final Item lastPrevItem)
+					throws IOException;
+
+	/**
+	 @return the next page of the items, the page may be shorter than requested only if the cursor is exhausted
+	 */
+	<I extends Item> List<I> next(final ItemFactory<I> itemFactory, final int idRadix, final int count)
+					throws IOException;
+
+	boolean exhausted();
+}
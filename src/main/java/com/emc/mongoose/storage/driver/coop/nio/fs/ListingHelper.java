@@ -5,11 +5,9 @@ import com.emc.mongoose.base.item.ItemFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.DirectoryIteratorException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,60 +31,73 @@ public interface ListingHelper {
 		}
 	}
 
-	static <I extends Item> List<I> list(
-					final ItemFactory<I> itemFactory, final String path, final String prefix, final int idRadix,
-					final I lastPrevItem, final int count) throws IOException {
-
-		final DirectoryStream.Filter<Path> filter = (prefix == null || prefix.isEmpty()) ? ACCEPT_ALL_PATHS_FILTER : new PrefixDirectoryStreamFilter(prefix);
-		final List<I> buff = new ArrayList<>(count);
+	static DirectoryStream.Filter<Path> filter(final String prefix) {
+		return (prefix == null || prefix.isEmpty()) ? ACCEPT_ALL_PATHS_FILTER : new PrefixDirectoryStreamFilter(prefix);
+	}
 
-		try (
-						final DirectoryStream<Path> dirStream = FsConstants.FS_PROVIDER.newDirectoryStream(Paths.get(path), filter)) {
-			final int prefixLength = (prefix == null || prefix.isEmpty()) ? 0 : prefix.length();
+	/**
+	 @param excludedFileName the file name which should not be listed (e.g. the manifest), may be null
+	 */
+	static DirectoryStream.Filter<Path> filter(final String prefix, final String excludedFileName) {
+		final var filter = filter(prefix);
+		if (excludedFileName == null) {
+			return filter;
+		} else {
+			return entry -> filter.accept(entry) && !excludedFileName.equals(entry.getFileName().toString());
+		}
+	}
 
-			File nextFile;
-			String nextFileName;
-			I nextItem;
+	static <I extends Item> I item(
+					final ItemFactory<I> itemFactory, final File file, final int prefixLength, final int idRadix) {
+		return item(itemFactory, file.getAbsolutePath(), file.length(), prefixLength, idRadix);
+	}
 
-			final String lastPrevItemName;
-			boolean lastPrevItemNameFound;
-			if (lastPrevItem == null) {
-				lastPrevItemName = null;
-				lastPrevItemNameFound = true;
+	static <I extends Item> I item(
+					final ItemFactory<I> itemFactory, final String fileName, final long fileSize, final int prefixLength,
+					final int idRadix) {
+		try {
+			final long offset;
+			if (prefixLength > 0) {
+				// only items with the prefix are passed so it's safe
+				offset = Long.parseLong(fileName.substring(prefixLength), idRadix);
 			} else {
-				lastPrevItemName = lastPrevItem.name();
-				lastPrevItemNameFound = false;
+				offset = Long.parseLong(fileName, idRadix);
 			}
+			return itemFactory.getItem(fileName, offset, fileSize);
+		} catch (final NumberFormatException e) {
+			// try to not use the offset (read verification should be disabled)
+			return itemFactory.getItem(fileName, 0, fileSize);
+		}
+	}
 
-			for (final Path nextPath : dirStream) {
-				nextFile = new File(nextPath.toString());
-				nextFileName = nextFile.getAbsolutePath();
-				if (lastPrevItemNameFound) {
-					try {
-						final long offset;
-						if (prefixLength > 0) {
-							// only items with the prefix are passed so it's safe
-							offset = Long.parseLong(nextFileName.substring(prefixLength), idRadix);
-						} else {
-							offset = Long.parseLong(nextFileName, idRadix);
-						}
-						nextItem = itemFactory.getItem(nextFile.getAbsolutePath(), offset, nextFile.length());
-					} catch (final NumberFormatException e) {
-						// try to not use the offset (read verification should be disabled)
-						nextItem = itemFactory.getItem(nextFile.getAbsolutePath(), 0, nextFile.length());
-					}
-					buff.add(nextItem);
-					if (count == buff.size()) {
-						break;
-					}
-				} else {
-					lastPrevItemNameFound = nextFileName.equals(lastPrevItemName);
-				}
-			}
-		} catch (final DirectoryIteratorException e) {
-			throw e.getCause(); // according the JDK documentation
+	/**
+	 @return the cursor listing the directory files, or the files in the shard directories if the layout is not flat
+	 */
+	static ListingCursor dirCursor(
+					final String path, final String prefix, final ListingMode listingMode, final FanOutLayout layout,
+					final String excludedFileName) throws IOException {
+		if (layout.flat()) {
+			return new DirListingCursor(layout.fileSystem().getPath(path), prefix, listingMode, excludedFileName);
+		} else {
+			return new FanOutListingCursor(path, prefix, listingMode, layout, excludedFileName);
 		}
+	}
+
+	static <I extends Item> List<I> list(
+					final ItemFactory<I> itemFactory, final String path, final String prefix, final int idRadix,
+					final I lastPrevItem, final int count) throws IOException {
+		return list(itemFactory, path, prefix, idRadix, lastPrevItem, count, FanOutLayout.FLAT);
+	}
 
-		return buff;
+	static <I extends Item> List<I> list(
+					final ItemFactory<I> itemFactory, final String path, final String prefix, final int idRadix,
+					final I lastPrevItem, final int count, final FanOutLayout layout) throws IOException {
+		try (final ListingCursor cursor = dirCursor(path, prefix, ListingMode.ATTRS, layout, null)) {
+			if (cursor.skipTo(lastPrevItem)) {
+				return cursor.next(itemFactory, idRadix, count);
+			} else {
+				return new ArrayList<>(0);
+			}
+		}
 	}
 }
@@ -0,0 +1,21 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+/**
+The way the listed file sizes are determined.
+FILE: the legacy way, {@link java.io.File#length()} per entry.
+ATTRS: the basic attributes are read once per entry, relative to the open directory handle if supported.
+NAMES: no size lookup at all, the listed items have zero size (suitable for the delete operations).
+*/
+public enum ListingMode {
+
+	FILE, ATTRS, NAMES;
+
+	public static ListingMode of(final String name) {
+		for (final var mode : values()) {
+			if (mode.name().equalsIgnoreCase(name)) {
+				return mode;
+			}
+		}
+		throw new IllegalArgumentException("Unknown listing mode: \"" + name + "\"");
+	}
+}
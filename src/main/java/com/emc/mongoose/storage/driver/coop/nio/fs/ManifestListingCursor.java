@@ -0,0 +1,211 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.Item;
+import com.emc.mongoose.base.item.ItemFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+The listing cursor reading the items from the binary manifest written by {@link ManifestWriter} instead of scanning
+the directory. The manifest is memory mapped window by window, the window is moved at the record boundary. The file
+size is taken once when the cursor is opened, so the records appended after that are not listed by this cursor. The
+truncated last record (the writer is still running or crashed) is treated as the end of the manifest.
+*/
+public final class ManifestListingCursor
+				implements ListingCursor {
+
+	private final FileChannel channel;
+	private final long manifestSize;
+	private final long windowSize;
+	private final byte[] prefixBytes;
+	private MappedByteBuffer window = null;
+	private long windowOffset = 0;
+	private String lastItemName = null;
+	private boolean exhausted = false;
+
+	/**
+	 @param manifestPath the manifest file path
+	 @param prefix the file name prefix, may be null
+	 @param windowSize the max size of the manifest region mapped at once
+	 */
+	public ManifestListingCursor(final Path manifestPath, final String prefix, final long windowSize)
+					throws IOException {
+		channel = FileChannel.open(manifestPath);
+		try {
+			manifestSize = channel.size();
+			if (manifestSize < ManifestWriter.HEADER_SIZE) {
+				throw new IOException("Invalid manifest file \"" + manifestPath + "\": size is " + manifestSize);
+			}
+			this.windowSize = Math.max(windowSize, ManifestWriter.RECORD_FIXED_SIZE + ManifestWriter.NAME_SIZE_LIMIT);
+			map(0);
+			final int magic = window.getInt();
+			if (magic != ManifestWriter.MAGIC) {
+				throw new IOException(
+								"Invalid manifest file \"" + manifestPath + "\": " + String.format("0x%X", magic) + " magic");
+			}
+		} catch (final IOException e) {
+			close();
+			throw e;
+		}
+		if (prefix == null || prefix.isEmpty()) {
+			prefixBytes = null;
+		} else {
+			prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	private void map(final long offset)
+					throws IOException {
+		if (window != null) {
+			MmapIoHelper.unmap(window);
+			window = null;
+		}
+		windowOffset = offset;
+		window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, manifestSize - offset));
+	}
+
+	/**
+	 Moves the window so the next record is mapped entirely.
+	 @return false if there's no complete record left
+	 */
+	private boolean nextRecordMapped()
+					throws IOException {
+		if (window.remaining() < Short.BYTES) {
+			final var recordOffset = windowOffset + window.position();
+			if (manifestSize - recordOffset < ManifestWriter.RECORD_FIXED_SIZE) {
+				return false;
+			}
+			map(recordOffset);
+		}
+		final var recordSize = ManifestWriter.RECORD_FIXED_SIZE + Short.toUnsignedInt(window.getShort(window.position()));
+		if (window.remaining() < recordSize) {
+			final var recordOffset = windowOffset + window.position();
+			if (manifestSize - recordOffset < recordSize) {
+				return false;
+			}
+			map(recordOffset);
+		}
+		return true;
+	}
+
+	private String nextName() {
+		final var nameBytes = new byte[Short.toUnsignedInt(window.getShort())];
+		window.get(nameBytes);
+		return new String(nameBytes, StandardCharsets.UTF_8);
+	}
+
+	private void skipTail() {
+		window.position(window.position() + ManifestWriter.RECORD_FIXED_SIZE - Short.BYTES);
+	}
+
+	// the record's position is at the name length
+	private boolean prefixMatches() {
+		if (prefixBytes == null) {
+			return true;
+		}
+		final int pos = window.position();
+		final int nameEnd = pos + Short.BYTES + Short.toUnsignedInt(window.getShort(pos));
+		// the file name starts after the last separator
+		int fileNameStart = nameEnd;
+		while (fileNameStart > pos + Short.BYTES && window.get(fileNameStart - 1) != File.separatorChar) {
+			fileNameStart--;
+		}
+		if (nameEnd - fileNameStart < prefixBytes.length) {
+			return false;
+		}
+		for (var i = 0; i < prefixBytes.length; i++) {
+			if (window.get(fileNameStart + i) != prefixBytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void skipRecord() {
+		window.position(
+						window.position() + ManifestWriter.RECORD_FIXED_SIZE
+										+ Short.toUnsignedInt(window.getShort(window.position())));
+	}
+
+	@Override
+	public final boolean resumesAfter(final Item lastPrevItem) {
+		if (lastPrevItem == null) {
+			return lastItemName == null;
+		} else {
+			return lastPrevItem.name().equals(lastItemName);
+		}
+	}
+
+	@Override
+	public final boolean skipTo(final Item lastPrevItem)
+					throws IOException {
+		if (lastPrevItem != null) {
+			final var lastPrevItemName = lastPrevItem.name();
+			while (nextRecordMapped()) {
+				if (prefixMatches()) {
+					final var name = nextName();
+					skipTail();
+					if (name.equals(lastPrevItemName)) {
+						lastItemName = lastPrevItemName;
+						return true;
+					}
+				} else {
+					skipRecord();
+				}
+			}
+			exhausted = true;
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public final <I extends Item> List<I> next(final ItemFactory<I> itemFactory, final int idRadix, final int count)
+					throws IOException {
+		final List<I> buff = new ArrayList<>(count);
+		String name;
+		I nextItem;
+		while (buff.size() < count) {
+			if (!nextRecordMapped()) {
+				exhausted = true;
+				break;
+			}
+			if (prefixMatches()) {
+				name = nextName();
+				nextItem = itemFactory.getItem(name, window.getLong(), window.getLong());
+				final int layer = window.getInt();
+				if (nextItem instanceof DataItem) {
+					((DataItem) nextItem).layer(layer);
+				}
+				buff.add(nextItem);
+				lastItemName = name;
+			} else {
+				skipRecord();
+			}
+		}
+		return buff;
+	}
+
+	@Override
+	public final boolean exhausted() {
+		return exhausted;
+	}
+
+	@Override
+	public final void close()
+					throws IOException {
+		if (window != null) {
+			MmapIoHelper.unmap(window);
+			window = null;
+		}
+		channel.close();
+	}
+}
@@ -0,0 +1,77 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+Appends the records about the created files to the binary manifest file in the same directory. The manifest starts
+with the 4 bytes magic number followed by the records: the file path length (2 bytes, unsigned), the file path (UTF-8),
+the data offset (8 bytes), the size (8 bytes) and the layer (4 bytes). The records are buffered and appended in
+batches, each batch is written by a single append call so the concurrent writers don't interleave the records.
+*/
+public final class ManifestWriter
+				implements Closeable {
+
+	public static final int MAGIC = 0x4D4E4631; // "MNF1"
+	public static final int HEADER_SIZE = Integer.BYTES;
+	public static final int RECORD_FIXED_SIZE = Short.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+	public static final int NAME_SIZE_LIMIT = 0xFFFF;
+
+	private static final int BUFF_SIZE = 0x10000;
+
+	private final FileChannel channel;
+	private final ByteBuffer buff = ByteBuffer.allocateDirect(BUFF_SIZE);
+
+	public ManifestWriter(final Path manifestPath)
+					throws IOException {
+		channel = FileChannel.open(
+						manifestPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		if (channel.size() == 0) {
+			buff.putInt(MAGIC);
+		}
+	}
+
+	public final synchronized void append(final String name, final long offset, final long size, final int layer)
+					throws IOException {
+		final var nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		if (nameBytes.length > NAME_SIZE_LIMIT) {
+			throw new IOException("Too long file path for the manifest: " + name);
+		}
+		if (buff.remaining() < RECORD_FIXED_SIZE + nameBytes.length) {
+			flush();
+		}
+		buff
+						.putShort((short) nameBytes.length)
+						.put(nameBytes)
+						.putLong(offset)
+						.putLong(size)
+						.putInt(layer);
+	}
+
+	/**
+	 Writes the buffered records to the manifest file.
+	 */
+	public final synchronized void flush()
+					throws IOException {
+		buff.flip();
+		while (buff.hasRemaining()) {
+			channel.write(buff);
+		}
+		buff.clear();
+	}
+
+	@Override
+	public final synchronized void close()
+					throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+The content of the in-memory file stored in the direct (off-heap) buffers (chunks). The chunk sizes grow twice from 4KB
+up to 1MB and then remain 1MB, like the item's ranges do, so the small file wastes not more than a half of its size
+and the large file is not more than 1MB bigger than its content. The chunks are allocated on the first write, the
+not allocated chunk (the hole) is read as the zeros. The concurrent I/O on the disjoint regions is safe, the file
+extension and the truncation are serialized.
+*/
+public final class MemFile {
+
+	static final int MIN_CHUNK_SHIFT = 12;
+	static final int MAX_CHUNK_SHIFT = 20;
+	static final int GROWING_CHUNK_COUNT = MAX_CHUNK_SHIFT - MIN_CHUNK_SHIFT;
+	static final long GROWING_CHUNKS_SIZE = ((1L << GROWING_CHUNK_COUNT) - 1) << MIN_CHUNK_SHIFT;
+
+	private static final ByteBuffer ZEROS = ByteBuffer.allocateDirect(1 << MAX_CHUNK_SHIFT).asReadOnlyBuffer();
+
+	private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+	private volatile long size = 0;
+	private volatile long lastModifiedTime = System.currentTimeMillis();
+	private final long creationTime = lastModifiedTime;
+
+	static int chunkIndex(final long pos) {
+		if (pos < GROWING_CHUNKS_SIZE) {
+			return 63 - Long.numberOfLeadingZeros((pos >>> MIN_CHUNK_SHIFT) + 1);
+		} else {
+			return GROWING_CHUNK_COUNT + (int) ((pos - GROWING_CHUNKS_SIZE) >>> MAX_CHUNK_SHIFT);
+		}
+	}
+
+	static long chunkOffset(final int chunkIdx) {
+		if (chunkIdx < GROWING_CHUNK_COUNT) {
+			return ((1L << chunkIdx) - 1) << MIN_CHUNK_SHIFT;
+		} else {
+			return GROWING_CHUNKS_SIZE + ((long) (chunkIdx - GROWING_CHUNK_COUNT) << MAX_CHUNK_SHIFT);
+		}
+	}
+
+	static int chunkSize(final int chunkIdx) {
+		return 1 << (chunkIdx < GROWING_CHUNK_COUNT ? MIN_CHUNK_SHIFT + chunkIdx : MAX_CHUNK_SHIFT);
+	}
+
+	public final long size() {
+		return size;
+	}
+
+	public final long lastModifiedTime() {
+		return lastModifiedTime;
+	}
+
+	public final long creationTime() {
+		return creationTime;
+	}
+
+	/**
+	 @return the view of the chunk region containing the given position, the view is limited by the given end position
+	 or by the chunk end. The zeros view is returned for the hole if the chunk should not be allocated.
+	 */
+	private ByteBuffer chunkView(final long pos, final long end, final boolean alloc) {
+		final int chunkIdx = chunkIndex(pos);
+		final long chunkOffset = chunkOffset(chunkIdx);
+		final int chunkSize = chunkSize(chunkIdx);
+		var chunks = this.chunks;
+		ByteBuffer chunk = chunkIdx < chunks.length ? chunks[chunkIdx] : null;
+		if (chunk == null) {
+			if (alloc) {
+				chunk = allocChunk(chunkIdx);
+			} else {
+				chunk = ZEROS;
+			}
+		}
+		final var view = chunk.duplicate();
+		view.limit((int) Math.min(chunkSize, end - chunkOffset)).position((int) (pos - chunkOffset));
+		return view;
+	}
+
+	private synchronized ByteBuffer allocChunk(final int chunkIdx) {
+		var chunks = this.chunks;
+		if (chunkIdx >= chunks.length) {
+			chunks = Arrays.copyOf(chunks, Math.max(chunkIdx + 1, chunks.length * 2));
+		}
+		var chunk = chunks[chunkIdx];
+		if (chunk == null) {
+			chunk = ByteBuffer.allocateDirect(chunkSize(chunkIdx));
+			chunks[chunkIdx] = chunk;
+			this.chunks = chunks;
+		}
+		return chunk;
+	}
+
+	private synchronized void extend(final long end) {
+		if (end > size) {
+			size = end;
+		}
+		lastModifiedTime = System.currentTimeMillis();
+	}
+
+	/**
+	 @return the count of the bytes read, -1 if the position is not less than the file size
+	 */
+	public final int read(final ByteBuffer dst, final long pos) {
+		final long end = Math.min(size, pos + dst.remaining());
+		if (pos >= end) {
+			return dst.hasRemaining() ? -1 : 0;
+		}
+		long currPos = pos;
+		ByteBuffer view;
+		while (currPos < end) {
+			view = chunkView(currPos, end, false);
+			currPos += view.remaining();
+			dst.put(view);
+		}
+		return (int) (end - pos);
+	}
+
+	public final int write(final ByteBuffer src, final long pos) {
+		final long end = pos + src.remaining();
+		final int srcLimit = src.limit();
+		long currPos = pos;
+		ByteBuffer view;
+		try {
+			while (currPos < end) {
+				view = chunkView(currPos, end, true);
+				src.limit(src.position() + view.remaining());
+				currPos += view.remaining();
+				view.put(src);
+			}
+		} finally {
+			src.limit(srcLimit);
+		}
+		extend(end);
+		return (int) (end - pos);
+	}
+
+	public final long transferTo(final long pos, final long count, final WritableByteChannel target)
+					throws IOException {
+		final long end = Math.min(size, pos + count);
+		long currPos = pos;
+		ByteBuffer view;
+		int n;
+		while (currPos < end) {
+			view = chunkView(currPos, end, false);
+			n = target.write(view);
+			currPos += n;
+			if (view.hasRemaining()) {
+				break; // the non-blocking target is full
+			}
+		}
+		return currPos - pos;
+	}
+
+	public final long transferFrom(final ReadableByteChannel src, final long pos, final long count)
+					throws IOException {
+		final long end = pos + count;
+		long currPos = pos;
+		ByteBuffer view;
+		int n;
+		try {
+			while (currPos < end) {
+				view = chunkView(currPos, end, true);
+				n = src.read(view);
+				if (n <= 0) {
+					break;
+				}
+				currPos += n;
+			}
+		} finally {
+			if (currPos > pos) {
+				extend(currPos);
+			}
+		}
+		return currPos - pos;
+	}
+
+	/**
+	 Drops the chunks beyond the new size, the tail of the last chunk is zeroed so the file extension reads the zeros.
+	 */
+	public final synchronized void truncate(final long newSize) {
+		if (newSize >= size) {
+			return;
+		}
+		final var chunks = this.chunks;
+		if (newSize == 0) {
+			this.chunks = new ByteBuffer[0];
+		} else {
+			final int lastChunkIdx = chunkIndex(newSize - 1);
+			for (var i = lastChunkIdx + 1; i < chunks.length; i++) {
+				chunks[i] = null;
+			}
+			final var lastChunk = lastChunkIdx < chunks.length ? chunks[lastChunkIdx] : null;
+			if (lastChunk != null) {
+				final var tail = lastChunk.duplicate();
+				tail.position((int) (newSize - chunkOffset(lastChunkIdx)));
+				tail.put(ZEROS.duplicate().limit(tail.remaining()));
+			}
+		}
+		size = newSize;
+		lastModifiedTime = System.currentTimeMillis();
+	}
+}
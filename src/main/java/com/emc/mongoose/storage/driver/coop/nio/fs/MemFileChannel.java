@@ -0,0 +1,213 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+The channel of the {@link MemFile}. The positional I/O doesn't use the channel position, so the channel may be used
+by the concurrent operations doing the positional I/O only. The memory mapping is not supported (the JDK doesn't allow
+to create the mapped buffer for the arbitrary memory), the locks are the no-op ones (single process).
+*/
+public final class MemFileChannel
+				extends FileChannel {
+
+	private final MemFile file;
+	private final boolean readable;
+	private final boolean writable;
+	private final boolean append;
+	private long position = 0;
+
+	MemFileChannel(final MemFile file, final boolean readable, final boolean writable, final boolean append) {
+		this.file = file;
+		this.readable = readable;
+		this.writable = writable;
+		this.append = append;
+	}
+
+	private void checkRead()
+					throws ClosedChannelException {
+		if (!isOpen()) {
+			throw new ClosedChannelException();
+		}
+		if (!readable) {
+			throw new NonReadableChannelException();
+		}
+	}
+
+	private void checkWrite()
+					throws ClosedChannelException {
+		if (!isOpen()) {
+			throw new ClosedChannelException();
+		}
+		if (!writable) {
+			throw new NonWritableChannelException();
+		}
+	}
+
+	@Override
+	public final int read(final ByteBuffer dst, final long pos)
+					throws IOException {
+		checkRead();
+		return file.read(dst, pos);
+	}
+
+	@Override
+	public final int write(final ByteBuffer src, final long pos)
+					throws IOException {
+		checkWrite();
+		return file.write(src, pos);
+	}
+
+	@Override
+	public final int read(final ByteBuffer dst)
+					throws IOException {
+		final int n = read(dst, position);
+		if (n > 0) {
+			position += n;
+		}
+		return n;
+	}
+
+	@Override
+	public final long read(final ByteBuffer[] dsts, final int offset, final int length)
+					throws IOException {
+		long total = 0;
+		int n;
+		for (var i = offset; i < offset + length; i++) {
+			if (dsts[i].hasRemaining()) {
+				n = read(dsts[i]);
+				if (n < 0) {
+					return total == 0 ? -1 : total;
+				}
+				total += n;
+				if (dsts[i].hasRemaining()) {
+					break; // the end of the file
+				}
+			}
+		}
+		return total;
+	}
+
+	@Override
+	public final int write(final ByteBuffer src)
+					throws IOException {
+		if (append) {
+			position = file.size();
+		}
+		final int n = write(src, position);
+		position += n;
+		return n;
+	}
+
+	@Override
+	public final long write(final ByteBuffer[] srcs, final int offset, final int length)
+					throws IOException {
+		long total = 0;
+		for (var i = offset; i < offset + length; i++) {
+			total += write(srcs[i]);
+		}
+		return total;
+	}
+
+	@Override
+	public final long position() {
+		return position;
+	}
+
+	@Override
+	public final FileChannel position(final long newPosition) {
+		if (newPosition < 0) {
+			throw new IllegalArgumentException("Negative position: " + newPosition);
+		}
+		position = newPosition;
+		return this;
+	}
+
+	@Override
+	public final long size()
+					throws IOException {
+		if (!isOpen()) {
+			throw new ClosedChannelException();
+		}
+		return file.size();
+	}
+
+	@Override
+	public final FileChannel truncate(final long size)
+					throws IOException {
+		checkWrite();
+		file.truncate(size);
+		if (position > size) {
+			position = size;
+		}
+		return this;
+	}
+
+	@Override
+	public final void force(final boolean metaData)
+					throws IOException {
+		if (!isOpen()) {
+			throw new ClosedChannelException();
+		}
+	}
+
+	@Override
+	public final long transferTo(final long pos, final long count, final WritableByteChannel target)
+					throws IOException {
+		checkRead();
+		return file.transferTo(pos, count, target);
+	}
+
+	@Override
+	public final long transferFrom(final ReadableByteChannel src, final long pos, final long count)
+					throws IOException {
+		checkWrite();
+		return file.transferFrom(src, pos, count);
+	}
+
+	@Override
+	public final MappedByteBuffer map(final MapMode mode, final long pos, final long size)
+					throws IOException {
+		throw new IOException("Memory mapping is not supported by the in-memory file system");
+	}
+
+	@Override
+	public final FileLock lock(final long pos, final long size, final boolean shared)
+					throws IOException {
+		return tryLock(pos, size, shared);
+	}
+
+	@Override
+	public final FileLock tryLock(final long pos, final long size, final boolean shared)
+					throws IOException {
+		if (!isOpen()) {
+			throw new ClosedChannelException();
+		}
+		return new FileLock(this, pos, size, shared) {
+
+			private boolean valid = true;
+
+			@Override
+			public final boolean isValid() {
+				return valid && channel().isOpen();
+			}
+
+			@Override
+			public final void release() {
+				valid = false;
+			}
+		};
+	}
+
+	@Override
+	protected final void implCloseChannel() {
+	}
+}
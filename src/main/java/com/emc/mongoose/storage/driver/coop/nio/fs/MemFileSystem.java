@@ -0,0 +1,539 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.IOException;
+import java.nio.file.AccessMode;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileStoreAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+The file system keeping the directory tree and the files content in the memory, see {@link MemFileSystemProvider}.
+The directory entries are kept sorted by name, so the directory listing order is deterministic. The file content is
+stored off-heap, see {@link MemFile}. No links, no permissions, no file attributes besides the basic ones.
+*/
+public final class MemFileSystem
+				extends FileSystem {
+
+	public static final String SEPARATOR = "/";
+	public static final int BLOCK_SIZE = 1 << MemFile.MIN_CHUNK_SHIFT;
+
+	/**
+	 The directory node.
+	 */
+	static final class Dir {
+
+		final ConcurrentNavigableMap<String, Object> entries = new ConcurrentSkipListMap<>();
+		final long creationTime = System.currentTimeMillis();
+	}
+
+	private final MemFileSystemProvider provider;
+	private final String name;
+	private final Dir root = new Dir();
+	private final MemPath rootPath;
+	private final FileStore fileStore = new MemFileStore();
+	private volatile boolean open = true;
+
+	MemFileSystem(final MemFileSystemProvider provider, final String name) {
+		this.provider = provider;
+		this.name = name;
+		this.rootPath = new MemPath(this, true, new String[0]);
+	}
+
+	final String name() {
+		return name;
+	}
+
+	private void checkOpen() {
+		if (!open) {
+			throw new ClosedFileSystemException();
+		}
+	}
+
+	/**
+	 @return the file or the directory node, null if there's no such path
+	 */
+	final Object node(final MemPath path) {
+		checkOpen();
+		Object node = root;
+		for (final var name : path.toAbsolutePath().names()) {
+			if (!(node instanceof Dir)) {
+				return null;
+			}
+			node = ((Dir) node).entries.get(name);
+			if (node == null) {
+				return null;
+			}
+		}
+		return node;
+	}
+
+	final Object existingNode(final MemPath path)
+					throws NoSuchFileException {
+		final var node = node(path);
+		if (node == null) {
+			throw new NoSuchFileException(path.toString());
+		}
+		return node;
+	}
+
+	private Dir parentDir(final MemPath path)
+					throws IOException {
+		final var parentPath = path.toAbsolutePath().getParent();
+		if (parentPath == null) {
+			throw new FileAlreadyExistsException(path.toString()); // the root
+		}
+		final var parent = existingNode((MemPath) parentPath);
+		if (!(parent instanceof Dir)) {
+			throw new NotDirectoryException(parentPath.toString());
+		}
+		return (Dir) parent;
+	}
+
+	private static String fileName(final MemPath path) {
+		final var names = path.names();
+		return names[names.length - 1];
+	}
+
+	final MemFileChannel newFileChannel(final MemPath path, final Set<? extends OpenOption> openOpts)
+					throws IOException {
+		for (final var openOpt : openOpts) {
+			if (!(openOpt instanceof StandardOpenOption)) {
+				throw new UnsupportedOperationException("Unsupported open option: " + openOpt);
+			}
+		}
+		final boolean append = openOpts.contains(StandardOpenOption.APPEND);
+		final boolean write = append || openOpts.contains(StandardOpenOption.WRITE);
+		final boolean read = openOpts.contains(StandardOpenOption.READ) || !write;
+		var node = node(path);
+		if (openOpts.contains(StandardOpenOption.CREATE_NEW) && write) {
+			if (node != null) {
+				throw new FileAlreadyExistsException(path.toString());
+			}
+			node = create(path, true);
+		} else if (node == null) {
+			if (openOpts.contains(StandardOpenOption.CREATE) && write) {
+				node = create(path, false);
+			} else {
+				throw new NoSuchFileException(path.toString());
+			}
+		}
+		if (node instanceof Dir) {
+			throw new IOException("Is a directory: " + path);
+		}
+		final var file = (MemFile) node;
+		if (write && openOpts.contains(StandardOpenOption.TRUNCATE_EXISTING)) {
+			file.truncate(0);
+		}
+		return new MemFileChannel(file, read, write, append);
+	}
+
+	private Object create(final MemPath path, final boolean failIfExists)
+					throws IOException {
+		final var parent = parentDir(path);
+		final var file = new MemFile();
+		final var prevNode = parent.entries.putIfAbsent(fileName(path), file);
+		if (prevNode == null) {
+			return file;
+		} else if (failIfExists) {
+			throw new FileAlreadyExistsException(path.toString());
+		} else {
+			return prevNode;
+		}
+	}
+
+	final void createDirectory(final MemPath path)
+					throws IOException {
+		if (parentDir(path).entries.putIfAbsent(fileName(path), new Dir()) != null) {
+			throw new FileAlreadyExistsException(path.toString());
+		}
+	}
+
+	final void delete(final MemPath path)
+					throws IOException {
+		final var parent = parentDir(path);
+		final var name = fileName(path);
+		final var node = parent.entries.get(name);
+		if (node == null) {
+			throw new NoSuchFileException(path.toString());
+		}
+		if (node instanceof Dir && !((Dir) node).entries.isEmpty()) {
+			throw new DirectoryNotEmptyException(path.toString());
+		}
+		parent.entries.remove(name, node);
+	}
+
+	final void move(final MemPath srcPath, final MemPath dstPath, final boolean replace)
+					throws IOException {
+		final var srcParent = parentDir(srcPath);
+		final var srcName = fileName(srcPath);
+		final var node = srcParent.entries.get(srcName);
+		if (node == null) {
+			throw new NoSuchFileException(srcPath.toString());
+		}
+		final var dstParent = parentDir(dstPath);
+		final var dstName = fileName(dstPath);
+		if (srcParent == dstParent && srcName.equals(dstName)) {
+			return;
+		}
+		if (replace) {
+			final var prevNode = dstParent.entries.get(dstName);
+			if (prevNode instanceof Dir && !((Dir) prevNode).entries.isEmpty()) {
+				throw new DirectoryNotEmptyException(dstPath.toString());
+			}
+			dstParent.entries.put(dstName, node);
+		} else if (dstParent.entries.putIfAbsent(dstName, node) != null) {
+			throw new FileAlreadyExistsException(dstPath.toString());
+		}
+		srcParent.entries.remove(srcName, node);
+	}
+
+	final DirectoryStream<Path> newDirectoryStream(
+					final MemPath dirPath, final DirectoryStream.Filter<? super Path> filter) throws IOException {
+		final var node = existingNode(dirPath);
+		if (!(node instanceof Dir)) {
+			throw new NotDirectoryException(dirPath.toString());
+		}
+		final var entryNames = ((Dir) node).entries.keySet().iterator();
+		return new DirectoryStream<>() {
+
+			private boolean iteratorTaken = false;
+
+			@Override
+			public final Iterator<Path> iterator() {
+				if (iteratorTaken) {
+					throw new IllegalStateException("The iterator is already taken");
+				}
+				iteratorTaken = true;
+				return new Iterator<>() {
+
+					private Path nextEntryPath = null;
+
+					@Override
+					public final boolean hasNext() {
+						while (nextEntryPath == null && entryNames.hasNext()) {
+							final var entryPath = dirPath.resolve(entryNames.next());
+							try {
+								if (filter.accept(entryPath)) {
+									nextEntryPath = entryPath;
+								}
+							} catch (final IOException e) {
+								throw new DirectoryIteratorException(e);
+							}
+						}
+						return nextEntryPath != null;
+					}
+
+					@Override
+					public final Path next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						final var entryPath = nextEntryPath;
+						nextEntryPath = null;
+						return entryPath;
+					}
+				};
+			}
+
+			@Override
+			public final void close() {
+			}
+		};
+	}
+
+	final void checkAccess(final MemPath path, final AccessMode... modes)
+					throws IOException {
+		existingNode(path);
+	}
+
+	final BasicFileAttributes readAttributes(final MemPath path)
+					throws IOException {
+		final var node = existingNode(path);
+		return new MemFileAttributes(node);
+	}
+
+	/**
+	 The basic attributes snapshot of the file or the directory.
+	 */
+	static final class MemFileAttributes
+					implements BasicFileAttributes {
+
+		private final Object node;
+		private final long size;
+		private final long lastModifiedTime;
+		private final long creationTime;
+
+		MemFileAttributes(final Object node) {
+			this.node = node;
+			if (node instanceof MemFile) {
+				final var file = (MemFile) node;
+				size = file.size();
+				lastModifiedTime = file.lastModifiedTime();
+				creationTime = file.creationTime();
+			} else {
+				size = 0;
+				lastModifiedTime = creationTime = ((Dir) node).creationTime;
+			}
+		}
+
+		@Override
+		public final FileTime lastModifiedTime() {
+			return FileTime.fromMillis(lastModifiedTime);
+		}
+
+		@Override
+		public final FileTime lastAccessTime() {
+			return FileTime.fromMillis(lastModifiedTime);
+		}
+
+		@Override
+		public final FileTime creationTime() {
+			return FileTime.fromMillis(creationTime);
+		}
+
+		@Override
+		public final boolean isRegularFile() {
+			return node instanceof MemFile;
+		}
+
+		@Override
+		public final boolean isDirectory() {
+			return node instanceof Dir;
+		}
+
+		@Override
+		public final boolean isSymbolicLink() {
+			return false;
+		}
+
+		@Override
+		public final boolean isOther() {
+			return false;
+		}
+
+		@Override
+		public final long size() {
+			return size;
+		}
+
+		@Override
+		public final Object fileKey() {
+			return node;
+		}
+	}
+
+	/**
+	 The single file store of the in-memory file system, the space is limited by the direct memory limit only.
+	 */
+	final class MemFileStore
+					extends FileStore {
+
+		@Override
+		public final String name() {
+			return name;
+		}
+
+		@Override
+		public final String type() {
+			return MemFileSystemProvider.SCHEME;
+		}
+
+		@Override
+		public final boolean isReadOnly() {
+			return false;
+		}
+
+		@Override
+		public final long getTotalSpace() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public final long getUsableSpace() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public final long getUnallocatedSpace() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public final long getBlockSize() {
+			return BLOCK_SIZE;
+		}
+
+		@Override
+		public final boolean supportsFileAttributeView(final Class<? extends FileAttributeView> type) {
+			return type == BasicFileAttributeView.class;
+		}
+
+		@Override
+		public final boolean supportsFileAttributeView(final String name) {
+			return "basic".equals(name);
+		}
+
+		@Override
+		public final <V extends FileStoreAttributeView> V getFileStoreAttributeView(final Class<V> type) {
+			return null;
+		}
+
+		@Override
+		public final Object getAttribute(final String attribute) {
+			throw new UnsupportedOperationException("No file store attributes: " + attribute);
+		}
+	}
+
+	final FileStore fileStore() {
+		return fileStore;
+	}
+
+	@Override
+	public final MemFileSystemProvider provider() {
+		return provider;
+	}
+
+	/**
+	 Drops all the files, the file system is removed from the provider.
+	 */
+	@Override
+	public final void close() {
+		if (open) {
+			open = false;
+			root.entries.clear();
+			provider.remove(this);
+		}
+	}
+
+	@Override
+	public final boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public final boolean isReadOnly() {
+		return false;
+	}
+
+	@Override
+	public final String getSeparator() {
+		return SEPARATOR;
+	}
+
+	@Override
+	public final Iterable<Path> getRootDirectories() {
+		return List.of(rootPath);
+	}
+
+	@Override
+	public final Iterable<FileStore> getFileStores() {
+		return List.of(fileStore);
+	}
+
+	@Override
+	public final Set<String> supportedFileAttributeViews() {
+		return Set.of("basic");
+	}
+
+	@Override
+	public final MemPath getPath(final String first, final String... more) {
+		if (more.length == 0) {
+			return MemPath.parse(this, first);
+		}
+		final var joined = new StringBuilder(first);
+		for (final var next : more) {
+			if (!next.isEmpty()) {
+				if (joined.length() > 0) {
+					joined.append(SEPARATOR);
+				}
+				joined.append(next);
+			}
+		}
+		return MemPath.parse(this, joined.toString());
+	}
+
+	/**
+	 Supports the "glob" (the "*", "?" and "**" wildcards only) and the "regex" syntaxes, matches the whole path string.
+	 */
+	@Override
+	public final PathMatcher getPathMatcher(final String syntaxAndPattern) {
+		final int colonPos = syntaxAndPattern.indexOf(':');
+		if (colonPos <= 0) {
+			throw new IllegalArgumentException("Invalid path matcher: \"" + syntaxAndPattern + "\"");
+		}
+		final var syntax = syntaxAndPattern.substring(0, colonPos);
+		final var pattern = syntaxAndPattern.substring(colonPos + 1);
+		final Pattern regex;
+		if ("glob".equalsIgnoreCase(syntax)) {
+			regex = Pattern.compile(globToRegex(pattern));
+		} else if ("regex".equalsIgnoreCase(syntax)) {
+			regex = Pattern.compile(pattern);
+		} else {
+			throw new UnsupportedOperationException("Unsupported path matcher syntax: \"" + syntax + "\"");
+		}
+		return path -> regex.matcher(path.toString()).matches();
+	}
+
+	static String globToRegex(final String glob) {
+		final var regex = new StringBuilder();
+		final var literal = new StringBuilder();
+		char c;
+		for (var i = 0; i < glob.length(); i++) {
+			c = glob.charAt(i);
+			if (c == '*' || c == '?') {
+				if (literal.length() > 0) {
+					regex.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				if (c == '?') {
+					regex.append("[^/]");
+				} else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+					regex.append(".*");
+					i++;
+				} else {
+					regex.append("[^/]*");
+				}
+			} else {
+				literal.append(c);
+			}
+		}
+		if (literal.length() > 0) {
+			regex.append(Pattern.quote(literal.toString()));
+		}
+		return regex.toString();
+	}
+
+	@Override
+	public final UserPrincipalLookupService getUserPrincipalLookupService() {
+		throw new UnsupportedOperationException("The in-memory file system doesn't support the user principals");
+	}
+
+	@Override
+	public final WatchService newWatchService() {
+		throw new UnsupportedOperationException("The in-memory file system doesn't support the watch service");
+	}
+}
@@ -0,0 +1,273 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+The provider of the in-memory file systems, the "mem" URI scheme. The file system is identified by the URI authority,
+e.g. "mem://test/", "mem:///" means the file system with the empty name. The file system lives until it's closed, so
+the files written by a load step may be read by the next one in the same process. Useful to measure the load engine and
+the driver overhead w/o the storage and to get the same results on any machine.
+*/
+public final class MemFileSystemProvider
+				extends FileSystemProvider {
+
+	public static final String SCHEME = "mem";
+
+	private final Map<String, MemFileSystem> fileSystems = new ConcurrentHashMap<>();
+
+	private static String fsName(final URI uri) {
+		if (!SCHEME.equalsIgnoreCase(uri.getScheme())) {
+			throw new IllegalArgumentException("URI scheme should be \"" + SCHEME + "\": " + uri);
+		}
+		final var authority = uri.getAuthority();
+		return authority == null ? "" : authority;
+	}
+
+	private static MemPath memPath(final Path path) {
+		if (path instanceof MemPath) {
+			return (MemPath) path;
+		}
+		throw new ProviderMismatchException();
+	}
+
+	final void remove(final MemFileSystem fs) {
+		fileSystems.remove(fs.name(), fs);
+	}
+
+	@Override
+	public final String getScheme() {
+		return SCHEME;
+	}
+
+	@Override
+	public final FileSystem newFileSystem(final URI uri, final Map<String, ?> env) {
+		final var name = fsName(uri);
+		final var fs = new MemFileSystem(this, name);
+		if (fileSystems.putIfAbsent(name, fs) != null) {
+			throw new FileSystemAlreadyExistsException(uri.toString());
+		}
+		return fs;
+	}
+
+	@Override
+	public final FileSystem getFileSystem(final URI uri) {
+		final var fs = fileSystems.get(fsName(uri));
+		if (fs == null) {
+			throw new FileSystemNotFoundException(uri.toString());
+		}
+		return fs;
+	}
+
+	@Override
+	public final Path getPath(final URI uri) {
+		final var fs = (MemFileSystem) getFileSystem(uri);
+		return fs.getPath(uri.getPath() == null || uri.getPath().isEmpty() ? MemFileSystem.SEPARATOR : uri.getPath());
+	}
+
+	@Override
+	public final SeekableByteChannel newByteChannel(
+					final Path path, final Set<? extends OpenOption> options, final FileAttribute<?>... attrs)
+					throws IOException {
+		return newFileChannel(path, options, attrs);
+	}
+
+	@Override
+	public final FileChannel newFileChannel(
+					final Path path, final Set<? extends OpenOption> options, final FileAttribute<?>... attrs)
+					throws IOException {
+		final var memPath = memPath(path);
+		return memPath.getFileSystem().newFileChannel(memPath, options);
+	}
+
+	@Override
+	public final DirectoryStream<Path> newDirectoryStream(
+					final Path dir, final DirectoryStream.Filter<? super Path> filter) throws IOException {
+		final var memPath = memPath(dir);
+		return memPath.getFileSystem().newDirectoryStream(memPath, filter);
+	}
+
+	@Override
+	public final void createDirectory(final Path dir, final FileAttribute<?>... attrs)
+					throws IOException {
+		final var memPath = memPath(dir);
+		memPath.getFileSystem().createDirectory(memPath);
+	}
+
+	@Override
+	public final void delete(final Path path)
+					throws IOException {
+		final var memPath = memPath(path);
+		memPath.getFileSystem().delete(memPath);
+	}
+
+	/**
+	 Copies the file content, the directory is copied w/o its entries.
+	 */
+	@Override
+	public final void copy(final Path source, final Path target, final CopyOption... options)
+					throws IOException {
+		final var srcPath = memPath(source);
+		final var dstPath = memPath(target);
+		final var attrs = srcPath.getFileSystem().readAttributes(srcPath);
+		var replace = false;
+		for (final var option : options) {
+			if (StandardCopyOption.REPLACE_EXISTING.equals(option)) {
+				replace = true;
+			}
+		}
+		if (replace) {
+			try {
+				delete(dstPath);
+			} catch (final NoSuchFileException ignored) {
+			}
+		}
+		if (attrs.isDirectory()) {
+			createDirectory(dstPath);
+		} else {
+			try (
+							final var srcChannel = newFileChannel(srcPath, Set.of(StandardOpenOption.READ));
+							final var dstChannel = newFileChannel(
+											dstPath, Set.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+			) {
+				long pos = 0;
+				final long size = srcChannel.size();
+				while (pos < size) {
+					pos += srcChannel.transferTo(pos, size - pos, dstChannel);
+				}
+			}
+		}
+	}
+
+	@Override
+	public final void move(final Path source, final Path target, final CopyOption... options)
+					throws IOException {
+		final var srcPath = memPath(source);
+		final var dstPath = memPath(target);
+		var replace = false;
+		for (final var option : options) {
+			if (StandardCopyOption.REPLACE_EXISTING.equals(option)) {
+				replace = true;
+			}
+		}
+		srcPath.getFileSystem().move(srcPath, dstPath, replace);
+	}
+
+	@Override
+	public final boolean isSameFile(final Path path, final Path path2)
+					throws IOException {
+		if (path.equals(path2)) {
+			return true;
+		}
+		final var memPath = memPath(path);
+		final var memPath2 = memPath(path2);
+		return memPath.getFileSystem() == memPath2.getFileSystem()
+						&& memPath.getFileSystem().existingNode(memPath) == memPath2.getFileSystem().existingNode(memPath2);
+	}
+
+	@Override
+	public final boolean isHidden(final Path path) {
+		final var fileName = path.getFileName();
+		return fileName != null && fileName.toString().startsWith(".");
+	}
+
+	@Override
+	public final FileStore getFileStore(final Path path) {
+		return memPath(path).getFileSystem().fileStore();
+	}
+
+	@Override
+	public final void checkAccess(final Path path, final AccessMode... modes)
+					throws IOException {
+		final var memPath = memPath(path);
+		memPath.getFileSystem().checkAccess(memPath, modes);
+	}
+
+	@Override
+	public final <V extends FileAttributeView> V getFileAttributeView(
+					final Path path, final Class<V> type, final LinkOption... options) {
+		if (type != BasicFileAttributeView.class) {
+			return null;
+		}
+		final var memPath = memPath(path);
+		return type.cast(
+						new BasicFileAttributeView() {
+
+							@Override
+							public final String name() {
+								return "basic";
+							}
+
+							@Override
+							public final BasicFileAttributes readAttributes()
+											throws IOException {
+								return memPath.getFileSystem().readAttributes(memPath);
+							}
+
+							@Override
+							public final void setTimes(
+											final FileTime lastModifiedTime, final FileTime lastAccessTime, final FileTime createTime) {
+								// not supported, ignored
+							}
+						});
+	}
+
+	@Override
+	public final <A extends BasicFileAttributes> A readAttributes(
+					final Path path, final Class<A> type, final LinkOption... options) throws IOException {
+		if (!type.isAssignableFrom(BasicFileAttributes.class)) {
+			throw new UnsupportedOperationException("Unsupported file attributes type: " + type);
+		}
+		final var memPath = memPath(path);
+		return type.cast(memPath.getFileSystem().readAttributes(memPath));
+	}
+
+	@Override
+	public final Map<String, Object> readAttributes(final Path path, final String attributes, final LinkOption... options)
+					throws IOException {
+		final var attrs = readAttributes(path, BasicFileAttributes.class, options);
+		final Map<String, Object> attrMap = new HashMap<>();
+		attrMap.put("size", attrs.size());
+		attrMap.put("lastModifiedTime", attrs.lastModifiedTime());
+		attrMap.put("lastAccessTime", attrs.lastAccessTime());
+		attrMap.put("creationTime", attrs.creationTime());
+		attrMap.put("isRegularFile", attrs.isRegularFile());
+		attrMap.put("isDirectory", attrs.isDirectory());
+		attrMap.put("isSymbolicLink", attrs.isSymbolicLink());
+		attrMap.put("isOther", attrs.isOther());
+		attrMap.put("fileKey", attrs.fileKey());
+		return attrMap;
+	}
+
+	@Override
+	public final void setAttribute(
+					final Path path, final String attribute, final Object value, final LinkOption... options) {
+		throw new UnsupportedOperationException("The in-memory file system doesn't support setting the attributes");
+	}
+}
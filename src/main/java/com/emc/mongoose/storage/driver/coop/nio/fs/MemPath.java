@@ -0,0 +1,247 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+The path of the {@link MemFileSystem}: the optional root ("/") followed by the names separated by "/". The relative
+path is resolved against the root.
+*/
+public final class MemPath
+				implements Path {
+
+	private static final String[] NO_NAMES = new String[0];
+
+	private final MemFileSystem fs;
+	private final boolean absolute;
+	private final String[] names;
+	private String str = null;
+
+	MemPath(final MemFileSystem fs, final boolean absolute, final String[] names) {
+		this.fs = fs;
+		this.absolute = absolute;
+		this.names = names;
+	}
+
+	static MemPath parse(final MemFileSystem fs, final String path) {
+		final boolean absolute = path.startsWith(MemFileSystem.SEPARATOR);
+		final var names = new ArrayList<String>();
+		int start = 0;
+		int end;
+		while (start < path.length()) {
+			end = path.indexOf('/', start);
+			if (end < 0) {
+				end = path.length();
+			}
+			if (end > start) {
+				names.add(path.substring(start, end));
+			}
+			start = end + 1;
+		}
+		return new MemPath(fs, absolute, names.toArray(NO_NAMES));
+	}
+
+	final String[] names() {
+		return names;
+	}
+
+	private MemPath check(final Path other) {
+		if (other instanceof MemPath) {
+			return (MemPath) other;
+		}
+		throw new ProviderMismatchException();
+	}
+
+	@Override
+	public final MemFileSystem getFileSystem() {
+		return fs;
+	}
+
+	@Override
+	public final boolean isAbsolute() {
+		return absolute;
+	}
+
+	@Override
+	public final Path getRoot() {
+		return absolute ? new MemPath(fs, true, NO_NAMES) : null;
+	}
+
+	@Override
+	public final Path getFileName() {
+		return names.length == 0 ? null : new MemPath(fs, false, new String[] { names[names.length - 1] });
+	}
+
+	@Override
+	public final Path getParent() {
+		if (names.length == 0 || (names.length == 1 && !absolute)) {
+			return null;
+		}
+		return new MemPath(fs, absolute, Arrays.copyOf(names, names.length - 1));
+	}
+
+	@Override
+	public final int getNameCount() {
+		return names.length;
+	}
+
+	@Override
+	public final Path getName(final int index) {
+		return new MemPath(fs, false, new String[] { names[index] });
+	}
+
+	@Override
+	public final Path subpath(final int beginIndex, final int endIndex) {
+		if (beginIndex < 0 || beginIndex >= endIndex || endIndex > names.length) {
+			throw new IllegalArgumentException("Invalid subpath range: [" + beginIndex + ", " + endIndex + ")");
+		}
+		return new MemPath(fs, false, Arrays.copyOfRange(names, beginIndex, endIndex));
+	}
+
+	@Override
+	public final boolean startsWith(final Path other) {
+		final var otherPath = check(other);
+		if (otherPath.absolute != absolute || otherPath.names.length > names.length) {
+			return false;
+		}
+		for (var i = 0; i < otherPath.names.length; i++) {
+			if (!names[i].equals(otherPath.names[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public final boolean endsWith(final Path other) {
+		final var otherPath = check(other);
+		final int offset = names.length - otherPath.names.length;
+		if (offset < 0 || (otherPath.absolute && (!absolute || offset > 0))) {
+			return false;
+		}
+		for (var i = 0; i < otherPath.names.length; i++) {
+			if (!names[offset + i].equals(otherPath.names[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public final Path normalize() {
+		final var normalNames = new ArrayList<String>(names.length);
+		for (final var name : names) {
+			if (".".equals(name)) {
+				continue;
+			}
+			if ("..".equals(name) && !normalNames.isEmpty() && !"..".equals(normalNames.get(normalNames.size() - 1))) {
+				normalNames.remove(normalNames.size() - 1);
+			} else if (!("..".equals(name) && absolute)) {
+				normalNames.add(name);
+			}
+		}
+		return new MemPath(fs, absolute, normalNames.toArray(NO_NAMES));
+	}
+
+	@Override
+	public final Path resolve(final Path other) {
+		final var otherPath = check(other);
+		if (otherPath.absolute) {
+			return otherPath;
+		}
+		if (otherPath.names.length == 0) {
+			return this;
+		}
+		final var resolvedNames = Arrays.copyOf(names, names.length + otherPath.names.length);
+		System.arraycopy(otherPath.names, 0, resolvedNames, names.length, otherPath.names.length);
+		return new MemPath(fs, absolute, resolvedNames);
+	}
+
+	@Override
+	public final Path resolve(final String other) {
+		return resolve(parse(fs, other));
+	}
+
+	@Override
+	public final Path relativize(final Path other) {
+		final var otherPath = check(other);
+		if (otherPath.absolute != absolute) {
+			throw new IllegalArgumentException("Both paths should be absolute or relative");
+		}
+		var common = 0;
+		while (common < names.length && common < otherPath.names.length
+						&& names[common].equals(otherPath.names[common])) {
+			common++;
+		}
+		final var relNames = new ArrayList<String>();
+		for (var i = common; i < names.length; i++) {
+			relNames.add("..");
+		}
+		relNames.addAll(Arrays.asList(otherPath.names).subList(common, otherPath.names.length));
+		return new MemPath(fs, false, relNames.toArray(NO_NAMES));
+	}
+
+	@Override
+	public final URI toUri() {
+		try {
+			return new URI(MemFileSystemProvider.SCHEME, fs.name(), toAbsolutePath().toString(), null);
+		} catch (final URISyntaxException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Override
+	public final MemPath toAbsolutePath() {
+		return absolute ? this : new MemPath(fs, true, names);
+	}
+
+	@Override
+	public final Path toRealPath(final LinkOption... options) {
+		return toAbsolutePath().normalize();
+	}
+
+	@Override
+	public final WatchKey register(
+					final WatchService watcher, final WatchEvent.Kind<?>[] events, final WatchEvent.Modifier... modifiers) {
+		throw new UnsupportedOperationException("The in-memory file system doesn't support the watch service");
+	}
+
+	@Override
+	public final int compareTo(final Path other) {
+		return toString().compareTo(check(other).toString());
+	}
+
+	@Override
+	public final boolean equals(final Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof MemPath)) {
+			return false;
+		}
+		final var otherPath = (MemPath) other;
+		return fs == otherPath.fs && absolute == otherPath.absolute && Arrays.equals(names, otherPath.names);
+	}
+
+	@Override
+	public final int hashCode() {
+		return 31 * Arrays.hashCode(names) + (absolute ? 1 : 0);
+	}
+
+	@Override
+	public final String toString() {
+		if (str == null) {
+			final var joined = String.join(MemFileSystem.SEPARATOR, names);
+			str = absolute ? MemFileSystem.SEPARATOR + joined : joined;
+		}
+		return str;
+	}
+}
@@ -0,0 +1,289 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataCorruptionException;
+import com.emc.mongoose.base.data.DataSizeException;
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.op.data.DataOperation;
+import com.emc.mongoose.base.logging.LogUtil;
+
+import org.apache.logging.log4j.Level;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+import static com.emc.mongoose.base.item.DataItem.rangeCount;
+import static com.emc.mongoose.base.item.DataItem.rangeOffset;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.advanceFixedRanges;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.advanceMarkedRanges;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.markedRangesRunEnd;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.rangesSize;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.seekMarkedRange;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.slice;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.verifyCells;
+
+/**
+The read methods mapping the file content into the memory instead of copying it into the buffer. The mapped window
+size is limited and each invocation processes the whole mapped window and unmaps it, so at most one mapping per I/O
+worker thread exists at any moment.
+*/
+public interface MmapIoHelper {
+
+	MethodHandle UNMAP_FUNC = unmapFunc();
+
+	private static MethodHandle unmapFunc() {
+		try {
+			final var unsafeClass = Class.forName("sun.misc.Unsafe");
+			final var theUnsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafeField.setAccessible(true);
+			final var theUnsafe = theUnsafeField.get(null);
+			return MethodHandles
+							.lookup()
+							.findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+							.bindTo(theUnsafe);
+		} catch (final Exception e) {
+			LogUtil.exception(Level.WARN, e, "Unable to unmap the memory explicitly, will rely on GC");
+			return null;
+		}
+	}
+
+	static void unmap(final MappedByteBuffer mappedBuff) {
+		if (UNMAP_FUNC != null) {
+			try {
+				UNMAP_FUNC.invokeExact((ByteBuffer) mappedBuff);
+			} catch (final Throwable cause) {
+				throw new AssertionError(cause);
+			}
+		}
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeRead(
+					final I fileItem, final O op, final FileChannel srcChannel, final long windowSize) throws IOException {
+		long countBytesDone = op.countBytesDone();
+		final long contentSize = fileItem.size();
+		if (countBytesDone < contentSize) {
+			final long fileSize = srcChannel.size();
+			if (countBytesDone >= fileSize) {
+				// the same behavior as for the EOF in FileIoHelper.invokeRead
+				fileItem.size(countBytesDone);
+				return true;
+			}
+			final long n = Math.min(windowSize, Math.min(contentSize, fileSize) - countBytesDone);
+			final var mappedBuff = srcChannel.map(FileChannel.MapMode.READ_ONLY, countBytesDone, n);
+			try {
+				mappedBuff.load();
+			} finally {
+				unmap(mappedBuff);
+			}
+			countBytesDone += n;
+			op.countBytesDone(countBytesDone);
+		}
+		return countBytesDone == contentSize;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadRandomRanges(
+					final I fileItem, final O op, final FileChannel srcChannel, final BitSet maskRangesPair[],
+					final long windowSize) throws IOException {
+		final long countBytesDone = op.countBytesDone();
+		final long rangesSizeSum = op.markedRangesSize();
+		if (rangesSizeSum > 0 && rangesSizeSum > countBytesDone) {
+			final long itemSize = fileItem.size();
+			final int rangeCount = rangeCount(itemSize);
+			final int currRangeIdx = seekMarkedRange(op, maskRangesPair, rangeCount);
+			if (currRangeIdx < 0) {
+				op.countBytesDone(rangesSizeSum);
+				return true;
+			}
+			// map the adjacent marked ranges at once
+			final int runEndIdx = markedRangesRunEnd(maskRangesPair, currRangeIdx, rangeCount);
+			final long runEnd = Math.min(itemSize, rangeOffset(runEndIdx));
+			final long currPos = rangeOffset(currRangeIdx) + countBytesDone;
+			final long fileSize = srcChannel.size();
+			if (currPos >= fileSize) {
+				// the same behavior as for the EOF in FileIoHelper.invokeReadRandomRanges
+				return true;
+			}
+			final long n = Math.min(windowSize, Math.min(runEnd, fileSize) - currPos);
+			final var mappedBuff = srcChannel.map(FileChannel.MapMode.READ_ONLY, currPos, n);
+			try {
+				mappedBuff.load();
+			} finally {
+				unmap(mappedBuff);
+			}
+			return advanceMarkedRanges(
+							op, maskRangesPair, currRangeIdx, runEndIdx, runEnd, currPos + n, rangeCount, rangesSizeSum);
+		}
+		return true;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadFixedRanges(
+					final I fileItem, final O op, final FileChannel srcChannel, final long[] ranges,
+					final long windowSize) throws IOException {
+		final long countBytesDone = op.countBytesDone();
+		final long rangesSizeSum = rangesSize(ranges);
+		if (rangesSizeSum > 0 && rangesSizeSum > countBytesDone) {
+			final int currRangeIdx = op.currRangeIdx();
+			if (2 * currRangeIdx < ranges.length) {
+				final long rangeBeg = ranges[2 * currRangeIdx];
+				final long rangeSize = ranges[2 * currRangeIdx + 1] - rangeBeg;
+				final long windowOffset = rangeBeg + countBytesDone;
+				final long fileSize = srcChannel.size();
+				if (windowOffset >= fileSize) {
+					// the same behavior as for the EOF in FileIoHelper.invokeReadFixedRanges
+					return true;
+				}
+				final long n = Math.min(windowSize, Math.min(rangeSize - countBytesDone, fileSize - windowOffset));
+				final var mappedBuff = srcChannel.map(FileChannel.MapMode.READ_ONLY, windowOffset, n);
+				try {
+					mappedBuff.load();
+				} finally {
+					unmap(mappedBuff);
+				}
+				return advanceFixedRanges(op, ranges, currRangeIdx, countBytesDone + n, rangeSize, rangesSizeSum);
+			} else {
+				op.countBytesDone(rangesSizeSum);
+			}
+		}
+		return true;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadAndVerify(
+					final I fileItem, final O op, final FileChannel srcChannel, final long windowSize) throws DataSizeException, DataCorruptionException, IOException {
+		long countBytesDone = op.countBytesDone();
+		final long contentSize = fileItem.size();
+		if (countBytesDone < contentSize) {
+			final long fileSize = srcChannel.size();
+			if (countBytesDone >= fileSize) {
+				throw new DataSizeException(contentSize, countBytesDone);
+			}
+			final long windowOffset = countBytesDone;
+			final long windowEnd = windowOffset + Math.min(windowSize, Math.min(contentSize, fileSize) - windowOffset);
+			final var mappedBuff = srcChannel.map(FileChannel.MapMode.READ_ONLY, windowOffset, windowEnd - windowOffset);
+			try {
+				if (fileItem.isUpdated()) {
+					while (countBytesDone < windowEnd) {
+						final DataItem currRange = op.currRange();
+						if (currRange == null) {
+							throw new AssertionError("Null data range");
+						}
+						final int nextRangeIdx = op.currRangeIdx() + 1;
+						final long nextRangeOffset = rangeOffset(nextRangeIdx);
+						final int n = (int) (Math.min(windowEnd, nextRangeOffset) - countBytesDone);
+						currRange.verify(slice(mappedBuff, countBytesDone - windowOffset, n));
+						currRange.position(currRange.position() + n);
+						countBytesDone += n;
+						op.countBytesDone(countBytesDone);
+						if (countBytesDone == nextRangeOffset) {
+							op.currRangeIdx(nextRangeIdx);
+						}
+					}
+				} else {
+					fileItem.verify(mappedBuff);
+					fileItem.position(fileItem.position() + windowEnd - windowOffset);
+					countBytesDone = windowEnd;
+					op.countBytesDone(countBytesDone);
+				}
+			} finally {
+				unmap(mappedBuff);
+			}
+		}
+		return countBytesDone >= contentSize;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadAndVerifyRandomRanges(
+					final I fileItem, final O op, final FileChannel srcChannel, final BitSet maskRangesPair[],
+					final long windowSize) throws DataSizeException, DataCorruptionException, IOException {
+		long countBytesDone = op.countBytesDone();
+		final long rangesSizeSum = op.markedRangesSize();
+		if (rangesSizeSum > 0 && rangesSizeSum > countBytesDone) {
+			DataItem range2read;
+			int currRangeIdx;
+			while (true) {
+				currRangeIdx = op.currRangeIdx();
+				if (currRangeIdx < rangeCount(fileItem.size())) {
+					if (maskRangesPair[0].get(currRangeIdx) || maskRangesPair[1].get(currRangeIdx)) {
+						range2read = op.currRange();
+						break;
+					} else {
+						op.currRangeIdx(++currRangeIdx);
+					}
+				} else {
+					op.countBytesDone(rangesSizeSum);
+					return true;
+				}
+			}
+			final long currRangeSize = range2read.size();
+			final long currPos = rangeOffset(currRangeIdx) + countBytesDone;
+			final long fileSize = srcChannel.size();
+			if (currPos >= fileSize) {
+				throw new DataSizeException(rangesSizeSum, countBytesDone);
+			}
+			final long n = Math.min(windowSize, Math.min(currRangeSize - countBytesDone, fileSize - currPos));
+			final var mappedBuff = srcChannel.map(FileChannel.MapMode.READ_ONLY, currPos, n);
+			try {
+				range2read.verify(mappedBuff);
+				range2read.position(range2read.position() + n);
+				countBytesDone += n;
+			} catch (final DataCorruptionException e) {
+				throw new DataCorruptionException(currPos + e.getOffset() - countBytesDone, e.expected, e.actual);
+			} finally {
+				unmap(mappedBuff);
+			}
+			if (countBytesDone == currRangeSize && countBytesDone < rangesSizeSum) {
+				op.currRangeIdx(currRangeIdx + 1);
+				op.countBytesDone(0);
+			} else {
+				op.countBytesDone(countBytesDone);
+			}
+		}
+		return rangesSizeSum <= 0 || rangesSizeSum <= countBytesDone;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadAndVerifyFixedRanges(
+					final I fileItem, final O op, final FileChannel srcChannel, final long[] ranges,
+					final long windowSize) throws DataSizeException, DataCorruptionException, IOException {
+		final long fixedRangesSizeSum = rangesSize(ranges);
+		// "countBytesDone" is the current (coalesced) range done bytes counter here
+		final long rangeBytesDone = op.countBytesDone();
+		if (fixedRangesSizeSum > 0 && fixedRangesSizeSum > rangeBytesDone) {
+			final int currRangeIdx = op.currRangeIdx();
+			if (2 * currRangeIdx < ranges.length) {
+				final long rangeBeg = ranges[2 * currRangeIdx];
+				final long rangeSize = ranges[2 * currRangeIdx + 1] - rangeBeg;
+				final long windowOffset = rangeBeg + rangeBytesDone;
+				final long fileSize = srcChannel.size();
+				if (windowOffset >= fileSize) {
+					throw new DataSizeException(fixedRangesSizeSum, rangeBytesDone);
+				}
+				final long n = Math.min(windowSize, Math.min(rangeSize - rangeBytesDone, fileSize - windowOffset));
+				final var mappedBuff = srcChannel.map(FileChannel.MapMode.READ_ONLY, windowOffset, n);
+				try {
+					verifyCells(fileItem, mappedBuff, windowOffset, rangeBytesDone);
+				} finally {
+					unmap(mappedBuff);
+				}
+				if (rangeBytesDone + n == rangeSize) {
+					// current byte range verification is finished
+					if (2 * (currRangeIdx + 1) == ranges.length) {
+						// current byte range was last
+						op.countBytesDone(fixedRangesSizeSum);
+						return true;
+					} else {
+						op.currRangeIdx(currRangeIdx + 1);
+						op.countBytesDone(0);
+					}
+				} else {
+					op.countBytesDone(rangeBytesDone + n);
+				}
+			} else {
+				op.countBytesDone(fixedRangesSizeSum);
+			}
+		}
+		return fixedRangesSizeSum <= 0 || fixedRangesSizeSum <= op.countBytesDone();
+	}
+}
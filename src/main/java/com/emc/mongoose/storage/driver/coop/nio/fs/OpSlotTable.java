@@ -0,0 +1,296 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+The per-operation state table replacing the maps keyed by the operation. Each operation in flight takes the int slot
+index, the state values are stored in the preallocated columns at this index. The operation is mapped to its slot by
+the open addressing table of the operation identities, so neither the lookup nor the slot acquire/release allocates
+(unless the table grows).
+The lookup is lock free, the slot acquire and release are synchronized. The keys and the column values are published
+by the release writes and read by the acquire reads, so the lookup sees the slot and its values set by the other
+threads. The released keys are marked as removed instead of being moved, and the table is replaced (not changed in
+place) when it is rebuilt. The columns are allocated in chunks which are never moved, so the slot's values are not lost
+when the table grows.
+The operation may be released and its slot freed and reused by another thread (e.g. finishing the operation in the
+background) concurrently with the lookup, so the slot found may belong to another operation when its value is read.
+{@link #get(Object, int)} validates the value read against such a release.
+*/
+public final class OpSlotTable {
+
+	public static final int NO_SLOT = -1;
+
+	private static final int CHUNK_BITS = 8;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final Object REMOVED = new Object();
+	private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	/**
+	 The open addressing table of the operations and their slot indices, the keys length is the power of 2.
+	 */
+	private static final class Index {
+
+		private final Object[] keys;
+		private final int[] slots;
+		private final int mask;
+		private int used = 0; // the count of the keys including the removed ones
+
+		private Index(final int capacity) {
+			keys = new Object[capacity];
+			slots = new int[capacity];
+			mask = capacity - 1;
+		}
+	}
+
+	private final int columnCount;
+	private volatile Index index;
+	private volatile Object[][] chunks;
+	private int[] freeSlots;
+	private int freeCount = 0;
+	private int size = 0;
+
+	/**
+	 @param capacity the expected max count of the operations in flight, the table grows if exceeded
+	 @param columnCount the count of the state values per operation
+	 */
+	public OpSlotTable(final int capacity, final int columnCount) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity should be > 0: " + capacity);
+		}
+		if (columnCount < 1) {
+			throw new IllegalArgumentException("Column count should be > 0: " + columnCount);
+		}
+		this.columnCount = columnCount;
+		final int chunkCount = (capacity + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+		final var chunks = new Object[chunkCount][];
+		for (var i = 0; i < chunkCount; i++) {
+			chunks[i] = new Object[CHUNK_SIZE * columnCount];
+		}
+		this.chunks = chunks;
+		final int slotCount = chunkCount << CHUNK_BITS;
+		freeSlots = new int[slotCount];
+		// take the lower slots first
+		for (var i = 0; i < slotCount; i++) {
+			freeSlots[i] = slotCount - 1 - i;
+		}
+		freeCount = slotCount;
+		index = new Index(indexCapacity(slotCount));
+	}
+
+	private static int indexCapacity(final int slotCount) {
+		// keep the load factor <= 0.5 w/o the removed keys
+		return Integer.highestOneBit(slotCount * 4 - 1);
+	}
+
+	private static int hash(final Object op, final int mask) {
+		final int h = System.identityHashCode(op);
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/**
+	 @return the slot of the given operation, {@link #NO_SLOT} if the operation has no slot
+	 */
+	public final int find(final Object op) {
+		final var index = this.index;
+		final int i = position(index, op);
+		return i < 0 ? NO_SLOT : index.slots[i];
+	}
+
+	/**
+	 @return the position of the given operation in the given index, -1 if the operation is not there
+	 */
+	private static int position(final Index index, final Object op) {
+		final var keys = index.keys;
+		Object key;
+		for (var i = hash(op, index.mask); (key = ELEMENT.getAcquire(keys, i)) != null; i = (i + 1) & index.mask) {
+			if (key == op) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 @return the slot of the given operation, the new slot is taken if the operation has no slot
+	 */
+	public final int acquire(final Object op) {
+		final var slot = find(op);
+		return slot == NO_SLOT ? insert(op) : slot;
+	}
+
+	private synchronized int insert(final Object op) {
+		if (freeCount == 0) {
+			grow();
+		}
+		var index = this.index;
+		if (index.used + 1 > (index.keys.length >>> 1) + (index.keys.length >>> 2)) {
+			// too many removed keys, rebuild w/o them
+			index = rebuild(index.keys.length);
+		}
+		final int slot = freeSlots[--freeCount];
+		var i = hash(op, index.mask);
+		while (index.keys[i] != null && index.keys[i] != REMOVED) {
+			i = (i + 1) & index.mask;
+		}
+		if (index.keys[i] == null) {
+			index.used++;
+		}
+		index.slots[i] = slot;
+		ELEMENT.setRelease(index.keys, i, op);
+		size++;
+		return slot;
+	}
+
+	private void grow() {
+		final var chunks = this.chunks;
+		final int chunkCount = chunks.length;
+		final var newChunks = Arrays.copyOf(chunks, chunkCount * 2);
+		for (var i = chunkCount; i < newChunks.length; i++) {
+			newChunks[i] = new Object[CHUNK_SIZE * columnCount];
+		}
+		final int slotCount = chunkCount << CHUNK_BITS;
+		final int newSlotCount = newChunks.length << CHUNK_BITS;
+		freeSlots = Arrays.copyOf(freeSlots, newSlotCount);
+		for (var i = newSlotCount - 1; i >= slotCount; i--) {
+			freeSlots[freeCount++] = i;
+		}
+		this.chunks = newChunks;
+		rebuild(indexCapacity(newSlotCount));
+	}
+
+	private Index rebuild(final int capacity) {
+		final var oldIndex = index;
+		final var newIndex = new Index(capacity);
+		for (var j = 0; j < oldIndex.keys.length; j++) {
+			final var key = oldIndex.keys[j];
+			if (key != null && key != REMOVED) {
+				var i = hash(key, newIndex.mask);
+				while (newIndex.keys[i] != null) {
+					i = (i + 1) & newIndex.mask;
+				}
+				newIndex.keys[i] = key;
+				newIndex.slots[i] = oldIndex.slots[j];
+				newIndex.used++;
+			}
+		}
+		index = newIndex;
+		return newIndex;
+	}
+
+	/**
+	 Unmaps the given operation from its slot. The slot's values are kept until the slot is freed, so the caller may
+	 release the resources they refer to. Only one of the concurrent calls for the same operation gets the slot.
+	 @return the unmapped slot which should be freed then, {@link #NO_SLOT} if the operation has no slot
+	 */
+	public final synchronized int release(final Object op) {
+		final var index = this.index;
+		final var keys = index.keys;
+		Object key;
+		for (var i = hash(op, index.mask); (key = keys[i]) != null; i = (i + 1) & index.mask) {
+			if (key == op) {
+				ELEMENT.setRelease(keys, i, REMOVED);
+				size--;
+				return index.slots[i];
+			}
+		}
+		return NO_SLOT;
+	}
+
+	/**
+	 Clears the values of the slot released before and makes it available for the other operations.
+	 */
+	public final synchronized void free(final int slot) {
+		final var chunk = chunks[slot >>> CHUNK_BITS];
+		final int offset = (slot & CHUNK_MASK) * columnCount;
+		// the release writes are ordered after the key removal, see get(Object, int)
+		for (var i = offset; i < offset + columnCount; i++) {
+			ELEMENT.setRelease(chunk, i, null);
+		}
+		freeSlots[freeCount++] = slot;
+	}
+
+	/**
+	 Reads the value of the slot held by the caller, i.e. the slot can't be released concurrently.
+	 */
+	public final Object get(final int slot, final int column) {
+		return ELEMENT.getAcquire(chunks[slot >>> CHUNK_BITS], (slot & CHUNK_MASK) * columnCount + column);
+	}
+
+	/**
+	 @return the value of the given operation's column, null if the operation has no slot. The value is not the one of
+	 the other operation which took the slot concurrently released by the given operation: the operation's key is
+	 checked to be still in place after the value is read, any value written to the slot after the release (the freeing
+	 or the other operation's one) is ordered after the key removal.
+	 */
+	public final Object get(final Object op, final int column) {
+		while (true) {
+			final var index = this.index;
+			final int i = position(index, op);
+			if (i < 0) {
+				return null;
+			}
+			final var value = get(index.slots[i], column);
+			if (ELEMENT.getAcquire(index.keys, i) == op && this.index == index) {
+				return value;
+			}
+			// released or the index is rebuilt meanwhile, look up again
+		}
+	}
+
+	public final void set(final int slot, final int column, final Object value) {
+		ELEMENT.setRelease(chunks[slot >>> CHUNK_BITS], (slot & CHUNK_MASK) * columnCount + column, value);
+	}
+
+	/**
+	 @return the count of the operations mapped to the slots
+	 */
+	public final synchronized int size() {
+		return size;
+	}
+
+	/**
+	 @return the count of the slots allocated
+	 */
+	public final int capacity() {
+		return chunks.length << CHUNK_BITS;
+	}
+
+	/**
+	 Passes the non-null values of the given column to the consumer, not synchronized with the concurrent changes.
+	 */
+	public final void forEach(final int column, final Consumer<Object> consumer) {
+		for (final var chunk : chunks) {
+			for (var i = column; i < chunk.length; i += columnCount) {
+				final var value = ELEMENT.getAcquire(chunk, i);
+				if (value != null) {
+					consumer.accept(value);
+				}
+			}
+		}
+	}
+
+	/**
+	 Releases all the slots and clears all the values.
+	 */
+	public final synchronized void clear() {
+		for (final var chunk : chunks) {
+			Arrays.fill(chunk, null);
+		}
+		final int slotCount = capacity();
+		for (var i = 0; i < slotCount; i++) {
+			freeSlots[i] = slotCount - 1 - i;
+		}
+		freeCount = slotCount;
+		size = 0;
+		index = new Index(index.keys.length);
+	}
+
+	@Override
+	public final String toString() {
+		return "slots: " + size() + "/" + capacity();
+	}
+}
@@ -0,0 +1,271 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.util.Arrays;
+
+/**
+The open addressing hash table mapping the packed item names to their locations: the container number, the position
+in the container and the size. The entries are kept in the parallel primitive arrays and the names are stored in the
+single char array (the length followed by the chars), so no objects are allocated per entry and the name lookup
+doesn't allocate. The collisions are resolved by the linear probing, the removed entry is deleted by shifting the
+following entries of the same cluster back. The space of the removed names is reclaimed when the table is rebuilt.
+Not thread safe.
+*/
+public final class PackIndex {
+
+	private static final int MIN_CAPACITY = 0x10;
+	private static final int NAME_SIZE_LIMIT = Character.MAX_VALUE;
+	private static final int EMPTY = -1;
+
+	private long[] hashes;
+	private int[] nameOffsets;
+	private int[] containers;
+	private long[] positions;
+	private long[] sizes;
+	private int mask;
+	private int count = 0;
+	private char[] names;
+	private int namesSize = 0;
+	private int namesGarbage = 0;
+
+	public PackIndex() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 @param expectedCount the count of the entries which may be put w/o the table rebuild
+	 */
+	public PackIndex(final int expectedCount) {
+		init(capacityFor(expectedCount), MIN_CAPACITY * 0x10);
+	}
+
+	private static int capacityFor(final int count) {
+		final long minCapacity = Math.max(MIN_CAPACITY, (long) count * 4 / 3 + 1);
+		if (minCapacity > 1 << 30) {
+			throw new IllegalStateException("Too many packed items: " + count);
+		}
+		return Integer.highestOneBit((int) minCapacity - 1) << 1;
+	}
+
+	private void init(final int capacity, final int namesCapacity) {
+		hashes = new long[capacity];
+		nameOffsets = new int[capacity];
+		Arrays.fill(nameOffsets, EMPTY);
+		containers = new int[capacity];
+		positions = new long[capacity];
+		sizes = new long[capacity];
+		mask = capacity - 1;
+		names = new char[namesCapacity];
+		namesSize = 0;
+		namesGarbage = 0;
+	}
+
+	/**
+	 @return 64-bit FNV-1a hash of the name chars
+	 */
+	static long hash(final String name) {
+		long h = 0xCBF29CE484222325L;
+		for (var i = 0; i < name.length(); i++) {
+			h ^= name.charAt(i);
+			h *= 0x100000001B3L;
+		}
+		return h;
+	}
+
+	private int home(final long hash) {
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private boolean nameEquals(final int slot, final String name) {
+		final int nameOffset = nameOffsets[slot];
+		final int nameSize = names[nameOffset];
+		if (nameSize != name.length()) {
+			return false;
+		}
+		for (var i = 0; i < nameSize; i++) {
+			if (names[nameOffset + 1 + i] != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 @return the slot of the entry for the given name, -1 if there's no such entry
+	 */
+	public final int find(final String name) {
+		final long hash = hash(name);
+		for (var slot = home(hash); nameOffsets[slot] != EMPTY; slot = (slot + 1) & mask) {
+			if (hashes[slot] == hash && nameEquals(slot, name)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 Puts the new entry or replaces the location of the existing one.
+	 */
+	public final void put(final String name, final int container, final long position, final long size) {
+		if (name.length() > NAME_SIZE_LIMIT) {
+			throw new IllegalArgumentException("Too long packed item name: " + name);
+		}
+		final long hash = hash(name);
+		var slot = home(hash);
+		while (nameOffsets[slot] != EMPTY) {
+			if (hashes[slot] == hash && nameEquals(slot, name)) {
+				containers[slot] = container;
+				positions[slot] = position;
+				sizes[slot] = size;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if (count + 1 > (mask + 1) / 4 * 3) {
+			rebuild(capacityFor(count + 1));
+		}
+		// the name is appended first because the table may be rebuilt to reclaim the names space
+		final int nameOffset = appendName(name);
+		slot = home(hash);
+		while (nameOffsets[slot] != EMPTY) {
+			slot = (slot + 1) & mask;
+		}
+		hashes[slot] = hash;
+		nameOffsets[slot] = nameOffset;
+		containers[slot] = container;
+		positions[slot] = position;
+		sizes[slot] = size;
+		count++;
+	}
+
+	private int appendName(final String name) {
+		final int nameSize = name.length();
+		if (namesSize + 1 + nameSize > names.length) {
+			if (namesGarbage > namesSize / 2) {
+				rebuild(mask + 1);
+			}
+			if (namesSize + 1 + nameSize > names.length) {
+				names = Arrays.copyOf(names, Math.max(names.length * 2, namesSize + 1 + nameSize));
+			}
+		}
+		final int nameOffset = namesSize;
+		names[nameOffset] = (char) nameSize;
+		name.getChars(0, nameSize, names, nameOffset + 1);
+		namesSize += 1 + nameSize;
+		return nameOffset;
+	}
+
+	/**
+	 Moves all the entries into the new table of the given capacity, the names are compacted.
+	 */
+	private void rebuild(final int capacity) {
+		final long[] prevHashes = hashes;
+		final int[] prevNameOffsets = nameOffsets;
+		final int[] prevContainers = containers;
+		final long[] prevPositions = positions;
+		final long[] prevSizes = sizes;
+		final char[] prevNames = names;
+		init(capacity, Math.max(MIN_CAPACITY * 0x10, (namesSize - namesGarbage) * 2));
+		int nameOffset;
+		int nameSize;
+		int slot;
+		for (var i = 0; i < prevNameOffsets.length; i++) {
+			nameOffset = prevNameOffsets[i];
+			if (nameOffset != EMPTY) {
+				slot = home(prevHashes[i]);
+				while (nameOffsets[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				nameSize = prevNames[nameOffset] + 1;
+				System.arraycopy(prevNames, nameOffset, names, namesSize, nameSize);
+				hashes[slot] = prevHashes[i];
+				nameOffsets[slot] = namesSize;
+				containers[slot] = prevContainers[i];
+				positions[slot] = prevPositions[i];
+				sizes[slot] = prevSizes[i];
+				namesSize += nameSize;
+			}
+		}
+	}
+
+	/**
+	 @return true if the entry was removed, false if there's no entry for the given name
+	 */
+	public final boolean remove(final String name) {
+		var slot = find(name);
+		if (slot < 0) {
+			return false;
+		}
+		namesGarbage += 1 + names[nameOffsets[slot]];
+		count--;
+		// shift back the following entries which can't be found after the slot is emptied
+		var next = slot;
+		int nextHome;
+		while (true) {
+			next = (next + 1) & mask;
+			if (nameOffsets[next] == EMPTY) {
+				break;
+			}
+			nextHome = home(hashes[next]);
+			if (slot <= next ? (slot < nextHome && nextHome <= next) : (slot < nextHome || nextHome <= next)) {
+				continue; // the entry is reachable from its home slot anyway
+			}
+			hashes[slot] = hashes[next];
+			nameOffsets[slot] = nameOffsets[next];
+			containers[slot] = containers[next];
+			positions[slot] = positions[next];
+			sizes[slot] = sizes[next];
+			slot = next;
+		}
+		nameOffsets[slot] = EMPTY;
+		return true;
+	}
+
+	public final int count() {
+		return count;
+	}
+
+	/**
+	 @return the count of the slots, the slot is occupied if {@link #occupied(int)} returns true for it
+	 */
+	public final int capacity() {
+		return mask + 1;
+	}
+
+	public final boolean occupied(final int slot) {
+		return nameOffsets[slot] != EMPTY;
+	}
+
+	/**
+	 @return true if the name of the entry at the given slot starts with the given prefix, doesn't allocate
+	 */
+	public final boolean nameStartsWith(final int slot, final String prefix) {
+		final int nameOffset = nameOffsets[slot];
+		final int prefixSize = prefix.length();
+		if (names[nameOffset] < prefixSize) {
+			return false;
+		}
+		for (var i = 0; i < prefixSize; i++) {
+			if (names[nameOffset + 1 + i] != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public final String name(final int slot) {
+		final int nameOffset = nameOffsets[slot];
+		return new String(names, nameOffset + 1, names[nameOffset]);
+	}
+
+	public final int container(final int slot) {
+		return containers[slot];
+	}
+
+	public final long position(final int slot) {
+		return positions[slot];
+	}
+
+	public final long size(final int slot) {
+		return sizes[slot];
+	}
+}
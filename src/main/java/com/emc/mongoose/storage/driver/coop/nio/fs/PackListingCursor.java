@@ -0,0 +1,87 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.Item;
+import com.emc.mongoose.base.item.ItemFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+The listing cursor over the items of the {@link PackStore}. The names and the sizes of the indexed items are copied
+when the cursor is opened, so the items packed after that are not listed by this cursor. The items are listed in the
+index order, the listed item name is the path the item would have if it was stored as the separate file.
+*/
+public final class PackListingCursor
+				implements ListingCursor {
+
+	private final List<String> names = new ArrayList<>();
+	private final long[] sizes;
+	private final String dirPath;
+	private final FanOutLayout layout;
+	private final int prefixLength;
+	private int nextIdx = 0;
+	private String lastItemName = null;
+
+	/**
+	 @param store the packed items store
+	 @param prefix the file name prefix, may be null
+	 @param layout the layout the listed item paths are resolved with
+	 */
+	public PackListingCursor(final PackStore store, final String prefix, final FanOutLayout layout) {
+		final var emptyPrefix = prefix == null || prefix.isEmpty();
+		sizes = store.snapshot(emptyPrefix ? null : prefix, names);
+		dirPath = store.dirPath().toString();
+		this.layout = layout;
+		prefixLength = emptyPrefix ? 0 : prefix.length();
+	}
+
+	private String itemName(final int idx) {
+		return layout.itemPath(dirPath, names.get(idx)).toString();
+	}
+
+	@Override
+	public final boolean resumesAfter(final Item lastPrevItem) {
+		if (lastPrevItem == null) {
+			return lastItemName == null;
+		} else {
+			return lastPrevItem.name().equals(lastItemName);
+		}
+	}
+
+	@Override
+	public final boolean skipTo(final Item lastPrevItem) {
+		if (lastPrevItem != null) {
+			final var lastPrevItemName = lastPrevItem.name();
+			while (nextIdx < names.size()) {
+				if (itemName(nextIdx++).equals(lastPrevItemName)) {
+					lastItemName = lastPrevItemName;
+					return true;
+				}
+			}
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public final <I extends Item> List<I> next(final ItemFactory<I> itemFactory, final int idRadix, final int count) {
+		final List<I> buff = new ArrayList<>(count);
+		I nextItem;
+		while (buff.size() < count && nextIdx < names.size()) {
+			nextItem = ListingHelper.item(itemFactory, itemName(nextIdx), sizes[nextIdx], prefixLength, idRadix);
+			nextIdx++;
+			buff.add(nextItem);
+			lastItemName = nextItem.name();
+		}
+		return buff;
+	}
+
+	@Override
+	public final boolean exhausted() {
+		return nextIdx == names.size();
+	}
+
+	@Override
+	public final void close() {
+	}
+}
@@ -0,0 +1,216 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+The file channel view of the packed item: the region of the container file starting at the given position. The
+positions are relative to the region start, the region end is the end of the file for the reads and the writes beyond
+the region end fail, so the packed item can't grow. The container channel is shared by all the regions of the
+container, only the positional I/O is used on it. Closing the region channel doesn't close the container.
+Not thread safe: the channel should be used by a single operation at a time.
+*/
+public final class PackRegionChannel
+				extends FileChannel {
+
+	private final PackStore store;
+	private final String itemName;
+	private final FileChannel container;
+	private final int containerIdx;
+	private final long regionPos;
+	private final long regionSize;
+	private final boolean allocated;
+	private boolean committed = false;
+	private long position = 0;
+
+	/**
+	 @param allocated true if the region is allocated for the new item, false if it's the region of the committed item
+	 */
+	PackRegionChannel(
+					final PackStore store, final String itemName, final FileChannel container, final int containerIdx,
+					final long regionPos, final long regionSize, final boolean allocated) {
+		this.store = store;
+		this.itemName = itemName;
+		this.container = container;
+		this.containerIdx = containerIdx;
+		this.regionPos = regionPos;
+		this.regionSize = regionSize;
+		this.allocated = allocated;
+	}
+
+	/**
+	 Makes the region written by the create operation visible by its name in the store's index.
+	 @throws IOException if failed to log the committed item
+	 */
+	public final void commit()
+					throws IOException {
+		store.commit(itemName, containerIdx, regionPos, regionSize);
+		committed = true;
+	}
+
+	@Override
+	public final int read(final ByteBuffer dst, final long pos)
+					throws IOException {
+		if (pos >= regionSize) {
+			return -1;
+		}
+		final int limit = dst.limit();
+		if (dst.remaining() > regionSize - pos) {
+			dst.limit(dst.position() + (int) (regionSize - pos));
+		}
+		try {
+			return container.read(dst, regionPos + pos);
+		} finally {
+			dst.limit(limit);
+		}
+	}
+
+	@Override
+	public final int write(final ByteBuffer src, final long pos)
+					throws IOException {
+		if (!src.hasRemaining()) {
+			return 0;
+		}
+		if (pos >= regionSize) {
+			throw new IOException(
+							"The packed item \"" + itemName + "\" can't grow beyond its size of " + regionSize + " bytes");
+		}
+		final int limit = src.limit();
+		if (src.remaining() > regionSize - pos) {
+			src.limit(src.position() + (int) (regionSize - pos));
+		}
+		try {
+			return container.write(src, regionPos + pos);
+		} finally {
+			src.limit(limit);
+		}
+	}
+
+	@Override
+	public final int read(final ByteBuffer dst)
+					throws IOException {
+		final int n = read(dst, position);
+		if (n > 0) {
+			position += n;
+		}
+		return n;
+	}
+
+	@Override
+	public final long read(final ByteBuffer[] dsts, final int offset, final int length)
+					throws IOException {
+		long total = 0;
+		int n;
+		for (var i = offset; i < offset + length; i++) {
+			while (dsts[i].hasRemaining()) {
+				n = read(dsts[i]);
+				if (n < 0) {
+					return total == 0 ? -1 : total;
+				}
+				total += n;
+			}
+		}
+		return total;
+	}
+
+	@Override
+	public final int write(final ByteBuffer src)
+					throws IOException {
+		final int n = write(src, position);
+		position += n;
+		return n;
+	}
+
+	@Override
+	public final long write(final ByteBuffer[] srcs, final int offset, final int length)
+					throws IOException {
+		long total = 0;
+		for (var i = offset; i < offset + length; i++) {
+			while (srcs[i].hasRemaining()) {
+				total += write(srcs[i]);
+			}
+		}
+		return total;
+	}
+
+	@Override
+	public final long position() {
+		return position;
+	}
+
+	@Override
+	public final FileChannel position(final long newPosition) {
+		position = newPosition;
+		return this;
+	}
+
+	@Override
+	public final long size() {
+		return regionSize;
+	}
+
+	@Override
+	public final FileChannel truncate(final long size) {
+		throw new UnsupportedOperationException("The packed item can't be truncated");
+	}
+
+	@Override
+	public final void force(final boolean metaData)
+					throws IOException {
+		container.force(metaData);
+	}
+
+	@Override
+	public final long transferTo(final long pos, final long count, final WritableByteChannel target)
+					throws IOException {
+		if (pos >= regionSize) {
+			return 0;
+		}
+		return container.transferTo(regionPos + pos, Math.min(count, regionSize - pos), target);
+	}
+
+	@Override
+	public final long transferFrom(final ReadableByteChannel src, final long pos, final long count)
+					throws IOException {
+		if (pos >= regionSize) {
+			throw new IOException(
+							"The packed item \"" + itemName + "\" can't grow beyond its size of " + regionSize + " bytes");
+		}
+		return container.transferFrom(src, regionPos + pos, Math.min(count, regionSize - pos));
+	}
+
+	@Override
+	public final MappedByteBuffer map(final MapMode mode, final long pos, final long size)
+					throws IOException {
+		if (pos + size > regionSize) {
+			throw new IOException(
+							"The mapped region " + pos + "+" + size + " exceeds the packed item size of " + regionSize + " bytes");
+		}
+		return container.map(mode, regionPos + pos, size);
+	}
+
+	@Override
+	public final FileLock lock(final long pos, final long size, final boolean shared)
+					throws IOException {
+		return container.lock(regionPos + pos, size, shared);
+	}
+
+	@Override
+	public final FileLock tryLock(final long pos, final long size, final boolean shared)
+					throws IOException {
+		return container.tryLock(regionPos + pos, size, shared);
+	}
+
+	@Override
+	protected final void implCloseChannel() {
+		// the container channel is owned by the store
+		if (allocated && !committed) {
+			store.discard(containerIdx, regionPos, regionSize);
+		}
+	}
+}
@@ -0,0 +1,401 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+The packed items store of the single directory. The items are appended one after another into the large container
+files named "[name].[container number]", the container is allocated at once when it's started. The item is located by
+its file name using the in-memory {@link PackIndex}. Each item committed or removed is logged into the "[name].index"
+file at once (opened with the same extra options as the containers, e.g. DSYNC), so the packed items survive the
+process crash. The index file is rewritten w/o the removed items when the store is closed and is replayed when the
+store is opened for the same directory again, so the later steps may read and delete the packed items. The index file
+starts with the 4 bytes magic number followed by the records: the file name length (2 bytes, unsigned), the file name
+chars, the container number (4 bytes, -1 for the removed item), the position in the container (8 bytes) and the size
+(8 bytes). The incomplete trailing record (the crash while logging) is dropped. The new items are always appended to
+the new container after the store is reopened.
+The space of the deleted items is not reclaimed. The region allocated for the item which is not committed (e.g. the
+create operation failed) is reclaimed only if it's the last region allocated, the space of the other ones is lost as
+the space of the deleted items. The store is not safe for the concurrent use by the different processes.
+*/
+public final class PackStore
+				implements Closeable {
+
+	public static final int INDEX_MAGIC = 0x50434B31; // "PCK1"
+	public static final String INDEX_SUFFIX = ".index";
+
+	private static final int REMOVED_CONTAINER = -1;
+	private static final int RECORD_FIXED_SIZE = 2 + 4 + 8 + 8;
+
+	private static final Set<OpenOption> CONTAINER_OPEN_OPT = Set.of(StandardOpenOption.READ, StandardOpenOption.WRITE);
+	private static final Set<OpenOption> CONTAINER_CREATE_OPEN_OPT = Set.of(
+					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+
+	private final Path dirPath;
+	private final String name;
+	private final long containerSize;
+	private final AllocMode containerAllocMode;
+	private final Set<OpenOption> extraOpenOpts;
+	private final PackIndex index = new PackIndex();
+	private final List<FileChannel> containers = new ArrayList<>();
+	private int tailContainerIdx = -1;
+	private FileChannel tailContainer = null;
+	private long tailContainerSize = 0;
+	private long tailPosition = 0;
+	private FileChannel indexLog = null;
+	private long indexLogSize = 0;
+	private ByteBuffer recordBuff = ByteBuffer.allocate(0x400);
+	private boolean modified = false;
+
+	/**
+	 @param dirPath the directory containing the store files
+	 @param name the store files name prefix
+	 @param containerSize the size of the container file, the item larger than this gets the dedicated container
+	 @param containerAllocMode the space allocation mode for the new container files
+	 @param extraOpenOpts the additional options the container files are opened with (e.g. DSYNC)
+	 @throws IOException if failed to load the existing index or to open the index log
+	 */
+	public PackStore(
+					final Path dirPath, final String name, final long containerSize, final AllocMode containerAllocMode,
+					final Set<OpenOption> extraOpenOpts) throws IOException {
+		if (containerSize < 1) {
+			throw new IllegalArgumentException("Container size should be > 0: " + containerSize);
+		}
+		this.dirPath = dirPath;
+		this.name = name;
+		this.containerSize = containerSize;
+		this.containerAllocMode = containerAllocMode;
+		this.extraOpenOpts = extraOpenOpts;
+		final var indexPath = indexPath();
+		if (Files.exists(indexPath)) {
+			indexLogSize = loadIndex(indexPath);
+		}
+		openIndexLog();
+	}
+
+	private Path indexPath() {
+		return dirPath.resolve(name + INDEX_SUFFIX);
+	}
+
+	/**
+	 @return the size of the complete records loaded including the magic number, 0 if the magic number is incomplete
+	 */
+	private long loadIndex(final Path indexPath)
+					throws IOException {
+		long loadedSize = 0;
+		try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+			final int magic;
+			try {
+				magic = in.readInt();
+			} catch (final EOFException e) {
+				return 0; // crashed while creating
+			}
+			if (magic != INDEX_MAGIC) {
+				throw new IOException(
+								"Invalid pack index file \"" + indexPath + "\": " + String.format("0x%X", magic) + " magic");
+			}
+			loadedSize = Integer.BYTES;
+			var nameChars = new char[0x100];
+			int nameSize;
+			int containerIdx;
+			long pos;
+			long size;
+			while (true) {
+				try {
+					nameSize = in.readUnsignedShort();
+					if (nameSize > nameChars.length) {
+						nameChars = new char[Math.max(nameSize, nameChars.length * 2)];
+					}
+					for (var i = 0; i < nameSize; i++) {
+						nameChars[i] = in.readChar();
+					}
+					containerIdx = in.readInt();
+					pos = in.readLong();
+					size = in.readLong();
+				} catch (final EOFException e) {
+					break; // the end of the file or the incomplete record
+				}
+				final var itemName = new String(nameChars, 0, nameSize);
+				if (containerIdx == REMOVED_CONTAINER) {
+					index.remove(itemName);
+				} else {
+					index.put(itemName, containerIdx, pos, size);
+					if (containerIdx > tailContainerIdx) {
+						tailContainerIdx = containerIdx;
+					}
+				}
+				loadedSize += RECORD_FIXED_SIZE + 2 * nameSize;
+			}
+		}
+		// the tail container remains null, so the new items are not appended to the loaded containers
+		return loadedSize;
+	}
+
+	/**
+	 Opens the index file for appending the records, the incomplete trailing record is truncated.
+	 */
+	private void openIndexLog()
+					throws IOException {
+		final var indexPath = indexPath();
+		final Set<OpenOption> openOpts = new HashSet<>(extraOpenOpts);
+		openOpts.add(StandardOpenOption.CREATE);
+		openOpts.add(StandardOpenOption.WRITE);
+		indexLog = indexPath.getFileSystem().provider().newFileChannel(indexPath, openOpts);
+		try {
+			if (indexLog.size() > indexLogSize) {
+				indexLog.truncate(indexLogSize);
+			}
+			if (indexLogSize == 0) {
+				recordBuff.clear();
+				recordBuff.putInt(INDEX_MAGIC);
+				writeRecord();
+			}
+		} catch (final IOException e) {
+			indexLog.close();
+			indexLog = null;
+			throw e;
+		}
+	}
+
+	private void logRecord(final String itemName, final int containerIdx, final long pos, final long size)
+					throws IOException {
+		if (indexLog == null) {
+			throw new ClosedChannelException();
+		}
+		final int nameSize = itemName.length();
+		final int recordSize = RECORD_FIXED_SIZE + 2 * nameSize;
+		if (recordBuff.capacity() < recordSize) {
+			recordBuff = ByteBuffer.allocate(Math.max(recordSize, recordBuff.capacity() * 2));
+		}
+		recordBuff.clear();
+		recordBuff.putShort((short) nameSize);
+		for (var i = 0; i < nameSize; i++) {
+			recordBuff.putChar(itemName.charAt(i));
+		}
+		recordBuff.putInt(containerIdx).putLong(pos).putLong(size);
+		writeRecord();
+	}
+
+	private void writeRecord()
+					throws IOException {
+		recordBuff.flip();
+		final long recordPos = indexLogSize;
+		try {
+			while (recordBuff.hasRemaining()) {
+				indexLogSize += indexLog.write(recordBuff, indexLogSize);
+			}
+		} catch (final IOException e) {
+			// don't leave the partial record followed by the next ones
+			indexLogSize = recordPos;
+			throw e;
+		}
+	}
+
+	public final Path dirPath() {
+		return dirPath;
+	}
+
+	/**
+	 Allocates the region for the new item at the end of the tail container, the new container is started if the tail
+	 one has no space left. The region is not indexed until it's {@link PackRegionChannel#commit() committed}.
+	 @return the channel of the allocated region
+	 */
+	public final synchronized PackRegionChannel allocate(final String itemName, final long size)
+					throws IOException {
+		if (tailContainer == null || tailPosition + size > tailContainerSize) {
+			startContainer(Math.max(containerSize, size));
+		}
+		final var region = new PackRegionChannel(
+						this, itemName, tailContainer, tailContainerIdx, tailPosition, size, true);
+		tailPosition += size;
+		return region;
+	}
+
+	private void startContainer(final long size)
+					throws IOException {
+		final int containerIdx = tailContainerIdx + 1;
+		final var channel = openContainer(containerIdx, CONTAINER_CREATE_OPEN_OPT);
+		try {
+			containerAllocMode.allocate(containerPath(containerIdx), channel, size);
+		} catch (final IOException e) {
+			channel.close();
+			throw e;
+		}
+		setContainer(containerIdx, channel);
+		tailContainerIdx = containerIdx;
+		tailContainer = channel;
+		tailContainerSize = size;
+		tailPosition = 0;
+	}
+
+	private FileChannel openContainer(final int containerIdx, final Set<OpenOption> openOpts)
+					throws IOException {
+		final Set<OpenOption> containerOpenOpts = new HashSet<>(openOpts);
+		containerOpenOpts.addAll(extraOpenOpts);
+		final var containerPath = containerPath(containerIdx);
+		return containerPath.getFileSystem().provider().newFileChannel(containerPath, containerOpenOpts);
+	}
+
+	private void setContainer(final int containerIdx, final FileChannel container) {
+		while (containers.size() <= containerIdx) {
+			containers.add(null);
+		}
+		containers.set(containerIdx, container);
+	}
+
+	final Path containerPath(final int containerIdx) {
+		return dirPath.resolve(name + '.' + String.format("%08x", containerIdx));
+	}
+
+	/**
+	 Logs the committed item and makes it visible by its name.
+	 @throws IOException if failed to log the item, the item is not committed then
+	 */
+	final synchronized void commit(final String itemName, final int containerIdx, final long pos, final long size)
+					throws IOException {
+		logRecord(itemName, containerIdx, pos, size);
+		index.put(itemName, containerIdx, pos, size);
+		modified = true;
+	}
+
+	/**
+	 Reclaims the space of the region which is not committed if it's the last region allocated.
+	 */
+	final synchronized void discard(final int containerIdx, final long pos, final long size) {
+		if (tailContainer != null && containerIdx == tailContainerIdx && pos + size == tailPosition) {
+			tailPosition = pos;
+		}
+	}
+
+	/**
+	 @return the channel of the packed item region
+	 @throws NoSuchFileException if there's no such item in the store
+	 */
+	public final synchronized PackRegionChannel open(final String itemName)
+					throws IOException {
+		final int slot = index.find(itemName);
+		if (slot < 0) {
+			throw new NoSuchFileException(dirPath.resolve(itemName).toString());
+		}
+		final int containerIdx = index.container(slot);
+		var container = containerIdx < containers.size() ? containers.get(containerIdx) : null;
+		if (container == null) {
+			container = openContainer(containerIdx, CONTAINER_OPEN_OPT);
+			setContainer(containerIdx, container);
+		}
+		return new PackRegionChannel(
+						this, itemName, container, containerIdx, index.position(slot), index.size(slot), false);
+	}
+
+	/**
+	 @return true if the item was removed from the index, false if there's no such item
+	 @throws IOException if failed to log the removal, the item is not removed then
+	 */
+	public final synchronized boolean remove(final String itemName)
+					throws IOException {
+		if (index.find(itemName) < 0) {
+			return false;
+		}
+		logRecord(itemName, REMOVED_CONTAINER, 0, 0);
+		index.remove(itemName);
+		modified = true;
+		return true;
+	}
+
+	public final synchronized int count() {
+		return index.count();
+	}
+
+	/**
+	 @param prefix the file name prefix, may be null
+	 @param names the list the file names of the indexed items are added to
+	 @return the sizes of the indexed items in the same order as the names added
+	 */
+	public final synchronized long[] snapshot(final String prefix, final List<String> names) {
+		final var sizes = new long[index.count()];
+		var n = 0;
+		for (var slot = 0; slot < index.capacity(); slot++) {
+			if (index.occupied(slot) && (prefix == null || index.nameStartsWith(slot, prefix))) {
+				names.add(index.name(slot));
+				sizes[n++] = index.size(slot);
+			}
+		}
+		return n == sizes.length ? sizes : Arrays.copyOf(sizes, n);
+	}
+
+	/**
+	 Rewrites the index file w/o the removed items if the index was modified. The new file replaces the log
+	 atomically, the store is closed then.
+	 */
+	private void compactIndex()
+					throws IOException {
+		if (indexLog != null) {
+			indexLog.close();
+			indexLog = null;
+		}
+		if (!modified) {
+			return;
+		}
+		final var indexPath = indexPath();
+		final var tmpIndexPath = dirPath.resolve(name + INDEX_SUFFIX + ".tmp");
+		try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpIndexPath)))) {
+			out.writeInt(INDEX_MAGIC);
+			String itemName;
+			for (var slot = 0; slot < index.capacity(); slot++) {
+				if (index.occupied(slot)) {
+					itemName = index.name(slot);
+					out.writeShort(itemName.length());
+					out.writeChars(itemName);
+					out.writeInt(index.container(slot));
+					out.writeLong(index.position(slot));
+					out.writeLong(index.size(slot));
+				}
+			}
+		}
+		Files.move(tmpIndexPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		modified = false;
+	}
+
+	/**
+	 Compacts the index and closes the index log and the container files.
+	 */
+	@Override
+	public final synchronized void close()
+					throws IOException {
+		try {
+			compactIndex();
+		} finally {
+			for (final var container : containers) {
+				if (container != null) {
+					container.close();
+				}
+			}
+			containers.clear();
+		}
+	}
+
+	@Override
+	public final String toString() {
+		return "items: " + count() + ", containers: " + (tailContainerIdx + 1);
+	}
+}
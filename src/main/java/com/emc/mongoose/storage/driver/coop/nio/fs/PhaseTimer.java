@@ -0,0 +1,170 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.op.OpType;
+import com.emc.mongoose.base.logging.Loggers;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+Accounts the time spent in the phases of the file operation invocations into the histograms per (operation type,
+phase) pair. The histogram is log-linear: each power of 2 range is split into 8 equal buckets, so the relative error of
+the reported percentiles is within 12.5%. Recording is allocation free (a few atomic increments). The histograms are
+reported to the log and reset periodically.
+The values are recorded per invocation, not per operation: the large file transfer takes several invocations.
+*/
+public final class PhaseTimer
+				implements Closeable {
+
+	public enum Phase {
+		/** the destination path resolution including the parent directory creation */
+		RESOLVE,
+		/** the file channel open */
+		OPEN,
+		/** the data transfer w/o the content verification */
+		TRANSFER,
+		/** the data transfer with the content verification */
+		VERIFY,
+		/** the file channels release */
+		CLOSE
+	}
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+	private static final int PHASE_COUNT = Phase.values().length;
+	// the bucket counts followed by the sum and the max
+	private static final int SLOT_SIZE = BUCKET_COUNT + 2;
+	private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+	private static final String[] QUANTILE_NAMES = { "p50", "p99", "p99.9" };
+
+	private final AtomicLongArray slots = new AtomicLongArray(OpType.values().length * PHASE_COUNT * SLOT_SIZE);
+	private final String name;
+	private final ScheduledExecutorService reportExecutor;
+
+	/**
+	 @param name the name used in the report
+	 @param reportPeriodSeconds the period of the report, 0 means report only on close
+	 */
+	public PhaseTimer(final String name, final int reportPeriodSeconds) {
+		this.name = name;
+		if (reportPeriodSeconds > 0) {
+			reportExecutor = Executors.newSingleThreadScheduledExecutor(
+							task -> {
+								final var reporter = new Thread(task, "fsPhaseTimerReporter");
+								reporter.setDaemon(true);
+								return reporter;
+							});
+			reportExecutor.scheduleAtFixedRate(this::report, reportPeriodSeconds, reportPeriodSeconds, TimeUnit.SECONDS);
+		} else {
+			reportExecutor = null;
+		}
+	}
+
+	static int bucketIndex(final long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) Math.max(value, 0);
+		}
+		final int exp = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 @return the lowest value falling into the given bucket
+	 */
+	static long bucketValue(final int bucketIndex) {
+		if (bucketIndex < SUB_BUCKET_COUNT) {
+			return bucketIndex;
+		}
+		final int exp = bucketIndex / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		final long subBucket = bucketIndex % SUB_BUCKET_COUNT;
+		return (SUB_BUCKET_COUNT + subBucket) << (exp - SUB_BUCKET_BITS);
+	}
+
+	private static int slotOffset(final OpType opType, final Phase phase) {
+		return (opType.ordinal() * PHASE_COUNT + phase.ordinal()) * SLOT_SIZE;
+	}
+
+	/**
+	 @param startNanos the phase start time returned by {@link System#nanoTime()}
+	 @return the phase end time, may be used as the next phase start time
+	 */
+	public final long record(final OpType opType, final Phase phase, final long startNanos) {
+		final long endNanos = System.nanoTime();
+		final long nanos = endNanos - startNanos;
+		final int offset = slotOffset(opType, phase);
+		slots.incrementAndGet(offset + bucketIndex(nanos));
+		slots.addAndGet(offset + BUCKET_COUNT, nanos);
+		slots.accumulateAndGet(offset + BUCKET_COUNT + 1, nanos, Math::max);
+		return endNanos;
+	}
+
+	/**
+	 Logs the histograms recorded since the previous report and resets them.
+	 */
+	public final void report() {
+		final var counts = new long[BUCKET_COUNT];
+		final var s = new StringBuilder();
+		for (final var opType : OpType.values()) {
+			for (final var phase : Phase.values()) {
+				final int offset = slotOffset(opType, phase);
+				long count = 0;
+				for (var i = 0; i < BUCKET_COUNT; i++) {
+					counts[i] = slots.getAndSet(offset + i, 0);
+					count += counts[i];
+				}
+				final long sum = slots.getAndSet(offset + BUCKET_COUNT, 0);
+				final long max = slots.getAndSet(offset + BUCKET_COUNT + 1, 0);
+				if (count > 0) {
+					s
+									.append("\n\t")
+									.append(opType.name().toLowerCase())
+									.append(' ')
+									.append(phase.name().toLowerCase())
+									.append(": count=")
+									.append(count)
+									.append(", mean=");
+					appendMicros(s, sum / count);
+					for (var i = 0; i < QUANTILES.length; i++) {
+						s.append(", ").append(QUANTILE_NAMES[i]).append('=');
+						appendMicros(s, quantile(counts, count, QUANTILES[i]));
+					}
+					s.append(", max=");
+					appendMicros(s, max);
+				}
+			}
+		}
+		if (s.length() > 0) {
+			Loggers.MSG.info("{}: invocation phases timing:{}", name, s);
+		}
+	}
+
+	// the phases like the path resolution take less than a microsecond
+	private static void appendMicros(final StringBuilder s, final long nanos) {
+		s.append(nanos / 1000).append('.').append(nanos % 1000 / 100).append("us");
+	}
+
+	private static long quantile(final long[] counts, final long count, final double q) {
+		final long rank = (long) Math.ceil(q * count);
+		long seen = 0;
+		for (var i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return bucketValue(i);
+			}
+		}
+		return bucketValue(counts.length - 1);
+	}
+
+	@Override
+	public final void close() {
+		if (reportExecutor != null) {
+			reportExecutor.shutdownNow();
+		}
+		report();
+	}
+}
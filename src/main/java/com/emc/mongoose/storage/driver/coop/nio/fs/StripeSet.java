@@ -0,0 +1,224 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+The set of the root directories (e.g. the mount points of the different devices) the items are striped across. The
+item path is resolved as usual (the output/input path, the fan-out layout) into the logical path which is then put
+under the chosen root: the logical path "/out/item1" becomes "/mnt/nvme0/out/item1" on the "/mnt/nvme0" root. The
+root is chosen by the file name hash or round-robin for the new files. The hash mode resolves the existing file
+without any I/O, the round-robin mode probes the roots until the file is found.
+Each root has its own in-flight operations limit and the operations, bytes and latency counters.
+*/
+public final class StripeSet {
+
+	public enum Mode {
+
+		HASH, ROUNDROBIN;
+
+		public static Mode of(final String name) {
+			for (final var mode : values()) {
+				if (mode.name().equalsIgnoreCase(name)) {
+					return mode;
+				}
+			}
+			throw new IllegalArgumentException("Unknown stripe mode: \"" + name + "\"");
+		}
+	}
+
+	public static final class Stripe {
+
+		private final Path root;
+		private final int inFlightLimit;
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final LongAdder opCount = new LongAdder();
+		private final LongAdder byteCount = new LongAdder();
+		private final LongAdder latencySum = new LongAdder();
+		private final AtomicLong latencyMax = new AtomicLong();
+		private final long startNanos = System.nanoTime();
+
+		private Stripe(final Path root, final int inFlightLimit) {
+			this.root = root;
+			this.inFlightLimit = inFlightLimit;
+		}
+
+		public final Path root() {
+			return root;
+		}
+
+		public final int inFlight() {
+			return inFlight.get();
+		}
+
+		public final long opCount() {
+			return opCount.sum();
+		}
+
+		public final long byteCount() {
+			return byteCount.sum();
+		}
+
+		/**
+		 @return false if the in-flight operations limit is reached
+		 */
+		private boolean tryAcquire() {
+			if (inFlightLimit < 1) {
+				inFlight.incrementAndGet();
+				return true;
+			}
+			int n;
+			do {
+				n = inFlight.get();
+				if (n >= inFlightLimit) {
+					return false;
+				}
+			} while (!inFlight.compareAndSet(n, n + 1));
+			return true;
+		}
+
+		private void release(final long bytes, final long latencyNanos) {
+			inFlight.decrementAndGet();
+			opCount.increment();
+			byteCount.add(bytes);
+			latencySum.add(latencyNanos);
+			long max;
+			do {
+				max = latencyMax.get();
+			} while (latencyNanos > max && !latencyMax.compareAndSet(max, latencyNanos));
+		}
+
+		@Override
+		public final String toString() {
+			final long ops = opCount();
+			final long bytes = byteCount();
+			final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+			return String.format(
+							"\"%s\": in-flight: %d, ops: %d, bytes: %d, throughput: %.3f MB/s, latency mean: %dus, max: %dus",
+							root, inFlight(), ops, bytes, elapsedSeconds > 0 ? bytes / elapsedSeconds / 0x10_00_00 : 0,
+							ops > 0 ? latencySum.sum() / ops / 1000 : 0, latencyMax.get() / 1000);
+		}
+	}
+
+	/**
+	 The in-flight operation's hold on the stripe.
+	 */
+	public static final class Lease {
+
+		private final Stripe stripe;
+		private final long startNanos;
+
+		private Lease(final Stripe stripe) {
+			this.stripe = stripe;
+			this.startNanos = System.nanoTime();
+		}
+
+		public final Stripe stripe() {
+			return stripe;
+		}
+	}
+
+	private final Stripe[] stripes;
+	private final Mode mode;
+	private final AtomicInteger nextIdx = new AtomicInteger();
+
+	/**
+	 @param roots the root directories, should not be empty
+	 @param mode the way the root is chosen for the new file
+	 @param inFlightLimit the max count of the in-flight operations per root, 0 means no limit
+	 */
+	public StripeSet(final List<Path> roots, final Mode mode, final int inFlightLimit) {
+		if (roots.isEmpty()) {
+			throw new IllegalArgumentException("No stripe roots");
+		}
+		if (inFlightLimit < 0) {
+			throw new IllegalArgumentException("In-flight limit should not be negative: " + inFlightLimit);
+		}
+		stripes = new Stripe[roots.size()];
+		for (var i = 0; i < stripes.length; i++) {
+			stripes[i] = new Stripe(roots.get(i), inFlightLimit);
+		}
+		this.mode = mode;
+	}
+
+	public final int size() {
+		return stripes.length;
+	}
+
+	public final Stripe get(final int idx) {
+		return stripes[idx];
+	}
+
+	/**
+	 @return the stripe for the new file
+	 */
+	public final Stripe select(final Path logicalPath) {
+		if (Mode.HASH.equals(mode)) {
+			return hashStripe(logicalPath);
+		} else {
+			return stripes[Math.floorMod(nextIdx.getAndIncrement(), stripes.length)];
+		}
+	}
+
+	/**
+	 @return the stripe containing the existing file, the hash stripe if the file is not found
+	 */
+	public final Stripe locate(final Path logicalPath) {
+		if (Mode.ROUNDROBIN.equals(mode)) {
+			for (final var stripe : stripes) {
+				if (Files.exists(path(stripe, logicalPath), LinkOption.NOFOLLOW_LINKS)) {
+					return stripe;
+				}
+			}
+		}
+		return hashStripe(logicalPath);
+	}
+
+	/**
+	 @return the lease on the given stripe, null if the stripe's in-flight operations limit is reached
+	 */
+	public final Lease tryAcquire(final Stripe stripe) {
+		return stripe.tryAcquire() ? new Lease(stripe) : null;
+	}
+
+	/**
+	 @param bytes the count of the bytes transferred by the operation
+	 */
+	public final void release(final Lease lease, final long bytes) {
+		lease.stripe.release(bytes, System.nanoTime() - lease.startNanos);
+	}
+
+	private Stripe hashStripe(final Path logicalPath) {
+		final var fileName = logicalPath.getFileName();
+		final int h = fileName == null ? 0 : fileName.toString().hashCode();
+		// spread the sequential names' hashes
+		return stripes[Math.floorMod(h ^ (h >>> 16), stripes.length)];
+	}
+
+	/**
+	 @return the physical path of the given logical path under the stripe's root
+	 */
+	public static Path path(final Stripe stripe, final Path logicalPath) {
+		final var root = logicalPath.getRoot();
+		return stripe.root.resolve(root == null ? logicalPath : root.relativize(logicalPath));
+	}
+
+	/**
+	 @return the logical path name of the given physical path under the stripe's root
+	 */
+	public static String logicalName(final Stripe stripe, final String physicalPath, final boolean absolute) {
+		final var physicalPathObj = stripe.root.getFileSystem().getPath(physicalPath);
+		final var relPath = stripe.root.relativize(physicalPathObj).toString();
+		return absolute ? stripe.root.getFileSystem().getSeparator() + relPath : relPath;
+	}
+
+	@Override
+	public final String toString() {
+		return mode.name().toLowerCase() + " over " + stripes.length + " roots";
+	}
+}
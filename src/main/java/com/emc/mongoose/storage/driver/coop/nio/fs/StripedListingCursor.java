@@ -0,0 +1,170 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.Item;
+import com.emc.mongoose.base.item.ItemFactory;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+The listing cursor over the same directory under each root of the {@link StripeSet}. The roots are listed one by one
+in order by the cursors opened for the physical directory paths, the listed item names are mapped back to the logical
+paths. The rescan doesn't need to list the preceding roots: the root of the last previous item is located the same way
+as for any other operation.
+*/
+public final class StripedListingCursor
+				implements ListingCursor {
+
+	@FunctionalInterface
+	public interface CursorOpener {
+
+		/**
+		 @param path the physical directory path
+		 @return the cursor listing the directory
+		 */
+		ListingCursor open(final String path)
+						throws IOException;
+	}
+
+	private final StripeSet stripes;
+	private final Path logicalDirPath;
+	private final CursorOpener cursorOpener;
+	private int nextStripeIdx = 0;
+	private StripeSet.Stripe stripe = null;
+	private ListingCursor stripeCursor = null;
+	private String lastItemName = null;
+	private boolean exhausted = false;
+
+	/**
+	 @param stripes the stripe set
+	 @param logicalDirPath the logical path of the listed directory
+	 @param cursorOpener the function opening the cursor for the directory under the root
+	 */
+	public StripedListingCursor(final StripeSet stripes, final Path logicalDirPath, final CursorOpener cursorOpener) {
+		this.stripes = stripes;
+		this.logicalDirPath = logicalDirPath;
+		this.cursorOpener = cursorOpener;
+	}
+
+	/**
+	 @return false if there are no more roots
+	 */
+	private boolean openNextStripe()
+					throws IOException {
+		while (nextStripeIdx < stripes.size()) {
+			final var nextStripe = stripes.get(nextStripeIdx++);
+			try {
+				stripeCursor = cursorOpener.open(StripeSet.path(nextStripe, logicalDirPath).toString());
+				stripe = nextStripe;
+				return true;
+			} catch (final NoSuchFileException e) {
+				// the directory is not created under this root yet, continue
+			}
+		}
+		return false;
+	}
+
+	private void closeStripe()
+					throws IOException {
+		if (stripeCursor != null) {
+			try {
+				stripeCursor.close();
+			} finally {
+				stripeCursor = null;
+				stripe = null;
+			}
+		}
+	}
+
+	@Override
+	public final boolean resumesAfter(final Item lastPrevItem) {
+		if (lastPrevItem == null) {
+			return lastItemName == null;
+		} else {
+			return lastPrevItem.name().equals(lastItemName);
+		}
+	}
+
+	@Override
+	public final boolean skipTo(final Item lastPrevItem)
+					throws IOException {
+		if (lastPrevItem != null) {
+			final var lastPrevItemName = lastPrevItem.name();
+			final var logicalItemPath = logicalDirPath.getFileSystem().getPath(lastPrevItemName);
+			closeStripe();
+			final var lastPrevStripe = stripes.locate(logicalItemPath);
+			for (var i = 0; i < stripes.size(); i++) {
+				if (stripes.get(i) == lastPrevStripe) {
+					nextStripeIdx = i;
+					break;
+				}
+			}
+			if (openNextStripe()) {
+				// the stripe cursor compares the physical names
+				lastPrevItem.name(StripeSet.path(stripe, logicalItemPath).toString());
+				final boolean found;
+				try {
+					found = stripeCursor.skipTo(lastPrevItem);
+				} finally {
+					lastPrevItem.name(lastPrevItemName);
+				}
+				if (found) {
+					lastItemName = lastPrevItemName;
+					return true;
+				}
+			}
+			closeStripe();
+			exhausted = true;
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public final <I extends Item> List<I> next(final ItemFactory<I> itemFactory, final int idRadix, final int count)
+					throws IOException {
+		final var absolute = logicalDirPath.isAbsolute();
+		List<I> buff = null;
+		while (buff == null || buff.size() < count) {
+			if (stripeCursor == null && !openNextStripe()) {
+				exhausted = true;
+				break;
+			}
+			final List<I> stripeItems = stripeCursor.next(
+							itemFactory, idRadix, buff == null ? count : count - buff.size());
+			for (final var item : stripeItems) {
+				item.name(StripeSet.logicalName(stripe, item.name(), absolute));
+			}
+			if (buff == null) {
+				buff = stripeItems;
+			} else {
+				buff.addAll(stripeItems);
+			}
+			if (stripeCursor.exhausted()) {
+				closeStripe();
+				if (nextStripeIdx == stripes.size()) {
+					exhausted = true;
+					break;
+				}
+			}
+		}
+		if (buff != null && !buff.isEmpty()) {
+			lastItemName = buff.get(buff.size() - 1).name();
+		}
+		return buff == null ? new ArrayList<>(0) : buff;
+	}
+
+	@Override
+	public final boolean exhausted() {
+		return exhausted;
+	}
+
+	@Override
+	public final void close()
+					throws IOException {
+		closeStripe();
+	}
+}
@@ -0,0 +1,231 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.Item;
+import com.emc.mongoose.base.item.ItemFactory;
+import com.emc.mongoose.base.logging.LogUtil;
+
+import org.apache.logging.log4j.Level;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SecureDirectoryStream;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import static com.emc.mongoose.base.Exceptions.throwUncheckedIfInterrupted;
+
+/**
+The listing cursor walking the directory tree in parallel on the fork-join pool. The files found are put into the
+bounded queue, so the walkers are blocked while the listing consumer is behind. The prefix filter is applied to the
+file names in each directory, the subdirectories are walked regardless of the prefix.
+The order of the files listed is not deterministic, so the rescan (the cursor is lost) may only skip the entries until
+the last previous item is met again.
+*/
+public final class TreeListingCursor
+				implements ListingCursor {
+
+	private static final int QUEUE_CAPACITY = 0x10000;
+	private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+	private static final class Entry {
+
+		private final String name;
+		private final long size;
+
+		private Entry(final String name, final long size) {
+			this.name = name;
+			this.size = size;
+		}
+	}
+
+	private static final Entry END = new Entry(null, 0);
+
+	private final DirectoryStream.Filter<Path> filter;
+	private final int prefixLength;
+	private final ForkJoinPool walkPool;
+	private final BlockingQueue<Entry> entries = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private volatile boolean closed = false;
+	private String lastItemName = null;
+	private boolean exhausted = false;
+
+	/**
+	 @param path the root directory path
+	 @param prefix the file name prefix, may be null
+	 @param parallelism the count of the threads walking the tree
+	 @param excludedFileName the file name which should not be listed in any directory, may be null
+	 */
+	public TreeListingCursor(
+					final String path, final String prefix, final int parallelism, final String excludedFileName) {
+		this(Paths.get(path), prefix, parallelism, excludedFileName);
+	}
+
+	/**
+	 @param dirPath the root directory path on any file system
+	 @param prefix the file name prefix, may be null
+	 @param parallelism the count of the threads walking the tree
+	 @param excludedFileName the file name which should not be listed in any directory, may be null
+	 */
+	public TreeListingCursor(
+					final Path dirPath, final String prefix, final int parallelism, final String excludedFileName) {
+		filter = ListingHelper.filter(prefix, excludedFileName);
+		prefixLength = (prefix == null || prefix.isEmpty()) ? 0 : prefix.length();
+		walkPool = new ForkJoinPool(parallelism);
+		final var rootTask = new DirWalkTask(dirPath.toAbsolutePath());
+		walkPool.execute(
+						() -> {
+							try {
+								rootTask.invoke();
+							} catch (final CancellationException ignored) {
+								// closed
+							} finally {
+								put(END);
+							}
+						});
+	}
+
+	private final class DirWalkTask
+					extends RecursiveAction {
+
+		private final Path dirPath;
+
+		private DirWalkTask(final Path dirPath) {
+			this.dirPath = dirPath;
+		}
+
+		@Override
+		protected final void compute() {
+			final List<DirWalkTask> subTasks = new ArrayList<>();
+			try (final DirectoryStream<Path> dirStream = dirPath.getFileSystem().provider().newDirectoryStream(
+							dirPath, ListingHelper.ACCEPT_ALL_PATHS_FILTER)) {
+				final SecureDirectoryStream<Path> secureDirStream;
+				if (dirStream instanceof SecureDirectoryStream) {
+					secureDirStream = (SecureDirectoryStream<Path>) dirStream;
+				} else {
+					secureDirStream = null;
+				}
+				BasicFileAttributes attrs;
+				for (final Path entryPath : dirStream) {
+					if (closed) {
+						break;
+					}
+					try {
+						if (secureDirStream == null) {
+							attrs = entryPath.getFileSystem().provider().readAttributes(
+											entryPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+						} else {
+							// read the attributes relative to the open directory handle
+							attrs = secureDirStream
+											.getFileAttributeView(
+															entryPath.getFileName(), BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS)
+											.readAttributes();
+						}
+					} catch (final IOException e) {
+						continue; // deleted meanwhile
+					}
+					if (attrs.isDirectory()) {
+						final var subTask = new DirWalkTask(entryPath);
+						subTask.fork();
+						subTasks.add(subTask);
+					} else if (attrs.isRegularFile() && filter.accept(entryPath)) {
+						put(new Entry(entryPath.toString(), attrs.size()));
+					}
+				}
+			} catch (final IOException | DirectoryIteratorException e) {
+				LogUtil.exception(Level.WARN, e, "Failed to list the directory \"{}\"", dirPath);
+			}
+			for (final var subTask : subTasks) {
+				subTask.join();
+			}
+		}
+	}
+
+	private void put(final Entry entry) {
+		try {
+			while (!closed) {
+				if (entries.offer(entry, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+					break;
+				}
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public final boolean resumesAfter(final Item lastPrevItem) {
+		if (lastPrevItem == null) {
+			return lastItemName == null;
+		} else {
+			return lastPrevItem.name().equals(lastItemName);
+		}
+	}
+
+	@Override
+	public final boolean skipTo(final Item lastPrevItem) {
+		if (lastPrevItem != null) {
+			final var lastPrevItemName = lastPrevItem.name();
+			try {
+				Entry entry;
+				while (!exhausted) {
+					entry = entries.take();
+					if (entry == END) {
+						exhausted = true;
+					} else if (entry.name.equals(lastPrevItemName)) {
+						lastItemName = lastPrevItemName;
+						return true;
+					}
+				}
+			} catch (final InterruptedException e) {
+				throwUncheckedIfInterrupted(e);
+			}
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public final <I extends Item> List<I> next(final ItemFactory<I> itemFactory, final int idRadix, final int count) {
+		final List<I> buff = new ArrayList<>(count);
+		try {
+			Entry entry;
+			I nextItem;
+			while (buff.size() < count && !exhausted) {
+				entry = entries.take();
+				if (entry == END) {
+					exhausted = true;
+				} else {
+					nextItem = ListingHelper.item(itemFactory, entry.name, entry.size, prefixLength, idRadix);
+					buff.add(nextItem);
+					lastItemName = nextItem.name();
+				}
+			}
+		} catch (final InterruptedException e) {
+			throwUncheckedIfInterrupted(e);
+		}
+		return buff;
+	}
+
+	@Override
+	public final boolean exhausted() {
+		return exhausted;
+	}
+
+	@Override
+	public final void close() {
+		closed = true;
+		walkPool.shutdownNow();
+		entries.clear();
+	}
+}
@@ -0,0 +1,377 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataCorruptionException;
+import com.emc.mongoose.base.data.DataSizeException;
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.op.Operation;
+import com.emc.mongoose.base.item.op.data.DataOperation;
+import com.emc.mongoose.base.logging.Loggers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+import static com.emc.mongoose.base.item.DataItem.rangeCount;
+import static com.emc.mongoose.base.item.DataItem.rangeOffset;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.advanceFixedRanges;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.advanceMarkedRanges;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.markedRangesRunEnd;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.rangesSize;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.seekMarkedRange;
+import static com.emc.mongoose.storage.driver.coop.nio.fs.FileIoHelper.verifyCells;
+
+/**
+The transfer methods moving several buffers per system call (the scattering read and the gathering write), so a single
+invocation transfers up to the given count of the buffers and bytes instead of a single buffer. The buffers are split at
+the item's range boundaries where the content is generated or verified range by range.
+*/
+public interface VectorIoHelper {
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeCreate(
+					final I fileItem, final O op, final FileChannel dstChannel, final int buffSize, final int vectorCount,
+					final long vectorSize) throws IOException {
+		long countBytesDone = op.countBytesDone();
+		final long contentSize = fileItem.size();
+		if (countBytesDone < contentSize && Operation.Status.ACTIVE.equals(op.status())) {
+			final var vector = IoVector.threadLocal(vectorCount, vectorSize);
+			vector.addAll(contentSize - countBytesDone, buffSize);
+			fileItem.position(countBytesDone);
+			for (var i = 0; i < vector.count(); i++) {
+				fill(vector.buff(i), fileItem);
+			}
+			vector.flip();
+			countBytesDone += vector.write(dstChannel);
+			op.countBytesDone(countBytesDone);
+		}
+		return countBytesDone >= contentSize;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeOverwrite(
+					final I fileItem, final O op, final FileChannel dstChannel, final int buffSize, final int vectorCount,
+					final long vectorSize) throws IOException {
+		if (op.countBytesDone() == 0) {
+			dstChannel.position(0);
+		}
+		return invokeCreate(fileItem, op, dstChannel, buffSize, vectorCount, vectorSize);
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeRead(
+					final I fileItem, final O op, final FileChannel srcChannel, final int buffSize, final int vectorCount,
+					final long vectorSize) throws IOException {
+		long countBytesDone = op.countBytesDone();
+		final long contentSize = fileItem.size();
+		if (countBytesDone < contentSize) {
+			final var vector = IoVector.threadLocal(vectorCount, vectorSize);
+			vector.addAll(contentSize - countBytesDone, buffSize);
+			final long n = vector.read(srcChannel, countBytesDone);
+			if (n < 0) {
+				op.countBytesDone(countBytesDone);
+				fileItem.size(countBytesDone);
+				return true;
+			} else {
+				countBytesDone += n;
+				op.countBytesDone(countBytesDone);
+			}
+		}
+		return countBytesDone == contentSize;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadAndVerify(
+					final I fileItem, final O op, final FileChannel srcChannel, final int buffSize, final int vectorCount,
+					final long vectorSize) throws DataSizeException, DataCorruptionException, IOException {
+		long countBytesDone = op.countBytesDone();
+		final long contentSize = fileItem.size();
+		if (countBytesDone < contentSize) {
+			final boolean updated = fileItem.isUpdated();
+			final var vector = IoVector.threadLocal(vectorCount, vectorSize);
+			if (updated) {
+				addRangeBounded(vector, countBytesDone, contentSize, buffSize);
+			} else {
+				vector.addAll(contentSize - countBytesDone, buffSize);
+			}
+			final long n = vector.read(srcChannel, countBytesDone);
+			if (n < 0) {
+				throw new DataSizeException(contentSize, countBytesDone);
+			}
+			vector.flip();
+			// the offset relative to the operation's done bytes counter
+			long buffOffset = 0;
+			DataItem src = fileItem;
+			for (var i = 0; i < vector.count() && buffOffset < n; i++) {
+				final var buff = vector.buff(i);
+				final int m = buff.remaining();
+				if (updated) {
+					src = op.currRange();
+					if (src == null) {
+						throw new AssertionError("Null data range");
+					}
+				}
+				try {
+					src.verify(buff);
+				} catch (final DataCorruptionException e) {
+					throw new DataCorruptionException(buffOffset + e.getOffset(), e.expected, e.actual);
+				}
+				src.position(src.position() + m);
+				buffOffset += m;
+				if (updated) {
+					final int nextRangeIdx = op.currRangeIdx() + 1;
+					if (countBytesDone + buffOffset == rangeOffset(nextRangeIdx)) {
+						op.currRangeIdx(nextRangeIdx);
+					}
+				}
+			}
+			countBytesDone += n;
+			op.countBytesDone(countBytesDone);
+		}
+		return countBytesDone >= contentSize;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadRandomRanges(
+					final I fileItem, final O op, final FileChannel srcChannel, final BitSet maskRangesPair[],
+					final int buffSize, final int vectorCount, final long vectorSize) throws IOException {
+		final long countBytesDone = op.countBytesDone();
+		final long rangesSizeSum = op.markedRangesSize();
+		if (rangesSizeSum > 0 && rangesSizeSum > countBytesDone) {
+			final long itemSize = fileItem.size();
+			final int rangeCount = rangeCount(itemSize);
+			final int currRangeIdx = seekMarkedRange(op, maskRangesPair, rangeCount);
+			if (currRangeIdx < 0) {
+				op.countBytesDone(rangesSizeSum);
+				return true;
+			}
+			final int runEndIdx = markedRangesRunEnd(maskRangesPair, currRangeIdx, rangeCount);
+			final long runEnd = Math.min(itemSize, rangeOffset(runEndIdx));
+			final long currPos = rangeOffset(currRangeIdx) + countBytesDone;
+			final var vector = IoVector.threadLocal(vectorCount, vectorSize);
+			vector.addAll(runEnd - currPos, buffSize);
+			final long n = vector.read(srcChannel, currPos);
+			if (n < 0) {
+				op.countBytesDone(countBytesDone);
+				return true;
+			}
+			return advanceMarkedRanges(
+							op, maskRangesPair, currRangeIdx, runEndIdx, runEnd, currPos + n, rangeCount, rangesSizeSum);
+		}
+		return true;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadAndVerifyRandomRanges(
+					final I fileItem, final O op, final FileChannel srcChannel, final BitSet maskRangesPair[],
+					final int buffSize, final int vectorCount, final long vectorSize) throws DataSizeException,
+					DataCorruptionException, IOException {
+		final long countBytesDone = op.countBytesDone();
+		final long rangesSizeSum = op.markedRangesSize();
+		if (rangesSizeSum > 0 && rangesSizeSum > countBytesDone) {
+			final long itemSize = fileItem.size();
+			final int rangeCount = rangeCount(itemSize);
+			final int currRangeIdx = seekMarkedRange(op, maskRangesPair, rangeCount);
+			if (currRangeIdx < 0) {
+				op.countBytesDone(rangesSizeSum);
+				return true;
+			}
+			final int runEndIdx = markedRangesRunEnd(maskRangesPair, currRangeIdx, rangeCount);
+			final long runEnd = Math.min(itemSize, rangeOffset(runEndIdx));
+			final long currPos = rangeOffset(currRangeIdx) + countBytesDone;
+			final var vector = IoVector.threadLocal(vectorCount, vectorSize);
+			addRangeBounded(vector, currPos, runEnd, buffSize);
+			final long n = vector.read(srcChannel, currPos);
+			if (n < 0) {
+				throw new DataSizeException(rangesSizeSum, countBytesDone);
+			}
+			vector.flip();
+			// each buffer belongs to a single range, the adjacent ranges may belong to the different layers
+			int rangeIdx = currRangeIdx;
+			long rangePos = countBytesDone;
+			long buffOffset = currPos;
+			for (var i = 0; i < vector.count() && buffOffset < currPos + n; i++) {
+				final var buff = vector.buff(i);
+				final int m = buff.remaining();
+				if (rangeIdx != op.currRangeIdx()) {
+					op.currRangeIdx(rangeIdx);
+				}
+				final DataItem range2read = op.currRange();
+				range2read.position(rangePos);
+				try {
+					range2read.verify(buff);
+				} catch (final DataCorruptionException e) {
+					throw new DataCorruptionException(buffOffset + e.getOffset() - countBytesDone, e.expected, e.actual);
+				}
+				range2read.position(rangePos + m);
+				buffOffset += m;
+				rangePos += m;
+				if (rangePos == range2read.size()) {
+					rangeIdx ++;
+					rangePos = 0;
+				}
+			}
+			return advanceMarkedRanges(
+							op, maskRangesPair, currRangeIdx, runEndIdx, runEnd, currPos + n, rangeCount, rangesSizeSum);
+		}
+		return true;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeRandomRangesUpdate(
+					final I fileItem, final O op, final FileChannel dstChannel, final int buffSize, final int vectorCount,
+					final long vectorSize) throws IOException {
+		final long countBytesDone = op.countBytesDone();
+		final long updatingRangesSize = op.markedRangesSize();
+		if (updatingRangesSize > 0 && updatingRangesSize > countBytesDone) {
+			final BitSet[] maskRangesPair = op.markedRangesMaskPair();
+			final long itemSize = fileItem.size();
+			final int rangeCount = rangeCount(itemSize);
+			final int currRangeIdx = seekMarkedRange(op, maskRangesPair, rangeCount);
+			if (currRangeIdx < 0) {
+				op.countBytesDone(updatingRangesSize);
+				return true;
+			}
+			final int runEndIdx = markedRangesRunEnd(maskRangesPair, currRangeIdx, rangeCount);
+			final long runEnd = Math.min(itemSize, rangeOffset(runEndIdx));
+			final long currPos = rangeOffset(currRangeIdx) + countBytesDone;
+			final var vector = IoVector.threadLocal(vectorCount, vectorSize);
+			addRangeBounded(vector, currPos, runEnd, buffSize);
+			// each buffer is filled with the content of a single range
+			int rangeIdx = currRangeIdx;
+			long rangePos = countBytesDone;
+			for (var i = 0; i < vector.count(); i++) {
+				final var buff = vector.buff(i);
+				if (rangeIdx != op.currRangeIdx()) {
+					op.currRangeIdx(rangeIdx);
+				}
+				final DataItem updatingRange = op.currRangeUpdate();
+				updatingRange.position(rangePos);
+				rangePos += buff.remaining();
+				fill(buff, updatingRange);
+				if (rangePos == updatingRange.size()) {
+					rangeIdx ++;
+					rangePos = 0;
+				}
+			}
+			vector.flip();
+			final long n = vector.write(dstChannel, currPos);
+			if (Loggers.MSG.isTraceEnabled()) {
+				Loggers.MSG.trace(
+								"{}: {} bytes written @ position {}, ranges [{}, {})", fileItem.name(), n, currPos,
+								currRangeIdx, runEndIdx);
+			}
+			return advanceMarkedRanges(
+							op, maskRangesPair, currRangeIdx, runEndIdx, runEnd, currPos + n, rangeCount, updatingRangesSize);
+		} else {
+			fileItem.commitUpdatedRanges(op.markedRangesMaskPair());
+			return true;
+		}
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadFixedRanges(
+					final I fileItem, final O op, final FileChannel srcChannel, final long[] ranges,
+					final int buffSize, final int vectorCount, final long vectorSize) throws IOException {
+		final long countBytesDone = op.countBytesDone();
+		final long rangesSizeSum = rangesSize(ranges);
+		if (rangesSizeSum > 0 && rangesSizeSum > countBytesDone) {
+			final int currRangeIdx = op.currRangeIdx();
+			if (2 * currRangeIdx < ranges.length) {
+				final long rangeBeg = ranges[2 * currRangeIdx];
+				final long rangeSize = ranges[2 * currRangeIdx + 1] - rangeBeg;
+				final var vector = IoVector.threadLocal(vectorCount, vectorSize);
+				vector.addAll(rangeSize - countBytesDone, buffSize);
+				final long n = vector.read(srcChannel, rangeBeg + countBytesDone);
+				if (n < 0) {
+					op.countBytesDone(countBytesDone);
+					return true;
+				}
+				return advanceFixedRanges(op, ranges, currRangeIdx, countBytesDone + n, rangeSize, rangesSizeSum);
+			} else {
+				op.countBytesDone(rangesSizeSum);
+			}
+		}
+		return true;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeReadAndVerifyFixedRanges(
+					final I fileItem, final O op, final FileChannel srcChannel, final long[] ranges,
+					final int buffSize, final int vectorCount, final long vectorSize) throws DataSizeException,
+					DataCorruptionException, IOException {
+		final long fixedRangesSizeSum = rangesSize(ranges);
+		// "countBytesDone" is the current (coalesced) range done bytes counter here
+		final long rangeBytesDone = op.countBytesDone();
+		if (fixedRangesSizeSum > 0 && fixedRangesSizeSum > rangeBytesDone) {
+			final int currRangeIdx = op.currRangeIdx();
+			if (2 * currRangeIdx < ranges.length) {
+				final long rangeBeg = ranges[2 * currRangeIdx];
+				final long rangeSize = ranges[2 * currRangeIdx + 1] - rangeBeg;
+				final var vector = IoVector.threadLocal(vectorCount, vectorSize);
+				vector.addAll(rangeSize - rangeBytesDone, buffSize);
+				final long n = vector.read(srcChannel, rangeBeg + rangeBytesDone);
+				if (n < 0) {
+					throw new DataSizeException(fixedRangesSizeSum, rangeBytesDone);
+				}
+				vector.flip();
+				long buffOffset = rangeBeg + rangeBytesDone;
+				for (var i = 0; i < vector.count(); i++) {
+					final var buff = vector.buff(i);
+					final int m = buff.remaining();
+					verifyCells(fileItem, buff, buffOffset, rangeBytesDone);
+					buffOffset += m;
+				}
+				return advanceFixedRanges(op, ranges, currRangeIdx, rangeBytesDone + n, rangeSize, fixedRangesSizeSum);
+			} else {
+				op.countBytesDone(fixedRangesSizeSum);
+			}
+		}
+		return true;
+	}
+
+	static <I extends DataItem, O extends DataOperation<I>> boolean invokeFixedRangesUpdate(
+					final I fileItem, final O op, final FileChannel dstChannel, final long[] ranges,
+					final int buffSize, final int vectorCount, final long vectorSize) throws IOException {
+		final long countBytesDone = op.countBytesDone();
+		final long updatingRangesSize = rangesSize(ranges);
+		if (updatingRangesSize > 0 && updatingRangesSize > countBytesDone) {
+			final int currRangeIdx = op.currRangeIdx();
+			if (2 * currRangeIdx < ranges.length) {
+				final long rangeBeg = ranges[2 * currRangeIdx];
+				final long rangeSize = ranges[2 * currRangeIdx + 1] - rangeBeg;
+				final DataItem updatingRange = fileItem.slice(rangeBeg, rangeSize);
+				updatingRange.position(countBytesDone);
+				final var vector = IoVector.threadLocal(vectorCount, vectorSize);
+				vector.addAll(rangeSize - countBytesDone, buffSize);
+				for (var i = 0; i < vector.count(); i++) {
+					fill(vector.buff(i), updatingRange);
+				}
+				vector.flip();
+				final long n = vector.write(dstChannel, rangeBeg + countBytesDone);
+				return advanceFixedRanges(op, ranges, currRangeIdx, countBytesDone + n, rangeSize, updatingRangesSize);
+			} else {
+				op.countBytesDone(updatingRangesSize);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 Appends the buffers covering the given item region, the buffers are also split at the item's range boundaries.
+	 */
+	private static void addRangeBounded(final IoVector vector, final long from, final long to, final int buffSize) {
+		long offset = from;
+		int rangeIdx = rangeCount(from + 1) - 1;
+		while (offset < to && !vector.isFull()) {
+			final long rangeEnd = Math.min(to, rangeOffset(rangeIdx + 1));
+			offset += vector.add(Math.min(rangeEnd - offset, buffSize));
+			if (offset == rangeEnd) {
+				rangeIdx ++;
+			}
+		}
+	}
+
+	/**
+	 Fills the buffer with the data item content starting from the item's current position.
+	 */
+	private static void fill(final ByteBuffer buff, final DataItem src)
+					throws IOException {
+		while (buff.hasRemaining()) {
+			if (src.read(buff) <= 0) {
+				break;
+			}
+		}
+	}
+}
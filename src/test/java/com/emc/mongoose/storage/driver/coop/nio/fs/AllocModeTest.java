@@ -0,0 +1,103 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class AllocModeTest {
+
+	// larger than the zero buffer and not aligned
+	private static final long FILE_SIZE = 0x10_00_00 * 2 + 0x1234;
+
+	private Path tmpDirPath = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	@Test
+	public final void testOf()
+					throws Exception {
+		assertEquals(AllocMode.NONE, AllocMode.of("none"));
+		assertEquals(AllocMode.PREALLOC, AllocMode.of("prealloc"));
+		assertEquals(AllocMode.SPARSE, AllocMode.of("Sparse"));
+		try {
+			AllocMode.of("fallocate");
+			fail();
+		} catch (final IllegalArgumentException ignored) {
+		}
+	}
+
+	private Path allocate(final AllocMode allocMode, final long size)
+					throws IOException {
+		final var filePath = tmpDirPath.resolve(allocMode.name());
+		try (final var channel = FileChannel.open(filePath, FsConstants.CREATE_OPEN_OPT)) {
+			allocMode.allocate(filePath, channel, size);
+			// the position is not changed
+			assertEquals(0, channel.position());
+			// the content is written over the allocated space
+			channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+		}
+		return filePath;
+	}
+
+	@Test
+	public final void testAllocate()
+					throws Exception {
+		assertEquals(3, Files.size(allocate(AllocMode.NONE, FILE_SIZE)));
+		for (final var allocMode : new AllocMode[] { AllocMode.PREALLOC, AllocMode.SPARSE }) {
+			final var filePath = allocate(allocMode, FILE_SIZE);
+			assertEquals(FILE_SIZE, Files.size(filePath));
+			final var content = Files.readAllBytes(filePath);
+			final var expected = new byte[(int) FILE_SIZE];
+			expected[0] = 1;
+			expected[1] = 2;
+			expected[2] = 3;
+			assertArrayEquals(expected, content);
+		}
+		// nothing to allocate
+		assertEquals(3, Files.size(allocate(AllocMode.PREALLOC, 0)));
+	}
+
+	@Test
+	public final void testPreallocateByParts()
+					throws Exception {
+		final var filePath = tmpDirPath.resolve("parts");
+		try (final var channel = FileChannel.open(filePath, FsConstants.CREATE_OPEN_OPT)) {
+			assertFalse(AllocMode.PREALLOC.allocateNext(filePath, channel, FILE_SIZE));
+			assertEquals(0x10_00_00, channel.size());
+			assertFalse(AllocMode.PREALLOC.allocateNext(filePath, channel, FILE_SIZE));
+			assertEquals(0x10_00_00 * 2, channel.size());
+			assertTrue(AllocMode.PREALLOC.allocateNext(filePath, channel, FILE_SIZE));
+			assertEquals(FILE_SIZE, channel.size());
+			// allocated already
+			assertTrue(AllocMode.PREALLOC.allocateNext(filePath, channel, FILE_SIZE));
+			assertEquals(FILE_SIZE, channel.size());
+			assertEquals(0, channel.position());
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataInput;
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.op.OpType;
+import com.emc.mongoose.base.item.op.Operation;
+import com.emc.mongoose.base.item.op.data.DataOperation;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+The async engine works with the default file system only, so the temp directory is used.
+*/
+public class AsyncFileIoEngineTest {
+
+	private static final int BUFF_SIZE = 0x10000;
+	private static final long ITEM_SIZE = 0x10_0000 + 123;
+	private static final long TIMEOUT_MILLIS = 10_000;
+
+	private Path tmpDirPath = null;
+	private DataInput dataInput = null;
+	private FileSyncer fileSyncer = null;
+	private final AtomicInteger finishCount = new AtomicInteger();
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+		dataInput = TestItems.dataInput();
+		fileSyncer = new FileSyncer(FileSyncer.Mode.NONE, 1, 0);
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		fileSyncer.close();
+		dataInput.close();
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private AsyncFileIoEngine engine(final boolean verifyFlag) {
+		return new AsyncFileIoEngine(
+						4, 2, BUFF_SIZE, verifyFlag, op -> tmpDirPath.resolve(op.item().name()),
+						op -> {
+							finishCount.incrementAndGet();
+							op.status(Operation.Status.SUCC);
+						},
+						fileSyncer);
+	}
+
+	/**
+	 Invokes the operation until it's done as the driver's worker does.
+	 */
+	private static void invoke(final AsyncFileIoEngine engine, final DataOperation<DataItem> op)
+					throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+		while (Operation.Status.ACTIVE.equals(op.status())) {
+			if (System.nanoTime() > deadline) {
+				throw new AssertionError("Timeout while waiting for " + op);
+			}
+			engine.invoke(op);
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	public final void testCreateReadVerify()
+					throws Exception {
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		try (final var engine = engine(true)) {
+			final var createOp = TestItems.op(OpType.CREATE, item, null);
+			invoke(engine, createOp);
+			assertEquals(Operation.Status.SUCC, createOp.status());
+			assertEquals(ITEM_SIZE, createOp.countBytesDone());
+			assertEquals(ITEM_SIZE, Files.size(tmpDirPath.resolve("item")));
+			item.reset();
+			final var readOp = TestItems.op(OpType.READ, item, null);
+			invoke(engine, readOp);
+			assertEquals(Operation.Status.SUCC, readOp.status());
+			assertEquals(ITEM_SIZE, readOp.countBytesDone());
+			assertEquals(0, engine.pendingCount());
+		}
+		assertEquals(2, finishCount.get());
+	}
+
+	@Test
+	public final void testReadVerifyCorrupted()
+					throws Exception {
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		final var filePath = tmpDirPath.resolve("item");
+		TestItems.createFile(filePath, item, BUFF_SIZE);
+		final long corruptOffset = BUFF_SIZE + 0x2345;
+		TestItems.corrupt(filePath, corruptOffset);
+		try (final var engine = engine(true)) {
+			final var readOp = TestItems.op(OpType.READ, item, null);
+			invoke(engine, readOp);
+			assertEquals(Operation.Status.RESP_FAIL_CORRUPT, readOp.status());
+			// the corrupted byte offset is reported
+			assertEquals(corruptOffset, readOp.countBytesDone());
+		}
+		assertEquals(0, finishCount.get());
+	}
+
+	@Test
+	public final void testReadMissingFile()
+					throws Exception {
+		final var item = TestItems.item(dataInput, "missing", ITEM_SIZE);
+		try (final var engine = engine(false)) {
+			final var readOp = TestItems.op(OpType.READ, item, null);
+			invoke(engine, readOp);
+			// the same status as the sync engine reports
+			assertEquals(Operation.Status.FAIL_IO, readOp.status());
+		}
+		assertEquals(0, finishCount.get());
+	}
+}
@@ -0,0 +1,108 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.op.OpType;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class DeviceSchedulerTest {
+
+	private Path tmpDirPath = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	@Test
+	public final void testMissingDirDevice() {
+		final var scheduler = new DeviceScheduler(1);
+		final var device = scheduler.device(tmpDirPath);
+		assertNotNull(device);
+		// not created yet, the parent's file store is used
+		assertSame(device, scheduler.device(tmpDirPath.resolve("missing").resolve("dir")));
+	}
+
+	@Test
+	public final void testInFlightLimit() {
+		final var scheduler = new DeviceScheduler(2);
+		final var t1 = scheduler.ticket(tmpDirPath, OpType.CREATE);
+		final var t2 = scheduler.ticket(tmpDirPath, OpType.CREATE);
+		final var t3 = scheduler.ticket(tmpDirPath, OpType.CREATE);
+		assertTrue(scheduler.tryAdmit(t1));
+		assertTrue(scheduler.tryAdmit(t2));
+		assertFalse(scheduler.tryAdmit(t3));
+		assertFalse(scheduler.tryAdmit(t3));
+		final var device = t3.device();
+		assertEquals(2, device.inFlight());
+		assertEquals(1, device.queueDepth());
+		scheduler.release(t1);
+		assertTrue(scheduler.tryAdmit(t3));
+		assertEquals(0, device.queueDepth());
+		assertEquals(1, device.queueDepthMax());
+		assertEquals(1, device.waitCount());
+		assertEquals(3, device.admitCount());
+		scheduler.release(t2);
+		scheduler.release(t3);
+		assertEquals(0, device.inFlight());
+	}
+
+	@Test
+	public final void testTypesAlternate() {
+		final var scheduler = new DeviceScheduler(1);
+		final var read1 = scheduler.ticket(tmpDirPath, OpType.READ);
+		final var read2 = scheduler.ticket(tmpDirPath, OpType.READ);
+		final var update = scheduler.ticket(tmpDirPath, OpType.UPDATE);
+		assertTrue(scheduler.tryAdmit(read1));
+		assertFalse(scheduler.tryAdmit(update));
+		scheduler.release(read1);
+		// the read was admitted last, the waiting update takes the turn even if the read retries first
+		assertFalse(scheduler.tryAdmit(read2));
+		assertTrue(scheduler.tryAdmit(update));
+		scheduler.release(update);
+		assertTrue(scheduler.tryAdmit(read2));
+		scheduler.release(read2);
+	}
+
+	@Test
+	public final void testTypeShare() {
+		final var scheduler = new DeviceScheduler(4);
+		final var reads = new DeviceScheduler.Ticket[4];
+		for (var i = 0; i < reads.length; i++) {
+			reads[i] = scheduler.ticket(tmpDirPath, OpType.READ);
+		}
+		final var update = scheduler.ticket(tmpDirPath, OpType.UPDATE);
+		assertTrue(scheduler.tryAdmit(reads[0]));
+		assertTrue(scheduler.tryAdmit(reads[1]));
+		assertTrue(scheduler.tryAdmit(reads[2]));
+		assertTrue(scheduler.tryAdmit(reads[3]));
+		assertFalse(scheduler.tryAdmit(update));
+		scheduler.release(reads[0]);
+		scheduler.release(reads[1]);
+		// the reads are over their half share while the update is waiting
+		assertFalse(scheduler.tryAdmit(reads[0]));
+		assertTrue(scheduler.tryAdmit(update));
+	}
+}
@@ -0,0 +1,112 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+public class DirIoHelperTest {
+
+	private Path tmpDirPath = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	@Test
+	public final void testCreateParentDir()
+					throws Exception {
+		final var parentDirPath = tmpDirPath.resolve("a").resolve("b");
+		assertEquals(parentDirPath, DirIoHelper.createParentDir(parentDirPath));
+		// existing
+		assertEquals(parentDirPath, DirIoHelper.createParentDir(parentDirPath));
+		// the file is in the way
+		final var filePath = Files.createFile(tmpDirPath.resolve("file"));
+		assertNull(DirIoHelper.createParentDir(filePath.resolve("c")));
+	}
+
+	@Test
+	public final void testCreate()
+					throws Exception {
+		final var dirPath = tmpDirPath.resolve("dir");
+		DirIoHelper.invokeCreate(dirPath);
+		assertTrue(Files.isDirectory(dirPath));
+		try {
+			DirIoHelper.invokeCreate(dirPath);
+			fail();
+		} catch (final FileAlreadyExistsException ignored) {
+		}
+		// the parent directory is not created
+		try {
+			DirIoHelper.invokeCreate(tmpDirPath.resolve("missing").resolve("dir"));
+			fail();
+		} catch (final NoSuchFileException ignored) {
+		}
+	}
+
+	@Test
+	public final void testRead()
+					throws Exception {
+		final var dirPath = Files.createDirectory(tmpDirPath.resolve("dir"));
+		assertEquals(0, DirIoHelper.invokeRead(dirPath));
+		Files.createFile(dirPath.resolve("file0"));
+		Files.createFile(dirPath.resolve("file12"));
+		Files.createDirectory(dirPath.resolve("sub"));
+		// the total length of the entry names
+		assertEquals(5 + 6 + 3, DirIoHelper.invokeRead(dirPath));
+		// the file is stat'ed only
+		assertEquals(0, DirIoHelper.invokeRead(dirPath.resolve("file0")));
+		try {
+			DirIoHelper.invokeRead(tmpDirPath.resolve("missing"));
+			fail();
+		} catch (final NoSuchFileException ignored) {
+		}
+	}
+
+	@Test
+	public final void testDelete()
+					throws Exception {
+		final var dirPath = Files.createDirectory(tmpDirPath.resolve("dir"));
+		Files.createFile(Files.createDirectory(dirPath.resolve("sub")).resolve("file"));
+		try {
+			DirIoHelper.invokeDelete(dirPath, false);
+			fail();
+		} catch (final DirectoryNotEmptyException ignored) {
+		}
+		assertTrue(Files.exists(dirPath));
+		DirIoHelper.invokeDelete(dirPath, true);
+		assertFalse(Files.exists(dirPath));
+		final var emptyDirPath = Files.createDirectory(tmpDirPath.resolve("empty"));
+		DirIoHelper.invokeDelete(emptyDirPath, false);
+		assertFalse(Files.exists(emptyDirPath));
+		try {
+			DirIoHelper.invokeDelete(emptyDirPath, false);
+			fail();
+		} catch (final NoSuchFileException ignored) {
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.DataItemImpl;
+import com.emc.mongoose.base.item.ItemFactoryImpl;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class DirListingCursorTest {
+
+	private static final int COUNT = 1000;
+	private static final int PAGE_SIZE = 64;
+
+	private Path tmpDirPath = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+		for (int i = 0; i < COUNT; i++) {
+			Files.createFile(tmpDirPath.resolve("item" + i));
+		}
+		Files.createFile(tmpDirPath.resolve("other"));
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	@Test
+	public final void testPagesResume()
+					throws Exception {
+		final Set<String> names = new HashSet<>();
+		try (final ListingCursor cursor = new DirListingCursor(tmpDirPath.toString(), "item", ListingMode.ATTRS)) {
+			DataItem lastItem = null;
+			while (!cursor.exhausted()) {
+				assertTrue(cursor.resumesAfter(lastItem));
+				final List<DataItem> page = cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE);
+				for (final DataItem item : page) {
+					assertTrue(item.name(), names.add(item.name()));
+				}
+				if (!page.isEmpty()) {
+					lastItem = page.get(page.size() - 1);
+				}
+			}
+		}
+		assertEquals(COUNT, names.size());
+	}
+
+	@Test
+	public final void testSkipToLastPrevItem()
+					throws Exception {
+		final DataItem lastPrevItem;
+		try (final ListingCursor cursor = new DirListingCursor(tmpDirPath.toString(), null, ListingMode.ATTRS)) {
+			final List<DataItem> page = cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE);
+			assertEquals(PAGE_SIZE, page.size());
+			lastPrevItem = page.get(PAGE_SIZE - 1);
+		}
+		try (final ListingCursor cursor = new DirListingCursor(tmpDirPath.toString(), null, ListingMode.ATTRS)) {
+			assertFalse(cursor.resumesAfter(lastPrevItem));
+			assertTrue(cursor.skipTo(lastPrevItem));
+			assertTrue(cursor.resumesAfter(lastPrevItem));
+			final List<DataItem> rest = cursor.next(new ItemFactoryImpl<>(), 10, 2 * COUNT);
+			assertEquals(COUNT + 1 - PAGE_SIZE, rest.size());
+			assertTrue(cursor.exhausted());
+		}
+	}
+
+	@Test
+	public final void testSkipToMissingItem()
+					throws Exception {
+		try (final ListingCursor cursor = new DirListingCursor(tmpDirPath.toString(), "item", ListingMode.ATTRS)) {
+			assertFalse(cursor.skipTo(new DataItemImpl(tmpDirPath.resolve("other").toString(), 0, 0)));
+			assertTrue(cursor.exhausted());
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+The direct I/O is not supported by some file systems (tmpfs for example), the tests are skipped then. The file store
+block size is used as the driver does.
+*/
+public class DirectIoFileChannelTest {
+
+	private static final Set<OpenOption> OPEN_OPTS = new HashSet<>(
+					Arrays.asList(StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+
+	private Path tmpDirPath = null;
+	private Path filePath = null;
+	private int blockSize = 0;
+	private FileChannel channel = null;
+	private final Random rnd = new Random(0);
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+		filePath = tmpDirPath.resolve("file");
+		// the same block size as the driver uses
+		blockSize = (int) Files.getFileStore(tmpDirPath).getBlockSize();
+		try {
+			// the bounce buffer is smaller than the larger writes so these are split
+			channel = DirectIoFileChannel.open(filePath, OPEN_OPTS, blockSize, new AlignedBufferPool(4 * blockSize));
+		} catch (final IOException | UnsupportedOperationException e) {
+			System.err.println("Direct I/O is not supported: " + e);
+		}
+		assumeTrue(channel != null);
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		if (channel != null) {
+			channel.close();
+		}
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private byte[] randomBytes(final int size) {
+		final var bytes = new byte[size];
+		rnd.nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 Writes the bytes using the heap buffer and applies these to the expected content
+	 @return the expected file content
+	 */
+	private byte[] write(final byte[] expected, final long pos, final byte[] bytes)
+					throws IOException {
+		final var src = ByteBuffer.wrap(bytes);
+		while (src.hasRemaining()) {
+			channel.write(src, pos + src.position());
+		}
+		final var end = (int) pos + bytes.length;
+		final var result = end > expected.length ? Arrays.copyOf(expected, end) : expected;
+		System.arraycopy(bytes, 0, result, (int) pos, bytes.length);
+		return result;
+	}
+
+	private void assertContent(final byte[] expected)
+					throws IOException {
+		// the file is truncated to the logical size
+		assertEquals(expected.length, channel.size());
+		assertEquals(expected.length, Files.size(filePath));
+		assertArrayEquals(expected, Files.readAllBytes(filePath));
+		// the unaligned read through the direct channel
+		final var dst = ByteBuffer.allocate(expected.length + 1);
+		channel.position(0);
+		while (channel.read(dst) > 0) ;
+		assertEquals(expected.length, dst.position());
+		assertArrayEquals(expected, Arrays.copyOf(dst.array(), dst.position()));
+	}
+
+	@Test
+	public final void testUnalignedWrite()
+					throws Exception {
+		var expected = new byte[0];
+		// neither the position nor the size is aligned, the head gap is zero filled
+		expected = write(expected, 100, randomBytes(1000));
+		assertEquals(1100, expected.length);
+		assertContent(expected);
+		// longer than the bounce buffer
+		expected = write(expected, 1100, randomBytes(5 * blockSize + 7));
+		assertContent(expected);
+	}
+
+	@Test
+	public final void testReadModifyWrite()
+					throws Exception {
+		var expected = write(new byte[0], 0, randomBytes(4 * blockSize + 300));
+		// within a single block
+		expected = write(expected, blockSize + 10, randomBytes(20));
+		assertContent(expected);
+		// across the block boundary, both partial blocks keep the neighbour bytes
+		expected = write(expected, 2 * blockSize - 30, randomBytes(60));
+		assertContent(expected);
+		// within the ragged last block
+		expected = write(expected, 4 * blockSize + 100, randomBytes(50));
+		assertContent(expected);
+	}
+
+	@Test
+	public final void testExtend()
+					throws Exception {
+		var expected = write(new byte[0], 0, randomBytes(blockSize + 13));
+		// overwrite the ragged last block tail and extend the file
+		expected = write(expected, blockSize + 5, randomBytes(blockSize));
+		assertContent(expected);
+		// past the end of the file, the gap is zero filled
+		expected = write(expected, 5 * blockSize + 77, randomBytes(33));
+		assertEquals(5 * blockSize + 110, expected.length);
+		assertContent(expected);
+	}
+
+	@Test
+	public final void testAlignedWrite()
+					throws Exception {
+		final var pool = new AlignedBufferPool(2 * blockSize);
+		final var buff = pool.borrow(blockSize);
+		final var bytes = randomBytes(2 * blockSize);
+		buff.put(bytes).flip();
+		// passed through as is
+		assertEquals(2 * blockSize, channel.write(buff, blockSize));
+		final var expected = new byte[3 * blockSize];
+		System.arraycopy(bytes, 0, expected, blockSize, bytes.length);
+		assertContent(expected);
+		pool.release(buff, blockSize);
+	}
+
+	@Test
+	public final void testReadEof()
+					throws Exception {
+		final var expected = write(new byte[0], 0, randomBytes(blockSize + 13));
+		final var dst = ByteBuffer.allocate(100);
+		// short read at the end of the file
+		assertEquals(13, channel.read(dst, blockSize));
+		assertArrayEquals(
+						Arrays.copyOfRange(expected, blockSize, blockSize + 13), Arrays.copyOf(dst.array(), 13));
+		dst.clear();
+		assertEquals(-1, channel.read(dst, blockSize + 13));
+		assertEquals(-1, channel.read(dst, 3 * blockSize + 1));
+	}
+}
@@ -0,0 +1,60 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+public class FanOutLayoutTest {
+
+	private static final String PARENT_PATH = "/tmp/out";
+	private static final int NAME_COUNT = 0x400;
+
+	@Test
+	public final void testItemPath() {
+		final var fs = FsConstants.FS;
+		final var layout = new FanOutLayout(2, 1);
+		for (var i = 0; i < NAME_COUNT; i++) {
+			final var name = Integer.toString(i, Character.MAX_RADIX);
+			final var shardPath = layout.shardPath(layout.shardIndex(name));
+			// resolved twice to check the cached parent path
+			assertEquals(fs.getPath(PARENT_PATH, shardPath, name), layout.itemPath(PARENT_PATH, name));
+			assertEquals(fs.getPath(PARENT_PATH, shardPath, name), layout.itemPath(PARENT_PATH, name));
+			assertEquals(fs.getPath(PARENT_PATH, name), FanOutLayout.FLAT.itemPath(PARENT_PATH, name));
+		}
+		// the listed item having the parent path already
+		assertEquals(fs.getPath(PARENT_PATH, "item"), layout.itemPath(PARENT_PATH, PARENT_PATH + "/item"));
+		assertEquals(fs.getPath("item"), layout.itemPath("", "item"));
+	}
+
+	@Test
+	public final void testItemPathAllocation() {
+		final var threadMxBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(threadMxBean instanceof com.sun.management.ThreadMXBean);
+		final var allocMxBean = (com.sun.management.ThreadMXBean) threadMxBean;
+		assumeTrue(allocMxBean.isThreadAllocatedMemorySupported() && allocMxBean.isThreadAllocatedMemoryEnabled());
+		final var layout = new FanOutLayout(2, 1);
+		final var names = new String[NAME_COUNT];
+		for (var i = 0; i < NAME_COUNT; i++) {
+			names[i] = Integer.toString(i, Character.MAX_RADIX);
+		}
+		final var count = 100_000;
+		// warm up
+		resolve(layout, names, count);
+		final var threadId = Thread.currentThread().getId();
+		final var allocatedBefore = allocMxBean.getThreadAllocatedBytes(threadId);
+		resolve(layout, names, count);
+		final var allocated = allocMxBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		// only the item path itself is allocated, the parent and shard directory paths are cached
+		// (the shard path formatting and the parent path parsing took ~ 1KB per call)
+		assertTrue("Allocated " + allocated + " bytes for " + count + " paths", allocated < 256L * count);
+	}
+
+	private static void resolve(final FanOutLayout layout, final String[] names, final int count) {
+		for (var i = 0; i < count; i++) {
+			layout.itemPath(PARENT_PATH, names[i & (NAME_COUNT - 1)]);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.ItemFactoryImpl;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class FanOutListingCursorTest {
+
+	private static final int COUNT = 1000;
+	private static final int PAGE_SIZE = 64;
+	private static final FanOutLayout LAYOUT = new FanOutLayout(2, 1);
+
+	private Path tmpDirPath = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+		LAYOUT.createShardDirs(tmpDirPath.toString());
+		for (int i = 0; i < COUNT; i++) {
+			Files.createFile(LAYOUT.itemPath(tmpDirPath.toString(), "item" + i));
+		}
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	@Test
+	public final void testItemPathIsStable()
+					throws Exception {
+		final Path itemPath = LAYOUT.itemPath(tmpDirPath.toString(), "item0");
+		assertEquals(tmpDirPath, LAYOUT.rootDir(itemPath));
+		assertEquals(itemPath, LAYOUT.itemPath(tmpDirPath.toString(), itemPath.toString()));
+		assertEquals(2, tmpDirPath.relativize(itemPath.getParent()).getNameCount());
+	}
+
+	@Test
+	public final void testPagesResume()
+					throws Exception {
+		final Set<String> names = new HashSet<>();
+		try (
+						final ListingCursor cursor = new FanOutListingCursor(
+										tmpDirPath.toString(), "item", ListingMode.ATTRS, LAYOUT, null)) {
+			DataItem lastItem = null;
+			while (!cursor.exhausted()) {
+				assertTrue(cursor.resumesAfter(lastItem));
+				final List<DataItem> page = cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE);
+				for (final DataItem item : page) {
+					assertEquals(item.name(), LAYOUT.itemPath(tmpDirPath.toString(), item.name()).toString());
+					assertTrue(item.name(), names.add(item.name()));
+				}
+				if (!page.isEmpty()) {
+					lastItem = page.get(page.size() - 1);
+				}
+			}
+		}
+		assertEquals(COUNT, names.size());
+	}
+
+	@Test
+	public final void testSkipToLastPrevItem()
+					throws Exception {
+		final DataItem lastPrevItem;
+		try (
+						final ListingCursor cursor = new FanOutListingCursor(
+										tmpDirPath.toString(), null, ListingMode.ATTRS, LAYOUT, null)) {
+			final List<DataItem> page = cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE);
+			assertEquals(PAGE_SIZE, page.size());
+			lastPrevItem = page.get(PAGE_SIZE - 1);
+		}
+		try (
+						final ListingCursor cursor = new FanOutListingCursor(
+										tmpDirPath.toString(), null, ListingMode.ATTRS, LAYOUT, null)) {
+			assertTrue(cursor.skipTo(lastPrevItem));
+			final List<DataItem> rest = cursor.next(new ItemFactoryImpl<>(), 10, 2 * COUNT);
+			assertEquals(COUNT - PAGE_SIZE, rest.size());
+			assertTrue(cursor.exhausted());
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FileChannelCacheTest {
+
+	private Path tmpDirPath = null;
+	private FileChannelCache channelCache = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+		for (int i = 0; i < 4; i++) {
+			Files.createFile(tmpDirPath.resolve(Integer.toString(i)));
+		}
+		channelCache = new FileChannelCache(
+						2, path -> FsConstants.FS_PROVIDER.newFileChannel(path, FsConstants.READ_OPEN_OPT));
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		channelCache.close();
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	@Test
+	public final void testReuseReleasedChannel()
+					throws Exception {
+		final Path filePath = tmpDirPath.resolve("0");
+		final FileChannel channel = channelCache.acquire(filePath);
+		assertTrue(channelCache.release(channel));
+		assertSame(channel, channelCache.acquire(filePath));
+		assertTrue(channelCache.release(channel));
+		assertTrue(channel.isOpen());
+		assertEquals(1, channelCache.hitCount());
+		assertEquals(1, channelCache.missCount());
+	}
+
+	@Test
+	public final void testLeasedChannelIsNotShared()
+					throws Exception {
+		final Path filePath = tmpDirPath.resolve("0");
+		final FileChannel channel = channelCache.acquire(filePath);
+		final FileChannel privateChannel = channelCache.acquire(filePath);
+		assertNotSame(channel, privateChannel);
+		assertFalse(channelCache.release(privateChannel));
+		privateChannel.close();
+		assertTrue(channelCache.release(channel));
+		assertEquals(2, channelCache.missCount());
+	}
+
+	@Test
+	public final void testEvictLeastRecentlyUsed()
+					throws Exception {
+		final FileChannel channel0 = channelCache.acquire(tmpDirPath.resolve("0"));
+		channelCache.release(channel0);
+		final FileChannel channel1 = channelCache.acquire(tmpDirPath.resolve("1"));
+		channelCache.release(channel1);
+		// touch the 1st channel so the 2nd becomes the least recently used one
+		channelCache.release(channelCache.acquire(tmpDirPath.resolve("0")));
+		final FileChannel channel2 = channelCache.acquire(tmpDirPath.resolve("2"));
+		channelCache.release(channel2);
+		assertEquals(2, channelCache.size());
+		assertEquals(1, channelCache.evictionCount());
+		assertTrue(channel0.isOpen());
+		assertFalse(channel1.isOpen());
+		assertTrue(channel2.isOpen());
+	}
+
+	@Test
+	public final void testLeasedChannelIsNotEvicted()
+					throws Exception {
+		final FileChannel channel0 = channelCache.acquire(tmpDirPath.resolve("0"));
+		final FileChannel channel1 = channelCache.acquire(tmpDirPath.resolve("1"));
+		final FileChannel channel2 = channelCache.acquire(tmpDirPath.resolve("2"));
+		assertTrue(channel0.isOpen());
+		assertTrue(channel1.isOpen());
+		assertTrue(channel2.isOpen());
+		assertEquals(0, channelCache.evictionCount());
+		channelCache.release(channel0);
+		assertFalse(channel0.isOpen());
+		assertEquals(1, channelCache.evictionCount());
+		channelCache.release(channel1);
+		channelCache.release(channel2);
+		assertEquals(2, channelCache.size());
+	}
+
+	@Test
+	public final void testInvalidateLeasedChannel()
+					throws Exception {
+		final Path filePath = tmpDirPath.resolve("3");
+		final FileChannel channel = channelCache.acquire(filePath);
+		channelCache.invalidate(filePath);
+		assertTrue(channel.isOpen());
+		assertEquals(0, channelCache.size());
+		assertTrue(channelCache.release(channel));
+		assertFalse(channel.isOpen());
+	}
+
+	@Test
+	public final void testSharedLease()
+					throws Exception {
+		final Path filePath = tmpDirPath.resolve("0");
+		final FileChannel channel = channelCache.acquire(filePath, true);
+		assertSame(channel, channelCache.acquire(filePath, true));
+		assertEquals(1, channelCache.shareCount());
+		// the exclusive lease is not given while the channel is shared
+		final FileChannel privateChannel = channelCache.acquire(filePath);
+		assertNotSame(channel, privateChannel);
+		assertFalse(channelCache.release(privateChannel));
+		privateChannel.close();
+		assertTrue(channelCache.release(channel));
+		assertTrue(channel.isOpen());
+		assertTrue(channelCache.release(channel));
+		assertTrue(channel.isOpen());
+		assertFalse(channelCache.release(channel));
+	}
+
+	@Test
+	public final void testExclusiveLeaseIsNotShared()
+					throws Exception {
+		final Path filePath = tmpDirPath.resolve("0");
+		final FileChannel channel = channelCache.acquire(filePath);
+		final FileChannel privateChannel = channelCache.acquire(filePath, true);
+		assertNotSame(channel, privateChannel);
+		assertEquals(0, channelCache.shareCount());
+		assertFalse(channelCache.release(privateChannel));
+		privateChannel.close();
+		assertTrue(channelCache.release(channel));
+	}
+
+	@Test
+	public final void testSharedLeaseWithoutCaching()
+					throws Exception {
+		final FileChannelOpener channelOpener = path -> FsConstants.FS_PROVIDER.newFileChannel(
+						path, FsConstants.READ_OPEN_OPT);
+		try (final FileChannelCache sharingOnlyCache = new FileChannelCache(0, channelOpener)) {
+			final Path filePath = tmpDirPath.resolve("1");
+			final FileChannel channel = sharingOnlyCache.acquire(filePath, true);
+			assertSame(channel, sharingOnlyCache.acquire(filePath, true));
+			assertTrue(sharingOnlyCache.release(channel));
+			assertTrue(channel.isOpen());
+			assertTrue(sharingOnlyCache.release(channel));
+			assertFalse(channel.isOpen());
+			assertEquals(0, sharingOnlyCache.size());
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FileDeleterTest {
+
+	private static final int FILE_COUNT = 1000;
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private Path tmpDirPath = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private Path[] createFiles(final Path dirPath, final int count)
+					throws IOException {
+		final var filePaths = new Path[count];
+		for (var i = 0; i < count; i++) {
+			filePaths[i] = Files.createFile(dirPath.resolve(Integer.toString(i)));
+		}
+		return filePaths;
+	}
+
+	@Test
+	public final void testDeleteFiles()
+					throws Exception {
+		final var filePaths = createFiles(tmpDirPath, FILE_COUNT);
+		final var results = new ConcurrentHashMap<Path, Object>();
+		final var finishCount = new AtomicInteger();
+		final var done = new CountDownLatch(FILE_COUNT);
+		try (final var deleter = new FileDeleter(2, 64, FILE_COUNT)) {
+			for (final var filePath : filePaths) {
+				assertTrue(
+								deleter.submit(
+												filePath,
+												e -> {
+													results.put(filePath, e == null ? Boolean.TRUE : e);
+													finishCount.incrementAndGet();
+													done.countDown();
+												}));
+			}
+			assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		}
+		// each callback is invoked once
+		assertEquals(FILE_COUNT, finishCount.get());
+		for (final var filePath : filePaths) {
+			assertEquals(Boolean.TRUE, results.get(filePath));
+			assertFalse(Files.exists(filePath));
+		}
+	}
+
+	@Test
+	public final void testDeleteMissingFile()
+					throws Exception {
+		final var filePaths = createFiles(tmpDirPath, 2);
+		final var missingFilePath = tmpDirPath.resolve("missing");
+		final var results = new IOException[3];
+		final var done = new CountDownLatch(3);
+		try (final var deleter = new FileDeleter(1, 64, 16)) {
+			deleter.submit(
+							filePaths[0], e -> {
+								results[0] = e;
+								done.countDown();
+							});
+			deleter.submit(
+							missingFilePath, e -> {
+								results[1] = e;
+								done.countDown();
+							});
+			deleter.submit(
+							filePaths[1], e -> {
+								results[2] = e;
+								done.countDown();
+							});
+			assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		}
+		// the missing file fails only its own deletion
+		assertNull(results[0]);
+		assertTrue(results[1] instanceof NoSuchFileException);
+		assertNull(results[2]);
+	}
+
+	@Test
+	public final void testPendingLimit()
+					throws Exception {
+		final var filePaths = createFiles(tmpDirPath, 2);
+		final var callbackEntered = new CountDownLatch(1);
+		final var callbackRelease = new CountDownLatch(1);
+		final var done = new CountDownLatch(2);
+		try (final var deleter = new FileDeleter(1, 1, 1)) {
+			assertTrue(
+							deleter.submit(
+											filePaths[0], e -> {
+												callbackEntered.countDown();
+												try {
+													callbackRelease.await();
+												} catch (final InterruptedException ignored) {
+												}
+												done.countDown();
+											}));
+			assertTrue(callbackEntered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+			// the only permit is held until the batch is done
+			assertFalse(deleter.submit(filePaths[1], e -> done.countDown()));
+			callbackRelease.countDown();
+			var submitted = false;
+			for (var i = 0; i < TIMEOUT_SECONDS * 100 && !submitted; i++) {
+				submitted = deleter.submit(filePaths[1], e -> done.countDown());
+				if (!submitted) {
+					Thread.sleep(10);
+				}
+			}
+			assertTrue(submitted);
+			assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		}
+		assertFalse(Files.exists(filePaths[1]));
+	}
+
+	@Test
+	public final void testDeleteTree()
+					throws Exception {
+		final var rootDirPath = Files.createDirectory(tmpDirPath.resolve("root"));
+		createFiles(rootDirPath, 10);
+		for (var i = 0; i < 4; i++) {
+			final var subDirPath = Files.createDirectories(rootDirPath.resolve("dir" + i).resolve("subdir"));
+			createFiles(subDirPath, 10);
+			createFiles(subDirPath.getParent(), 10);
+		}
+		final var results = new IOException[2];
+		final var finishCount = new AtomicInteger();
+		final var done = new CountDownLatch(2);
+		try (final var deleter = new FileDeleter(2, 64, 16)) {
+			assertTrue(
+							deleter.submitTree(
+											rootDirPath, e -> {
+												results[0] = e;
+												finishCount.incrementAndGet();
+												done.countDown();
+											}));
+			assertTrue(
+							deleter.submitTree(
+											tmpDirPath.resolve("missing"), e -> {
+												results[1] = e;
+												finishCount.incrementAndGet();
+												done.countDown();
+											}));
+			assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		}
+		assertEquals(2, finishCount.get());
+		assertNull(results[0]);
+		assertFalse(Files.exists(rootDirPath));
+		assertTrue(results[1] instanceof NoSuchFileException);
+	}
+
+	@Test
+	public final void testCloseDrains()
+					throws Exception {
+		final var filePaths = createFiles(tmpDirPath, FILE_COUNT);
+		final var finishCount = new AtomicInteger();
+		final var deleter = new FileDeleter(1, 16, FILE_COUNT);
+		for (final var filePath : filePaths) {
+			deleter.submit(
+							filePath, e -> {
+								if (e == null) {
+									finishCount.incrementAndGet();
+								}
+							});
+		}
+		deleter.close();
+		// all the submitted files are deleted before the close returns
+		assertEquals(FILE_COUNT, finishCount.get());
+		for (final var filePath : filePaths) {
+			assertFalse(Files.exists(filePath));
+		}
+		// rejected by the closed deleter with the failure callback
+		final var result = new IOException[1];
+		assertTrue(deleter.submit(tmpDirPath.resolve("any"), e -> result[0] = e));
+		assertTrue(result[0] != null);
+	}
+}
@@ -0,0 +1,181 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataSizeException;
+import com.emc.mongoose.base.item.op.OpType;
+
+import com.github.akurilov.commons.collection.Range;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+
+public class FileIoHelperTest {
+
+	@Test
+	public final void testCoalesceDisjointFixedRanges()
+					throws Exception {
+		final var ranges = List.of(new Range(500, 599, -1), new Range(0, 99, -1), new Range(200, 299, -1));
+		assertArrayEquals(
+						new long[] { 0, 100, 200, 300, 500, 600 }, FileIoHelper.coalesceFixedRanges(ranges, 1000));
+	}
+
+	@Test
+	public final void testCoalesceOverlappingAndAdjacentFixedRanges()
+					throws Exception {
+		final var ranges = List.of(
+						new Range(100, 199, -1), new Range(0, 49, -1), new Range(50, 99, -1), new Range(150, 300, -1),
+						new Range(120, 130, -1));
+		assertArrayEquals(new long[] { 0, 301 }, FileIoHelper.coalesceFixedRanges(ranges, 1000));
+	}
+
+	@Test
+	public final void testCoalesceOpenFixedRanges()
+					throws Exception {
+		// the last 10 bytes and the tail starting @ offset 500
+		final var ranges = List.of(new Range(-1, 10, -1), new Range(500, -1, -1), new Range(10, 19, -1));
+		assertArrayEquals(new long[] { 10, 20, 500, 1000 }, FileIoHelper.coalesceFixedRanges(ranges, 1000));
+	}
+
+	@Test
+	public final void testOverlappingFixedRangesBytesDone()
+					throws Exception {
+		final long fileSize = 0x1_0000;
+		final var tmpDirPath = Files.createTempDirectory(null);
+		try (final var dataInput = TestItems.dataInput()) {
+			final var filePath = tmpDirPath.resolve("item");
+			final var item = TestItems.item(dataInput, "item", fileSize);
+			TestItems.createFile(filePath, item, 0x1000);
+			// 300 + 200 bytes overlapping by 100 bytes and the disjoint 50 bytes
+			final var fixedRanges = List.of(
+							new Range(0, 299, -1), new Range(200, 399, -1), new Range(1000, 1049, -1));
+			final long[] ranges = FileIoHelper.coalesceFixedRanges(fixedRanges, item.size());
+			assertEquals(450, FileIoHelper.rangesSize(ranges));
+			try (final var channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+				final var readOp = TestItems.op(OpType.READ, item, fixedRanges);
+				while (!FileIoHelper.invokeReadFixedRanges(item, readOp, channel, ranges, 0x100)) ;
+				// the overlapping bytes are read and counted once
+				assertEquals(450, readOp.countBytesDone());
+				final var verifyOp = TestItems.op(OpType.READ, item, fixedRanges);
+				while (!FileIoHelper.invokeReadAndVerifyFixedRanges(item, verifyOp, channel, ranges, 0x100)) ;
+				assertEquals(450, verifyOp.countBytesDone());
+			}
+		} finally {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		}
+	}
+
+	@Test
+	public final void testMarkedRangesRunEnd()
+					throws Exception {
+		final var maskRangesPair = new BitSet[] { new BitSet(), new BitSet() };
+		maskRangesPair[0].set(1, 3);
+		maskRangesPair[1].set(3);
+		maskRangesPair[0].set(5);
+		maskRangesPair[1].set(6, 9);
+		// the adjacent ranges marked in the different masks are in the same run
+		assertEquals(4, FileIoHelper.markedRangesRunEnd(maskRangesPair, 1, 7));
+		assertEquals(4, FileIoHelper.markedRangesRunEnd(maskRangesPair, 2, 7));
+		// the run is limited by the range count
+		assertEquals(7, FileIoHelper.markedRangesRunEnd(maskRangesPair, 5, 7));
+		assertEquals(9, FileIoHelper.markedRangesRunEnd(maskRangesPair, 5, 10));
+	}
+
+	@Test
+	public final void testAdvanceMarkedRanges()
+					throws Exception {
+		try (final var dataInput = TestItems.dataInput()) {
+			// the range offsets are: 0, 1, 3, 7, 15, 31, 63, the last range is [63, 100)
+			final var item = TestItems.item(dataInput, "item", 100);
+			final var op = TestItems.op(OpType.READ, item, null);
+			final var maskRangesPair = op.markedRangesMaskPair();
+			maskRangesPair[0].set(1, 3);
+			maskRangesPair[0].set(5);
+			final long rangesSizeSum = op.markedRangesSize();
+			assertEquals(2 + 4 + 32, rangesSizeSum);
+			op.currRangeIdx(1);
+			// inside the run [1, 7) of the ranges #1 and #2
+			assertFalse(FileIoHelper.advanceMarkedRanges(op, maskRangesPair, 1, 3, 7, 4, 7, rangesSizeSum));
+			assertEquals(2, op.currRangeIdx());
+			assertEquals(1, op.countBytesDone());
+			// the run end, move to the next marked range
+			assertFalse(FileIoHelper.advanceMarkedRanges(op, maskRangesPair, 2, 3, 7, 7, 7, rangesSizeSum));
+			assertEquals(5, op.currRangeIdx());
+			assertEquals(0, op.countBytesDone());
+			// the last marked range end
+			assertTrue(FileIoHelper.advanceMarkedRanges(op, maskRangesPair, 5, 6, 63, 63, 7, rangesSizeSum));
+			assertEquals(rangesSizeSum, op.countBytesDone());
+		}
+	}
+
+	@Test
+	public final void testFixedRangesEof()
+					throws Exception {
+		final long fileSize = 0x1_0000;
+		final var tmpDirPath = Files.createTempDirectory(null);
+		try (final var dataInput = TestItems.dataInput()) {
+			final var filePath = tmpDirPath.resolve("item");
+			TestItems.createFile(filePath, TestItems.item(dataInput, "item", fileSize), 0x1000);
+			// the item and its fixed range are larger than the file
+			final var item = TestItems.item(dataInput, "item", fileSize + 1000);
+			final var fixedRanges = List.of(new Range(fileSize - 100, fileSize + 499, -1));
+			final long[] ranges = FileIoHelper.coalesceFixedRanges(fixedRanges, item.size());
+			try (final var channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+				final var readOp = TestItems.op(OpType.READ, item, fixedRanges);
+				while (!FileIoHelper.invokeReadFixedRanges(item, readOp, channel, ranges, 0x1000)) ;
+				// the read stops at the EOF
+				assertEquals(100, readOp.countBytesDone());
+				final var verifyOp = TestItems.op(OpType.READ, item, fixedRanges);
+				try {
+					while (!FileIoHelper.invokeReadAndVerifyFixedRanges(item, verifyOp, channel, ranges, 0x1000)) ;
+					fail("The size mismatch is not detected");
+				} catch (final DataSizeException e) {
+					// the bytes before the EOF are verified
+					assertEquals(100, verifyOp.countBytesDone());
+				}
+			}
+		} finally {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		}
+	}
+
+	@Test
+	public final void testRandomRangesUpdateShortWrites()
+					throws Exception {
+		final long fileSize = 0x1_0000;
+		final var tmpDirPath = Files.createTempDirectory(null);
+		try (final var dataInput = TestItems.dataInput()) {
+			final var filePath = tmpDirPath.resolve("item");
+			final var item = TestItems.item(dataInput, "item", fileSize);
+			TestItems.createFile(filePath, item, 0x1000);
+			final var op = TestItems.op(OpType.UPDATE, item, null);
+			// the run of the adjacent ranges #10, #11, #12 @ [1023, 8191) and the range #14 @ [16383, 32767)
+			final var maskRangesPair = op.markedRangesMaskPair();
+			maskRangesPair[0].set(10, 13);
+			maskRangesPair[0].set(14);
+			// the ranges content is gathered ahead of the short writes ending inside the first gathered range
+			try (
+							final var channel = new ShortTransferFileChannel(
+											FileChannel.open(filePath, StandardOpenOption.WRITE), 100)
+			) {
+				var invocationCount = 0;
+				while (!FileIoHelper.invokeRandomRangesUpdate(item, op, channel, 0x1000)) {
+					assertTrue(++ invocationCount < 1_000);
+				}
+			}
+			assertEquals(op.markedRangesSize(), op.countBytesDone());
+			assertArrayEquals(TestItems.updatedContent(item, maskRangesPair), Files.readAllBytes(filePath));
+		} finally {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		}
+	}
+}
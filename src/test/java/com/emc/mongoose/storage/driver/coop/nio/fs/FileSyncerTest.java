@@ -0,0 +1,178 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FileSyncerTest {
+
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private Path tmpDirPath = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private FileChannel openWritten(final Path filePath)
+					throws IOException {
+		final var channel = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		channel.write(ByteBuffer.allocate(0x1000));
+		return channel;
+	}
+
+	@Test
+	public final void testSync()
+					throws Exception {
+		final var filePath = tmpDirPath.resolve("file");
+		try (
+						final var channel = openWritten(filePath);
+						final var noneSyncer = new FileSyncer(FileSyncer.Mode.NONE, 1, 0);
+						final var fdataSyncer = new FileSyncer(FileSyncer.Mode.FDATASYNC, 1, 0)
+		) {
+			noneSyncer.sync(channel);
+			fdataSyncer.sync(channel);
+			assertEquals(0, noneSyncer.syncCount());
+			assertEquals(1, fdataSyncer.syncCount());
+			assertSame(FsConstants.CREATE_OPEN_OPT, fdataSyncer.openOpts(FsConstants.CREATE_OPEN_OPT));
+		}
+		try (final var dsyncSyncer = new FileSyncer(FileSyncer.Mode.DSYNC, 1, 0)) {
+			assertTrue(dsyncSyncer.openOpts(FsConstants.CREATE_OPEN_OPT).contains(StandardOpenOption.DSYNC));
+		}
+	}
+
+	@Test
+	public final void testGroupBatching()
+					throws Exception {
+		final var opCountPerFile = 4;
+		final var filePath1 = tmpDirPath.resolve("file1");
+		final var filePath2 = tmpDirPath.resolve("file2");
+		final var succCount = new AtomicInteger();
+		final var done = new CountDownLatch(2 * opCountPerFile);
+		try (
+						final var channel1 = openWritten(filePath1);
+						final var channel2 = openWritten(filePath2);
+						final var syncer = new FileSyncer(FileSyncer.Mode.GROUP, 2 * opCountPerFile, 10_000)
+		) {
+			assertTrue(syncer.deferred());
+			for (var i = 0; i < opCountPerFile; i++) {
+				syncer.submit(
+								filePath1, channel1, e -> {
+									if (e == null) {
+										succCount.incrementAndGet();
+									}
+									done.countDown();
+								});
+				syncer.submit(
+								filePath2, channel2, e -> {
+									if (e == null) {
+										succCount.incrementAndGet();
+									}
+									done.countDown();
+								});
+			}
+			// the batch is full before the group interval elapses
+			assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+			assertEquals(2 * opCountPerFile, succCount.get());
+			// each file is forced once per batch
+			assertEquals(2, syncer.syncCount());
+		}
+	}
+
+	@Test
+	public final void testGroupResultPerPath()
+					throws Exception {
+		final var filePath1 = tmpDirPath.resolve("file1");
+		final var filePath2 = tmpDirPath.resolve("file2");
+		final var results = new IOException[3];
+		final var done = new CountDownLatch(3);
+		try (
+						final var channel1 = openWritten(filePath1);
+						final var syncer = new FileSyncer(FileSyncer.Mode.GROUP, 3, 10_000)
+		) {
+			final var channel2 = openWritten(filePath2);
+			channel2.close();
+			syncer.submit(
+							filePath1, channel1, e -> {
+								results[0] = e;
+								done.countDown();
+							});
+			syncer.submit(
+							filePath2, channel2, e -> {
+								results[1] = e;
+								done.countDown();
+							});
+			syncer.submit(
+							filePath1, channel1, e -> {
+								results[2] = e;
+								done.countDown();
+							});
+			assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		}
+		// the failed file fails its own operations only
+		assertNull(results[0]);
+		assertTrue(results[1] instanceof ClosedChannelException);
+		assertNull(results[2]);
+	}
+
+	@Test
+	public final void testGroupCloseDrains()
+					throws Exception {
+		final var opCount = 100;
+		final var filePath = tmpDirPath.resolve("file");
+		final var succCount = new AtomicInteger();
+		final var failCount = new AtomicInteger();
+		try (final var channel = openWritten(filePath)) {
+			// neither the batch size nor the interval is reached before the close
+			final var syncer = new FileSyncer(FileSyncer.Mode.GROUP, 2 * opCount, 60_000);
+			for (var i = 0; i < opCount; i++) {
+				syncer.submit(
+								filePath, channel, e -> {
+									if (e == null) {
+										succCount.incrementAndGet();
+									} else {
+										failCount.incrementAndGet();
+									}
+								});
+			}
+			final long t = System.nanoTime();
+			syncer.close();
+			assertTrue(System.nanoTime() - t < TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS));
+			// all the pending operations are synced, the channel is not closed by the flusher stop
+			assertEquals(opCount, succCount.get());
+			assertEquals(0, failCount.get());
+			assertTrue(channel.isOpen());
+			// rejected by the closed syncer with the failure callback
+			syncer.submit(filePath, channel, e -> failCount.incrementAndGet());
+			assertEquals(1, failCount.get());
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FreeSpaceMonitorTest {
+
+	private static final long REFRESH_INTERVAL = 60_000;
+
+	private Path tmpDirPath = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	@Test
+	public final void testUsableSpaceIsCached()
+					throws Exception {
+		try (final var monitor = new FreeSpaceMonitor("test", REFRESH_INTERVAL, 0)) {
+			final var usableSpace = monitor.usableSpace(tmpDirPath);
+			assertTrue(usableSpace > 0);
+			// the same file store, not refreshed until the interval elapses
+			final var subDirPath = Files.createDirectory(tmpDirPath.resolve("sub"));
+			Files.write(subDirPath.resolve("file"), new byte[0x10000]);
+			assertEquals(usableSpace, monitor.usableSpace(subDirPath));
+			assertFalse(monitor.low(subDirPath));
+		}
+	}
+
+	@Test
+	public final void testUnknownDir() {
+		try (final var monitor = new FreeSpaceMonitor("test", REFRESH_INTERVAL, Long.MAX_VALUE)) {
+			final var missingDirPath = tmpDirPath.resolve("missing");
+			assertEquals(FreeSpaceMonitor.UNKNOWN, monitor.usableSpace(missingDirPath));
+			assertFalse(monitor.low(missingDirPath));
+		}
+	}
+
+	@Test
+	public final void testWatermark()
+					throws Exception {
+		try (final var monitor = new FreeSpaceMonitor("test", REFRESH_INTERVAL, Long.MAX_VALUE)) {
+			assertTrue(monitor.low(tmpDirPath));
+		}
+		try (final var monitor = new FreeSpaceMonitor("test", REFRESH_INTERVAL, 1)) {
+			assertFalse(monitor.low(tmpDirPath));
+			monitor.refresh();
+			assertFalse(monitor.low(tmpDirPath));
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.op.OpType;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IoBufferSizerTest {
+
+	private static final int MIN_SIZE = 0x1000;
+	private static final int MAX_SIZE = 0x10_0000;
+
+	@Test
+	public final void testInvalidRange()
+					throws Exception {
+		try {
+			new IoBufferSizer(0, MAX_SIZE);
+			fail();
+		} catch (final IllegalArgumentException ignored) {
+		}
+		try {
+			new IoBufferSizer(MAX_SIZE, MIN_SIZE);
+			fail();
+		} catch (final IllegalArgumentException ignored) {
+		}
+	}
+
+	@Test
+	public final void testAdjust()
+					throws Exception {
+		final var sizer = new IoBufferSizer(MIN_SIZE, MAX_SIZE);
+		// the max size until adjusted
+		assertEquals(MAX_SIZE, sizer.buffSize(OpType.CREATE));
+		sizer.adjust(100, OpType.CREATE);
+		assertEquals(MIN_SIZE, sizer.buffSize(OpType.CREATE));
+		sizer.adjust(100_000, OpType.CREATE);
+		// rounded up to the power of 2
+		assertEquals(0x2_0000, sizer.buffSize(OpType.CREATE));
+		sizer.adjust(0x1_0000, OpType.CREATE);
+		assertEquals(0x1_0000, sizer.buffSize(OpType.CREATE));
+		sizer.adjust(10 * MAX_SIZE, OpType.CREATE);
+		assertEquals(MAX_SIZE, sizer.buffSize(OpType.CREATE));
+		sizer.adjust(100, OpType.CREATE);
+		// the other operation types are not affected
+		assertEquals(MAX_SIZE, sizer.buffSize(OpType.READ));
+	}
+
+	@Test
+	public final void testRecord()
+					throws Exception {
+		final var sizer = new IoBufferSizer(MIN_SIZE, MAX_SIZE);
+		// the first sample sets the average
+		sizer.record(MIN_SIZE, OpType.READ);
+		assertEquals(MIN_SIZE, sizer.buffSize(OpType.READ));
+		// the empty transfers are not accounted
+		sizer.record(0, OpType.READ);
+		assertEquals(MIN_SIZE, sizer.buffSize(OpType.READ));
+		// follows the larger transfers gradually up to the max size
+		var prevBuffSize = MIN_SIZE;
+		for (var i = 0; i < 100; i++) {
+			sizer.record(10 * MAX_SIZE, OpType.READ);
+			final var buffSize = sizer.buffSize(OpType.READ);
+			assertTrue(buffSize >= prevBuffSize);
+			assertTrue(buffSize <= MAX_SIZE);
+			prevBuffSize = buffSize;
+		}
+		assertEquals(MAX_SIZE, prevBuffSize);
+		// and down to the min size
+		for (var i = 0; i < 100; i++) {
+			sizer.record(1, OpType.READ);
+			final var buffSize = sizer.buffSize(OpType.READ);
+			assertTrue(buffSize <= prevBuffSize);
+			assertTrue(buffSize >= MIN_SIZE);
+			prevBuffSize = buffSize;
+		}
+		assertEquals(MIN_SIZE, prevBuffSize);
+	}
+}
@@ -0,0 +1,114 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.ItemFactoryImpl;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class ManifestListingCursorTest {
+
+	private static final int COUNT = 10_000;
+	private static final int PAGE_SIZE = 64;
+	// less than the min window size, so the window is moved many times
+	private static final long WINDOW_SIZE = 1;
+
+	private Path tmpDirPath = null;
+	private Path manifestPath = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+		manifestPath = tmpDirPath.resolve(".mongoose-manifest");
+		try (final ManifestWriter manifestWriter = new ManifestWriter(manifestPath)) {
+			for (int i = 0; i < COUNT; i++) {
+				manifestWriter.append(tmpDirPath.resolve("item" + i).toString(), i, 10 * i, 0);
+			}
+		}
+		// reopened writer should append w/o the header
+		try (final ManifestWriter manifestWriter = new ManifestWriter(manifestPath)) {
+			manifestWriter.append(tmpDirPath.resolve("other").toString(), 0, 0, 0);
+		}
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	@Test
+	public final void testPagesWithPrefix()
+					throws Exception {
+		int i = 0;
+		try (final ListingCursor cursor = new ManifestListingCursor(manifestPath, "item", WINDOW_SIZE)) {
+			while (!cursor.exhausted()) {
+				final List<DataItem> page = cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE);
+				for (final DataItem item : page) {
+					assertEquals(tmpDirPath.resolve("item" + i).toString(), item.name());
+					assertEquals(i, item.offset());
+					assertEquals(10 * i, item.size());
+					i++;
+				}
+			}
+		}
+		assertEquals(COUNT, i);
+	}
+
+	@Test
+	public final void testSkipToLastPrevItem()
+					throws Exception {
+		final DataItem lastPrevItem;
+		try (final ListingCursor cursor = new ManifestListingCursor(manifestPath, null, WINDOW_SIZE)) {
+			final List<DataItem> page = cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE);
+			assertEquals(PAGE_SIZE, page.size());
+			lastPrevItem = page.get(PAGE_SIZE - 1);
+		}
+		try (final ListingCursor cursor = new ManifestListingCursor(manifestPath, null, WINDOW_SIZE)) {
+			assertTrue(cursor.skipTo(lastPrevItem));
+			assertTrue(cursor.resumesAfter(lastPrevItem));
+			final List<DataItem> rest = cursor.next(new ItemFactoryImpl<>(), 10, 2 * COUNT);
+			assertEquals(COUNT + 1 - PAGE_SIZE, rest.size());
+			assertTrue(cursor.exhausted());
+		}
+	}
+
+	@Test
+	public final void testTruncatedRecord()
+					throws Exception {
+		try (final FileChannel channel = FileChannel.open(manifestPath, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 1);
+		}
+		try (final ListingCursor cursor = new ManifestListingCursor(manifestPath, null, WINDOW_SIZE)) {
+			assertEquals(COUNT, cursor.next(new ItemFactoryImpl<>(), 10, 2 * COUNT).size());
+			assertTrue(cursor.exhausted());
+		}
+	}
+
+	@Test
+	public final void testInvalidManifest()
+					throws Exception {
+		Files.write(manifestPath, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		try (final ListingCursor cursor = new ManifestListingCursor(manifestPath, null, WINDOW_SIZE)) {
+			fail();
+		} catch (final IOException expected) {
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+public class MemFileChannelTest {
+
+	private FileSystem fs = null;
+	private Path filePath = null;
+
+	@Before
+	public final void setUp() {
+		fs = new MemFileSystemProvider().newFileSystem(URI.create("mem:///"), Map.of());
+		filePath = fs.getPath("/file");
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		fs.close();
+	}
+
+	private FileChannel open(final StandardOpenOption... opts)
+					throws IOException {
+		return FileChannel.open(filePath, opts);
+	}
+
+	private static ByteBuffer content(final long pos, final int size) {
+		final var buff = ByteBuffer.allocate(size);
+		for (var i = 0; i < size; i++) {
+			buff.put((byte) (pos + i));
+		}
+		return buff.flip();
+	}
+
+	private static void assertContent(final long pos, final ByteBuffer buff) {
+		for (var i = buff.position(); i < buff.limit(); i++) {
+			assertEquals("Byte at " + (pos + i), (byte) (pos + i), buff.get(i));
+		}
+	}
+
+	@Test
+	public final void testChunkLayout() {
+		assertEquals(0, MemFile.chunkIndex(0));
+		assertEquals(0, MemFile.chunkIndex(4095));
+		assertEquals(1, MemFile.chunkIndex(4096));
+		assertEquals(1, MemFile.chunkIndex(3 * 4096 - 1));
+		assertEquals(2, MemFile.chunkIndex(3 * 4096));
+		for (var i = 0; i < 20; i++) {
+			assertEquals(i, MemFile.chunkIndex(MemFile.chunkOffset(i)));
+			assertEquals(i, MemFile.chunkIndex(MemFile.chunkOffset(i) + MemFile.chunkSize(i) - 1));
+			assertEquals(MemFile.chunkOffset(i + 1), MemFile.chunkOffset(i) + MemFile.chunkSize(i));
+		}
+		assertEquals(1 << MemFile.MAX_CHUNK_SHIFT, MemFile.chunkSize(100));
+	}
+
+	@Test
+	public final void testWriteReadAcrossChunks()
+					throws Exception {
+		final var size = 5_000_000;
+		try (final var channel = open(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			final var buff = content(0, size);
+			while (buff.hasRemaining()) {
+				channel.write(buff);
+			}
+			assertEquals(size, channel.position());
+			assertEquals(size, channel.size());
+		}
+		try (final var channel = open(StandardOpenOption.READ)) {
+			final var buff = ByteBuffer.allocateDirect(size + 1);
+			int n;
+			while ((n = channel.read(buff)) >= 0) {
+				assertTrue(n > 0);
+			}
+			assertEquals(size, buff.position());
+			assertContent(0, buff.flip());
+		}
+	}
+
+	@Test
+	public final void testPositionalIo()
+					throws Exception {
+		try (final var channel = open(StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final long pos = 4090;
+			assertEquals(20, channel.write(content(pos, 20), pos));
+			assertEquals(0, channel.position());
+			assertEquals(pos + 20, channel.size());
+			final var buff = ByteBuffer.allocate(30);
+			assertEquals(20, channel.read(buff, pos));
+			assertContent(pos, buff.flip());
+			assertEquals(-1, channel.read(ByteBuffer.allocate(1), pos + 20));
+		}
+	}
+
+	@Test
+	public final void testHoleReadsZeros()
+					throws Exception {
+		try (final var channel = open(StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final long pos = 3 * 4096 + 100;
+			channel.write(content(pos, 10), pos);
+			final var buff = ByteBuffer.allocate((int) pos);
+			assertEquals(pos, channel.read(buff, 0));
+			buff.flip();
+			while (buff.hasRemaining()) {
+				assertEquals(0, buff.get());
+			}
+		}
+	}
+
+	@Test
+	public final void testTransfer()
+					throws Exception {
+		final var size = 100_000;
+		try (final var channel = open(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			final var src = Channels.newChannel(new ByteArrayInputStream(content(0, size).array()));
+			long pos = 0;
+			while (pos < size) {
+				pos += channel.transferFrom(src, pos, size - pos);
+			}
+			assertEquals(size, channel.size());
+		}
+		final var dstPath = fs.getPath("/copy");
+		try (
+						final var srcChannel = open(StandardOpenOption.READ);
+						final var dstChannel = FileChannel.open(dstPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)
+		) {
+			long pos = 10;
+			while (pos < size) {
+				pos += srcChannel.transferTo(pos, size - pos, dstChannel);
+			}
+			assertEquals(size - 10, dstChannel.size());
+		}
+		try (final var channel = FileChannel.open(dstPath, StandardOpenOption.READ)) {
+			final var buff = ByteBuffer.allocate(size);
+			assertEquals(size - 10, channel.read(buff, 0));
+			assertContent(10, buff.flip());
+		}
+	}
+
+	@Test
+	public final void testTruncate()
+					throws Exception {
+		try (final var channel = open(StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			channel.write(content(0, 10_000));
+			channel.truncate(5000);
+			assertEquals(5000, channel.size());
+			assertEquals(5000, channel.position());
+			// the truncated tail should read as zeros after the extension
+			channel.write(content(0, 1), 9999);
+			final var buff = ByteBuffer.allocate(4999);
+			assertEquals(4999, channel.read(buff, 5000));
+			buff.flip();
+			while (buff.hasRemaining()) {
+				assertEquals(0, buff.get());
+			}
+		}
+		try (final var channel = open(StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			assertEquals(0, channel.size());
+		}
+	}
+
+	@Test
+	public final void testAppend()
+					throws Exception {
+		try (final var channel = open(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			channel.write(content(0, 100));
+		}
+		try (final var channel = open(StandardOpenOption.APPEND)) {
+			channel.write(content(100, 100));
+			assertEquals(200, channel.size());
+		}
+		try (final var channel = open(StandardOpenOption.READ)) {
+			final var buff = ByteBuffer.allocate(200);
+			assertEquals(200, channel.read(buff));
+			assertContent(0, buff.flip());
+		}
+	}
+}
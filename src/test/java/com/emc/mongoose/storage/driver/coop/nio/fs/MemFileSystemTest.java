@@ -0,0 +1,156 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.ItemFactoryImpl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class MemFileSystemTest {
+
+	private static final URI FS_URI = URI.create("mem://test/");
+
+	private FileSystem fs = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		fs = FileSystems.newFileSystem(FS_URI, Map.of(), MemFileSystemTest.class.getClassLoader());
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		fs.close();
+	}
+
+	@Test
+	public final void testProviderLookup()
+					throws Exception {
+		assertTrue(fs instanceof MemFileSystem);
+		assertSame(fs, FileSystems.getFileSystem(FS_URI));
+		try {
+			fs.provider().newFileSystem(FS_URI, Map.of());
+			fail();
+		} catch (final FileSystemAlreadyExistsException expected) {
+		}
+		assertEquals(fs.getPath("/a/b"), fs.provider().getPath(URI.create("mem://test/a/b")));
+	}
+
+	@Test
+	public final void testPaths() {
+		final var path = fs.getPath("/a/b/c");
+		assertTrue(path.isAbsolute());
+		assertEquals(3, path.getNameCount());
+		assertEquals("c", path.getFileName().toString());
+		assertEquals(fs.getPath("/a/b"), path.getParent());
+		assertEquals(fs.getPath("/a/b/c/d"), path.resolve("d"));
+		assertEquals(fs.getPath("/x/y"), fs.getPath("/x", "y"));
+		assertEquals(fs.getPath("c"), fs.getPath("/a/b").relativize(path));
+		assertEquals(fs.getPath("/a/c"), fs.getPath("/a/./b/../c").normalize());
+		assertTrue(path.startsWith(fs.getPath("/a")));
+		assertTrue(path.endsWith(fs.getPath("b/c")));
+		assertNull(fs.getPath("/").getFileName());
+	}
+
+	@Test
+	public final void testFilesApi()
+					throws Exception {
+		final var dirPath = fs.getPath("/dir/sub");
+		Files.createDirectories(dirPath);
+		assertTrue(Files.isDirectory(dirPath));
+		final var filePath = dirPath.resolve("file");
+		Files.write(filePath, new byte[] { 1, 2, 3 });
+		assertTrue(Files.isRegularFile(filePath));
+		assertEquals(3, Files.size(filePath));
+		try {
+			Files.createFile(filePath);
+			fail();
+		} catch (final FileAlreadyExistsException expected) {
+		}
+		try {
+			Files.delete(dirPath);
+			fail();
+		} catch (final DirectoryNotEmptyException expected) {
+		}
+		final var movedPath = fs.getPath("/dir/moved");
+		Files.move(filePath, movedPath);
+		assertFalse(Files.exists(filePath));
+		Files.copy(movedPath, filePath);
+		Files.move(filePath, movedPath, StandardCopyOption.REPLACE_EXISTING);
+		assertEquals(3, Files.readAllBytes(movedPath).length);
+		Files.delete(movedPath);
+		Files.delete(dirPath);
+		try {
+			Files.delete(movedPath);
+			fail();
+		} catch (final NoSuchFileException expected) {
+		}
+		try {
+			Files.createFile(fs.getPath("/none/file"));
+			fail();
+		} catch (final NoSuchFileException expected) {
+		}
+	}
+
+	@Test
+	public final void testFanOutListing()
+					throws Exception {
+		final var count = 1000;
+		final var layout = new FanOutLayout(fs, 1, 1);
+		final var dirPath = "/items";
+		Files.createDirectories(fs.getPath(dirPath));
+		layout.createShardDirs(dirPath);
+		for (var i = 0; i < count; i++) {
+			Files.write(layout.itemPath(dirPath, "item" + i), new byte[i % 10]);
+		}
+		final Set<String> names = new HashSet<>();
+		try (final var cursor = ListingHelper.dirCursor(dirPath, "item", ListingMode.ATTRS, layout, null)) {
+			while (!cursor.exhausted()) {
+				final List<DataItem> page = cursor.next(new ItemFactoryImpl<>(), 10, 64);
+				for (final var item : page) {
+					assertTrue(item.name(), names.add(item.name()));
+					assertEquals(Files.size(fs.getPath(item.name())), item.size());
+				}
+			}
+		}
+		assertEquals(count, names.size());
+	}
+
+	@Test
+	public final void testRecursiveDelete()
+					throws Exception {
+		final var dirPath = fs.getPath("/tree");
+		for (var i = 0; i < 10; i++) {
+			final var subDirPath = dirPath.resolve("d" + i);
+			Files.createDirectories(subDirPath);
+			for (var j = 0; j < 10; j++) {
+				Files.createFile(subDirPath.resolve("f" + j));
+			}
+		}
+		DirIoHelper.invokeDelete(dirPath, true);
+		assertFalse(Files.exists(dirPath));
+	}
+}
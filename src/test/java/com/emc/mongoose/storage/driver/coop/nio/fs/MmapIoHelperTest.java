@@ -0,0 +1,215 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataCorruptionException;
+import com.emc.mongoose.base.data.DataInput;
+import com.emc.mongoose.base.data.DataSizeException;
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.op.OpType;
+import com.emc.mongoose.base.item.op.data.DataOperation;
+
+import com.github.akurilov.commons.collection.Range;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static com.emc.mongoose.base.item.DataItem.rangeCount;
+
+public class MmapIoHelperTest {
+
+	private static final int BUFF_SIZE = 0x10000;
+	private static final long WINDOW_SIZE = 0x1_0000;
+	private static final long ITEM_SIZE = 0x10_0000 + 123;
+	private static final int MAX_INVOCATIONS = 1_000;
+
+	private Path tmpDirPath = null;
+	private Path filePath = null;
+	private DataInput dataInput = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+		filePath = tmpDirPath.resolve("item");
+		dataInput = TestItems.dataInput();
+		TestItems.createFile(filePath, TestItems.item(dataInput, "item", ITEM_SIZE), BUFF_SIZE);
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		dataInput.close();
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private interface Invocation {
+		boolean invoke(final FileChannel channel)
+						throws IOException;
+	}
+
+	/**
+	 Invokes the read until it's done as the driver does
+	 @return the count of the invocations
+	 */
+	private int invoke(final Invocation invocation)
+					throws IOException {
+		try (final var channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+			for (var i = 1; i <= MAX_INVOCATIONS; i++) {
+				if (invocation.invoke(channel)) {
+					return i;
+				}
+			}
+		}
+		throw new AssertionError("The read is not done after " + MAX_INVOCATIONS + " invocations");
+	}
+
+	/**
+	 @return the corrupted content offset as the driver reports it
+	 */
+	private long corruptionOffset(final DataOperation<DataItem> op, final Invocation invocation)
+					throws IOException {
+		try {
+			invoke(invocation);
+		} catch (final DataCorruptionException e) {
+			return op.countBytesDone() + e.getOffset();
+		}
+		fail("The corruption is not detected");
+		return -1;
+	}
+
+	@Test
+	public final void testReadEof()
+					throws Exception {
+		// the item is larger than the file
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE + 1000);
+		final var op = TestItems.op(OpType.READ, item, null);
+		final var invocationCount = invoke(channel -> MmapIoHelper.invokeRead(item, op, channel, WINDOW_SIZE));
+		// the item size is shrunk to the actual file size
+		assertEquals(ITEM_SIZE, item.size());
+		assertEquals(ITEM_SIZE, op.countBytesDone());
+		// one window per invocation + the one detecting the EOF
+		assertEquals((ITEM_SIZE + WINDOW_SIZE - 1) / WINDOW_SIZE + 1, invocationCount);
+	}
+
+	@Test
+	public final void testReadAndVerify()
+					throws Exception {
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		final var op = TestItems.op(OpType.READ, item, null);
+		final var invocationCount = invoke(
+						channel -> MmapIoHelper.invokeReadAndVerify(item, op, channel, WINDOW_SIZE));
+		assertEquals(ITEM_SIZE, op.countBytesDone());
+		assertEquals((ITEM_SIZE + WINDOW_SIZE - 1) / WINDOW_SIZE, invocationCount);
+	}
+
+	@Test
+	public final void testReadAndVerifyEof()
+					throws Exception {
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE + 1000);
+		final var op = TestItems.op(OpType.READ, item, null);
+		try {
+			invoke(channel -> MmapIoHelper.invokeReadAndVerify(item, op, channel, WINDOW_SIZE));
+			fail("The size mismatch is not detected");
+		} catch (final DataSizeException e) {
+			// the whole file content is verified before
+			assertEquals(ITEM_SIZE, op.countBytesDone());
+		}
+	}
+
+	@Test
+	public final void testReadAndVerifyCorrupted()
+					throws Exception {
+		// not the first window
+		final long corruptOffset = 3 * WINDOW_SIZE + 0x123;
+		TestItems.corrupt(filePath, corruptOffset);
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		final var op = TestItems.op(OpType.READ, item, null);
+		assertEquals(
+						corruptOffset,
+						corruptionOffset(op, channel -> MmapIoHelper.invokeReadAndVerify(item, op, channel, WINDOW_SIZE)));
+	}
+
+	private static DataOperation<DataItem> allRangesOp(final DataItem item) {
+		final var op = TestItems.op(OpType.READ, item, null);
+		op.markedRangesMaskPair()[0].set(0, rangeCount(item.size()));
+		return op;
+	}
+
+	@Test
+	public final void testReadAndVerifyRandomRanges()
+					throws Exception {
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		final var op = allRangesOp(item);
+		final var invocationCount = invoke(
+						channel -> MmapIoHelper.invokeReadAndVerifyRandomRanges(
+										item, op, channel, op.markedRangesMaskPair(), WINDOW_SIZE));
+		assertEquals(op.markedRangesSize(), op.countBytesDone());
+		// the ranges larger than the window are verified in several invocations
+		assertTrue(invocationCount > rangeCount(ITEM_SIZE));
+	}
+
+	@Test
+	public final void testReadRandomRanges()
+					throws Exception {
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		final var op = TestItems.op(OpType.READ, item, null);
+		// the run of the adjacent ranges #10, #11, #12 and the last range which is larger than the window
+		op.markedRangesMaskPair()[0].set(10, 13);
+		op.markedRangesMaskPair()[0].set(rangeCount(ITEM_SIZE) - 1);
+		final var invocationCount = invoke(
+						channel -> MmapIoHelper.invokeReadRandomRanges(
+										item, op, channel, op.markedRangesMaskPair(), WINDOW_SIZE));
+		assertEquals(op.markedRangesSize(), op.countBytesDone());
+		// the run is mapped at once, the last range is mapped window by window
+		final long lastRangeSize = ITEM_SIZE - DataItem.rangeOffset(rangeCount(ITEM_SIZE) - 1);
+		assertEquals(1 + (lastRangeSize + WINDOW_SIZE - 1) / WINDOW_SIZE, invocationCount);
+	}
+
+	@Test
+	public final void testReadFixedRanges()
+					throws Exception {
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		// the overlapping ranges are merged into [0x100, 0x2_0100), the tail range exceeds the file
+		final var fixedRanges = List.of(
+						new Range(0x100, 0x1_00FF, -1), new Range(0x1_0000, 0x2_00FF, -1),
+						new Range(ITEM_SIZE - 10, ITEM_SIZE + 10, -1));
+		final long[] ranges = FileIoHelper.coalesceFixedRanges(fixedRanges, ITEM_SIZE);
+		final var op = TestItems.op(OpType.READ, item, fixedRanges);
+		invoke(channel -> MmapIoHelper.invokeReadFixedRanges(item, op, channel, ranges, WINDOW_SIZE));
+		// the read stops at the EOF
+		assertEquals(1, op.currRangeIdx());
+		assertEquals(10, op.countBytesDone());
+	}
+
+	@Test
+	public final void testReadAndVerifyRandomRangesCorrupted()
+					throws Exception {
+		// the range before the last one is larger than the window, the corrupted byte is not in its first window
+		final long rangeOffset = DataItem.rangeOffset(rangeCount(ITEM_SIZE) - 2);
+		final long corruptOffset = rangeOffset + 2 * WINDOW_SIZE + 0x321;
+		TestItems.corrupt(filePath, corruptOffset);
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		final var op = allRangesOp(item);
+		assertEquals(
+						corruptOffset,
+						corruptionOffset(
+										op,
+										channel -> MmapIoHelper.invokeReadAndVerifyRandomRanges(
+														item, op, channel, op.markedRangesMaskPair(), WINDOW_SIZE)));
+	}
+}
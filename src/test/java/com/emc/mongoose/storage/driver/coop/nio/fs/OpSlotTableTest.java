@@ -0,0 +1,175 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OpSlotTableTest {
+
+	private static final int COLUMN_COUNT = 2;
+
+	@Test
+	public final void testAcquireRelease() {
+		final var table = new OpSlotTable(4, COLUMN_COUNT);
+		final var op1 = new Object();
+		final var op2 = new Object();
+		assertEquals(OpSlotTable.NO_SLOT, table.find(op1));
+		final var slot1 = table.acquire(op1);
+		final var slot2 = table.acquire(op2);
+		assertNotEquals(slot1, slot2);
+		assertEquals(slot1, table.acquire(op1));
+		assertEquals(slot2, table.find(op2));
+		table.set(slot1, 1, "value1");
+		assertSame("value1", table.get(slot1, 1));
+		assertNull(table.get(slot2, 1));
+		assertEquals(2, table.size());
+		assertEquals(slot1, table.release(op1));
+		// the values are kept until the slot is freed
+		assertSame("value1", table.get(slot1, 1));
+		assertEquals(OpSlotTable.NO_SLOT, table.release(op1));
+		assertEquals(OpSlotTable.NO_SLOT, table.find(op1));
+		table.free(slot1);
+		assertNull(table.get(slot1, 1));
+		assertEquals(1, table.size());
+		assertEquals(slot2, table.find(op2));
+	}
+
+	@Test
+	public final void testGrow() {
+		final var table = new OpSlotTable(1, COLUMN_COUNT);
+		final var initCapacity = table.capacity();
+		final var ops = new Object[initCapacity * 3];
+		final var slots = new HashSet<Integer>();
+		for (var i = 0; i < ops.length; i++) {
+			ops[i] = new Object();
+			final var slot = table.acquire(ops[i]);
+			assertTrue(slots.add(slot));
+			table.set(slot, 0, ops[i]);
+		}
+		assertTrue(table.capacity() >= ops.length);
+		for (final var op : ops) {
+			final var slot = table.find(op);
+			assertSame(op, table.get(slot, 0));
+		}
+	}
+
+	@Test
+	public final void testSlotsReuse() {
+		final var table = new OpSlotTable(8, COLUMN_COUNT);
+		final var capacity = table.capacity();
+		// many more operations than slots pass through the table, the removed keys don't exhaust the index
+		for (var i = 0; i < capacity * 100; i++) {
+			final var op = new Object();
+			final var slot = table.acquire(op);
+			table.set(slot, 0, op);
+			table.free(table.release(op));
+		}
+		assertEquals(0, table.size());
+		assertEquals(capacity, table.capacity());
+	}
+
+	@Test
+	public final void testConcurrentAcquireRelease()
+					throws Exception {
+		final var table = new OpSlotTable(16, COLUMN_COUNT);
+		final var errCount = new AtomicInteger();
+		final var threads = new Thread[8];
+		for (var t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(
+							() -> {
+								for (var i = 0; i < 100_000; i++) {
+									final var op = new Object();
+									final var slot = table.acquire(op);
+									table.set(slot, 0, op);
+									if (table.find(op) != slot || table.get(slot, 0) != op) {
+										errCount.incrementAndGet();
+									}
+									table.free(table.release(op));
+								}
+							});
+			threads[t].start();
+		}
+		for (final var thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, errCount.get());
+		assertEquals(0, table.size());
+	}
+
+	@Test
+	public final void testGetConcurrentlyReleased()
+					throws Exception {
+		final var table = new OpSlotTable(1, COLUMN_COUNT);
+		final var op = new Object();
+		final var otherOp = new Object();
+		final var iterationCount = 1_000_000;
+		final var done = new AtomicBoolean();
+		// the operation is released in the background, the freed slot is taken by the other operation then
+		final var finisher = new Thread(
+						() -> {
+							for (var i = 0; i < iterationCount; i++) {
+								table.set(table.acquire(op), 0, op);
+								table.free(table.release(op));
+								table.set(table.acquire(otherOp), 0, otherOp);
+								table.free(table.release(otherOp));
+							}
+							done.set(true);
+						});
+		finisher.start();
+		var errCount = 0;
+		while (!done.get()) {
+			final var value = table.get(op, 0);
+			if (value != null && value != op) {
+				errCount++;
+			}
+		}
+		finisher.join();
+		assertEquals(0, errCount);
+		assertNull(table.get(op, 0));
+	}
+
+	@Test
+	public final void testAllocationFree() {
+		final var threadMxBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(threadMxBean instanceof com.sun.management.ThreadMXBean);
+		final var allocMxBean = (com.sun.management.ThreadMXBean) threadMxBean;
+		assumeTrue(allocMxBean.isThreadAllocatedMemorySupported() && allocMxBean.isThreadAllocatedMemoryEnabled());
+		final var table = new OpSlotTable(0x400, COLUMN_COUNT);
+		final var ops = new Object[0x100];
+		for (var i = 0; i < ops.length; i++) {
+			ops[i] = new Object();
+		}
+		final var value = new Object();
+		final var opCount = 1_000_000;
+		// warm up
+		cycle(table, ops, value, opCount);
+		final var threadId = Thread.currentThread().getId();
+		final var allocatedBefore = allocMxBean.getThreadAllocatedBytes(threadId);
+		cycle(table, ops, value, opCount);
+		final var allocated = allocMxBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		// a few lookups per operation invocation, the map keyed by the operation allocates ~ 32 bytes per operation
+		assertTrue("Allocated " + allocated + " bytes for " + opCount + " operations", allocated < opCount / 10);
+	}
+
+	private static void cycle(final OpSlotTable table, final Object[] ops, final Object value, final int opCount) {
+		for (var i = 0; i < opCount; i++) {
+			final var op = ops[i & (ops.length - 1)];
+			final var slot = table.acquire(op);
+			if (table.get(slot, 0) == null) {
+				table.set(slot, 0, value);
+			}
+			if (table.find(op) == slot && (i & 3) == 3) {
+				table.free(table.release(op));
+			}
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PackIndexTest {
+
+	private static final int COUNT = 100_000;
+
+	@Test
+	public final void testPutFindRemove()
+					throws Exception {
+		final PackIndex index = new PackIndex();
+		for (int i = 0; i < COUNT; i++) {
+			index.put(Integer.toString(i, Character.MAX_RADIX), i % 7, 10L * i, i);
+		}
+		assertEquals(COUNT, index.count());
+		// remove every other entry, the rest should be still found after the entries are shifted back
+		for (int i = 0; i < COUNT; i += 2) {
+			assertTrue(index.remove(Integer.toString(i, Character.MAX_RADIX)));
+		}
+		assertFalse(index.remove("0"));
+		assertEquals(COUNT / 2, index.count());
+		int slot;
+		for (int i = 0; i < COUNT; i++) {
+			slot = index.find(Integer.toString(i, Character.MAX_RADIX));
+			if (i % 2 == 0) {
+				assertEquals(-1, slot);
+			} else {
+				assertEquals(i % 7, index.container(slot));
+				assertEquals(10L * i, index.position(slot));
+				assertEquals(i, index.size(slot));
+				assertEquals(Integer.toString(i, Character.MAX_RADIX), index.name(slot));
+			}
+		}
+	}
+
+	@Test
+	public final void testReplace()
+					throws Exception {
+		final PackIndex index = new PackIndex();
+		index.put("item", 0, 0, 10);
+		index.put("item", 1, 20, 30);
+		assertEquals(1, index.count());
+		final int slot = index.find("item");
+		assertEquals(1, index.container(slot));
+		assertEquals(20, index.position(slot));
+		assertEquals(30, index.size(slot));
+	}
+
+	@Test
+	public final void testNameStartsWith()
+					throws Exception {
+		final PackIndex index = new PackIndex();
+		index.put("item0", 0, 0, 10);
+		index.put("it", 0, 10, 10);
+		final int slot = index.find("item0");
+		assertTrue(index.nameStartsWith(slot, ""));
+		assertTrue(index.nameStartsWith(slot, "item"));
+		assertTrue(index.nameStartsWith(slot, "item0"));
+		assertFalse(index.nameStartsWith(slot, "item01"));
+		assertFalse(index.nameStartsWith(slot, "iten"));
+		assertFalse(index.nameStartsWith(index.find("it"), "item"));
+	}
+
+	@Test
+	public final void testReuseRemovedNamesSpace()
+					throws Exception {
+		final PackIndex index = new PackIndex();
+		for (int i = 0; i < COUNT; i++) {
+			index.put("item" + i, 0, i, 1);
+			assertTrue(index.remove("item" + i));
+		}
+		assertEquals(0, index.count());
+		index.put("item", 0, 0, 1);
+		assertTrue(index.find("item") >= 0);
+	}
+}
@@ -0,0 +1,228 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Set;
+
+public class PackStoreTest {
+
+	private static final String NAME = ".mongoose-pack";
+	private static final long CONTAINER_SIZE = 100;
+
+	private Path tmpDirPath = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private PackStore openStore()
+					throws IOException {
+		return new PackStore(tmpDirPath, NAME, CONTAINER_SIZE, AllocMode.SPARSE, Set.of());
+	}
+
+	private static void write(final FileChannel channel, final String content)
+					throws IOException {
+		final var buff = ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII));
+		while (buff.hasRemaining()) {
+			channel.write(buff);
+		}
+	}
+
+	private static String read(final FileChannel channel)
+					throws IOException {
+		final var buff = ByteBuffer.allocate((int) channel.size() + 1);
+		int n;
+		do {
+			n = channel.read(buff, buff.position());
+		} while (n > 0);
+		buff.flip();
+		return StandardCharsets.US_ASCII.decode(buff).toString();
+	}
+
+	@Test
+	public final void testPackAndReopen()
+					throws Exception {
+		try (final PackStore store = openStore()) {
+			for (int i = 0; i < 10; i++) {
+				// 30 bytes each, so 3 items per container
+				try (final PackRegionChannel region = store.allocate("item" + i, 30)) {
+					write(region, String.format("%030d", i));
+					region.commit();
+				}
+			}
+			assertEquals(10, store.count());
+			assertEquals(String.format("%030d", 5), read(store.open("item5")));
+		}
+		assertTrue(Files.exists(tmpDirPath.resolve(NAME + PackStore.INDEX_SUFFIX)));
+		assertTrue(Files.exists(tmpDirPath.resolve(NAME + ".00000003")));
+		assertFalse(Files.exists(tmpDirPath.resolve(NAME + ".00000004")));
+		try (final PackStore store = openStore()) {
+			assertEquals(10, store.count());
+			for (int i = 0; i < 10; i++) {
+				assertEquals(String.format("%030d", i), read(store.open("item" + i)));
+			}
+			assertTrue(store.remove("item0"));
+			assertFalse(store.remove("item0"));
+			// the new items go to the new container
+			try (final PackRegionChannel region = store.allocate("item10", 30)) {
+				write(region, String.format("%030d", 10));
+				region.commit();
+			}
+		}
+		assertTrue(Files.exists(tmpDirPath.resolve(NAME + ".00000004")));
+		try (final PackStore store = openStore()) {
+			assertEquals(10, store.count());
+			assertEquals(String.format("%030d", 10), read(store.open("item10")));
+			try {
+				store.open("item0");
+				fail();
+			} catch (final NoSuchFileException ignored) {
+			}
+		}
+	}
+
+	@Test
+	public final void testUncommittedItemIsNotVisible()
+					throws Exception {
+		try (final PackStore store = openStore()) {
+			try (final PackRegionChannel region = store.allocate("item", 10)) {
+				write(region, "0123456789");
+			}
+			try {
+				store.open("item");
+				fail();
+			} catch (final NoSuchFileException ignored) {
+			}
+		}
+	}
+
+	@Test
+	public final void testIndexLogReplay()
+					throws Exception {
+		// the store is not closed, as if the process crashed
+		final PackStore crashedStore = openStore();
+		for (int i = 0; i < 5; i++) {
+			try (final PackRegionChannel region = crashedStore.allocate("item" + i, 30)) {
+				write(region, String.format("%030d", i));
+				region.commit();
+			}
+		}
+		assertTrue(crashedStore.remove("item1"));
+		// the incomplete record logged while crashing
+		final var indexPath = tmpDirPath.resolve(NAME + PackStore.INDEX_SUFFIX);
+		final long indexSize = Files.size(indexPath);
+		Files.write(indexPath, new byte[] { 0, 5, 0, 'i' }, StandardOpenOption.APPEND);
+		try (final PackStore store = openStore()) {
+			assertEquals(4, store.count());
+			for (int i = 0; i < 5; i++) {
+				if (i == 1) {
+					try {
+						store.open("item1");
+						fail();
+					} catch (final NoSuchFileException ignored) {
+					}
+				} else {
+					assertEquals(String.format("%030d", i), read(store.open("item" + i)));
+				}
+			}
+			// the incomplete record is dropped before the new records are logged
+			assertEquals(indexSize, Files.size(indexPath));
+			try (final PackRegionChannel region = store.allocate("item5", 30)) {
+				write(region, String.format("%030d", 5));
+				region.commit();
+			}
+		}
+		try (final PackStore store = openStore()) {
+			assertEquals(5, store.count());
+			assertEquals(String.format("%030d", 5), read(store.open("item5")));
+			final var names = new ArrayList<String>();
+			final long[] sizes = store.snapshot("item", names);
+			assertEquals(5, names.size());
+			assertEquals(5, sizes.length);
+			for (final long size : sizes) {
+				assertEquals(30, size);
+			}
+			names.clear();
+			assertEquals(1, store.snapshot("item5", names).length);
+			assertEquals("item5", names.get(0));
+		}
+	}
+
+	@Test
+	public final void testUncommittedTailRegionReclaimed()
+					throws Exception {
+		try (final PackStore store = openStore()) {
+			final PackRegionChannel region0 = store.allocate("item0", 10);
+			final PackRegionChannel region1 = store.allocate("item1", 10);
+			final PackRegionChannel region2 = store.allocate("item2", 10);
+			write(region0, "0000000000");
+			region0.commit();
+			region0.close();
+			// not the last region allocated, the space is not reused
+			region1.close();
+			// the last region allocated is reclaimed
+			region2.close();
+			try (final PackRegionChannel region3 = store.allocate("item3", 10)) {
+				write(region3, "3333333333");
+				region3.commit();
+			}
+			final var containerContent = new String(
+							Files.readAllBytes(store.containerPath(0)), StandardCharsets.US_ASCII);
+			assertEquals("3333333333", containerContent.substring(20, 30));
+			assertEquals(2, store.count());
+		}
+	}
+
+	@Test
+	public final void testRegionBounds()
+					throws Exception {
+		try (final PackStore store = openStore()) {
+			final PackRegionChannel region0 = store.allocate("item0", 10);
+			final PackRegionChannel region1 = store.allocate("item1", 10);
+			write(region1, "abcdefghij");
+			// the write beyond the region end is truncated and then fails
+			final var buff = ByteBuffer.wrap("01234567890123".getBytes(StandardCharsets.US_ASCII));
+			assertEquals(10, region0.write(buff));
+			try {
+				region0.write(buff);
+				fail();
+			} catch (final IOException ignored) {
+			}
+			assertEquals("0123456789", read(region0));
+			assertEquals("abcdefghij", read(region1));
+			assertEquals(-1, region0.read(ByteBuffer.allocate(1), 10));
+			// the big item gets the dedicated container
+			final PackRegionChannel bigRegion = store.allocate("big", 2 * CONTAINER_SIZE);
+			assertEquals(2 * CONTAINER_SIZE, bigRegion.size());
+			assertEquals(2 * CONTAINER_SIZE, Files.size(tmpDirPath.resolve(NAME + ".00000001")));
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.op.OpType;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PhaseTimerTest {
+
+	@Test
+	public final void testBucketValueIsLowerBound()
+					throws Exception {
+		for (long value = 0; value < 0x1_00_00; value++) {
+			final int i = PhaseTimer.bucketIndex(value);
+			assertTrue(Long.toString(value), PhaseTimer.bucketValue(i) <= value);
+			assertTrue(Long.toString(value), PhaseTimer.bucketValue(i + 1) > value);
+		}
+	}
+
+	@Test
+	public final void testRelativeError()
+					throws Exception {
+		for (long value = 8; value > 0; value += value / 3) {
+			final long lowerBound = PhaseTimer.bucketValue(PhaseTimer.bucketIndex(value));
+			assertTrue(Long.toString(value), (value - lowerBound) * 8 <= value);
+		}
+		assertEquals(15L << 59, PhaseTimer.bucketValue(PhaseTimer.bucketIndex(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public final void testRecordAndReport()
+					throws Exception {
+		try (final PhaseTimer phaseTimer = new PhaseTimer("test", 0)) {
+			long t = System.nanoTime();
+			for (int i = 0; i < 1000; i++) {
+				t = phaseTimer.record(OpType.CREATE, PhaseTimer.Phase.OPEN, t);
+			}
+			phaseTimer.report();
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+Transfers at most the given count of the bytes per the read or the write call, including the scattering reads and the
+gathering writes, as the file system may do.
+*/
+final class ShortTransferFileChannel
+				extends FileChannel {
+
+	private final FileChannel channel;
+	private final int maxCount;
+
+	ShortTransferFileChannel(final FileChannel channel, final int maxCount) {
+		this.channel = channel;
+		this.maxCount = maxCount;
+	}
+
+	@Override
+	public final int read(final ByteBuffer dst)
+					throws IOException {
+		final int limit = dst.limit();
+		dst.limit(dst.position() + Math.min(dst.remaining(), maxCount));
+		try {
+			return channel.read(dst);
+		} finally {
+			dst.limit(limit);
+		}
+	}
+
+	@Override
+	public final long read(final ByteBuffer[] dsts, final int offset, final int length)
+					throws IOException {
+		long n = 0;
+		for (var i = offset; i < offset + length && n < maxCount; i++) {
+			final var dst = dsts[i];
+			final int limit = dst.limit();
+			dst.limit(dst.position() + (int) Math.min(dst.remaining(), maxCount - n));
+			final int m = channel.read(dst);
+			dst.limit(limit);
+			if (m < 0) {
+				return n == 0 ? -1 : n;
+			}
+			n += m;
+		}
+		return n;
+	}
+
+	@Override
+	public final int write(final ByteBuffer src)
+					throws IOException {
+		final int limit = src.limit();
+		src.limit(src.position() + Math.min(src.remaining(), maxCount));
+		try {
+			return channel.write(src);
+		} finally {
+			src.limit(limit);
+		}
+	}
+
+	@Override
+	public final long write(final ByteBuffer[] srcs, final int offset, final int length)
+					throws IOException {
+		long n = 0;
+		for (var i = offset; i < offset + length && n < maxCount; i++) {
+			final var src = srcs[i];
+			final int limit = src.limit();
+			src.limit(src.position() + (int) Math.min(src.remaining(), maxCount - n));
+			n += channel.write(src);
+			src.limit(limit);
+		}
+		return n;
+	}
+
+	@Override
+	public final long position()
+					throws IOException {
+		return channel.position();
+	}
+
+	@Override
+	public final FileChannel position(final long newPosition)
+					throws IOException {
+		channel.position(newPosition);
+		return this;
+	}
+
+	@Override
+	public final long size()
+					throws IOException {
+		return channel.size();
+	}
+
+	@Override
+	public final FileChannel truncate(final long size)
+					throws IOException {
+		channel.truncate(size);
+		return this;
+	}
+
+	@Override
+	public final void force(final boolean metaData)
+					throws IOException {
+		channel.force(metaData);
+	}
+
+	@Override
+	public final long transferTo(final long position, final long count, final WritableByteChannel target)
+					throws IOException {
+		return channel.transferTo(position, Math.min(count, maxCount), target);
+	}
+
+	@Override
+	public final long transferFrom(final ReadableByteChannel src, final long position, final long count)
+					throws IOException {
+		return channel.transferFrom(src, position, Math.min(count, maxCount));
+	}
+
+	@Override
+	public final int read(final ByteBuffer dst, final long position)
+					throws IOException {
+		final int limit = dst.limit();
+		dst.limit(dst.position() + Math.min(dst.remaining(), maxCount));
+		try {
+			return channel.read(dst, position);
+		} finally {
+			dst.limit(limit);
+		}
+	}
+
+	@Override
+	public final int write(final ByteBuffer src, final long position)
+					throws IOException {
+		final int limit = src.limit();
+		src.limit(src.position() + Math.min(src.remaining(), maxCount));
+		try {
+			return channel.write(src, position);
+		} finally {
+			src.limit(limit);
+		}
+	}
+
+	@Override
+	public final MappedByteBuffer map(final MapMode mode, final long position, final long size)
+					throws IOException {
+		return channel.map(mode, position, size);
+	}
+
+	@Override
+	public final FileLock lock(final long position, final long size, final boolean shared)
+					throws IOException {
+		return channel.lock(position, size, shared);
+	}
+
+	@Override
+	public final FileLock tryLock(final long position, final long size, final boolean shared)
+					throws IOException {
+		return channel.tryLock(position, size, shared);
+	}
+
+	@Override
+	protected final void implCloseChannel()
+					throws IOException {
+		channel.close();
+	}
+}
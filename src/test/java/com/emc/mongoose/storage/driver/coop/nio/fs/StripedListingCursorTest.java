@@ -0,0 +1,134 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.ItemFactoryImpl;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class StripedListingCursorTest {
+
+	private static final int COUNT = 1000;
+	private static final int PAGE_SIZE = 64;
+	private static final String DIR = "/out";
+
+	private Path tmpDirPath = null;
+	private StripeSet stripes = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+		stripes = new StripeSet(
+						List.of(tmpDirPath.resolve("root0"), tmpDirPath.resolve("root1"), tmpDirPath.resolve("root2")),
+						StripeSet.Mode.HASH, 2);
+		for (var i = 0; i < stripes.size(); i++) {
+			Files.createDirectories(StripeSet.path(stripes.get(i), tmpDirPath.getFileSystem().getPath(DIR)));
+		}
+		for (var i = 0; i < COUNT; i++) {
+			final var logicalPath = tmpDirPath.getFileSystem().getPath(DIR, "item" + i);
+			Files.createFile(StripeSet.path(stripes.select(logicalPath), logicalPath));
+		}
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private ListingCursor openCursor() {
+		return new StripedListingCursor(
+						stripes, tmpDirPath.getFileSystem().getPath(DIR),
+						path -> new DirListingCursor(path, "item", ListingMode.NAMES));
+	}
+
+	@Test
+	public final void testPathMapping() {
+		final var fs = tmpDirPath.getFileSystem();
+		final var logicalPath = fs.getPath(DIR, "item0");
+		final var stripe = stripes.select(logicalPath);
+		assertSame(stripe, stripes.locate(logicalPath));
+		final var physicalPath = StripeSet.path(stripe, logicalPath);
+		assertEquals(stripe.root().resolve("out").resolve("item0"), physicalPath);
+		assertEquals(logicalPath.toString(), StripeSet.logicalName(stripe, physicalPath.toString(), true));
+		assertEquals("out/item0", StripeSet.logicalName(stripe, physicalPath.toString(), false));
+		assertEquals(physicalPath, StripeSet.path(stripe, fs.getPath("out/item0")));
+	}
+
+	@Test
+	public final void testInFlightLimit() {
+		final var stripe = stripes.get(0);
+		final var lease0 = stripes.tryAcquire(stripe);
+		final var lease1 = stripes.tryAcquire(stripe);
+		assertNull(stripes.tryAcquire(stripe));
+		assertEquals(2, stripe.inFlight());
+		stripes.release(lease0, 10);
+		assertSame(stripe, stripes.tryAcquire(stripe).stripe());
+		stripes.release(lease1, 20);
+		assertEquals(2, stripe.opCount());
+		assertEquals(30, stripe.byteCount());
+	}
+
+	@Test
+	public final void testPagesResume()
+					throws Exception {
+		final Set<String> names = new HashSet<>();
+		DataItem lastItem = null;
+		while (true) {
+			// the new cursor for each page, so each page is the rescan
+			try (final ListingCursor cursor = openCursor()) {
+				assertTrue(cursor.skipTo(lastItem));
+				final List<DataItem> page = cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE);
+				for (final DataItem item : page) {
+					assertTrue(item.name(), item.name().startsWith(DIR + "/item"));
+					assertTrue(item.name(), names.add(item.name()));
+				}
+				if (page.isEmpty() || cursor.exhausted()) {
+					break;
+				}
+				lastItem = page.get(page.size() - 1);
+			}
+		}
+		assertEquals(COUNT, names.size());
+	}
+
+	@Test
+	public final void testMissingRootDir()
+					throws Exception {
+		final var missingRootPath = tmpDirPath.resolve("missing");
+		final var stripesWithMissingRoot = new StripeSet(
+						List.of(stripes.get(0).root(), missingRootPath, stripes.get(1).root(), stripes.get(2).root()),
+						StripeSet.Mode.HASH, 0);
+		var count = 0;
+		try (
+						final ListingCursor cursor = new StripedListingCursor(
+										stripesWithMissingRoot, tmpDirPath.getFileSystem().getPath(DIR),
+										path -> new DirListingCursor(path, "item", ListingMode.NAMES))
+		) {
+			while (!cursor.exhausted()) {
+				count += cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE).size();
+			}
+		}
+		assertEquals(COUNT, count);
+		assertFalse(Files.exists(missingRootPath));
+	}
+}
@@ -0,0 +1,99 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataInput;
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.DataItemImpl;
+import com.emc.mongoose.base.item.op.OpType;
+import com.emc.mongoose.base.item.op.Operation;
+import com.emc.mongoose.base.item.op.data.DataOperation;
+import com.emc.mongoose.base.item.op.data.DataOperationImpl;
+
+import com.github.akurilov.commons.collection.Range;
+import com.github.akurilov.commons.system.SizeInBytes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+The data items and the operations for the I/O tests.
+*/
+final class TestItems {
+
+	static final String DATA_SEED = "7a42d9c483244167";
+
+	private TestItems() {
+	}
+
+	static DataInput dataInput()
+					throws IOException {
+		return DataInput.instance(null, DATA_SEED, new SizeInBytes("4MB"), 16);
+	}
+
+	static DataItem item(final DataInput dataInput, final String name, final long size) {
+		final var item = new DataItemImpl(name, 0, size);
+		item.dataInput(dataInput);
+		return item;
+	}
+
+	/**
+	 @return the new active operation
+	 */
+	static DataOperation<DataItem> op(final OpType opType, final DataItem item, final List<Range> fixedRanges) {
+		final var op = new DataOperationImpl<>(0, opType, item, null, null, null, fixedRanges, 0);
+		op.status(Operation.Status.ACTIVE);
+		return op;
+	}
+
+	/**
+	 Creates the file with the item's content, the item's position is reset then.
+	 */
+	static void createFile(final Path filePath, final DataItem item, final int buffSize)
+					throws IOException {
+		try (final FileChannel channel = FileChannel.open(filePath, FsConstants.CREATE_OPEN_OPT)) {
+			final var op = op(OpType.CREATE, item, null);
+			while (!FileIoHelper.invokeCreate(item, op, channel, buffSize)) ;
+		}
+		item.reset();
+	}
+
+	/**
+	 @return the item's content having the marked ranges replaced with the next layer content as the update writes
+	 */
+	static byte[] updatedContent(final DataItem item, final BitSet[] maskRangesPair)
+					throws IOException {
+		final long itemSize = item.size();
+		final var content = ByteBuffer.allocate((int) itemSize);
+		for (var i = 0; i < DataItem.rangeCount(itemSize); i++) {
+			final long rangeOffset = DataItem.rangeOffset(i);
+			final DataItem range = item.slice(rangeOffset, Math.min(itemSize, DataItem.rangeOffset(i + 1)) - rangeOffset);
+			if (maskRangesPair[0].get(i) || maskRangesPair[1].get(i)) {
+				range.layer(item.layer() + 1);
+			}
+			content.limit((int) (rangeOffset + range.size()));
+			while (content.hasRemaining() && range.read(content) > 0) ;
+		}
+		return content.array();
+	}
+
+	/**
+	 Flips the bits of the byte at the given offset in the file.
+	 */
+	static void corrupt(final Path filePath, final long offset)
+					throws IOException {
+		try (
+						final FileChannel channel = FileChannel.open(
+										filePath, StandardOpenOption.READ, StandardOpenOption.WRITE)
+		) {
+			final var buff = ByteBuffer.allocate(1);
+			channel.read(buff, offset);
+			buff.put(0, (byte) ~buff.get(0));
+			buff.rewind();
+			channel.write(buff, offset);
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.item.DataItem;
+import com.emc.mongoose.base.item.DataItemImpl;
+import com.emc.mongoose.base.item.ItemFactoryImpl;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+The order of the files listed is not deterministic, so the listed names are compared as the sets.
+*/
+public class TreeListingCursorTest {
+
+	private static final String PREFIX = "item";
+	private static final String EXCLUDED_FILE_NAME = "item-excluded";
+	private static final int PAGE_SIZE = 7;
+
+	private Path tmpDirPath = null;
+	private final Set<String> expectedNames = new HashSet<>();
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+		final var dirPaths = List.of(
+						tmpDirPath, Files.createDirectories(tmpDirPath.resolve("dir0")),
+						Files.createDirectories(tmpDirPath.resolve("dir0").resolve("subdir")),
+						// the directories are walked regardless of the prefix
+						Files.createDirectories(tmpDirPath.resolve(PREFIX + "dir")));
+		Files.createDirectories(tmpDirPath.resolve("empty"));
+		var i = 0;
+		for (final var dirPath : dirPaths) {
+			for (var j = 0; j < 10; j++, i++) {
+				expectedNames.add(Files.createFile(dirPath.resolve(PREFIX + i)).toAbsolutePath().toString());
+			}
+			Files.createFile(dirPath.resolve("other" + i));
+			Files.createFile(dirPath.resolve(EXCLUDED_FILE_NAME));
+		}
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private ListingCursor openCursor() {
+		return new TreeListingCursor(tmpDirPath, PREFIX, 2, EXCLUDED_FILE_NAME);
+	}
+
+	/**
+	 Lists the remaining files page by page, checks each name is listed once
+	 */
+	private static void listRemaining(final ListingCursor cursor, final Set<String> names)
+					throws IOException {
+		while (!cursor.exhausted()) {
+			final List<DataItem> page = cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE);
+			assertTrue(page.size() <= PAGE_SIZE);
+			for (final var item : page) {
+				assertTrue(item.name(), names.add(item.name()));
+				assertEquals(item == page.get(page.size() - 1), cursor.resumesAfter(item));
+			}
+		}
+	}
+
+	@Test
+	public final void testListAll()
+					throws Exception {
+		final Set<String> names = new HashSet<>();
+		try (final var cursor = openCursor()) {
+			assertTrue(cursor.resumesAfter(null));
+			listRemaining(cursor, names);
+			assertTrue(cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE).isEmpty());
+		}
+		// the whole tree, the prefix filter and the excluded name are applied to the files only
+		assertEquals(expectedNames, names);
+	}
+
+	@Test
+	public final void testSkipTo()
+					throws Exception {
+		final DataItem lastItem;
+		try (final var cursor = openCursor()) {
+			final List<DataItem> page = cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE);
+			assertEquals(PAGE_SIZE, page.size());
+			lastItem = page.get(PAGE_SIZE - 1);
+		}
+		// the cursor is lost, the new one rescans up to the last item in its own order
+		try (final var cursor = openCursor()) {
+			assertTrue(cursor.skipTo(null));
+			assertTrue(cursor.skipTo(lastItem));
+			assertTrue(cursor.resumesAfter(lastItem));
+			final Set<String> names = new HashSet<>();
+			listRemaining(cursor, names);
+			assertFalse(names.contains(lastItem.name()));
+			assertTrue(expectedNames.containsAll(names));
+		}
+		// the last item is missing
+		try (final var cursor = openCursor()) {
+			assertFalse(cursor.skipTo(new DataItemImpl(tmpDirPath.resolve("missing").toString(), 0, 0)));
+			assertTrue(cursor.exhausted());
+			assertTrue(cursor.next(new ItemFactoryImpl<>(), 10, PAGE_SIZE).isEmpty());
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package com.emc.mongoose.storage.driver.coop.nio.fs;
+
+import com.emc.mongoose.base.data.DataCorruptionException;
+import com.emc.mongoose.base.data.DataInput;
+import com.emc.mongoose.base.item.op.OpType;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class VectorIoHelperTest {
+
+	private static final int BUFF_SIZE = 0x1000;
+	private static final int VECTOR_COUNT = 4;
+	// the last buffer of the full vector is shorter than the buffer size
+	private static final long VECTOR_SIZE = 3 * BUFF_SIZE + 123;
+	private static final long ITEM_SIZE = 0x1_0000 + 45;
+	// not aligned to the buffer size
+	private static final int MAX_TRANSFER_SIZE = 5000;
+	private static final int MAX_INVOCATIONS = 1_000;
+
+	private Path tmpDirPath = null;
+	private Path filePath = null;
+	private DataInput dataInput = null;
+
+	@Before
+	public final void setUp()
+					throws Exception {
+		tmpDirPath = Files.createTempDirectory(null);
+		filePath = tmpDirPath.resolve("item");
+		dataInput = TestItems.dataInput();
+	}
+
+	@After
+	public final void tearDown()
+					throws Exception {
+		dataInput.close();
+		try {
+			FileUtils.deleteDirectory(tmpDirPath.toFile());
+		} catch (final IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private interface Invocation {
+		boolean invoke(final FileChannel channel)
+						throws IOException;
+	}
+
+	/**
+	 Invokes the transfer until it's done as the driver does
+	 @return the count of the invocations
+	 */
+	private static int invoke(final FileChannel channel, final Invocation invocation)
+					throws IOException {
+		for (var i = 1; i <= MAX_INVOCATIONS; i++) {
+			if (invocation.invoke(channel)) {
+				return i;
+			}
+		}
+		throw new AssertionError("The transfer is not done after " + MAX_INVOCATIONS + " invocations");
+	}
+
+	private static long vectorCount(final long size) {
+		return (size + VECTOR_SIZE - 1) / VECTOR_SIZE;
+	}
+
+	private void createAndVerify(final boolean shortTransfers)
+					throws IOException {
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		final var createOp = TestItems.op(OpType.CREATE, item, null);
+		try (
+						final var channel = shortTransfers ?
+										new ShortTransferFileChannel(
+														FileChannel.open(filePath, FsConstants.CREATE_OPEN_OPT), MAX_TRANSFER_SIZE) :
+										FileChannel.open(filePath, FsConstants.CREATE_OPEN_OPT)
+		) {
+			final var invocationCount = invoke(
+							channel, c -> VectorIoHelper.invokeCreate(item, createOp, c, BUFF_SIZE, VECTOR_COUNT, VECTOR_SIZE));
+			if (!shortTransfers) {
+				assertEquals(vectorCount(ITEM_SIZE), invocationCount);
+			}
+		}
+		assertEquals(ITEM_SIZE, createOp.countBytesDone());
+		assertEquals(ITEM_SIZE, Files.size(filePath));
+		// verify the content written by the single buffer reads
+		item.reset();
+		final var verifyOp = TestItems.op(OpType.READ, item, null);
+		try (final var channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+			invoke(channel, c -> FileIoHelper.invokeReadAndVerify(item, verifyOp, c, BUFF_SIZE));
+		}
+		assertEquals(ITEM_SIZE, verifyOp.countBytesDone());
+	}
+
+	@Test
+	public final void testVectorBuffers()
+					throws Exception {
+		var vector = IoVector.threadLocal(VECTOR_COUNT, VECTOR_SIZE);
+		vector.addAll(ITEM_SIZE, BUFF_SIZE);
+		// limited by the vector size, the last buffer is cut
+		assertTrue(vector.isFull());
+		assertEquals(4, vector.count());
+		assertEquals(BUFF_SIZE, vector.buff(2).remaining());
+		assertEquals(123, vector.buff(3).remaining());
+		// the buffers are reused
+		final var buff = vector.buff(0);
+		vector = IoVector.threadLocal(VECTOR_COUNT, ITEM_SIZE);
+		assertEquals(0, vector.count());
+		vector.addAll(BUFF_SIZE + 10, BUFF_SIZE);
+		// covers the byte count, the last buffer is shorter
+		assertFalse(vector.isFull());
+		assertEquals(2, vector.count());
+		assertEquals(10, vector.buff(1).remaining());
+		assertSame(buff, vector.buff(0));
+		// limited by the buffers count
+		vector = IoVector.threadLocal(2, ITEM_SIZE);
+		vector.addAll(ITEM_SIZE, BUFF_SIZE);
+		assertTrue(vector.isFull());
+		assertEquals(2, vector.count());
+	}
+
+	@Test
+	public final void testCreateAndRead()
+					throws Exception {
+		createAndVerify(false);
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		try (final var channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+			final var readOp = TestItems.op(OpType.READ, item, null);
+			invoke(channel, c -> VectorIoHelper.invokeRead(item, readOp, c, BUFF_SIZE, VECTOR_COUNT, VECTOR_SIZE));
+			assertEquals(ITEM_SIZE, readOp.countBytesDone());
+			final var verifyOp = TestItems.op(OpType.READ, item, null);
+			final var invocationCount = invoke(
+							channel,
+							c -> VectorIoHelper.invokeReadAndVerify(item, verifyOp, c, BUFF_SIZE, VECTOR_COUNT, VECTOR_SIZE));
+			assertEquals(ITEM_SIZE, verifyOp.countBytesDone());
+			assertEquals(vectorCount(ITEM_SIZE), invocationCount);
+		}
+	}
+
+	@Test
+	public final void testShortTransfers()
+					throws Exception {
+		// the gathering writes are partial
+		createAndVerify(true);
+		// the scattering reads are partial
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		try (
+						final var channel = new ShortTransferFileChannel(
+										FileChannel.open(filePath, StandardOpenOption.READ), MAX_TRANSFER_SIZE)
+		) {
+			final var verifyOp = TestItems.op(OpType.READ, item, null);
+			final var invocationCount = invoke(
+							channel,
+							c -> VectorIoHelper.invokeReadAndVerify(item, verifyOp, c, BUFF_SIZE, VECTOR_COUNT, VECTOR_SIZE));
+			assertEquals(ITEM_SIZE, verifyOp.countBytesDone());
+			assertEquals((ITEM_SIZE + MAX_TRANSFER_SIZE - 1) / MAX_TRANSFER_SIZE, invocationCount);
+		}
+	}
+
+	@Test
+	public final void testReadAndVerifyCorrupted()
+					throws Exception {
+		createAndVerify(false);
+		// not the first vector, not the first buffer
+		final long corruptOffset = VECTOR_SIZE + 2 * BUFF_SIZE + 0x12;
+		TestItems.corrupt(filePath, corruptOffset);
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		final var op = TestItems.op(OpType.READ, item, null);
+		try (final var channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+			invoke(channel, c -> VectorIoHelper.invokeReadAndVerify(item, op, c, BUFF_SIZE, VECTOR_COUNT, VECTOR_SIZE));
+			fail("The corruption is not detected");
+		} catch (final DataCorruptionException e) {
+			// as the driver reports
+			assertEquals(corruptOffset, op.countBytesDone() + e.getOffset());
+		}
+	}
+
+	@Test
+	public final void testRandomRangesShortTransfers()
+					throws Exception {
+		createAndVerify(false);
+		final var item = TestItems.item(dataInput, "item", ITEM_SIZE);
+		final var op = TestItems.op(OpType.UPDATE, item, null);
+		// the run of the adjacent ranges #10, #11, #12 @ [1023, 8191) and the range #14 @ [16383, 32767)
+		final var maskRangesPair = op.markedRangesMaskPair();
+		maskRangesPair[0].set(10, 13);
+		maskRangesPair[0].set(14);
+		// the gathering writes end inside the first range of the vector
+		try (
+						final var channel = new ShortTransferFileChannel(
+										FileChannel.open(filePath, StandardOpenOption.WRITE), 100)
+		) {
+			invoke(
+							channel,
+							c -> VectorIoHelper.invokeRandomRangesUpdate(item, op, c, BUFF_SIZE, VECTOR_COUNT, VECTOR_SIZE));
+		}
+		assertEquals(op.markedRangesSize(), op.countBytesDone());
+		assertArrayEquals(TestItems.updatedContent(item, maskRangesPair), Files.readAllBytes(filePath));
+		// the scattering reads end inside the first range of the vector
+		final var updatedItem = TestItems.item(dataInput, "item", ITEM_SIZE);
+		updatedItem.layer(1);
+		final var verifyOp = TestItems.op(OpType.READ, updatedItem, null);
+		verifyOp.markedRangesMaskPair()[0].set(10, 13);
+		verifyOp.markedRangesMaskPair()[0].set(14);
+		try (
+						final var channel = new ShortTransferFileChannel(
+										FileChannel.open(filePath, StandardOpenOption.READ), 100)
+		) {
+			invoke(
+							channel,
+							c -> VectorIoHelper.invokeReadAndVerifyRandomRanges(
+											updatedItem, verifyOp, c, verifyOp.markedRangesMaskPair(), BUFF_SIZE, VECTOR_COUNT,
+											VECTOR_SIZE));
+		}
+		assertEquals(verifyOp.markedRangesSize(), verifyOp.countBytesDone());
+	}
+}